@@ -0,0 +1,52 @@
+package mindtrack.bench;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scoring and formatting a single activity of each type
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityBenchmark {
+
+    @Param({"Sleep", "Meditation", "Journaling", "ScreenTime"})
+    public String type;
+
+    private Object activity;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        SplittableRandom random = new SplittableRandom(History.SEED);
+        activity = History.activity(Arrays.asList(History.TYPES).indexOf(type), LocalDate.now(), random);
+    }
+
+    @Benchmark
+    public double calculateProgress() throws Throwable {
+        return (double) Model.CALCULATE_PROGRESS.invokeExact(activity);
+    }
+
+    @Benchmark
+    public String activityToString() {
+        return activity.toString();
+    }
+}
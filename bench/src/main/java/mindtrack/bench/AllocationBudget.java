@@ -0,0 +1,211 @@
+package mindtrack.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Checks how many bytes the hot paths allocate per call against the budgets in bench/allocation-budgets.properties
+ * Runs in the bench module's test phase, so mvn test or package fails when a change makes one of them allocate more
+ * Each operation runs a few thousand times to warm up, then ROUNDS times OPS calls are measured with
+ * ThreadMXBean.getCurrentThreadAllocatedBytes and the lowest round counts, so a stray GC or a JIT
+ * deoptimization in one round cant fail the build
+ *
+ * Usage: java -cp bench/target/benchmarks.jar mindtrack.bench.AllocationBudget bench/allocation-budgets.properties [--record]
+ * --record writes todays numbers as the new budgets instead of checking them, do that after making a path
+ * allocate less so it stays that way (and only after making it allocate more if it really has to)
+ * Skip it in a build with -Dalloc.skip
+ */
+public final class AllocationBudget {
+
+    static final int WARMUP_ROUNDS = 30;
+    static final int ROUNDS = 5;
+    static final int OPS = 10_000;
+    static final int SLACK_BYTES = 16; // below this the numbers are noise, a lambda or a boxed long here and there
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static volatile long sink; // results go here so the JIT cant drop the calls
+
+    private AllocationBudget() { }
+
+    /**
+     * One call of the operation being measured, i counts up from 0 in every round
+     */
+    interface Op {
+        void run(int i) throws Throwable;
+    }
+
+    /**
+     * Sets up a round, like a fresh user to add to, and gives back the operation to measure
+     * Nothing done here is counted
+     */
+    interface Round {
+        Op prepare() throws Throwable;
+    }
+
+    public static void main(String[] args) throws Throwable {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--record"))) {
+            System.out.println("Usage: AllocationBudget <budgets.properties> [--record]");
+            System.exit(2);
+        }
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("Error: this JVM cant count allocated bytes per thread, skipping the allocation check");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        Path file = Paths.get(args[0]);
+        boolean record = args.length == 2;
+
+        Map<String, Long> measured = new LinkedHashMap<>();
+        for (Map.Entry<String, Round> e : operations().entrySet()) {
+            measured.put(e.getKey(), measure(e.getValue()));
+        }
+
+        if (record) {
+            write(file, measured);
+            System.out.println("Recorded " + measured.size() + " allocation budgets to " + file);
+            return;
+        }
+
+        Properties budgets = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            budgets.load(in);
+        }
+        int over = 0;
+        System.out.printf("%-36s %12s %12s%n", "Operation (bytes per call)", "Measured", "Budget");
+        for (Map.Entry<String, Long> e : measured.entrySet()) {
+            String budget = budgets.getProperty(e.getKey());
+            String result;
+            if (budget == null) {
+                result = "  no budget, run with --record";
+                over++;
+            } else {
+                long allowed = Long.parseLong(budget.trim());
+                boolean ok = e.getValue() <= allowed + Math.max(SLACK_BYTES, allowed / 20);
+                result = ok ? (e.getValue() < allowed - Math.max(SLACK_BYTES, allowed / 20) ? "  under, lower the budget" : "")
+                        : "  OVER BUDGET";
+                if (!ok) over++;
+            }
+            System.out.printf("%-36s %12d %12s%s%n", e.getKey(), e.getValue(), budget == null ? "-" : budget.trim(), result);
+        }
+        if (over > 0) {
+            System.out.println("Error: " + over + " operation(s) allocate more than their budget in " + file);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Gets the bytes one call allocates, the lowest of ROUNDS rounds after warming up
+     */
+    static long measure(Round round) throws Throwable {
+        for (int r = 0; r < WARMUP_ROUNDS; r++) run(round);
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) best = Math.min(best, run(round));
+        return Math.max(0, best);
+    }
+
+    private static long run(Round round) throws Throwable {
+        Op op = round.prepare();
+        long empty = allocatedBetweenReads();
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < OPS; i++) op.run(i);
+        long after = THREADS.getCurrentThreadAllocatedBytes();
+        return Math.round((after - before - empty) / (double) OPS);
+    }
+
+    /**
+     * Gets what reading the counter twice allocates by itself, taken off every round
+     */
+    private static long allocatedBetweenReads() {
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        return THREADS.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    /**
+     * The operations that are checked, every one works through the same made up data each run
+     */
+    static Map<String, Round> operations() throws Throwable {
+        LocalDate today = LocalDate.now();
+        SplittableRandom random = new SplittableRandom(History.SEED);
+        Object[] activities = new Object[64];
+        for (int i = 0; i < activities.length; i++) {
+            activities[i] = History.activity(i % History.TYPES.length, today, random);
+        }
+        Object[] moods = new Object[64];
+        LocalDate[] days = new LocalDate[64];
+        for (int i = 0; i < moods.length; i++) {
+            days[i] = today.minusDays(i);
+            moods[i] = History.mood(days[i], random);
+        }
+        Object history = History.user(10_000, History.SEED);
+        Object undoable = History.user(10_000, History.SEED);
+        if ((Object) Model.ENABLE_UNDO.invokeExact(undoable, 1000) == null) {
+            throw new IllegalStateException("Undo wasnt enabled");
+        }
+        List<?> undoableActivities = (List<?>) (Object) Model.ACTIVITIES.invokeExact(undoable);
+        StringBuilder line = new StringBuilder(256);
+
+        Map<String, Round> ops = new LinkedHashMap<>();
+        ops.put("User.addActivity", () -> {
+            Object user = (Object) Model.NEW_USER.invokeExact("alloc");
+            return i -> {
+                Model.ADD_ACTIVITY.invokeExact(user, activities[i & 63]);
+            };
+        });
+        ops.put("User.addMoodStressEntry", () -> {
+            Object user = (Object) Model.NEW_USER.invokeExact("alloc");
+            return i -> {
+                Object entry = (Object) Model.NEW_MOOD_ENTRY.invokeExact(days[i & 63], 1 + i % 10, 1 + (i >> 3) % 10,
+                        "calm,tired", "work", "logged from the allocation check");
+                Model.ADD_MOOD.invokeExact(user, entry);
+            };
+        });
+        ops.put("User.getCurrentStreak", () -> i ->
+                sink += (int) Model.CURRENT_STREAK.invokeExact(history, History.TYPES[i & 3]));
+        ops.put("User.activityUpdated.withUndo", () -> i -> { // one undo step, a copy of the activity and a path of tree nodes
+            Model.ACTIVITY_UPDATED.invokeExact(undoable, (Object) undoableActivities.get((i * 7919) % undoableActivities.size()), "notes");
+        });
+        ops.put("Activity.calculateProgress", () -> i ->
+                sink += (long) (double) Model.CALCULATE_PROGRESS.invokeExact(activities[i & 63]));
+        ops.put("Activity.getProgress", () -> i ->
+                sink += ((String) Model.GET_PROGRESS.invokeExact(activities[i & 63])).length());
+        ops.put("MoodStressEntry.getWellnessScore", () -> i ->
+                sink += (long) (double) Model.WELLNESS_SCORE.invokeExact(moods[i & 63]));
+        ops.put("Activity.appendTo", () -> i -> {
+            line.setLength(0);
+            sink += ((StringBuilder) Model.APPEND_ACTIVITY.invokeExact(activities[i & 63], line)).length();
+        });
+        ops.put("Activity.toString", () -> i -> sink += activities[i & 63].toString().length());
+        ops.put("MoodStressEntry.appendTo", () -> i -> {
+            line.setLength(0);
+            sink += ((StringBuilder) Model.APPEND_MOOD.invokeExact(moods[i & 63], line)).length();
+        });
+        ops.put("MoodStressEntry.toString", () -> i -> sink += moods[i & 63].toString().length());
+        return ops;
+    }
+
+    private static void write(Path file, Map<String, Long> measured) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# Bytes allocated per call that each hot path is allowed, checked by mindtrack.bench.AllocationBudget\n");
+            out.write("# in the bench module's test phase. A path can go over by 5% (or " + SLACK_BYTES + " bytes) before the build fails\n");
+            out.write("# Rewrite with: java -cp bench/target/benchmarks.jar mindtrack.bench.AllocationBudget " + file + " --record\n");
+            for (Map.Entry<String, Long> e : measured.entrySet()) {
+                long rounded = (e.getValue() + 7) / 8 * 8; // objects come in 8 byte steps
+                out.write(e.getKey() + "=" + rounded + "\n");
+            }
+        }
+    }
+}
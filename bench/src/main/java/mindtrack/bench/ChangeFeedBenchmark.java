@@ -0,0 +1,68 @@
+package mindtrack.bench;
+
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Publishing one event to UserChangeFeed_sec33_gr3 with 0 to 8 consumers, each one a ChangeLog_sec33_gr3
+ * writing into a writer that throws the text away. Publish should cost the same with any number of consumers
+ * as long as they keep up, when they dont the producer waits for a slot and the sample percentiles show it.
+ * Needs more cores than consumers to mean anything, on fewer the consumers and the producer share the cpu
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeFeedBenchmark {
+
+    private static final int ACTIVITY_UPDATED = 3; // UserChangeEvent_sec33_gr3.ACTIVITY_UPDATED
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int consumers;
+
+    @Param({"1024"})
+    public int bufferSize;
+
+    private Object feed;
+    private Object user;
+    private Object activity;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        feed = (Object) Model.NEW_CHANGE_FEED.invokeExact(bufferSize);
+        for (int i = 0; i < consumers; i++) {
+            Object log = (Object) Model.NEW_CHANGE_LOG.invokeExact(Writer.nullWriter());
+            Model.SUBSCRIBE.invokeExact(feed, "bench-" + i, log);
+        }
+        user = (Object) Model.NEW_USER.invokeExact("bench");
+        activity = History.activity(0, LocalDate.of(2025, 1, 1), new SplittableRandom(History.SEED));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        Model.CLOSE_FEED.invokeExact(feed);
+    }
+
+    @Benchmark
+    public long publish() throws Throwable {
+        return (long) Model.PUBLISH.invokeExact(feed, ACTIVITY_UPDATED, user, activity, "duration");
+    }
+}
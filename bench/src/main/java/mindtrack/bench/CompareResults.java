@@ -0,0 +1,156 @@
+package mindtrack.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, like the ones from two commits
+ * Usage: java -cp bench/target/benchmarks.jar mindtrack.bench.CompareResults old.json new.json
+ * Prints every benchmark and parameter set found in both with the change in score, marking the ones
+ * where the difference is bigger than both error margins added together (runs need a few iterations for that)
+ */
+public final class CompareResults {
+
+    private CompareResults() { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: CompareResults <old.json> <new.json>");
+            return;
+        }
+        Map<String, double[]> before = load(args[0]);
+        Map<String, double[]> after = load(args[1]);
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Old", "New", "Change");
+        for (Map.Entry<String, double[]> e : after.entrySet()) {
+            double[] was = before.get(e.getKey());
+            double[] now = e.getValue();
+            if (was == null) {
+                System.out.printf("%-70s %14s %14.3f %9s%n", e.getKey(), "-", now[0], "new");
+                continue;
+            }
+            double change = (now[0] - was[0]) / was[0] * 100;
+            boolean real = !Double.isNaN(was[1]) && !Double.isNaN(now[1]) && Math.abs(now[0] - was[0]) > was[1] + now[1];
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%s%n", e.getKey(), was[0], now[0], change, real ? " *" : "");
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) System.out.printf("%-70s %14s%n", key, "gone");
+        }
+    }
+
+    /**
+     * Reads a result file into "benchmark [params] unit" -> {score, error}
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, double[]> load(String file) throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (Object item : (List<Object>) new Parser(json).value()) {
+            Map<String, Object> run = (Map<String, Object>) item;
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            StringBuilder key = new StringBuilder(((String) run.get("benchmark")).replace("mindtrack.bench.", ""));
+            Object params = run.get("params");
+            if (params != null) key.append(' ').append(params);
+            key.append(' ').append(metric.get("scoreUnit"));
+            results.put(key.toString(), new double[] {number(metric.get("score")), number(metric.get("scoreError"))});
+        }
+        return results;
+    }
+
+    private static double number(Object value) {
+        if (value instanceof Double) return (Double) value;
+        return Double.NaN; // JMH writes "NaN" as a string when there were too few iterations
+    }
+
+    /**
+     * Just enough JSON for JMH's output - objects, arrays, strings, numbers, true, false and null
+     */
+    private static final class Parser {
+        private final String s;
+        private int at;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            skipSpace();
+            char c = s.charAt(at);
+            if (c == '{') return object();
+            if (c == '[') return array();
+            if (c == '"') return string();
+            if (s.startsWith("true", at)) { at += 4; return Boolean.TRUE; }
+            if (s.startsWith("false", at)) { at += 5; return Boolean.FALSE; }
+            if (s.startsWith("null", at)) { at += 4; return null; }
+            int start = at;
+            while (at < s.length() && "+-0123456789.eE".indexOf(s.charAt(at)) >= 0) at++;
+            if (start == at) throw new IllegalArgumentException("Unexpected '" + c + "' at " + at);
+            return Double.parseDouble(s.substring(start, at));
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            at++;
+            skipSpace();
+            if (s.charAt(at) == '}') { at++; return map; }
+            while (true) {
+                skipSpace();
+                String key = string();
+                skipSpace();
+                expect(':');
+                map.put(key, value());
+                skipSpace();
+                if (s.charAt(at++) == '}') return map;
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            at++;
+            skipSpace();
+            if (s.charAt(at) == ']') { at++; return list; }
+            while (true) {
+                list.add(value());
+                skipSpace();
+                if (s.charAt(at++) == ']') return list;
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = s.charAt(at++);
+                if (c == '"') return sb.toString();
+                if (c == '\\') {
+                    char e = s.charAt(at++);
+                    switch (e) {
+                        case 'n': sb.append('\n'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'u': sb.append((char) Integer.parseInt(s.substring(at, at + 4), 16)); at += 4; break;
+                        default: sb.append(e);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        private void expect(char c) {
+            if (s.charAt(at) != c) throw new IllegalArgumentException("Expected '" + c + "' at " + at);
+            at++;
+        }
+
+        private void skipSpace() {
+            while (at < s.length() && Character.isWhitespace(s.charAt(at))) at++;
+        }
+    }
+}
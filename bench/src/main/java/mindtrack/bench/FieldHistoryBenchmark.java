@@ -0,0 +1,86 @@
+package mindtrack.bench;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a goal as it was on a past date from FieldHistory_sec33_gr3, after its target was changed
+ * once a day versions times. Should grow with log(versions), on top of the binary search a read
+ * only replays less than FULL_EVERY changes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldHistoryBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2000, 1, 1);
+
+    @Param({"10", "1000", "100000"})
+    public int versions;
+
+    private Object history;
+    private int goalId;
+    private final LocalDate[] dates = new LocalDate[1024]; // random days across the whole history
+    private int next;
+
+    /**
+     * A clock that only moves when told to, so every change lands on its own day
+     */
+    private static final class DayClock extends Clock {
+        private Instant now = START.atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        void nextDay() { now = now.plusSeconds(86_400); }
+
+        @Override
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override
+        public Clock withZone(ZoneId zone) { return this; }
+
+        @Override
+        public Instant instant() { return now; }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Object user = (Object) Model.NEW_USER.invokeExact("bench");
+        Object goal = (Object) Model.NEW_GOAL.invokeExact("Sleep Duration", 8.0, START, START.plusDays(versions), "bench");
+        Model.ADD_GOAL.invokeExact(user, goal);
+        goalId = (int) Model.GOAL_ID.invokeExact(goal);
+        DayClock clock = new DayClock();
+        history = (Object) Model.ENABLE_FIELD_HISTORY.invokeExact(user, (Clock) clock);
+        for (int i = 0; i < versions; i++) {
+            clock.nextDay();
+            Model.SET_TARGET.invokeExact(goal, 6.0 + i % 4);
+            Model.GOAL_UPDATED.invokeExact(user, goal, "targetValue");
+        }
+        SplittableRandom random = new SplittableRandom(History.SEED);
+        for (int i = 0; i < dates.length; i++) dates[i] = START.plusDays(random.nextInt(versions + 1));
+    }
+
+    @Benchmark
+    public Object goalAsOf() throws Throwable {
+        return (Object) Model.GOAL_AS_OF.invokeExact(history, goalId, dates[next++ & (dates.length - 1)]);
+    }
+}
@@ -0,0 +1,46 @@
+package mindtrack.bench;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builds users with a made up history of a given size for the benchmarks, using DataGenerator_sec33_gr3
+ * with its usual settings, so the data has the same breaks, bedtimes and notes a scale test would see
+ * The size is turned into days from the generator's expected activities a day, so it comes out close to size
+ * but not exactly on it. The same size and seed always gives the same history
+ */
+final class History {
+
+    static final long SEED = 42;
+    static final String[] TYPES = {"Sleep", "Meditation", "Journaling", "ScreenTime"};
+
+    private History() { }
+
+    /**
+     * Makes a user with about size activities ending today
+     */
+    static Object user(int size, long seed) throws Throwable {
+        Object generator = (Object) Model.NEW_GENERATOR.invokeExact(seed, LocalDate.now());
+        double perDay = (double) Model.EXPECTED_PER_DAY.invokeExact(generator);
+        int days = (int) Math.max(1, Math.round(size / perDay));
+        generator = (Object) Model.SET_DAYS.invokeExact(generator, days);
+        return (Object) Model.GENERATE_USER.invokeExact(generator, 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Makes one activity, type is an index into TYPES
+     */
+    static Object activity(int type, LocalDate date, SplittableRandom random) throws Throwable {
+        Object generator = (Object) Model.NEW_GENERATOR.invokeExact(SEED, date);
+        return (Object) Model.NEW_ACTIVITY.invokeExact(generator, TYPES[type], date, random);
+    }
+
+    /**
+     * Makes one mood entry for a day that had a 7/10 sleep
+     */
+    static Object mood(LocalDate date, SplittableRandom random) throws Throwable {
+        Object generator = (Object) Model.NEW_GENERATOR.invokeExact(SEED, date);
+        return (Object) Model.NEW_MOOD.invokeExact(generator, date, 7, random);
+    }
+}
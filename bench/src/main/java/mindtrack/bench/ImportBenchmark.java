@@ -0,0 +1,106 @@
+package mindtrack.bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading an export file back in (--import), the file is a DataGenerator_sec33_gr3 history of about size activities
+ * exported once before the run. parallel is ParallelImporter_sec33_gr3 on every core the way --import does it,
+ * serial is DataImporter_sec33_gr3 reading the same file on one thread
+ * invalidFraction of the activity rows get a -1 duration after the export, so the importer has to turn them down
+ * through tryCreate and report them, 0.3 is there to see what a file with a lot of bad rows costs
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class ImportBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({".csv", ".jsonl"})
+    public String format;
+
+    @Param({"0", "0.3"})
+    public double invalidFraction;
+
+    // the duration field of an activity row, it comes before the notes so no quoting to worry about
+    private static final Pattern CSV_DURATION = Pattern.compile("^((?:sleep|meditation|journal|screen),[^,]*,[^,]*,)[^,]*");
+    private static final Pattern JSON_DURATION = Pattern.compile("(\"duration\":)[^,}]*");
+
+    private Path file;
+    private int threads;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        file = Files.createTempFile("mindtrack-import-", format);
+        long records = (long) Model.EXPORT.invokeExact(History.user(size, History.SEED), file);
+        if (records == 0) throw new IllegalStateException("Nothing was exported to " + file);
+        if (invalidFraction > 0) spoil();
+        threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Rewrites the file with invalidFraction of the activity rows given a duration no activity accepts
+     * The rows are picked with the usual seed so every run spoils the same ones
+     */
+    private void spoil() throws Exception {
+        Pattern duration = format.equals(".csv") ? CSV_DURATION : JSON_DURATION;
+        SplittableRandom random = new SplittableRandom(History.SEED);
+        Path spoiled = Files.createTempFile("mindtrack-import-", format);
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(spoiled, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                Matcher m = duration.matcher(line);
+                if (m.find() && random.nextDouble() < invalidFraction) line = m.replaceFirst("$1-1.0");
+                out.write(line);
+                out.newLine();
+            }
+        }
+        Files.move(spoiled, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Benchmark
+    public Object parallel() throws Throwable {
+        Object importer = (Object) Model.NEW_PARALLEL_IMPORTER.invokeExact(threads, (PrintStream) null);
+        return (Object) Model.PARALLEL_IMPORT.invokeExact(importer, file);
+    }
+
+    @Benchmark
+    public Object serial() throws Throwable {
+        Object importer = (Object) Model.NEW_IMPORTER.invokeExact((PrintStream) null);
+        return (Object) Model.IMPORT.invokeExact(importer, file);
+    }
+}
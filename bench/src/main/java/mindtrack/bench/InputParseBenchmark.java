@@ -0,0 +1,100 @@
+package mindtrack.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading piped menu input, the old way with Scanner.nextLine and Integer.parseInt/Double.parseDouble/LocalDate.parse
+ * against CharLineReader_sec33_gr3 and CharParse_sec33_gr3, which is what Main reads with now
+ * Both read the same bytes, lines go int, decimal, date over and over with a bit of space around them
+ * like a script piping answers in would have
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputParseBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int lines;
+
+    private byte[] input;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(History.SEED);
+        LocalDate today = LocalDate.now();
+        StringBuilder text = new StringBuilder(lines * 8);
+        for (int i = 0; i < lines; i++) {
+            if (random.nextInt(4) == 0) text.append("  ");
+            switch (i % 3) {
+                case 0: text.append(random.nextInt(1, 600)); break;
+                case 1: text.append(random.nextInt(0, 2400) / 100.0); break;
+                default: text.append(today.minusDays(random.nextInt(3650)));
+            }
+            if (random.nextInt(4) == 0) text.append(' ');
+            text.append('\n');
+        }
+        input = text.toString().getBytes(Charset.defaultCharset());
+    }
+
+    @Benchmark
+    public double scanner() {
+        Scanner scanner = new Scanner(stdin());
+        double sum = 0;
+        for (int i = 0; scanner.hasNextLine(); i++) {
+            String line = scanner.nextLine().trim();
+            switch (i % 3) {
+                case 0: sum += Integer.parseInt(line); break;
+                case 1: sum += Double.parseDouble(line); break;
+                default: sum += LocalDate.parse(line).getDayOfMonth();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double charLineReader() throws Throwable {
+        Object reader = (Object) Model.NEW_LINE_READER.invokeExact(stdin());
+        double sum = 0;
+        for (int i = 0; (boolean) Model.NEXT_LINE.invokeExact(reader); i++) {
+            Model.TRIM_LINE.invokeExact(reader);
+            char[] buf = (char[]) Model.LINE_BUFFER.invokeExact(reader);
+            int start = (int) Model.LINE_START.invokeExact(reader);
+            int end = (int) Model.LINE_END.invokeExact(reader);
+            switch (i % 3) {
+                case 0: sum += (long) Model.PARSE_INT.invokeExact(buf, start, end); break;
+                case 1: sum += (double) Model.PARSE_DOUBLE.invokeExact(buf, start, end); break;
+                default: sum += ((LocalDate) Model.PARSE_DATE.invokeExact(buf, start, end)).getDayOfMonth();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * A fresh System.in stand in over the same bytes for each call
+     */
+    private InputStream stdin() {
+        return new ByteArrayInputStream(input);
+    }
+}
@@ -0,0 +1,63 @@
+package mindtrack.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What timing an operation costs, timed has to stay under 50ns with the default sampleEvery (8)
+ * timed is the whole thing an instrumented method pays, start() plus stop(), with sampleEvery 1 it
+ * reads the clock on every call. clock is one System.nanoTime() read and record is the histogram on its own,
+ * together they show where the time goes
+ * The histogram is shared, run with -t 4 (or more) to see it with threads recording at once
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"1", "8"})
+    public int sampleEvery;
+
+    private Object timer;
+    private long value;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        timer = (Object) Model.TIMER.invokeExact("Bench.every" + sampleEvery, sampleEvery);
+        if ((int) Model.SAMPLE_EVERY.invokeExact(timer) != sampleEvery) {
+            throw new IllegalStateException("Timer was made with a different sample rate");
+        }
+    }
+
+    @Benchmark
+    public long clock() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void record() throws Throwable {
+        long v = value = (value + 977) & 0xFFFFF; // spread over the buckets up to about 1ms
+        Model.RECORD.invokeExact(timer, v);
+    }
+
+    @Benchmark
+    public void timed() throws Throwable {
+        long start = (long) Model.START.invokeExact(timer);
+        Model.STOP.invokeExact(timer, start);
+    }
+}
@@ -0,0 +1,169 @@
+package mindtrack.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+
+/**
+ * Handles to the app's classes, which are all in the default package
+ * JMH wont generate code for benchmarks in the default package and Java code in a package cant
+ * name default package classes, so the benchmarks go through these instead
+ * Every handle is static final so the JIT treats it as a constant and inlines the call,
+ * app types show up as Object and the rest of the signature is the real one
+ */
+final class Model {
+
+    static final MethodHandle NEW_USER = constructor("User_sec33_gr_3", String.class);
+    static final MethodHandle ADD_ACTIVITY = virtual("User_sec33_gr_3", "addActivity", void.class, type("WellnessActivity_sec33_gr3"));
+    static final MethodHandle REMOVE_ACTIVITY = virtual("User_sec33_gr_3", "removeActivity", boolean.class, type("WellnessActivity_sec33_gr3"));
+    static final MethodHandle CURRENT_STREAK = virtual("User_sec33_gr_3", "getCurrentStreak", int.class, String.class);
+    static final MethodHandle ADD_MOOD = virtual("User_sec33_gr_3", "addMoodStressEntry", void.class, type("MoodStressEntry_sec33_gr3"));
+    static final MethodHandle ACTIVITIES = virtual("User_sec33_gr_3", "getActivities", type("ActivityTimeline_sec33_gr3"));
+    static final MethodHandle ACTIVITY_UPDATED = virtual("User_sec33_gr_3", "activityUpdated", void.class,
+            type("WellnessActivity_sec33_gr3"), String.class);
+    static final MethodHandle ENABLE_UNDO = virtual("User_sec33_gr_3", "enableUndo", type("UndoJournal_sec33_gr3"), int.class);
+
+    static final MethodHandle UNDO = virtual("UndoJournal_sec33_gr3", "undo", String.class);
+    static final MethodHandle REDO = virtual("UndoJournal_sec33_gr3", "redo", String.class);
+
+    static final MethodHandle CALCULATE_PROGRESS = virtual("WellnessActivity_sec33_gr3", "calculateProgress", double.class);
+    static final MethodHandle GET_PROGRESS = virtual("Trackable_sec33_gr3", "getProgress", String.class);
+    static final MethodHandle SET_NOTES = virtual("WellnessActivity_sec33_gr3", "setNotes", void.class, String.class);
+    static final MethodHandle APPEND_ACTIVITY = virtual("WellnessActivity_sec33_gr3", "appendTo", StringBuilder.class, StringBuilder.class);
+
+    static final MethodHandle NEW_MOOD_ENTRY = constructor("MoodStressEntry_sec33_gr3", LocalDate.class, int.class, int.class,
+            String.class, String.class, String.class);
+    static final MethodHandle WELLNESS_SCORE = virtual("MoodStressEntry_sec33_gr3", "getWellnessScore", double.class);
+    static final MethodHandle APPEND_MOOD = virtual("MoodStressEntry_sec33_gr3", "appendTo", StringBuilder.class, StringBuilder.class);
+
+    static final MethodHandle IS_VALID_GOAL_TYPE = statik("GoalType_sec33_gr3", "isValidGoalType", boolean.class, String.class);
+    static final MethodHandle NEW_GOAL = constructor("WellnessGoal_sec33_gr3", String.class, double.class, LocalDate.class,
+            LocalDate.class, String.class);
+    static final MethodHandle SET_TARGET = virtual("WellnessGoal_sec33_gr3", "setTargetValue", void.class, double.class);
+    static final MethodHandle GOAL_ID = virtual("WellnessGoal_sec33_gr3", "getGoalId", int.class);
+    static final MethodHandle ADD_GOAL = virtual("User_sec33_gr_3", "addGoal", void.class, type("WellnessGoal_sec33_gr3"));
+    static final MethodHandle GOAL_UPDATED = virtual("User_sec33_gr_3", "goalUpdated", void.class,
+            type("WellnessGoal_sec33_gr3"), String.class);
+
+    static final MethodHandle ENABLE_FIELD_HISTORY = virtual("User_sec33_gr_3", "enableFieldHistory", type("FieldHistory_sec33_gr3"),
+            java.time.Clock.class);
+    static final MethodHandle GOAL_AS_OF = virtual("FieldHistory_sec33_gr3", "goalAsOf", type("FieldHistory_sec33_gr3$Version"),
+            int.class, LocalDate.class);
+
+    static final MethodHandle NEW_CHANGE_FEED = constructor("UserChangeFeed_sec33_gr3", int.class);
+    static final MethodHandle SUBSCRIBE = virtual("UserChangeFeed_sec33_gr3", "subscribe", void.class, String.class,
+            type("UserChangeListener_sec33_gr3"));
+    static final MethodHandle PUBLISH = virtual("UserChangeFeed_sec33_gr3", "publish", long.class, int.class,
+            type("User_sec33_gr_3"), Object.class, String.class);
+    static final MethodHandle CLOSE_FEED = virtual("UserChangeFeed_sec33_gr3", "close", void.class);
+    static final MethodHandle NEW_CHANGE_LOG = constructor("ChangeLog_sec33_gr3", java.io.Writer.class);
+
+    static final MethodHandle NEW_ENGINE = constructor("UserShardEngine_sec33_gr3", int.class);
+    static final MethodHandle ADD_USER = virtual("UserShardEngine_sec33_gr3", "addUser", java.util.concurrent.CompletableFuture.class,
+            String.class, type("User_sec33_gr_3"));
+    static final MethodHandle SUBMIT = virtual("UserShardEngine_sec33_gr3", "submit", java.util.concurrent.CompletableFuture.class,
+            String.class, type("UserCommand_sec33_gr3"));
+    static final MethodHandle REDUCE_ALL = virtual("UserShardEngine_sec33_gr3", "reduceAll", java.util.concurrent.CompletableFuture.class,
+            type("UserCommand_sec33_gr3"), Object.class, java.util.function.BinaryOperator.class);
+    static final MethodHandle CLOSE_ENGINE = virtual("UserShardEngine_sec33_gr3", "close", void.class);
+
+    static final MethodHandle EXPORT = statik("DataExporter_sec33_gr3", "export", long.class, type("User_sec33_gr_3"),
+            java.nio.file.Path.class);
+    static final MethodHandle NEW_PARALLEL_IMPORTER = constructor("ParallelImporter_sec33_gr3", int.class, java.io.PrintStream.class);
+    static final MethodHandle PARALLEL_IMPORT = virtual("ParallelImporter_sec33_gr3", "importFile", type("User_sec33_gr_3"),
+            java.nio.file.Path.class);
+    static final MethodHandle NEW_IMPORTER = constructor("DataImporter_sec33_gr3", java.io.PrintStream.class);
+    static final MethodHandle IMPORT = virtual("DataImporter_sec33_gr3", "importFile", type("User_sec33_gr_3"), java.nio.file.Path.class);
+
+    static final MethodHandle NEW_GENERATOR = constructor("DataGenerator_sec33_gr3", long.class, LocalDate.class);
+    static final MethodHandle SET_DAYS = virtual("DataGenerator_sec33_gr3", "setDays", type("DataGenerator_sec33_gr3"), int.class);
+    static final MethodHandle EXPECTED_PER_DAY = virtual("DataGenerator_sec33_gr3", "getExpectedActivitiesPerDay", double.class);
+    static final MethodHandle GENERATE_USER = virtual("DataGenerator_sec33_gr3", "generateUser", type("User_sec33_gr_3"),
+            int.class, java.util.concurrent.ForkJoinPool.class);
+    static final MethodHandle NEW_ACTIVITY = virtual("DataGenerator_sec33_gr3", "newActivity", type("WellnessActivity_sec33_gr3"),
+            String.class, LocalDate.class, java.util.SplittableRandom.class);
+    static final MethodHandle NEW_MOOD = virtual("DataGenerator_sec33_gr3", "newMood", type("MoodStressEntry_sec33_gr3"),
+            LocalDate.class, int.class, java.util.SplittableRandom.class);
+
+    static final MethodHandle TIMER = statik("Metrics_sec33_gr3", "timer", type("LatencyHistogram_sec33_gr3"), String.class, int.class);
+    static final MethodHandle RECORD = virtual("LatencyHistogram_sec33_gr3", "record", void.class, long.class);
+    static final MethodHandle START = virtual("LatencyHistogram_sec33_gr3", "start", long.class);
+    static final MethodHandle STOP = virtual("LatencyHistogram_sec33_gr3", "stop", void.class, long.class);
+    static final MethodHandle SAMPLE_EVERY = virtual("LatencyHistogram_sec33_gr3", "getSampleEvery", int.class);
+
+    static final MethodHandle NEW_REPORT_WRITER = constructor("ReportWriter_sec33_gr3", java.nio.channels.WritableByteChannel.class,
+            java.io.Flushable.class, boolean.class, java.nio.charset.Charset.class);
+    static final MethodHandle NEW_REPORT_CACHE = constructor("ReportCache_sec33_gr3", long.class);
+    static final MethodHandle RENDER_REPORT = statik("ReportRenderer_sec33_gr3", "renderReport", void.class,
+            type("User_sec33_gr_3"), type("ReportWriter_sec33_gr3"), type("ReportCache_sec33_gr3"),
+            java.util.concurrent.ForkJoinPool.class);
+
+    static final MethodHandle NEW_LINE_READER = constructor("CharLineReader_sec33_gr3", java.io.InputStream.class);
+    static final MethodHandle NEXT_LINE = virtual("CharLineReader_sec33_gr3", "nextLine", boolean.class);
+    static final MethodHandle TRIM_LINE = virtual("CharLineReader_sec33_gr3", "trim", void.class);
+    static final MethodHandle LINE_BUFFER = virtual("CharLineReader_sec33_gr3", "buffer", char[].class);
+    static final MethodHandle LINE_START = virtual("CharLineReader_sec33_gr3", "start", int.class);
+    static final MethodHandle LINE_END = virtual("CharLineReader_sec33_gr3", "end", int.class);
+    static final MethodHandle PARSE_INT = statik("CharParse_sec33_gr3", "parseInt", long.class, char[].class, int.class, int.class);
+    static final MethodHandle PARSE_DOUBLE = statik("CharParse_sec33_gr3", "parseDouble", double.class, char[].class, int.class, int.class);
+    static final MethodHandle PARSE_DATE = statik("CharParse_sec33_gr3", "parseDate", LocalDate.class, char[].class, int.class, int.class);
+
+    private Model() { }
+
+    /**
+     * Makes a UserCommand_sec33_gr3 that runs target, which takes the user and returns the result
+     */
+    static Object command(MethodHandle target) {
+        return MethodHandleProxies.asInterfaceInstance(type("UserCommand_sec33_gr3"), target);
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalStateException("App class missing from the classpath: " + name, ex);
+        }
+    }
+
+    private static MethodHandle constructor(String owner, Class<?>... params) {
+        try {
+            return loose(MethodHandles.publicLookup().findConstructor(type(owner), MethodType.methodType(void.class, params)));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No such constructor on " + owner, ex);
+        }
+    }
+
+    private static MethodHandle virtual(String owner, String name, Class<?> returns, Class<?>... params) {
+        try {
+            return loose(MethodHandles.publicLookup().findVirtual(type(owner), name, MethodType.methodType(returns, params)));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No such method " + owner + "." + name, ex);
+        }
+    }
+
+    private static MethodHandle statik(String owner, String name, Class<?> returns, Class<?>... params) {
+        try {
+            return loose(MethodHandles.publicLookup().findStatic(type(owner), name, MethodType.methodType(returns, params)));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No such method " + owner + "." + name, ex);
+        }
+    }
+
+    /**
+     * Swaps every app class in the signature for Object so callers can use invokeExact
+     */
+    private static MethodHandle loose(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isApp(type.parameterType(i))) type = type.changeParameterType(i, Object.class);
+        }
+        if (isApp(type.returnType())) type = type.changeReturnType(Object.class);
+        return handle.asType(type);
+    }
+
+    private static boolean isApp(Class<?> c) {
+        return !c.isPrimitive() && c.getPackageName().isEmpty();
+    }
+}
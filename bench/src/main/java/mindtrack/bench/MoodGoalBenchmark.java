@@ -0,0 +1,54 @@
+package mindtrack.bench;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The mood entry wellness score and the goal type check
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoodGoalBenchmark {
+
+    public String knownGoalType = "Activity Streak"; // last in the list, the slowest hit
+    public String unknownGoalType = "Steps";
+
+    private Object mood;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        mood = History.mood(LocalDate.now(), new SplittableRandom(History.SEED));
+    }
+
+    @Benchmark
+    public double wellnessScore() throws Throwable {
+        return (double) Model.WELLNESS_SCORE.invokeExact(mood);
+    }
+
+    @Benchmark
+    public boolean goalTypeKnown() throws Throwable {
+        return (boolean) Model.IS_VALID_GOAL_TYPE.invokeExact(knownGoalType);
+    }
+
+    @Benchmark
+    public boolean goalTypeUnknown() throws Throwable {
+        return (boolean) Model.IS_VALID_GOAL_TYPE.invokeExact(unknownGoalType);
+    }
+}
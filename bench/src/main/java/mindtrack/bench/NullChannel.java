@@ -0,0 +1,27 @@
+package mindtrack.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A channel that throws away everything written to it, so reports can be timed without any I/O
+ * It still counts the bytes so the JIT cant skip the work
+ */
+final class NullChannel implements WritableByteChannel {
+
+    long bytes;
+
+    @Override
+    public int write(ByteBuffer src) {
+        int n = src.remaining();
+        src.position(src.limit());
+        bytes += n;
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() { return true; }
+
+    @Override
+    public void close() { }
+}
@@ -0,0 +1,79 @@
+package mindtrack.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The full wellness report (menu option 6) rendered into a channel that throws the bytes away
+ * serial renders every section on the calling thread, full renders every section on a pool of parallelism
+ * workers, menu is what the menu does with that pool - the report cache in front of it, so after the first
+ * call it measures an unchanged report. The pool sizes only mean something up to the number of cores
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class ReportBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Object user;
+    private Object writer;
+    private Object cache;
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private NullChannel sink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        user = History.user(size, History.SEED);
+        sink = new NullChannel();
+        writer = (Object) Model.NEW_REPORT_WRITER.invokeExact((java.nio.channels.WritableByteChannel) sink,
+                (java.io.Flushable) null, false, StandardCharsets.UTF_8);
+        cache = (Object) Model.NEW_REPORT_CACHE.invokeExact(64L << 20);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long serial() throws Throwable {
+        Model.RENDER_REPORT.invokeExact(user, writer, (Object) null, (ForkJoinPool) null);
+        return sink.bytes;
+    }
+
+    @Benchmark
+    public long full() throws Throwable {
+        Model.RENDER_REPORT.invokeExact(user, writer, (Object) null, pool);
+        return sink.bytes;
+    }
+
+    @Benchmark
+    public long menu() throws Throwable {
+        Model.RENDER_REPORT.invokeExact(user, writer, cache, pool);
+        return sink.bytes;
+    }
+}
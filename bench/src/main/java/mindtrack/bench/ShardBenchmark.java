@@ -0,0 +1,87 @@
+package mindtrack.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * UserShardEngine_sec33_gr3 with 1 to 8 shards, 256 users with about 1000 activities each spread over them
+ * submitEach sends every user a getCurrentStreak("Sleep") command and waits for all the answers, the way a lot of
+ * sessions hit the engine at once, reduceAll adds up every user's streak with one query per shard
+ * Both should get faster with more shards up to the number of cores, after that the shards only take turns
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardBenchmark {
+
+    private static final int USERS = 256;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"1000"})
+    public int size;
+
+    private Object engine;
+    private Object streak; // a UserCommand_sec33_gr3 for getCurrentStreak("Sleep")
+    private final String[] ids = new String[USERS];
+    private final CompletableFuture<?>[] pending = new CompletableFuture<?>[USERS];
+    private static final BinaryOperator<Object> SUM = (a, b) -> (Integer) a + (Integer) b;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        engine = (Object) Model.NEW_ENGINE.invokeExact(shards);
+        for (int i = 0; i < USERS; i++) {
+            ids[i] = "user-" + i;
+            Object user = History.user(size, History.SEED + i);
+            CompletableFuture<?> added = (CompletableFuture<?>) Model.ADD_USER.invokeExact(engine, ids[i], user);
+            added.join();
+        }
+        MethodHandle sleepStreak = MethodHandles.insertArguments(Model.CURRENT_STREAK, 1, "Sleep");
+        streak = Model.command(sleepStreak.asType(MethodType.methodType(Object.class, Object.class)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        Model.CLOSE_ENGINE.invokeExact(engine);
+    }
+
+    @Benchmark
+    public int submitEach() throws Throwable {
+        for (int i = 0; i < USERS; i++) {
+            pending[i] = (CompletableFuture<?>) Model.SUBMIT.invokeExact(engine, ids[i], streak);
+        }
+        int total = 0;
+        for (int i = 0; i < USERS; i++) {
+            total += (Integer) pending[i].join();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Object reduceAll() throws Throwable {
+        CompletableFuture<?> result = (CompletableFuture<?>) Model.REDUCE_ALL.invokeExact(engine, streak, (Object) 0, SUM);
+        return result.join();
+    }
+}
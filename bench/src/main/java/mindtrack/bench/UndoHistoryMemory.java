@@ -0,0 +1,104 @@
+package mindtrack.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures how much memory the undo history keeps alive, see UndoJournal_sec33_gr3
+ * A user with size activities gets steps changes (mostly field edits, some adds and deletes) with undo on,
+ * and the same changes are made to the same user with undo off, the difference in live heap is the history
+ * It also shows what keeping a copy of the activity list for every step would cost at the least (4 bytes a
+ * reference), and how long undoing and redoing the whole history takes
+ * Not a JMH benchmark, a heap size after GC isnt a time. Numbers move by a few hundred KB between runs
+ *
+ * Usage: java -Xmx4g -cp bench/target/benchmarks.jar mindtrack.bench.UndoHistoryMemory [steps] [size ...]
+ * Defaults to a 10k step history on 1k, 100k and 1M activities
+ */
+public final class UndoHistoryMemory {
+
+    static final int DEFAULT_STEPS = 10_000;
+    static final int[] DEFAULT_SIZES = {1_000, 100_000, 1_000_000};
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private UndoHistoryMemory() { }
+
+    public static void main(String[] args) throws Throwable {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_STEPS;
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%d step history%n", steps);
+        System.out.printf("%-12s %12s %12s %14s %12s %12s %12s%n", "Activities", "History MB", "Bytes/step",
+                "List copies MB", "Start MB", "Undo all ms", "Redo all ms");
+        for (int size : sizes) {
+            measure(size, steps);
+        }
+    }
+
+    private static void measure(int size, int steps) throws Throwable {
+        Object plain = History.user(size, History.SEED);
+        long before = usedHeap();
+        change(plain, steps);
+        long withoutUndo = usedHeap() - before;
+        plain = null;
+
+        Object user = History.user(size, History.SEED);
+        long start = usedHeap();
+        Object journal = (Object) Model.ENABLE_UNDO.invokeExact(user, steps);
+        long enabled = usedHeap();
+        change(user, steps);
+        long history = usedHeap() - enabled - withoutUndo;
+
+        long undoStart = System.nanoTime();
+        while ((String) Model.UNDO.invokeExact(journal) != null) { }
+        long undoNanos = System.nanoTime() - undoStart;
+        long redoStart = System.nanoTime();
+        while ((String) Model.REDO.invokeExact(journal) != null) { }
+        long redoNanos = System.nanoTime() - redoStart;
+
+        int activities = ((List<?>) (Object) Model.ACTIVITIES.invokeExact(user)).size();
+        System.out.printf("%-12d %12.1f %12d %14.1f %12.1f %12.1f %12.1f%n", activities, history / 1e6, history / steps,
+                (double) steps * activities * 4 / 1e6, (enabled - start) / 1e6, undoNanos / 1e6, redoNanos / 1e6);
+    }
+
+    /**
+     * Makes the same changes every time for the same user - 70% notes edits, 15% adds dated today, 15% deletes
+     */
+    private static void change(Object user, int steps) throws Throwable {
+        SplittableRandom random = new SplittableRandom(History.SEED);
+        List<?> activities = (List<?>) (Object) Model.ACTIVITIES.invokeExact(user);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < steps; i++) {
+            int kind = random.nextInt(100);
+            if (kind < 70) {
+                Object activity = activities.get(random.nextInt(activities.size()));
+                Model.SET_NOTES.invokeExact(activity, "edited " + i);
+                Model.ACTIVITY_UPDATED.invokeExact(user, activity, "notes");
+            } else if (kind < 85) {
+                Model.ADD_ACTIVITY.invokeExact(user, History.activity(i & 3, today, random));
+            } else {
+                boolean removed = (boolean) Model.REMOVE_ACTIVITY.invokeExact(user, (Object) activities.get(random.nextInt(activities.size())));
+                if (!removed) throw new IllegalStateException("Activity from the list wasnt removed");
+            }
+        }
+    }
+
+    /**
+     * Gets the live heap, the lowest of a few readings right after a full GC
+     */
+    private static long usedHeap() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(50);
+            used = Math.min(used, MEMORY.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,65 @@
+package mindtrack.bench;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * User operations against histories from 1k to 10M activities
+ * Add and remove are timed together so the user ends every call the same size it started
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class UserBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    public String streakType = "Sleep";
+
+    private Object user;
+    private Object latest; // dated today, goes on the end
+    private Object backdated; // dated in the middle of the history
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        user = History.user(size, History.SEED);
+        SplittableRandom random = new SplittableRandom(History.SEED + 1);
+        latest = History.activity(1, LocalDate.now(), random);
+        backdated = History.activity(2, LocalDate.now().minusDays(size / 8), random);
+    }
+
+    @Benchmark
+    public int currentStreak() throws Throwable {
+        return (int) Model.CURRENT_STREAK.invokeExact(user, streakType);
+    }
+
+    @Benchmark
+    public boolean addRemoveLatest() throws Throwable {
+        Model.ADD_ACTIVITY.invokeExact(user, latest);
+        return (boolean) Model.REMOVE_ACTIVITY.invokeExact(user, latest);
+    }
+
+    @Benchmark
+    public boolean addRemoveBackdated() throws Throwable {
+        Model.ADD_ACTIVITY.invokeExact(user, backdated);
+        return (boolean) Model.REMOVE_ACTIVITY.invokeExact(user, backdated);
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * JMH benchmarks for MindTrack
+ *
+ * Build and run everything (the 10M sizes need a few GB of heap, the forks get -Xmx4g, and take a while):
+ *   mvn -B package
+ *   java -jar bench/target/benchmarks.jar -rf json -rff bench/results/$(git rev-parse --short HEAD).json
+ *
+ * A quicker run of just the small sizes:
+ *   java -jar bench/target/benchmarks.jar -p size=1000,100000 -rf json -rff bench/results/quick.json
+ *
+ * Compare two runs, like before and after a change:
+ *   java -cp bench/target/benchmarks.jar mindtrack.bench.CompareResults bench/results/old.json bench/results/new.json
+ *
+ * UserBenchmark     - getCurrentStreak, addActivity/removeActivity at the end and back-dated, 1k to 10M activities
+ * ActivityBenchmark - calculateProgress and toString for each activity type
+ * MoodGoalBenchmark - MoodStressEntry getWellnessScore and GoalType isValidGoalType
+ * ReportBenchmark   - the full wellness report into a null sink, serial, on a 1 to 8 worker pool, and the way the menu does it
+ * MetricsBenchmark  - what timing one operation costs, timed with sampleEvery=8 has to stay under 50ns
+ * FieldHistoryBenchmark - reading a goal as it was on a past date, after 10 to 100k changes to it
+ * ChangeFeedBenchmark - publishing one change to the change feed with 0 to 8 change log consumers
+ * ShardBenchmark    - 256 users on a UserShardEngine with 1 to 8 shards, a command to each user or one query over all
+ * ImportBenchmark   - --import of a generated 10k and 1M activity history, csv and jsonl, in parallel and on one thread,
+ *                     with none or 30% of the activity rows invalid
+ * InputParseBenchmark - 10k and 1M lines of piped menu input read with Scanner and parse vs CharLineReader and CharParse
+ *
+ * UndoHistoryMemory is not a benchmark either, it measures the heap a 10k step undo history keeps alive
+ * on 1k to 1M activities (needs -Xmx4g for the 1M user):
+ *   java -Xmx4g -cp bench/target/benchmarks.jar mindtrack.bench.UndoHistoryMemory
+ *
+ * AllocationBudget is not a benchmark, it checks the bytes each hot path allocates per call against
+ * bench/allocation-budgets.properties and fails mvn test when one goes over (-Dalloc.skip to leave it out)
+ *
+ * Every history comes from DataGenerator_sec33_gr3 (see History), the same generator --generate uses for load tests
+ */
+package mindtrack.bench;
@@ -0,0 +1,483 @@
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ActivityQuery class - finds a user's activities by type, date, duration, score or any other test
+ * Made with User_sec33_gr_3.query() and set up one step at a time, like
+ * user.query().ofType("Sleep").between(from, to).where(Sleep_sec33_gr_3.class, Sleep_sec33_gr_3::hadNightmares)
+ * Before running it picks the smallest place to look in - the whole list, the date range or the type's own list
+ * Results come out one at a time as you iterate, nothing is copied unless you sort by something other than date
+ * If the user has a HistoryArchive_sec33_gr3 and the dates reach back into it, the archived matches
+ * are read from disk and come before the in memory ones, so a query doesnt care which tier things are in
+ * Days of the user's recurring activities are made for the query's dates only and merged in the same way
+ */
+public class ActivityQuery_sec33_gr3 implements Iterable<WellnessActivity_sec33_gr3> {
+
+    // Sort orders
+    public static final int SORT_DATE = 1; // the timeline's own order, no sorting needed
+    public static final int SORT_DURATION = 2;
+    public static final int SORT_SCORE = 3; // calculateProgress()
+
+    // Plans the query can run with
+    public static final int PLAN_FULL_SCAN = 1; // look at every activity
+    public static final int PLAN_DATE_INDEX = 2; // only the activities in the date range
+    public static final int PLAN_TYPE_PARTITION = 3; // only the activities of the type, within the date range if there is one
+
+    private final ActivityTimeline_sec33_gr3 timeline;
+    private final HistoryArchive_sec33_gr3 archive; // null if the user has no archive
+    private final List<RecurringTemplate_sec33_gr3> templates; // there days are made for the query's dates only
+    private String type;
+    private LocalDate from;
+    private LocalDate to;
+    private double minDuration = Double.NEGATIVE_INFINITY;
+    private double maxDuration = Double.POSITIVE_INFINITY;
+    private double minScore = Double.NEGATIVE_INFINITY;
+    private double maxScore = Double.POSITIVE_INFINITY;
+    private Predicate<? super WellnessActivity_sec33_gr3> condition; // every where() joined with and, null if none
+    private boolean recurring = true; // false leaves the template days out
+    private int sort = SORT_DATE;
+    private boolean descending;
+    private int limit = Integer.MAX_VALUE;
+
+    // filled in by plan() at the start of each run
+    private int plan;
+    private List<WellnessActivity_sec33_gr3> source;
+
+    /**
+     * Creates a query over a timeline, the archive behind it and the user's recurring activities,
+     * use User_sec33_gr_3.query() to get one
+     */
+    ActivityQuery_sec33_gr3(ActivityTimeline_sec33_gr3 timeline, HistoryArchive_sec33_gr3 archive,
+                            List<RecurringTemplate_sec33_gr3> templates) {
+        this.timeline = timeline;
+        this.archive = archive;
+        this.templates = templates;
+    }
+
+    /**
+     * Only activities of this type, the same names getActivityType() returns like "Sleep" or "ScreenTime"
+     */
+    public ActivityQuery_sec33_gr3 ofType(String activityType) {
+        this.type = activityType;
+        return this;
+    }
+
+    /**
+     * Only activities on or after this date
+     */
+    public ActivityQuery_sec33_gr3 from(LocalDate date) {
+        this.from = date;
+        return this;
+    }
+
+    /**
+     * Only activities on or before this date
+     */
+    public ActivityQuery_sec33_gr3 to(LocalDate date) {
+        this.to = date;
+        return this;
+    }
+
+    /**
+     * Only activities between the two dates, both included, either can be null for no limit
+     */
+    public ActivityQuery_sec33_gr3 between(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Only activities that lasted between min and max minutes, both included
+     */
+    public ActivityQuery_sec33_gr3 durationBetween(double min, double max) {
+        this.minDuration = min;
+        this.maxDuration = max;
+        return this;
+    }
+
+    /**
+     * Only activities with a score (calculateProgress) between min and max, both included
+     */
+    public ActivityQuery_sec33_gr3 scoreBetween(double min, double max) {
+        this.minScore = min;
+        this.maxScore = max;
+        return this;
+    }
+
+    /**
+     * Leaves out the days of recurring activities, only activities that were logged one by one
+     * The export uses this, it writes each recurring activity as one record instead of a record per day
+     */
+    public ActivityQuery_sec33_gr3 withoutRecurring() {
+        this.recurring = false;
+        return this;
+    }
+
+    /**
+     * Only activities that pass the test, can be called more than once and all tests must pass
+     */
+    public ActivityQuery_sec33_gr3 where(Predicate<? super WellnessActivity_sec33_gr3> test) {
+        if (condition == null) {
+            condition = test;
+        } else {
+            Predicate<? super WellnessActivity_sec33_gr3> before = condition;
+            condition = a -> before.test(a) && test.test(a);
+        }
+        return this;
+    }
+
+    /**
+     * Only activities of a class that pass a test for that class
+     * Like where(ScreenTime_sec33_gr3.class, s -> s.getDeviceType().equals("Phone"))
+     */
+    public <T extends WellnessActivity_sec33_gr3> ActivityQuery_sec33_gr3 where(Class<T> activityClass, Predicate<? super T> test) {
+        return where(a -> activityClass.isInstance(a) && test.test(activityClass.cast(a)));
+    }
+
+    /**
+     * Sorts by SORT_DATE (the default), SORT_DURATION or SORT_SCORE, smallest first
+     * Activities that tie stay in date order
+     */
+    public ActivityQuery_sec33_gr3 sortBy(int order) {
+        if (order != SORT_DATE && order != SORT_DURATION && order != SORT_SCORE) {
+            throw new IllegalArgumentException("Unknown sort order: " + order);
+        }
+        this.sort = order;
+        return this;
+    }
+
+    /**
+     * Biggest (or newest) first instead
+     */
+    public ActivityQuery_sec33_gr3 descending() {
+        this.descending = true;
+        return this;
+    }
+
+    /**
+     * Stops after this many results
+     */
+    public ActivityQuery_sec33_gr3 limit(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Limit cant be negative");
+        }
+        this.limit = max;
+        return this;
+    }
+
+    /**
+     * Gets which plan the query will run with, one of the PLAN_ constants
+     * This is the plan for the in memory activities, archived ones are always picked by segment dates
+     */
+    public int getPlan() {
+        plan();
+        return plan;
+    }
+
+    /**
+     * Gets how many activities the plan has to look at, before the other filters
+     * Includes archived activities already narrowed down by date and type
+     */
+    public int getScanSize() {
+        plan();
+        return source.size();
+    }
+
+    /**
+     * Runs the query and walks the results lazily
+     * In date order only what is needed gets looked at, so a limit stops the scan early
+     */
+    @Override
+    public Iterator<WellnessActivity_sec33_gr3> iterator() {
+        plan();
+        if (sort == SORT_DATE) {
+            return descending ? new Filtered(source.listIterator(source.size()), true, limit)
+                    : new Filtered(source.listIterator(), false, limit);
+        }
+        return Arrays.asList(ranked()).iterator();
+    }
+
+    /**
+     * Runs the query as a Stream, for when that reads better than a loop
+     */
+    public Stream<WellnessActivity_sec33_gr3> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Runs the query and copies the results into a new list
+     */
+    public List<WellnessActivity_sec33_gr3> toList() {
+        List<WellnessActivity_sec33_gr3> results = new ArrayList<>();
+        for (WellnessActivity_sec33_gr3 a : this) {
+            results.add(a);
+        }
+        return results;
+    }
+
+    /**
+     * Counts the results without keeping them
+     */
+    public int count() {
+        int count = 0;
+        for (Iterator<WellnessActivity_sec33_gr3> it = iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the first result, or null if nothing matches
+     */
+    public WellnessActivity_sec33_gr3 first() {
+        Iterator<WellnessActivity_sec33_gr3> it = iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Picks the plan with the fewest activities to look at
+     * The timeline and each type's timeline are sorted by date, so the exact size of a date range
+     * only costs a binary search and the planner never has to guess
+     * Done again every run so a query can be kept and reused after the user adds activities
+     * Archived activities are only read when a segment overlaps the dates
+     */
+    private void plan() {
+        boolean dated = from != null || to != null;
+        List<WellnessActivity_sec33_gr3> best = timeline;
+        int chosen = PLAN_FULL_SCAN;
+        if (dated) {
+            List<WellnessActivity_sec33_gr3> range = timeline.between(from, to);
+            if (range.size() < best.size()) {
+                best = range;
+                chosen = PLAN_DATE_INDEX;
+            }
+        }
+        if (type != null) {
+            ActivityTimeline_sec33_gr3 partition = timeline.ofType(type);
+            List<WellnessActivity_sec33_gr3> typed = dated ? partition.between(from, to) : partition;
+            if (typed.size() <= best.size()) { // same size still wins, the type check gets skipped
+                best = typed;
+                chosen = PLAN_TYPE_PARTITION;
+            }
+        }
+        if (archive != null && archive.overlaps(from, to)) {
+            List<WellnessActivity_sec33_gr3> archived = archive.read(from, to, type);
+            if (!archived.isEmpty()) {
+                LocalDate lastArchived = archived.get(archived.size() - 1).getDate();
+                if (best.isEmpty() || !best.get(0).getDate().isBefore(lastArchived)) {
+                    best = new TwoTiers(archived, best);
+                } else {
+                    best = merge(archived, best); // something back-dated was added after the archive was made
+                }
+            }
+        }
+        if (recurring && !templates.isEmpty()) {
+            List<WellnessActivity_sec33_gr3> routine = RecurringTemplate_sec33_gr3.materialize(templates, from, to, type, LocalDate.now());
+            if (!routine.isEmpty()) best = merge(routine, best); // same date, the routine's day goes first
+        }
+        source = best;
+        plan = chosen;
+    }
+
+    /**
+     * Merges two date sorted lists into one, on the same date the archived ones go first
+     */
+    private static List<WellnessActivity_sec33_gr3> merge(List<WellnessActivity_sec33_gr3> cold, List<WellnessActivity_sec33_gr3> hot) {
+        List<WellnessActivity_sec33_gr3> merged = new ArrayList<>(cold.size() + hot.size());
+        int i = 0;
+        for (WellnessActivity_sec33_gr3 a : hot) {
+            while (i < cold.size() && !cold.get(i).getDate().isAfter(a.getDate())) {
+                merged.add(cold.get(i++));
+            }
+            merged.add(a);
+        }
+        merged.addAll(cold.subList(i, cold.size()));
+        return merged;
+    }
+
+    /**
+     * Checks the filters the plan didnt already take care of
+     */
+    private boolean matches(WellnessActivity_sec33_gr3 a) {
+        if (plan != PLAN_TYPE_PARTITION) {
+            if (type != null && !type.equals(a.getActivityType())) return false;
+            if (plan == PLAN_FULL_SCAN && (from != null || to != null)) {
+                if (from != null && a.getDate().isBefore(from)) return false;
+                if (to != null && a.getDate().isAfter(to)) return false;
+            }
+        }
+        double duration = a.getDuration();
+        if (duration < minDuration || duration > maxDuration) return false;
+        if (minScore != Double.NEGATIVE_INFINITY || maxScore != Double.POSITIVE_INFINITY) {
+            double score = a.calculateProgress();
+            if (score < minScore || score > maxScore) return false;
+        }
+        return condition == null || condition.test(a);
+    }
+
+    /**
+     * Sorts the matches by duration or score
+     * With a limit only the best few are kept in a small heap instead of sorting everything
+     */
+    private WellnessActivity_sec33_gr3[] ranked() {
+        Comparator<Ranked> order = Comparator.comparingDouble((Ranked r) -> r.key);
+        if (descending) order = order.reversed();
+        order = order.thenComparingInt(r -> r.position); // ties stay in date order
+        boolean bounded = limit < source.size();
+        PriorityQueue<Ranked> heap = bounded ? new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed()) : null;
+        List<Ranked> all = bounded ? null : new ArrayList<>();
+        int position = 0;
+        for (WellnessActivity_sec33_gr3 a : source) {
+            if (matches(a)) {
+                Ranked r = new Ranked(a, sort == SORT_SCORE ? a.calculateProgress() : a.getDuration(), position);
+                if (bounded) {
+                    heap.add(r);
+                    if (heap.size() > limit) heap.poll(); // drop the worst one
+                } else {
+                    all.add(r);
+                }
+            }
+            position++;
+        }
+        Ranked[] results = (bounded ? heap : all).toArray(new Ranked[0]);
+        Arrays.sort(results, order);
+        WellnessActivity_sec33_gr3[] activities = new WellnessActivity_sec33_gr3[results.length];
+        for (int i = 0; i < results.length; i++) {
+            activities[i] = results[i].activity;
+        }
+        return activities;
+    }
+
+    /**
+     * An activity with the value it is being sorted by
+     */
+    private static final class Ranked {
+        final WellnessActivity_sec33_gr3 activity;
+        final double key;
+        final int position;
+
+        Ranked(WellnessActivity_sec33_gr3 activity, double key, int position) {
+            this.activity = activity;
+            this.key = key;
+            this.position = position;
+        }
+    }
+
+    /**
+     * The archived matches followed by the in memory list, without copying either
+     * All the archived dates are before the in memory ones so it stays in date order
+     */
+    private static final class TwoTiers extends AbstractList<WellnessActivity_sec33_gr3> {
+        private final List<WellnessActivity_sec33_gr3> cold;
+        private final List<WellnessActivity_sec33_gr3> hot;
+
+        TwoTiers(List<WellnessActivity_sec33_gr3> cold, List<WellnessActivity_sec33_gr3> hot) {
+            this.cold = cold;
+            this.hot = hot;
+        }
+
+        @Override
+        public int size() { return cold.size() + hot.size(); }
+
+        @Override
+        public WellnessActivity_sec33_gr3 get(int index) {
+            return index < cold.size() ? cold.get(index) : hot.get(index - cold.size());
+        }
+
+        /**
+         * Walks the two lists with there own iterators, the timeline's one is much cheaper than get()
+         */
+        @Override
+        public ListIterator<WellnessActivity_sec33_gr3> listIterator(int index) {
+            int split = cold.size();
+            if (index < 0 || index > size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            ListIterator<WellnessActivity_sec33_gr3> first = cold.listIterator(Math.min(index, split));
+            ListIterator<WellnessActivity_sec33_gr3> second = hot.listIterator(Math.max(0, index - split));
+            return new ListIterator<WellnessActivity_sec33_gr3>() {
+                @Override
+                public boolean hasNext() { return first.hasNext() || second.hasNext(); }
+
+                @Override
+                public WellnessActivity_sec33_gr3 next() {
+                    return first.hasNext() ? first.next() : second.next();
+                }
+
+                @Override
+                public boolean hasPrevious() { return second.hasPrevious() || first.hasPrevious(); }
+
+                @Override
+                public WellnessActivity_sec33_gr3 previous() {
+                    return second.hasPrevious() ? second.previous() : first.previous();
+                }
+
+                @Override
+                public int nextIndex() { return first.nextIndex() + second.nextIndex(); }
+
+                @Override
+                public int previousIndex() { return nextIndex() - 1; }
+
+                @Override
+                public void remove() { throw new UnsupportedOperationException(); }
+
+                @Override
+                public void set(WellnessActivity_sec33_gr3 a) { throw new UnsupportedOperationException(); }
+
+                @Override
+                public void add(WellnessActivity_sec33_gr3 a) { throw new UnsupportedOperationException(); }
+            };
+        }
+    }
+
+    /**
+     * Walks the plan's list forwards or backwards and skips anything that doesnt match
+     */
+    private final class Filtered implements Iterator<WellnessActivity_sec33_gr3> {
+        private final ListIterator<WellnessActivity_sec33_gr3> it;
+        private final boolean backwards;
+        private int remaining;
+        private WellnessActivity_sec33_gr3 next;
+
+        Filtered(ListIterator<WellnessActivity_sec33_gr3> it, boolean backwards, int remaining) {
+            this.it = it;
+            this.backwards = backwards;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (remaining == 0) return false;
+            while (backwards ? it.hasPrevious() : it.hasNext()) {
+                WellnessActivity_sec33_gr3 a = backwards ? it.previous() : it.next();
+                if (matches(a)) {
+                    next = a;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public WellnessActivity_sec33_gr3 next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            WellnessActivity_sec33_gr3 a = next;
+            next = null;
+            remaining--;
+            return a;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * ActivityRollup class - totals for one activity type over one day, week or month
+ * Old activities are squashed into these when they get archived, so years of history
+ * only cost a few numbers per day or week instead of an object per activity
+ * Besides count, duration and score each type keeps two means of its own, see metricName()
+ */
+public class ActivityRollup_sec33_gr3 {
+
+    // Bucket sizes
+    public static final int DAY = 1;
+    public static final int WEEK = 7; // weeks start on Monday
+    public static final int MONTH = 30; // months start on the 1st, they arent all 30 days so use bucketEnd() for the last one
+
+    private final LocalDate start; // first day of the bucket
+    private final int bucket; // DAY, WEEK or MONTH
+    private final String activityType;
+    private int count;
+    private double totalDuration;
+    private double totalScore;
+    private final double[] metricTotals = new double[2];
+
+    /**
+     * Creates an empty rollup for the bucket a date falls in
+     */
+    public ActivityRollup_sec33_gr3(LocalDate date, int bucket, String activityType) {
+        if (bucket != DAY && bucket != WEEK && bucket != MONTH) {
+            throw new IllegalArgumentException("Bucket must be DAY, WEEK or MONTH");
+        }
+        this.start = bucketStart(date, bucket);
+        this.bucket = bucket;
+        this.activityType = activityType;
+    }
+
+    /**
+     * Gets the first day of the bucket a date falls in
+     */
+    public static LocalDate bucketStart(LocalDate date, int bucket) {
+        switch (bucket) {
+            case WEEK: return date.minusDays(date.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+            case MONTH: return date.withDayOfMonth(1);
+            default: return date;
+        }
+    }
+
+    /**
+     * Gets the last day of the bucket a date falls in
+     */
+    public static LocalDate bucketEnd(LocalDate date, int bucket) {
+        return bucket == MONTH ? date.withDayOfMonth(date.lengthOfMonth()) : bucketStart(date, bucket).plusDays(bucket - 1);
+    }
+
+    /**
+     * Gets what the two type specific means are for an activity type
+     */
+    public static String metricName(String activityType, int metric) {
+        switch (activityType) {
+            case "Sleep": return metric == 0 ? "quality" : "nightmare rate";
+            case "Meditation": return metric == 0 ? "distractions" : "completion rate";
+            case "Journaling": return metric == 0 ? "mood change" : "words";
+            case "ScreenTime": return metric == 0 ? "breaks" : "eye strain rate";
+            default: return "metric " + metric;
+        }
+    }
+
+    /**
+     * Adds one activity into the totals
+     */
+    public void add(WellnessActivity_sec33_gr3 activity) {
+        add(activity, 1);
+    }
+
+    /**
+     * Adds the same activity into the totals a number of times, like every day a recurring activity happened
+     */
+    public void add(WellnessActivity_sec33_gr3 activity, int times) {
+        count += times;
+        totalDuration += activity.getDuration() * times;
+        totalScore += activity.calculateProgress() * times;
+        if (activity instanceof Sleep_sec33_gr_3 sleep) {
+            metricTotals[0] += sleep.getQuality() * times;
+            metricTotals[1] += sleep.hadNightmares() ? times : 0;
+        } else if (activity instanceof Meditation_sec33_gr3 meditation) {
+            metricTotals[0] += meditation.getDistractionCount() * times;
+            metricTotals[1] += meditation.isCompletedSession() ? times : 0;
+        } else if (activity instanceof Journaling_sec33_gr3 journaling) {
+            metricTotals[0] += (journaling.getMoodAfter() - journaling.getMoodBefore()) * times;
+            metricTotals[1] += (double) journaling.getWordCount() * times;
+        } else if (activity instanceof ScreenTime_sec33_gr3 screenTime) {
+            metricTotals[0] += screenTime.getBreaksTaken() * times;
+            metricTotals[1] += screenTime.causedEyeStrain() ? times : 0;
+        }
+    }
+
+    /**
+     * Adds another rollup's totals into this one, used when a week is partly archived and partly not
+     */
+    public void merge(ActivityRollup_sec33_gr3 other) {
+        count += other.count;
+        totalDuration += other.totalDuration;
+        totalScore += other.totalScore;
+        metricTotals[0] += other.metricTotals[0];
+        metricTotals[1] += other.metricTotals[1];
+    }
+
+    /**
+     * Makes a copy so the stored rollups cant be changed by whoever asked for them
+     */
+    ActivityRollup_sec33_gr3 copy() {
+        ActivityRollup_sec33_gr3 copy = new ActivityRollup_sec33_gr3(start, bucket, activityType);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Gets the first day of the bucket
+     */
+    public LocalDate getStart() { return start; }
+
+    /**
+     * Gets the last day of the bucket
+     */
+    public LocalDate getEnd() { return bucketEnd(start, bucket); }
+
+    /**
+     * Gets whether this is a DAY, WEEK or MONTH rollup
+     */
+    public int getBucket() { return bucket; }
+
+    /**
+     * Gets which activity type this rollup is for
+     */
+    public String getActivityType() { return activityType; }
+
+    /**
+     * Gets how many activities went into the rollup
+     */
+    public int getCount() { return count; }
+
+    /**
+     * Gets the total minutes of all the activities
+     */
+    public double getTotalDuration() { return totalDuration; }
+
+    /**
+     * Gets the average minutes per activity
+     */
+    public double getAverageDuration() { return count == 0 ? 0 : totalDuration / count; }
+
+    /**
+     * Gets the average calculateProgress() score of the activities
+     */
+    public double getAverageScore() { return count == 0 ? 0 : totalScore / count; }
+
+    /**
+     * Gets one of the type specific means (0 or 1), metricName() says what it is
+     */
+    public double getMean(int metric) { return count == 0 ? 0 : metricTotals[metric] / count; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        TextFormat_sec33_gr3.appendDate(sb, start).append(bucket == WEEK ? " week | " : bucket == MONTH ? " month | " : " | ")
+                .append(activityType).append(" | Count: ").append(count).append(" | Avg duration: ");
+        TextFormat_sec33_gr3.appendFixed1(sb, getAverageDuration()).append(" min | Avg score: ");
+        TextFormat_sec33_gr3.appendFixed1(sb, getAverageScore()).append(" | ").append(metricName(activityType, 0)).append(": ");
+        TextFormat_sec33_gr3.appendFixed1(sb, getMean(0)).append(" | ").append(metricName(activityType, 1)).append(": ");
+        TextFormat_sec33_gr3.appendFixed1(sb, getMean(1));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,726 @@
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * ActivityTimeline class - keeps a user's activities sorted by date
+ * Stored as a list of small sorted chunks, so adding a back-dated activity only shifts one chunk
+ * instead of the whole list, and finding the right chunk is a binary search
+ * Activities on the same date stay in the order they were added
+ * Works like a normal List for reading, add() puts the activity in its date position
+ * add(index, activity) and set() only take an index that keeps the date order, the undo history uses them
+ * The user's timeline also keeps one smaller timeline per activity type for ActivityQuery_sec33_gr3
+ * share() gives a copy in O(1) that uses the same chunks, whichever one writes to a chunk afterwards copies
+ * it first, so the undo journal can keep whole versions of the timeline for the cost of the chunks that change
+ */
+public class ActivityTimeline_sec33_gr3 extends AbstractList<WellnessActivity_sec33_gr3> implements RandomAccess {
+
+    private static final int CHUNK_SIZE = 512; // a full chunk gets split into two halves
+    private static final ActivityTimeline_sec33_gr3 EMPTY = new ActivityTimeline_sec33_gr3(false);
+
+    private Chunk[] chunks = new Chunk[8];
+    private int chunkCount;
+    private int size;
+    // Fenwick tree over chunk sizes so index lookups are O(log n), rebuilt when chunks are added or removed
+    private int[] counts = new int[9];
+    // one timeline per activity type, kept in step on every add and remove, null for the per-type ones themselves
+    private final Map<String, ActivityTimeline_sec33_gr3> partitions;
+    // chunks made or copied by this timeline since it was last shared carry this, only those can be written in place
+    private Object owner = new Object();
+    private boolean sharedTable; // chunks and counts are also used by a copy from share(), copy them before writing
+
+    /**
+     * One piece of the timeline - activities and there epoch days, both sorted by day
+     */
+    private static final class Chunk {
+        final Object owner;
+        final WellnessActivity_sec33_gr3[] items;
+        final long[] days;
+        int size;
+
+        Chunk(Object owner) {
+            this(owner, new WellnessActivity_sec33_gr3[CHUNK_SIZE], new long[CHUNK_SIZE], 0);
+        }
+
+        private Chunk(Object owner, WellnessActivity_sec33_gr3[] items, long[] days, int size) {
+            this.owner = owner;
+            this.items = items;
+            this.days = days;
+            this.size = size;
+        }
+
+        Chunk copy(Object owner) {
+            return new Chunk(owner, items.clone(), days.clone(), size);
+        }
+
+        long firstDay() { return days[0]; }
+        long lastDay() { return days[size - 1]; }
+
+        /**
+         * First position with a day after the given day
+         */
+        int upperBound(long day) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (days[mid] <= day) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * First position with a day on or after the given day
+         */
+        int lowerBound(long day) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (days[mid] < day) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Creates an empty timeline
+     */
+    public ActivityTimeline_sec33_gr3() {
+        this.partitions = new HashMap<>();
+    }
+
+    private ActivityTimeline_sec33_gr3(boolean partitioned) {
+        this.partitions = partitioned ? new HashMap<>() : null;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public WellnessActivity_sec33_gr3 get(int index) {
+        checkIndex(index);
+        int c = chunkOf(index);
+        return chunks[c].items[index - startOf(c)];
+    }
+
+    /**
+     * Adds an activity in date order, after any others on the same date
+     * Adding in date order (the normal case) goes straight on the end
+     * Always returns true
+     */
+    @Override
+    public boolean add(WellnessActivity_sec33_gr3 activity) {
+        if (activity == null) {
+            throw new NullPointerException("Activity cant be null");
+        }
+        long day = activity.getDate().toEpochDay();
+        int c;
+        if (chunkCount == 0) {
+            insertChunk(0);
+            c = 0;
+        } else if (day >= chunks[chunkCount - 1].lastDay()) {
+            c = chunkCount - 1; // appending, no search needed
+        } else {
+            c = Math.max(0, lastChunkStartingAtOrBefore(day));
+        }
+        insertAt(c, chunks[c].upperBound(day), activity, day);
+        if (partitions != null) {
+            partitions.computeIfAbsent(activity.getActivityType(), t -> new ActivityTimeline_sec33_gr3(false)).add(activity);
+        }
+        return true;
+    }
+
+    /**
+     * Puts an activity in at an exact index, like undoing a delete does
+     * The index has to keep the date order, so it can only choose a place among the activities on the same date
+     */
+    @Override
+    public void add(int index, WellnessActivity_sec33_gr3 activity) {
+        if (activity == null) {
+            throw new NullPointerException("Activity cant be null");
+        }
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        long day = activity.getDate().toEpochDay();
+        if ((index > 0 && dayAt(index - 1) > day) || (index < size && dayAt(index) < day)) {
+            throw new IllegalArgumentException("Activity on " + activity.getDate() + " doesnt belong at index " + index);
+        }
+        int partitionIndex = partitions != null ? partitionIndex(index, activity) : -1;
+        if (chunkCount == 0) {
+            insertChunk(0);
+            insertAt(0, 0, activity, day);
+        } else if (index == size) {
+            insertAt(chunkCount - 1, chunks[chunkCount - 1].size, activity, day);
+        } else {
+            int c = chunkOf(index);
+            insertAt(c, index - startOf(c), activity, day);
+        }
+        if (partitions != null) {
+            partitions.computeIfAbsent(activity.getActivityType(), t -> new ActivityTimeline_sec33_gr3(false))
+                    .add(partitionIndex, activity);
+        }
+    }
+
+    /**
+     * Swaps the activity at an index for another one on the same date and returns the old one
+     * Used to put back an earlier version of an activity, so it keeps its place
+     */
+    @Override
+    public WellnessActivity_sec33_gr3 set(int index, WellnessActivity_sec33_gr3 activity) {
+        checkIndex(index);
+        if (activity == null) {
+            throw new NullPointerException("Activity cant be null");
+        }
+        int c = chunkOf(index);
+        int pos = index - startOf(c);
+        if (chunks[c].days[pos] != activity.getDate().toEpochDay()) {
+            throw new IllegalArgumentException("Activity on " + activity.getDate() + " doesnt belong at index " + index);
+        }
+        Chunk chunk = writable(c);
+        WellnessActivity_sec33_gr3 old = chunk.items[pos];
+        chunk.items[pos] = activity;
+        if (partitions != null) {
+            ActivityTimeline_sec33_gr3 partition = partitions.get(old.getActivityType());
+            if (old.getActivityType().equals(activity.getActivityType())) {
+                partition.set(partition.indexOf(old), activity);
+            } else {
+                partition.remove(old);
+                partitions.computeIfAbsent(activity.getActivityType(), t -> new ActivityTimeline_sec33_gr3(false))
+                        .add(partitionIndex(index, activity), activity);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Finds this exact activity object, looking only at activities on its date
+     * Returns -1 if it isnt in the timeline
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof WellnessActivity_sec33_gr3)) return -1;
+        WellnessActivity_sec33_gr3 activity = (WellnessActivity_sec33_gr3) o;
+        long day = activity.getDate().toEpochDay();
+        for (int c = Math.max(0, lastChunkStartingBefore(day)); c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            if (chunk.firstDay() > day) break;
+            for (int i = chunk.lowerBound(day); i < chunk.size && chunk.days[i] == day; i++) {
+                if (chunk.items[i] == activity) return startOf(c) + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puts an activity at a position in a chunk, splitting the chunk first if its full
+     */
+    private void insertAt(int c, int pos, WellnessActivity_sec33_gr3 activity, long day) {
+        if (chunks[c].size == CHUNK_SIZE) {
+            if (pos == CHUNK_SIZE && c == chunkCount - 1) {
+                // end of the timeline - start a new chunk instead of splitting a full one
+                insertChunk(c + 1);
+                c++;
+                pos = 0;
+            } else {
+                split(c);
+                if (pos > chunks[c].size) {
+                    pos -= chunks[c].size;
+                    c++;
+                }
+            }
+        }
+        Chunk chunk = writable(c);
+        System.arraycopy(chunk.items, pos, chunk.items, pos + 1, chunk.size - pos);
+        System.arraycopy(chunk.days, pos, chunk.days, pos + 1, chunk.size - pos);
+        chunk.items[pos] = activity;
+        chunk.days[pos] = day;
+        chunk.size++;
+        size++;
+        adjustCount(c, 1);
+        modCount++;
+    }
+
+    /**
+     * Removes the activity at an index and returns it
+     */
+    @Override
+    public WellnessActivity_sec33_gr3 remove(int index) {
+        checkIndex(index);
+        int c = chunkOf(index);
+        return removeAt(c, index - startOf(c));
+    }
+
+    /**
+     * Removes this exact activity object, looking only at activities on its date
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof WellnessActivity_sec33_gr3)) return false;
+        WellnessActivity_sec33_gr3 activity = (WellnessActivity_sec33_gr3) o;
+        long day = activity.getDate().toEpochDay();
+        for (int c = Math.max(0, lastChunkStartingBefore(day)); c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            if (chunk.firstDay() > day) break;
+            for (int i = chunk.lowerBound(day); i < chunk.size && chunk.days[i] == day; i++) {
+                if (chunk.items[i] == activity) {
+                    removeAt(c, i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        chunks = new Chunk[8];
+        chunkCount = 0;
+        size = 0;
+        counts = new int[9];
+        sharedTable = false;
+        modCount++;
+        if (partitions != null) partitions.clear();
+    }
+
+    /**
+     * Removes every activity dated before a date and returns how many went
+     * Whole chunks are dropped at once, so clearing out years of old history is cheap
+     */
+    public int removeBefore(LocalDate date) {
+        int end = firstIndexOnOrAfter(date);
+        if (end == 0) return 0;
+        ownTable();
+        int whole = 0;
+        int left = end;
+        while (whole < chunkCount && chunks[whole].size <= left) {
+            left -= chunks[whole].size;
+            whole++;
+        }
+        System.arraycopy(chunks, whole, chunks, 0, chunkCount - whole);
+        Arrays.fill(chunks, chunkCount - whole, chunkCount, null);
+        chunkCount -= whole;
+        if (left > 0) {
+            Chunk first = writable(0);
+            System.arraycopy(first.items, left, first.items, 0, first.size - left);
+            System.arraycopy(first.days, left, first.days, 0, first.size - left);
+            Arrays.fill(first.items, first.size - left, first.size, null);
+            first.size -= left;
+        }
+        size -= end;
+        rebuildCounts();
+        modCount++;
+        if (partitions != null) {
+            for (ActivityTimeline_sec33_gr3 partition : partitions.values()) {
+                partition.removeBefore(date);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Gets a copy of the timeline in O(1) (one per activity type for the partitions), it uses the same chunks
+     * Whichever of the two writes to a chunk later copies that chunk first, and the chunk array too on
+     * the first write, so the other one never sees the change
+     */
+    public ActivityTimeline_sec33_gr3 share() {
+        ActivityTimeline_sec33_gr3 copy = new ActivityTimeline_sec33_gr3(partitions != null);
+        copy.chunks = chunks;
+        copy.chunkCount = chunkCount;
+        copy.size = size;
+        copy.counts = counts;
+        copy.sharedTable = true;
+        sharedTable = true;
+        owner = new Object(); // the chunks belong to neither of them now
+        if (partitions != null) {
+            for (Map.Entry<String, ActivityTimeline_sec33_gr3> e : partitions.entrySet()) {
+                copy.partitions.put(e.getKey(), e.getValue().share());
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Makes this timeline the same as saved in O(1), by sharing saved's chunks like share() does
+     * saved itself stays as it is, so it can be put back again later
+     */
+    public void restore(ActivityTimeline_sec33_gr3 saved) {
+        ActivityTimeline_sec33_gr3 copy = saved.share();
+        chunks = copy.chunks;
+        chunkCount = copy.chunkCount;
+        size = copy.size;
+        counts = copy.counts;
+        sharedTable = true;
+        owner = copy.owner;
+        modCount++;
+        if (partitions != null) {
+            partitions.clear();
+            partitions.putAll(copy.partitions);
+        }
+    }
+
+    /**
+     * Gets the activities in chunks of this timeline that other doesnt have, oldest first
+     * Two versions that came from share() only differ in chunks written since, so comparing them
+     * only has to look at those, O(chunks) plus the activities in the chunks that changed
+     */
+    List<WellnessActivity_sec33_gr3> notSharedWith(ActivityTimeline_sec33_gr3 other) {
+        Set<Chunk> theirs = Collections.newSetFromMap(new IdentityHashMap<>(other.chunkCount * 2));
+        for (int c = 0; c < other.chunkCount; c++) theirs.add(other.chunks[c]);
+        List<WellnessActivity_sec33_gr3> result = new ArrayList<>();
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            if (!theirs.contains(chunk)) result.addAll(Arrays.asList(chunk.items).subList(0, chunk.size));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the activities of one type, in the same order as the whole timeline
+     * Empty if there are none, dont change the returned timeline directly
+     */
+    ActivityTimeline_sec33_gr3 ofType(String activityType) {
+        if (partitions == null) {
+            throw new IllegalStateException("Only the full timeline is split by type");
+        }
+        ActivityTimeline_sec33_gr3 partition = partitions.get(activityType);
+        return partition != null ? partition : EMPTY;
+    }
+
+    /**
+     * Gets the index of the first activity on or after a date
+     * Returns size() if every activity is before it
+     */
+    public int firstIndexOnOrAfter(LocalDate date) {
+        long day = date.toEpochDay();
+        int c = Math.max(0, lastChunkStartingBefore(day));
+        for (; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            int pos = chunk.lowerBound(day);
+            if (pos < chunk.size) return startOf(c) + pos;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the index just after the last activity on or before a date
+     */
+    public int endIndexOnOrBefore(LocalDate date) {
+        long day = date.toEpochDay();
+        int c = lastChunkStartingAtOrBefore(day);
+        if (c < 0) return 0;
+        return startOf(c) + chunks[c].upperBound(day);
+    }
+
+    /**
+     * Gets all activities from one date to another, both ends included, oldest first
+     * The result is a live view like subList, either date can be null for no limit
+     */
+    public List<WellnessActivity_sec33_gr3> between(LocalDate from, LocalDate to) {
+        int start = from == null ? 0 : firstIndexOnOrAfter(from);
+        int end = to == null ? size : endIndexOnOrBefore(to);
+        return subList(start, Math.max(start, end));
+    }
+
+    /**
+     * Gets the n activities with the latest dates, oldest of them first
+     */
+    public List<WellnessActivity_sec33_gr3> latest(int n) {
+        return subList(Math.max(0, size - n), size);
+    }
+
+    /**
+     * Walks the chunks directly so iterating is O(1) per step
+     */
+    @Override
+    public ListIterator<WellnessActivity_sec33_gr3> listIterator(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new TimelineIterator(index);
+    }
+
+    @Override
+    public Iterator<WellnessActivity_sec33_gr3> iterator() {
+        return new TimelineIterator(0);
+    }
+
+    // ------------------------------------------------------------------ internals
+
+    private long dayAt(int index) {
+        int c = chunkOf(index);
+        return chunks[c].days[index - startOf(c)];
+    }
+
+    /**
+     * Where an activity going in at index belongs in its type's timeline
+     * The activities of that type before index are all before it there too, only the ones on the same date need counting
+     */
+    private int partitionIndex(int index, WellnessActivity_sec33_gr3 activity) {
+        ActivityTimeline_sec33_gr3 partition = partitions.get(activity.getActivityType());
+        if (partition == null) return 0;
+        int sameDay = 0;
+        for (int i = firstIndexOnOrAfter(activity.getDate()); i < index; i++) {
+            if (get(i).getActivityType().equals(activity.getActivityType())) sameDay++;
+        }
+        return partition.firstIndexOnOrAfter(activity.getDate()) + sameDay;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Last chunk whose first day is on or before day, or -1 if there is none
+     */
+    private int lastChunkStartingAtOrBefore(long day) {
+        int lo = 0;
+        int hi = chunkCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (chunks[mid].firstDay() <= day) lo = mid + 1; else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    /**
+     * Last chunk whose first day is strictly before day, or -1 if there is none
+     * Activities on day itself can only start in the chunk after it
+     */
+    private int lastChunkStartingBefore(long day) {
+        int lo = 0;
+        int hi = chunkCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (chunks[mid].firstDay() < day) lo = mid + 1; else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    private WellnessActivity_sec33_gr3 removeAt(int c, int pos) {
+        Chunk chunk = writable(c);
+        WellnessActivity_sec33_gr3 removed = chunk.items[pos];
+        int moved = chunk.size - pos - 1;
+        System.arraycopy(chunk.items, pos + 1, chunk.items, pos, moved);
+        System.arraycopy(chunk.days, pos + 1, chunk.days, pos, moved);
+        chunk.size--;
+        chunk.items[chunk.size] = null;
+        size--;
+        if (chunk.size == 0) {
+            System.arraycopy(chunks, c + 1, chunks, c, chunkCount - c - 1);
+            chunks[--chunkCount] = null;
+            rebuildCounts();
+        } else {
+            adjustCount(c, -1);
+        }
+        modCount++;
+        if (partitions != null) {
+            ActivityTimeline_sec33_gr3 partition = partitions.get(removed.getActivityType());
+            if (partition != null) partition.remove(removed);
+        }
+        return removed;
+    }
+
+    private void insertChunk(int at) {
+        ownTable();
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        chunks[at] = new Chunk(owner);
+        chunkCount++;
+        rebuildCounts();
+    }
+
+    /**
+     * Moves the top half of a full chunk into a new chunk right after it
+     */
+    private void split(int c) {
+        insertChunk(c + 1);
+        Chunk full = writable(c);
+        Chunk half = chunks[c + 1];
+        int keep = full.size / 2;
+        int moved = full.size - keep;
+        System.arraycopy(full.items, keep, half.items, 0, moved);
+        System.arraycopy(full.days, keep, half.days, 0, moved);
+        Arrays.fill(full.items, keep, full.size, null);
+        half.size = moved;
+        full.size = keep;
+        rebuildCounts();
+    }
+
+    /**
+     * Makes sure chunk c is this timeline's own and returns it, copying it first if a copy from share() uses it too
+     */
+    private Chunk writable(int c) {
+        Chunk chunk = chunks[c];
+        if (chunk.owner != owner) {
+            ownTable();
+            chunk = chunk.copy(owner);
+            chunks[c] = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Makes sure the chunk array and the Fenwick tree are this timeline's own before they change
+     */
+    private void ownTable() {
+        if (sharedTable) {
+            chunks = chunks.clone();
+            counts = counts.clone();
+            sharedTable = false;
+        }
+    }
+
+    private void rebuildCounts() {
+        if (counts.length < chunkCount + 1) {
+            counts = new int[chunks.length + 1];
+        } else {
+            Arrays.fill(counts, 0);
+        }
+        for (int i = 1; i <= chunkCount; i++) {
+            counts[i] += chunks[i - 1].size;
+            int parent = i + (i & -i);
+            if (parent <= chunkCount) counts[parent] += counts[i];
+        }
+    }
+
+    private void adjustCount(int c, int delta) {
+        for (int i = c + 1; i <= chunkCount; i += i & -i) {
+            counts[i] += delta;
+        }
+    }
+
+    /**
+     * Number of activities in the chunks before chunk c
+     */
+    private int startOf(int c) {
+        int sum = 0;
+        for (int i = c; i > 0; i -= i & -i) {
+            sum += counts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the chunk holding an index by walking down the Fenwick tree
+     */
+    private int chunkOf(int index) {
+        int pos = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(Math.max(1, chunkCount)); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= chunkCount && counts[next] <= remaining) {
+                pos = next;
+                remaining -= counts[next];
+            }
+        }
+        return pos; // chunk index (0-based) is the number of whole chunks skipped
+    }
+
+    /**
+     * List iterator that keeps a chunk and position instead of looking up every index
+     */
+    private final class TimelineIterator implements ListIterator<WellnessActivity_sec33_gr3> {
+        private int index; // index of the element next() will return
+        private int chunk; // chunk holding index (or chunkCount at the end)
+        private int pos; // position of index inside that chunk
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+
+        TimelineIterator(int index) {
+            seek(index);
+        }
+
+        private void seek(int target) {
+            index = target;
+            if (target >= size) {
+                chunk = chunkCount;
+                pos = 0;
+            } else {
+                chunk = chunkOf(target);
+                pos = target - startOf(chunk);
+            }
+        }
+
+        @Override
+        public boolean hasNext() { return index < size; }
+
+        @Override
+        public WellnessActivity_sec33_gr3 next() {
+            checkForComodification();
+            if (index >= size) throw new NoSuchElementException();
+            WellnessActivity_sec33_gr3 item = chunks[chunk].items[pos];
+            lastReturned = index;
+            index++;
+            if (++pos == chunks[chunk].size) {
+                chunk++;
+                pos = 0;
+            }
+            return item;
+        }
+
+        @Override
+        public boolean hasPrevious() { return index > 0; }
+
+        @Override
+        public WellnessActivity_sec33_gr3 previous() {
+            checkForComodification();
+            if (index <= 0) throw new NoSuchElementException();
+            if (pos == 0) {
+                chunk--;
+                pos = chunks[chunk].size;
+            }
+            pos--;
+            index--;
+            lastReturned = index;
+            return chunks[chunk].items[pos];
+        }
+
+        @Override
+        public int nextIndex() { return index; }
+
+        @Override
+        public int previousIndex() { return index - 1; }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) throw new IllegalStateException();
+            checkForComodification();
+            ActivityTimeline_sec33_gr3.this.remove(lastReturned);
+            seek(lastReturned); // whatever was after it has moved down one
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(WellnessActivity_sec33_gr3 activity) {
+            throw new UnsupportedOperationException("Activities are kept in date order");
+        }
+
+        @Override
+        public void add(WellnessActivity_sec33_gr3 activity) {
+            throw new UnsupportedOperationException("Activities are kept in date order, use add(activity)");
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * BatchRunner class - loads a compact command script straight into a user
+ * Replaces piping answers into the menu prompts when importing lots of data
+ * One command per line, for example:
+ *
+ *   sleep 2025-01-01 480 q=8 bed=23:30 wake=07:30 nightmares=n notes="slept well"
+ *   meditation 2025-01-01 15 type=guided focus=stress distractions=1 completed=y
+ *   journal 2025-01-01 20 before=4 after=7 words=300 theme=gratitude beneficial=y
+ *   screen 2025-01-01 120 device=phone purpose=social breaks=2 strain=n
+ *   mood 2025-01-01 8 3 tags=happy,calm triggers=work notes="good day"
+ *   goal sleep 8 start=2025-01-01 end=2025-03-01 desc="Sleep 8h"
+ *
+ * Durations are in minutes, dates are YYYY-MM-DD or "today", every key=value is optional
+ * Goal kinds are sleep, meditation, journal, screen, mood and streak
+ * Bad lines are counted and reported but never stop the import
+ */
+public class BatchRunner_sec33_gr3 {
+
+    private final User_sec33_gr_3 user;
+    private final PrintStream errors; // where rejected lines are reported, null to stay quiet
+    private final LocalDate today = LocalDate.now();
+    private int applied; // commands that changed the user
+    private int rejected; // commands that were skipped because of bad input
+
+    /**
+     * Creates a runner that adds everything to the given user
+     * Pass null for errors to skip the per-line messages, counts are kept either way
+     */
+    public BatchRunner_sec33_gr3(User_sec33_gr_3 user, PrintStream errors) {
+        this.user = user;
+        this.errors = errors;
+    }
+
+    /**
+     * Gets how many commands were applied so far
+     */
+    public int getApplied() { return applied; }
+
+    /**
+     * Gets how many commands were rejected so far
+     */
+    public int getRejected() { return rejected; }
+
+    /**
+     * Runs every command in the input
+     * Can be called more than once, counts keep adding up
+     */
+    public void run(Reader in) throws IOException {
+        JfrEvents_sec33_gr3.ImportEvent event = new JfrEvents_sec33_gr3.ImportEvent();
+        event.begin();
+        int appliedBefore = applied;
+        int rejectedBefore = rejected;
+        BatchTokenizer_sec33_gr3 t = new BatchTokenizer_sec33_gr3(in);
+        while (t.nextLine()) {
+            String error = t.isMalformed() ? "unclosed quote or too many values" : apply(t);
+            if (error == null) {
+                applied++;
+            } else {
+                rejected++;
+                if (errors != null) {
+                    errors.println("Line " + t.getLineNumber() + ": " + error);
+                }
+            }
+        }
+        if (event.shouldCommit()) {
+            event.user = user.getName();
+            event.source = "batch";
+            event.records = applied - appliedBefore;
+            event.rejected = rejected - rejectedBefore;
+            event.threads = 1;
+            event.commit();
+        }
+    }
+
+    /**
+     * Applies the command on the current line
+     * Returns null if it worked or a short reason if the line was rejected
+     */
+    private String apply(BatchTokenizer_sec33_gr3 t) {
+        if (t.is(0, "sleep")) return sleep(t);
+        if (t.is(0, "meditation")) return meditation(t);
+        if (t.is(0, "journal")) return journal(t);
+        if (t.is(0, "screen")) return screen(t);
+        if (t.is(0, "mood")) return mood(t);
+        if (t.is(0, "goal")) return goal(t);
+        return "unknown command " + t.raw(0);
+    }
+
+    // One method per command - positional values first, then optional key=value pairs
+
+    private String sleep(BatchTokenizer_sec33_gr3 t) {
+        if (t.tokenCount() < 3) return "usage: sleep <date> <minutes> [q=] [bed=] [wake=] [nightmares=] [notes=]";
+        LocalDate date = date(t, 1);
+        double minutes = number(t, 2);
+        if (date == null) return "bad date " + t.raw(1);
+        if (Double.isNaN(minutes)) return "bad duration " + t.raw(2);
+        int quality = 5;
+        LocalTime bedtime = null;
+        LocalTime wakeTime = null;
+        boolean nightmares = false;
+        String notes = "";
+        for (int i = 3; i < t.tokenCount(); i++) {
+            if (t.keyIs(i, "q")) {
+                long v = integer(t, i);
+                if (v == CharParse_sec33_gr3.INVALID_INT) return "bad quality " + t.raw(i);
+                quality = (int) v;
+            } else if (t.keyIs(i, "bed")) {
+                bedtime = CharParse_sec33_gr3.parseTime(t.buffer(), t.valueStart(i), t.valueEnd(i));
+                if (bedtime == null) return "bad time " + t.raw(i);
+            } else if (t.keyIs(i, "wake")) {
+                wakeTime = CharParse_sec33_gr3.parseTime(t.buffer(), t.valueStart(i), t.valueEnd(i));
+                if (wakeTime == null) return "bad time " + t.raw(i);
+            } else if (t.keyIs(i, "nightmares")) {
+                int yn = yesNo(t, i);
+                if (yn < 0) return "bad yes/no " + t.raw(i);
+                nightmares = yn == 1;
+            } else if (t.keyIs(i, "notes")) {
+                notes = t.text(i);
+            } else {
+                return "unknown option " + t.raw(i);
+            }
+        }
+        Sleep_sec33_gr_3 sleep = Sleep_sec33_gr_3.tryCreate(date, minutes, notes, quality, bedtime, wakeTime, nightmares);
+        if (sleep == null) return "invalid duration for Sleep: " + minutes;
+        user.addActivity(sleep);
+        return null;
+    }
+
+    private String meditation(BatchTokenizer_sec33_gr3 t) {
+        if (t.tokenCount() < 3) return "usage: meditation <date> <minutes> [type=] [focus=] [distractions=] [completed=] [notes=]";
+        LocalDate date = date(t, 1);
+        double minutes = number(t, 2);
+        if (date == null) return "bad date " + t.raw(1);
+        if (Double.isNaN(minutes)) return "bad duration " + t.raw(2);
+        String type = "";
+        String focus = "";
+        int distractions = 0;
+        boolean completed = true;
+        String notes = "";
+        for (int i = 3; i < t.tokenCount(); i++) {
+            if (t.keyIs(i, "type")) {
+                type = t.text(i);
+            } else if (t.keyIs(i, "focus")) {
+                focus = t.text(i);
+            } else if (t.keyIs(i, "distractions")) {
+                long v = integer(t, i);
+                if (v == CharParse_sec33_gr3.INVALID_INT || v < 0) return "bad distraction count " + t.raw(i);
+                distractions = (int) v;
+            } else if (t.keyIs(i, "completed")) {
+                int yn = yesNo(t, i);
+                if (yn < 0) return "bad yes/no " + t.raw(i);
+                completed = yn == 1;
+            } else if (t.keyIs(i, "notes")) {
+                notes = t.text(i);
+            } else {
+                return "unknown option " + t.raw(i);
+            }
+        }
+        Meditation_sec33_gr3 meditation = Meditation_sec33_gr3.tryCreate(date, minutes, notes, type, focus, distractions, completed);
+        if (meditation == null) return "invalid duration for Meditation: " + minutes;
+        user.addActivity(meditation);
+        return null;
+    }
+
+    private String journal(BatchTokenizer_sec33_gr3 t) {
+        if (t.tokenCount() < 3) return "usage: journal <date> <minutes> [before=] [after=] [words=] [theme=] [beneficial=] [notes=]";
+        LocalDate date = date(t, 1);
+        double minutes = number(t, 2);
+        if (date == null) return "bad date " + t.raw(1);
+        if (Double.isNaN(minutes)) return "bad duration " + t.raw(2);
+        int moodBefore = 5;
+        int moodAfter = 5;
+        int words = 0;
+        String theme = "";
+        boolean beneficial = true;
+        String notes = "";
+        for (int i = 3; i < t.tokenCount(); i++) {
+            if (t.keyIs(i, "before") || t.keyIs(i, "after") || t.keyIs(i, "words")) {
+                long v = integer(t, i);
+                if (v == CharParse_sec33_gr3.INVALID_INT || v < 0) return "bad number " + t.raw(i);
+                if (t.keyIs(i, "before")) moodBefore = (int) v;
+                else if (t.keyIs(i, "after")) moodAfter = (int) v;
+                else words = (int) v;
+            } else if (t.keyIs(i, "theme")) {
+                theme = t.text(i);
+            } else if (t.keyIs(i, "beneficial")) {
+                int yn = yesNo(t, i);
+                if (yn < 0) return "bad yes/no " + t.raw(i);
+                beneficial = yn == 1;
+            } else if (t.keyIs(i, "notes")) {
+                notes = t.text(i);
+            } else {
+                return "unknown option " + t.raw(i);
+            }
+        }
+        int code = Journaling_sec33_gr3.validate(minutes, moodBefore, moodAfter);
+        if (code != ValidationResult_sec33_gr3.OK) {
+            return code == ValidationResult_sec33_gr3.INVALID_DURATION
+                    ? "invalid duration for Journaling: " + minutes : ValidationResult_sec33_gr3.describe(code);
+        }
+        user.addActivity(new Journaling_sec33_gr3(date, minutes, notes, moodBefore, moodAfter, words, theme, beneficial));
+        return null;
+    }
+
+    private String screen(BatchTokenizer_sec33_gr3 t) {
+        if (t.tokenCount() < 3) return "usage: screen <date> <minutes> [device=] [purpose=] [breaks=] [strain=] [notes=]";
+        LocalDate date = date(t, 1);
+        double minutes = number(t, 2);
+        if (date == null) return "bad date " + t.raw(1);
+        if (Double.isNaN(minutes)) return "bad duration " + t.raw(2);
+        String device = "";
+        String purpose = "";
+        int breaks = 0;
+        boolean strain = false;
+        String notes = "";
+        for (int i = 3; i < t.tokenCount(); i++) {
+            if (t.keyIs(i, "device")) {
+                device = t.text(i);
+            } else if (t.keyIs(i, "purpose")) {
+                purpose = t.text(i);
+            } else if (t.keyIs(i, "breaks")) {
+                long v = integer(t, i);
+                if (v == CharParse_sec33_gr3.INVALID_INT || v < 0) return "bad break count " + t.raw(i);
+                breaks = (int) v;
+            } else if (t.keyIs(i, "strain")) {
+                int yn = yesNo(t, i);
+                if (yn < 0) return "bad yes/no " + t.raw(i);
+                strain = yn == 1;
+            } else if (t.keyIs(i, "notes")) {
+                notes = t.text(i);
+            } else {
+                return "unknown option " + t.raw(i);
+            }
+        }
+        ScreenTime_sec33_gr3 screenTime = ScreenTime_sec33_gr3.tryCreate(date, minutes, notes, device, purpose, breaks, strain);
+        if (screenTime == null) return "invalid duration for ScreenTime: " + minutes;
+        user.addActivity(screenTime);
+        return null;
+    }
+
+    private String mood(BatchTokenizer_sec33_gr3 t) {
+        if (t.tokenCount() < 4) return "usage: mood <date> <mood 1-10> <stress 1-10> [tags=] [triggers=] [notes=]";
+        LocalDate date = date(t, 1);
+        long mood = integer(t, 2);
+        long stress = integer(t, 3);
+        if (date == null) return "bad date " + t.raw(1);
+        if (mood == CharParse_sec33_gr3.INVALID_INT) return "bad mood " + t.raw(2);
+        if (stress == CharParse_sec33_gr3.INVALID_INT) return "bad stress " + t.raw(3);
+        String tags = "";
+        String triggers = "";
+        String notes = "";
+        for (int i = 4; i < t.tokenCount(); i++) {
+            if (t.keyIs(i, "tags")) {
+                tags = t.text(i);
+            } else if (t.keyIs(i, "triggers")) {
+                triggers = t.text(i);
+            } else if (t.keyIs(i, "notes")) {
+                notes = t.text(i);
+            } else {
+                return "unknown option " + t.raw(i);
+            }
+        }
+        int code = MoodStressEntry_sec33_gr3.validate((int) mood, (int) stress);
+        if (code != ValidationResult_sec33_gr3.OK) return ValidationResult_sec33_gr3.describe(code);
+        user.addMoodStressEntry(new MoodStressEntry_sec33_gr3(date, (int) mood, (int) stress, tags, triggers, notes));
+        return null;
+    }
+
+    private String goal(BatchTokenizer_sec33_gr3 t) {
+        if (t.tokenCount() < 3) return "usage: goal <sleep|meditation|journal|screen|mood|streak> <target> [start=] [end=] [desc=]";
+        String goalType = goalType(t, 1);
+        double target = number(t, 2);
+        if (goalType == null) return "unknown goal kind " + t.raw(1);
+        if (Double.isNaN(target)) return "bad target " + t.raw(2);
+        LocalDate start = today;
+        LocalDate end = today;
+        String description = "";
+        for (int i = 3; i < t.tokenCount(); i++) {
+            if (t.keyIs(i, "start") || t.keyIs(i, "end")) {
+                LocalDate d = date(t, i);
+                if (d == null) return "bad date " + t.raw(i);
+                if (t.keyIs(i, "start")) start = d;
+                else end = d;
+            } else if (t.keyIs(i, "desc")) {
+                description = t.text(i);
+            } else {
+                return "unknown option " + t.raw(i);
+            }
+        }
+        WellnessGoal_sec33_gr3 goal = WellnessGoal_sec33_gr3.tryCreate(goalType, target, start, end, description);
+        if (goal == null) return ValidationResult_sec33_gr3.describe(WellnessGoal_sec33_gr3.validate(goalType, target));
+        user.addGoal(goal);
+        return null;
+    }
+
+    // Small parsing helpers - all of them read straight from the tokenizer buffer
+
+    private LocalDate date(BatchTokenizer_sec33_gr3 t, int i) {
+        if (CharParse_sec33_gr3.equals(t.buffer(), t.valueStart(i), t.valueEnd(i), "today")) return today;
+        return CharParse_sec33_gr3.parseDate(t.buffer(), t.valueStart(i), t.valueEnd(i));
+    }
+
+    private static double number(BatchTokenizer_sec33_gr3 t, int i) {
+        return CharParse_sec33_gr3.parseDouble(t.buffer(), t.valueStart(i), t.valueEnd(i));
+    }
+
+    private static long integer(BatchTokenizer_sec33_gr3 t, int i) {
+        return CharParse_sec33_gr3.parseInt(t.buffer(), t.valueStart(i), t.valueEnd(i));
+    }
+
+    private static int yesNo(BatchTokenizer_sec33_gr3 t, int i) {
+        return CharParse_sec33_gr3.parseYesNo(t.buffer(), t.valueStart(i), t.valueEnd(i));
+    }
+
+    /**
+     * Maps the short goal kind used in scripts to the GoalType_sec33_gr3 constant
+     */
+    private static String goalType(BatchTokenizer_sec33_gr3 t, int i) {
+        if (t.is(i, "sleep")) return GoalType_sec33_gr3.SLEEP_HOURS;
+        if (t.is(i, "meditation")) return GoalType_sec33_gr3.MEDITATION_MINUTES;
+        if (t.is(i, "journal")) return GoalType_sec33_gr3.JOURNAL_ENTRIES;
+        if (t.is(i, "screen")) return GoalType_sec33_gr3.SCREEN_TIME_LIMIT;
+        if (t.is(i, "mood")) return GoalType_sec33_gr3.MOOD_IMPROVEMENT;
+        if (t.is(i, "streak")) return GoalType_sec33_gr3.ACTIVITY_STREAK;
+        return null;
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * BatchTokenizer class - splits a batch script into lines and tokens without copying text
+ * Lines come from CharLineReader_sec33_gr3, each token is only a start/end position in its buffer
+ * Tokens are separated by spaces, key=value tokens remember where the value starts
+ * Values can be quoted like notes="slept badly" so they can contain spaces
+ * Blank lines and lines starting with # are skipped
+ */
+public class BatchTokenizer_sec33_gr3 {
+
+    private static final int MAX_TOKENS = 64; // more than any command needs
+
+    private final CharLineReader_sec33_gr3 lines;
+    private int lineNumber;
+
+    // Token positions for the current line, all relative to buffer()
+    private final int[] tokenStart = new int[MAX_TOKENS];
+    private final int[] tokenEnd = new int[MAX_TOKENS];
+    private final int[] valueStart = new int[MAX_TOKENS]; // after the '=' for key=value, else same as start
+    private final int[] valueEnd = new int[MAX_TOKENS]; // without the closing quote for quoted values
+    private final int[] keyEnd = new int[MAX_TOKENS]; // position of '=' or -1 if no key
+    private int tokenCount;
+    private boolean malformed; // unclosed quote or too many tokens on this line
+
+    /**
+     * Creates a tokenizer that reads from the given input
+     * The reader doesnt need to be buffered, CharLineReader_sec33_gr3 does its own buffering
+     */
+    public BatchTokenizer_sec33_gr3(Reader reader) {
+        this.lines = new CharLineReader_sec33_gr3(reader);
+    }
+
+    /**
+     * Moves to the next line that has at least one token
+     * Returns false at the end of the input
+     */
+    public boolean nextLine() throws IOException {
+        while (lines.nextLine()) {
+            lineNumber++;
+            tokenize(lines.buffer(), lines.start(), lines.end());
+            if (tokenCount > 0 || malformed) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the line number of the current line, starting at 1
+     */
+    public int getLineNumber() { return lineNumber; }
+
+    /**
+     * Gets how many tokens the current line has
+     */
+    public int tokenCount() { return tokenCount; }
+
+    /**
+     * Checks if the current line had an unclosed quote or too many tokens
+     */
+    public boolean isMalformed() { return malformed; }
+
+    /**
+     * Gets the buffer the token positions point into
+     * Only valid until the next call to nextLine()
+     */
+    public char[] buffer() { return lines.buffer(); }
+
+    /**
+     * Start of token i in the buffer, including any key= part
+     */
+    public int start(int i) { return tokenStart[i]; }
+
+    /**
+     * End of token i in the buffer (exclusive)
+     */
+    public int end(int i) { return tokenEnd[i]; }
+
+    /**
+     * Start of the value part of token i, after the '=' and opening quote
+     */
+    public int valueStart(int i) { return valueStart[i]; }
+
+    /**
+     * End of the value part of token i, before any closing quote
+     */
+    public int valueEnd(int i) { return valueEnd[i]; }
+
+    /**
+     * Checks if token i looks like key=value
+     */
+    public boolean hasKey(int i) { return keyEnd[i] >= 0; }
+
+    /**
+     * Checks if token i is exactly the given word
+     */
+    public boolean is(int i, String word) {
+        return keyEnd[i] < 0 && CharParse_sec33_gr3.equals(lines.buffer(), valueStart[i], valueEnd[i], word);
+    }
+
+    /**
+     * Checks if token i is key=value with the given key
+     */
+    public boolean keyIs(int i, String key) {
+        return keyEnd[i] >= 0 && CharParse_sec33_gr3.equals(lines.buffer(), tokenStart[i], keyEnd[i], key);
+    }
+
+    /**
+     * Copies the value of token i into a new String
+     * Only used for free text like notes, everything else is parsed in place
+     */
+    public String text(int i) {
+        return new String(lines.buffer(), valueStart[i], valueEnd[i] - valueStart[i]);
+    }
+
+    /**
+     * Copies token i into a new String including any key, used for error messages
+     */
+    public String raw(int i) {
+        return new String(lines.buffer(), tokenStart[i], tokenEnd[i] - tokenStart[i]);
+    }
+
+    /**
+     * Splits buf[start..end) into tokens, skipping comment lines
+     */
+    private void tokenize(char[] buf, int start, int end) {
+        tokenCount = 0;
+        malformed = false;
+        int i = start;
+        while (i < end) {
+            char c = buf[i];
+            if (c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            if (c == '#' && tokenCount == 0) return; // comment line
+            if (tokenCount == MAX_TOKENS) {
+                malformed = true;
+                return;
+            }
+            int t = tokenCount;
+            tokenStart[t] = i;
+            keyEnd[t] = -1;
+            valueStart[t] = i;
+            // key part runs until '=' or whitespace
+            while (i < end && buf[i] != ' ' && buf[i] != '\t' && buf[i] != '=' && buf[i] != '"') i++;
+            if (i < end && buf[i] == '=') {
+                keyEnd[t] = i;
+                i++;
+                valueStart[t] = i;
+            }
+            if (i < end && buf[i] == '"') {
+                int close = i + 1;
+                while (close < end && buf[close] != '"') close++;
+                if (close == end) {
+                    malformed = true;
+                    return;
+                }
+                valueStart[t] = i + 1;
+                valueEnd[t] = close;
+                i = close + 1;
+            } else {
+                while (i < end && buf[i] != ' ' && buf[i] != '\t') i++;
+                valueEnd[t] = i;
+            }
+            tokenEnd[t] = i;
+            tokenCount++;
+        }
+    }
+}
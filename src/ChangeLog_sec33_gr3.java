@@ -0,0 +1,61 @@
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * ChangeLog class - a change feed consumer that writes one line per change to a file
+ * Lines look like "12 ActivityUpdated duration", the sequence number, the event type and the field if there is one
+ * Only reads the type and field of each event, those are never changed after publishing so its safe
+ * from the consumer thread, the subject itself can still be changing on the producer thread
+ */
+public class ChangeLog_sec33_gr3 implements UserChangeListener_sec33_gr3 {
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(64); // reused for every event, only the consumer thread touches it
+    private long written; // lines written so far
+    private IOException failure; // first write error, nothing more is written after one
+
+    /**
+     * Creates a change log that writes to the given writer
+     * Lines are flushed at the end of every batch the feed hands over
+     */
+    public ChangeLog_sec33_gr3(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one line for the event
+     */
+    @Override
+    public void onEvent(UserChangeEvent_sec33_gr3 event, long sequence, boolean endOfBatch) {
+        if (failure != null) {
+            return;
+        }
+        line.setLength(0);
+        line.append(sequence).append(' ').append(UserChangeEvent_sec33_gr3.typeName(event.getType()));
+        if (event.getField() != null) {
+            line.append(' ').append(event.getField());
+        }
+        line.append('\n');
+        try {
+            out.append(line);
+            written++;
+            if (endOfBatch) {
+                out.flush();
+            }
+        } catch (IOException ex) {
+            failure = ex;
+        }
+    }
+
+    /**
+     * Gets how many lines were written
+     * Only call this after the feed is closed, before that the consumer thread is still counting
+     */
+    public long getWritten() { return written; }
+
+    /**
+     * Gets the first write error, null if every line was written
+     * Only call this after the feed is closed
+     */
+    public IOException getFailure() { return failure; }
+}
@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * CharLineReader class - reads input one line at a time into a reusable char[] buffer
+ * The current line is just a start/end range in the buffer, no String is made for it
+ * Pair it with CharParse_sec33_gr3 to read numbers and dates without any garbage
+ * Used by the console menu helpers and by the batch tokenizer
+ */
+public class CharLineReader_sec33_gr3 {
+
+    private final Reader reader;
+    private char[] buf = new char[1 << 16];
+    private int pos; // start of the unread part of buf
+    private int limit; // end of the valid data in buf
+    private boolean eof;
+    private int start; // current line, start in buf
+    private int end; // current line, end in buf (exclusive, no line break)
+
+    /**
+     * Creates a line reader over a character stream
+     * The reader doesnt need to be buffered, this class does its own buffering
+     */
+    public CharLineReader_sec33_gr3(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Creates a line reader over a byte stream like System.in
+     * Uses the default charset, same as Scanner does
+     */
+    public CharLineReader_sec33_gr3(InputStream in) {
+        this(new InputStreamReader(in, Charset.defaultCharset()));
+    }
+
+    /**
+     * Moves to the next line
+     * Returns false if there are no more lines, the last line doesnt need a line break
+     */
+    public boolean nextLine() throws IOException {
+        int newline = findNewline();
+        if (newline < 0) return false;
+        start = pos;
+        end = newline;
+        pos = Math.min(newline + 1, limit);
+        if (end > start && buf[end - 1] == '\r') end--;
+        return true;
+    }
+
+    /**
+     * Cuts spaces and control characters off both ends of the current line
+     * Works the same as String.trim() but just moves the start and end
+     */
+    public void trim() {
+        while (start < end && buf[start] <= ' ') start++;
+        while (end > start && buf[end - 1] <= ' ') end--;
+    }
+
+    /**
+     * Gets the buffer the current line lives in
+     * Only valid until the next call to nextLine()
+     */
+    public char[] buffer() { return buf; }
+
+    /**
+     * Start of the current line in the buffer
+     */
+    public int start() { return start; }
+
+    /**
+     * End of the current line in the buffer (exclusive)
+     */
+    public int end() { return end; }
+
+    /**
+     * Checks if the current line has no characters
+     */
+    public boolean isEmpty() { return start == end; }
+
+    /**
+     * Copies the current line into a new String
+     * Only needed for free text like notes, numbers and dates can be parsed in place
+     */
+    public String lineString() {
+        return new String(buf, start, end - start);
+    }
+
+    /**
+     * Finds the next '\n' reading more input if needed
+     * Returns the position of the newline, or limit for a last line without one, or -1 at the end
+     */
+    private int findNewline() throws IOException {
+        int scan = pos;
+        while (true) {
+            for (; scan < limit; scan++) {
+                if (buf[scan] == '\n') return scan;
+            }
+            if (eof) {
+                return pos < limit ? limit : -1;
+            }
+            // keep the partial line and read more after it
+            int kept = limit - pos;
+            if (kept == buf.length) {
+                char[] bigger = new char[buf.length * 2];
+                System.arraycopy(buf, pos, bigger, 0, kept);
+                buf = bigger;
+            } else if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, kept);
+            }
+            scan -= pos;
+            pos = 0;
+            limit = kept;
+            int n = reader.read(buf, limit, buf.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+    }
+}
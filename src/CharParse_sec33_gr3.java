@@ -0,0 +1,199 @@
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * CharParse class - parses numbers, dates and times straight out of a char[] range
+ * No Strings are created and nothing is thrown, bad input just returns a marker value
+ * Used by the batch tokenizer and the console input reader so both accept exactly the same formats
+ */
+public class CharParse_sec33_gr3 {
+
+    /**
+     * Returned by parseInt when the text is not a valid int
+     * Long so that every real int value can still be returned
+     */
+    public static final long INVALID_INT = Long.MIN_VALUE;
+
+    // Powers of ten that are exact as doubles, used for the fast decimal path
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Static helper class, no instances needed
+    private CharParse_sec33_gr3() { }
+
+    /**
+     * Parses an int like "42" or "-7" from buf[from..to)
+     * Returns INVALID_INT if its empty, has other characters or doesnt fit in an int
+     */
+    public static long parseInt(char[] buf, int from, int to) {
+        if (from >= to) return INVALID_INT;
+        boolean negative = false;
+        int i = from;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+            if (i == to) return INVALID_INT;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) return INVALID_INT;
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) return INVALID_INT;
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) return INVALID_INT;
+        return value;
+    }
+
+    /**
+     * Parses a decimal number like "7.5", "-0.25" or "8" from buf[from..to)
+     * Returns NaN if the text is not a plain decimal number
+     * Short numbers are converted exactly without going through Double.parseDouble
+     */
+    public static double parseDouble(char[] buf, int from, int to) {
+        if (from >= to) return Double.NaN;
+        boolean negative = false;
+        int i = from;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0; // digits in mantissa, leading zeros not counted
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean seenDot = false;
+        boolean tooLong = false; // more digits than the fast path can handle exactly
+        for (; i < to; i++) {
+            char c = buf[i];
+            if (c == '.') {
+                if (seenDot) return Double.NaN;
+                seenDot = true;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) return Double.NaN;
+            digits++;
+            if (mantissa != 0 || digit != 0) significant++;
+            if (significant <= 18) {
+                mantissa = mantissa * 10 + digit;
+                if (seenDot) fractionDigits++;
+            } else {
+                tooLong = true;
+            }
+        }
+        if (digits == 0) return Double.NaN;
+        if (tooLong || mantissa >= (1L << 53) || fractionDigits >= POWERS_OF_TEN.length) {
+            return slowParse(buf, from, to);
+        }
+        // both are exact doubles so a single division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Fallback for numbers with lots of digits
+     * The syntax was already checked so Double.parseDouble cant throw here
+     */
+    private static double slowParse(char[] buf, int from, int to) {
+        return Double.parseDouble(new String(buf, from, to - from));
+    }
+
+    /**
+     * Parses an ISO date like "2025-01-31" from buf[from..to)
+     * Returns null if the format is wrong or the day doesnt exist in that month
+     */
+    public static LocalDate parseDate(char[] buf, int from, int to) {
+        if (to - from != 10 || buf[from + 4] != '-' || buf[from + 7] != '-') return null;
+        int year = digits(buf, from, 4);
+        int month = digits(buf, from + 5, 2);
+        int day = digits(buf, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1) return null;
+        if (day > daysInMonth(year, month)) return null;
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Parses a time like "23:30" or "07:00:15" from buf[from..to)
+     * Hours and minutes need two digits each, same as LocalTime.parse
+     * Returns null if the format or values are wrong
+     */
+    public static LocalTime parseTime(char[] buf, int from, int to) {
+        int length = to - from;
+        if ((length != 5 && length != 8) || buf[from + 2] != ':') return null;
+        int hour = digits(buf, from, 2);
+        int minute = digits(buf, from + 3, 2);
+        int second = 0;
+        if (length == 8) {
+            if (buf[from + 5] != ':') return null;
+            second = digits(buf, from + 6, 2);
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) return null;
+        return LocalTime.of(hour, minute, second);
+    }
+
+    /**
+     * Parses a yes/no answer - y, yes, n or no in any case
+     * Returns 1 for yes, 0 for no and -1 for anything else
+     */
+    public static int parseYesNo(char[] buf, int from, int to) {
+        if (equalsIgnoreCase(buf, from, to, "y") || equalsIgnoreCase(buf, from, to, "yes")) return 1;
+        if (equalsIgnoreCase(buf, from, to, "n") || equalsIgnoreCase(buf, from, to, "no")) return 0;
+        return -1;
+    }
+
+    /**
+     * Checks if buf[from..to) is the same text as s
+     */
+    public static boolean equals(char[] buf, int from, int to, String s) {
+        if (to - from != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (buf[from + i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if buf[from..to) is the same text as s ignoring upper/lower case
+     */
+    public static boolean equalsIgnoreCase(char[] buf, int from, int to, String s) {
+        if (to - from != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            char a = buf[from + i];
+            char b = s.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a fixed number of digits as an int, returns -1 if any of them isnt a digit
+     */
+    private static int digits(char[] buf, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Number of days in a month, takes leap years into account
+     */
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
@@ -0,0 +1,696 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * ColdSegment class - one immutable archive file of old activities and mood entries
+ * Records are date sorted and cut into blocks of BLOCK_RECORDS, each block is compressed on its own
+ * so reading a month only has to decompress the one or two blocks that month is in
+ * A block has two columns - the record fields, and the notes which are compressed with a dictionary
+ * shared by the whole archive, since people write the same notes over and over
+ * The end of the file has a small index with the dates and types in each block, it stays in memory
+ *
+ * File layout: MAGIC, VERSION, dictionary checksum, the blocks, the index, index offset, MAGIC
+ */
+public class ColdSegment_sec33_gr3 {
+
+    public static final int BLOCK_RECORDS = 128;
+    public static final int MAX_DICTIONARY = 32 * 1024; // deflate cant look further back than this
+
+    private static final int MAGIC = 0x4D54_5347; // "MTSG"
+    private static final int VERSION = 1;
+
+    // Record kinds in the record column, also the bits of Block.kinds
+    private static final int SLEEP = 0;
+    private static final int MEDITATION = 1;
+    private static final int JOURNAL = 2;
+    private static final int SCREEN = 3;
+    private static final int MOOD = 4;
+    private static final String[] TYPE_NAMES = {"Sleep", "Meditation", "Journaling", "ScreenTime"};
+
+    private final Path file;
+    private final byte[] dictionary; // shared notes dictionary, empty if there is none
+    private final List<Block> activityBlocks;
+    private final List<Block> moodBlocks;
+    private final long fileSize;
+
+    /**
+     * Where one block is in the file and what is in it
+     */
+    static final class Block {
+        final long offset;
+        final int recordLength; // compressed size of the record column
+        final int notesLength; // compressed size of the notes column, right after the records
+        final int rawLength; // both columns before compression
+        final int count;
+        final long firstDay; // epoch days
+        final long lastDay;
+        final int kinds; // bit per record kind in the block
+
+        Block(long offset, int recordLength, int notesLength, int rawLength, int count, long firstDay, long lastDay, int kinds) {
+            this.offset = offset;
+            this.recordLength = recordLength;
+            this.notesLength = notesLength;
+            this.rawLength = rawLength;
+            this.count = count;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.kinds = kinds;
+        }
+
+        boolean overlaps(long from, long to) {
+            return lastDay >= from && firstDay <= to;
+        }
+    }
+
+    private ColdSegment_sec33_gr3(Path file, byte[] dictionary, List<Block> activityBlocks, List<Block> moodBlocks, long fileSize) {
+        this.file = file;
+        this.dictionary = dictionary;
+        this.activityBlocks = activityBlocks;
+        this.moodBlocks = moodBlocks;
+        this.fileSize = fileSize;
+    }
+
+    // ------------------------------------------------------------------ writing
+
+    /**
+     * Writes a new segment file, both lists must be sorted by date
+     * The dictionary is from buildDictionary() and must be passed again to open() the file
+     */
+    public static ColdSegment_sec33_gr3 write(Path file, List<WellnessActivity_sec33_gr3> activities,
+                                              List<MoodStressEntry_sec33_gr3> moods, byte[] dictionary) throws IOException {
+        JfrEvents_sec33_gr3.FlushEvent event = new JfrEvents_sec33_gr3.FlushEvent();
+        event.begin();
+        Deflater records = new Deflater(Deflater.BEST_COMPRESSION);
+        Deflater notes = new Deflater(Deflater.BEST_COMPRESSION);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(checksum(dictionary));
+            writeFully(channel, bytes);
+
+            BlockWriter writer = new BlockWriter(channel, records, notes, dictionary);
+            List<Block> activityBlocks = new ArrayList<>();
+            for (int start = 0; start < activities.size(); start += BLOCK_RECORDS) {
+                List<WellnessActivity_sec33_gr3> part = activities.subList(start, Math.min(activities.size(), start + BLOCK_RECORDS));
+                for (WellnessActivity_sec33_gr3 a : part) {
+                    writer.activity(a);
+                }
+                activityBlocks.add(writer.finish(part.size(), part.get(0).getDate(), part.get(part.size() - 1).getDate()));
+            }
+            List<Block> moodBlocks = new ArrayList<>();
+            for (int start = 0; start < moods.size(); start += BLOCK_RECORDS) {
+                List<MoodStressEntry_sec33_gr3> part = moods.subList(start, Math.min(moods.size(), start + BLOCK_RECORDS));
+                for (MoodStressEntry_sec33_gr3 m : part) {
+                    writer.mood(m);
+                }
+                moodBlocks.add(writer.finish(part.size(), part.get(0).getDate(), part.get(part.size() - 1).getDate()));
+            }
+
+            long indexOffset = channel.position();
+            writeIndex(out, activityBlocks);
+            writeIndex(out, moodBlocks);
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            writeFully(channel, bytes);
+            if (event.shouldCommit()) {
+                event.file = file.toString();
+                event.kind = "segment";
+                event.records = activities.size() + moods.size();
+                event.bytesWritten = channel.position();
+                event.commit();
+            }
+            return new ColdSegment_sec33_gr3(file, dictionary, activityBlocks, moodBlocks, channel.position());
+        } finally {
+            records.end();
+            notes.end();
+        }
+    }
+
+    /**
+     * Builds a notes dictionary from some sample notes, the most common ones go at the end
+     * where deflate finds them cheapest. Notes that only show up once are left out
+     */
+    public static byte[] buildDictionary(List<String> samples) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String s : samples) {
+            if (s != null && !s.isEmpty()) counts.merge(s, 1, Integer::sum);
+        }
+        List<Map.Entry<String, Integer>> common = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            if (e.getValue() > 1) common.add(e);
+        }
+        common.sort((a, b) -> a.getValue().equals(b.getValue()) ? a.getKey().compareTo(b.getKey()) : Integer.compare(b.getValue(), a.getValue()));
+        List<byte[]> picked = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> e : common) {
+            byte[] utf8 = e.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + utf8.length > MAX_DICTIONARY) continue;
+            picked.add(utf8);
+            size += utf8.length;
+        }
+        byte[] dictionary = new byte[size];
+        int at = size;
+        for (byte[] utf8 : picked) { // most common first, so it ends up last
+            at -= utf8.length;
+            System.arraycopy(utf8, 0, dictionary, at, utf8.length);
+        }
+        return dictionary;
+    }
+
+    private static void writeIndex(DataOutputStream out, List<Block> blocks) throws IOException {
+        out.writeInt(blocks.size());
+        for (Block b : blocks) {
+            out.writeLong(b.offset);
+            out.writeInt(b.recordLength);
+            out.writeInt(b.notesLength);
+            out.writeInt(b.rawLength);
+            out.writeInt(b.count);
+            out.writeLong(b.firstDay);
+            out.writeLong(b.lastDay);
+            out.writeByte(b.kinds);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteArrayOutputStream bytes) throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(bytes.toByteArray());
+        while (b.hasRemaining()) {
+            channel.write(b);
+        }
+        bytes.reset();
+    }
+
+    /**
+     * Collects one block's two columns and writes them compressed
+     */
+    private static final class BlockWriter {
+        private final FileChannel channel;
+        private final Deflater records;
+        private final Deflater notes;
+        private final byte[] dictionary;
+        private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(1 << 14);
+        private final ByteArrayOutputStream notesBytes = new ByteArrayOutputStream(1 << 14);
+        private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+        private final DataOutputStream notesOut = new DataOutputStream(notesBytes);
+        private byte[] compressed = new byte[1 << 14];
+        private int kinds;
+        private long lastId; // ids and dates are stored as the change from the record before
+        private long lastDay;
+
+        BlockWriter(FileChannel channel, Deflater records, Deflater notes, byte[] dictionary) {
+            this.channel = channel;
+            this.records = records;
+            this.notes = notes;
+            this.dictionary = dictionary;
+        }
+
+        void activity(WellnessActivity_sec33_gr3 a) throws IOException {
+            int kind = kindOf(a);
+            kinds |= 1 << kind;
+            recordOut.writeByte(kind);
+            writeVarLong(recordOut, a.getActivityId() - lastId);
+            lastId = a.getActivityId();
+            writeDay(a.getDate());
+            writeDuration(a.getDuration());
+            if (kind == SLEEP) {
+                Sleep_sec33_gr_3 s = (Sleep_sec33_gr_3) a;
+                writeVarLong(recordOut, s.getQuality());
+                writeTime(s.getBedtime());
+                writeTime(s.getWakeTime());
+                recordOut.writeBoolean(s.hadNightmares());
+            } else if (kind == MEDITATION) {
+                Meditation_sec33_gr3 m = (Meditation_sec33_gr3) a;
+                writeString(recordOut, m.getMeditationType());
+                writeString(recordOut, m.getFocusArea());
+                writeVarLong(recordOut, m.getDistractionCount());
+                recordOut.writeBoolean(m.isCompletedSession());
+            } else if (kind == JOURNAL) {
+                Journaling_sec33_gr3 j = (Journaling_sec33_gr3) a;
+                writeVarLong(recordOut, j.getMoodBefore());
+                writeVarLong(recordOut, j.getMoodAfter());
+                writeVarLong(recordOut, j.getWordCount());
+                writeString(recordOut, j.getJournalTheme());
+                recordOut.writeBoolean(j.feltBeneficial());
+            } else {
+                ScreenTime_sec33_gr3 s = (ScreenTime_sec33_gr3) a;
+                writeString(recordOut, s.getDeviceType());
+                writeString(recordOut, s.getPurpose());
+                writeVarLong(recordOut, s.getBreaksTaken());
+                recordOut.writeBoolean(s.causedEyeStrain());
+                recordOut.writeBoolean(s.usedBlueLightFilter());
+            }
+            writeString(notesOut, a.getNotes());
+        }
+
+        void mood(MoodStressEntry_sec33_gr3 m) throws IOException {
+            kinds |= 1 << MOOD;
+            recordOut.writeByte(MOOD);
+            writeDay(m.getDate());
+            writeVarLong(recordOut, m.getMoodLevel());
+            writeVarLong(recordOut, m.getStressLevel());
+            writeString(recordOut, m.getMoodTags());
+            writeString(recordOut, m.getStressTriggers());
+            writeString(notesOut, m.getNotes());
+        }
+
+        /**
+         * Compresses and writes the block collected so far and starts a new one
+         */
+        Block finish(int count, LocalDate first, LocalDate last) throws IOException {
+            long offset = channel.position();
+            int rawLength = recordBytes.size() + notesBytes.size();
+            int recordLength = deflate(records, null, recordBytes);
+            int notesLength = deflate(notes, dictionary, notesBytes);
+            Block block = new Block(offset, recordLength, notesLength, rawLength, count,
+                    first.toEpochDay(), last.toEpochDay(), kinds);
+            kinds = 0;
+            lastId = 0;
+            lastDay = 0;
+            return block;
+        }
+
+        private int deflate(Deflater deflater, byte[] dict, ByteArrayOutputStream column) throws IOException {
+            deflater.reset();
+            if (dict != null && dict.length > 0) deflater.setDictionary(dict);
+            deflater.setInput(column.toByteArray());
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) compressed = Arrays.copyOf(compressed, length * 2);
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            ByteBuffer b = ByteBuffer.wrap(compressed, 0, length);
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+            column.reset();
+            return length;
+        }
+
+        private void writeDay(LocalDate date) throws IOException {
+            writeVarLong(recordOut, date.toEpochDay() - lastDay);
+            lastDay = date.toEpochDay();
+        }
+
+        /**
+         * Most durations are whole minutes, those take a byte or two instead of eight
+         */
+        private void writeDuration(double duration) throws IOException {
+            long whole = (long) duration;
+            if (whole == duration && whole >= 0 && whole < (1L << 40)) {
+                writeVarLong(recordOut, whole * 2);
+            } else {
+                writeVarLong(recordOut, 1);
+                recordOut.writeDouble(duration);
+            }
+        }
+
+        private void writeTime(LocalTime time) throws IOException {
+            writeVarLong(recordOut, time == null ? -1 : time.toSecondOfDay());
+        }
+    }
+
+    /**
+     * Strings are a byte length and UTF-8, -1 for null
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Writes a number in as few bytes as it needs, 7 bits per byte with small negatives kept small (zigzag)
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (v >>> 1) ^ -(v & 1);
+        }
+        throw new IOException("Bad number in archive block");
+    }
+
+    private static int kindOf(WellnessActivity_sec33_gr3 a) {
+        if (a instanceof Sleep_sec33_gr_3) return SLEEP;
+        if (a instanceof Meditation_sec33_gr3) return MEDITATION;
+        if (a instanceof Journaling_sec33_gr3) return JOURNAL;
+        if (a instanceof ScreenTime_sec33_gr3) return SCREEN;
+        throw new IllegalArgumentException("Unknown activity type: " + a.getActivityType());
+    }
+
+    /**
+     * Gets the checksum a segment header keeps for its notes dictionary
+     */
+    static long checksum(byte[] dictionary) {
+        if (dictionary.length == 0) return 0;
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        return adler.getValue();
+    }
+
+    // ------------------------------------------------------------------ reading
+
+    /**
+     * Opens an existing segment and loads its index
+     * The dictionary must be the one the segment was written with
+     */
+    public static ColdSegment_sec33_gr3 open(Path file, byte[] dictionary) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(readAt(channel, 0, 13)));
+            if (header.readInt() != MAGIC || header.readByte() != VERSION) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+            if (header.readLong() != checksum(dictionary)) {
+                throw new IOException("Segment was written with a different notes dictionary: " + file);
+            }
+            DataInputStream trailer = new DataInputStream(new ByteArrayInputStream(readAt(channel, size - 12, 12)));
+            long indexOffset = trailer.readLong();
+            if (trailer.readInt() != MAGIC || indexOffset < 13 || indexOffset > size - 12) {
+                throw new IOException("Archive segment is cut short: " + file);
+            }
+            DataInputStream index = new DataInputStream(new ByteArrayInputStream(
+                    readAt(channel, indexOffset, (int) (size - 12 - indexOffset))));
+            List<Block> activityBlocks = readIndex(index);
+            List<Block> moodBlocks = readIndex(index);
+            return new ColdSegment_sec33_gr3(file, dictionary, activityBlocks, moodBlocks, size);
+        }
+    }
+
+    /**
+     * Reads which notes dictionary a segment was written with, the same checksum open() compares
+     * Used to find the right .dict file when an archive directory is opened again
+     */
+    static long dictionaryChecksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(readAt(channel, 0, 13)));
+            if (header.readInt() != MAGIC || header.readByte() != VERSION) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+            return header.readLong();
+        }
+    }
+
+    private static List<Block> readIndex(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Block> blocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            blocks.add(new Block(in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                    in.readLong(), in.readLong(), in.readByte()));
+        }
+        return blocks;
+    }
+
+    /**
+     * Gets the activities between two dates, oldest first, only decompressing the blocks they are in
+     * Either date can be null for no limit, type can be null for every type
+     * The activities are new objects with the same IDs, changing them doesnt change the file
+     */
+    public List<WellnessActivity_sec33_gr3> readActivities(LocalDate from, LocalDate to, String type) throws IOException {
+        int wanted = type == null ? 0xF : typeBit(type);
+        List<WellnessActivity_sec33_gr3> results = new ArrayList<>();
+        if (wanted == 0) return results;
+        long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        List<Object> records = new ArrayList<>(BLOCK_RECORDS);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (Block block : activityBlocks) {
+                if (!block.overlaps(fromDay, toDay) || (block.kinds & wanted) == 0) continue;
+                readBlock(channel, block, records);
+                for (Object record : records) {
+                    WellnessActivity_sec33_gr3 a = (WellnessActivity_sec33_gr3) record;
+                    long day = a.getDate().toEpochDay();
+                    if (day >= fromDay && day <= toDay && (type == null || type.equals(a.getActivityType()))) {
+                        results.add(a);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the mood entries between two dates, oldest first, either date can be null for no limit
+     */
+    public List<MoodStressEntry_sec33_gr3> readMoods(LocalDate from, LocalDate to) throws IOException {
+        long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        List<MoodStressEntry_sec33_gr3> results = new ArrayList<>();
+        List<Object> records = new ArrayList<>(BLOCK_RECORDS);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (Block block : moodBlocks) {
+                if (!block.overlaps(fromDay, toDay)) continue;
+                readBlock(channel, block, records);
+                for (Object record : records) {
+                    MoodStressEntry_sec33_gr3 m = (MoodStressEntry_sec33_gr3) record;
+                    long day = m.getDate().toEpochDay();
+                    if (day >= fromDay && day <= toDay) results.add(m);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Decompresses one block and rebuilds its records into the list
+     */
+    private void readBlock(FileChannel channel, Block block, List<Object> into) throws IOException {
+        into.clear();
+        byte[] both = readAt(channel, block.offset, block.recordLength + block.notesLength);
+        byte[] raw = new byte[block.rawLength];
+        int recordRaw = inflate(both, 0, block.recordLength, null, raw, 0);
+        inflate(both, block.recordLength, block.notesLength, dictionary, raw, recordRaw);
+        DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(raw, 0, recordRaw));
+        DataInputStream notesIn = new DataInputStream(new ByteArrayInputStream(raw, recordRaw, raw.length - recordRaw));
+        long[] last = new long[2]; // id and day of the record before
+        for (int i = 0; i < block.count; i++) {
+            into.add(readRecord(recordIn, notesIn, last));
+        }
+    }
+
+    private int inflate(byte[] in, int from, int length, byte[] dict, byte[] out, int at) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(in, from, length);
+            int total = 0;
+            while (!inflater.finished()) {
+                int n = inflater.inflate(out, at + total, out.length - at - total);
+                if (n == 0) {
+                    if (inflater.needsDictionary() && dict != null && dict.length > 0) {
+                        inflater.setDictionary(dict);
+                    } else if (inflater.needsInput() || out.length - at - total == 0) {
+                        throw new IOException("Archive block is damaged in " + file);
+                    }
+                }
+                total += n;
+            }
+            return total;
+        } catch (DataFormatException ex) {
+            throw new IOException("Archive block is damaged in " + file, ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private Object readRecord(DataInputStream in, DataInputStream notesIn, long[] last) throws IOException {
+        int kind = in.readByte();
+        if (kind == MOOD) {
+            LocalDate date = LocalDate.ofEpochDay(last[1] += readVarLong(in));
+            int mood = (int) readVarLong(in);
+            int stress = (int) readVarLong(in);
+            MoodStressEntry_sec33_gr3 m = MoodStressEntry_sec33_gr3.tryCreate(date, mood, stress,
+                    readString(in), readString(in), readString(notesIn));
+            return check(m);
+        }
+        int id = (int) (last[0] += readVarLong(in));
+        LocalDate date = LocalDate.ofEpochDay(last[1] += readVarLong(in));
+        long whole = readVarLong(in);
+        double duration = whole == 1 ? in.readDouble() : whole / 2;
+        WellnessActivity_sec33_gr3 a;
+        if (kind == SLEEP) {
+            int quality = (int) readVarLong(in);
+            LocalTime bedtime = readTime(in);
+            LocalTime wake = readTime(in);
+            a = Sleep_sec33_gr_3.tryCreate(date, duration, readString(notesIn), quality, bedtime, wake, in.readBoolean());
+        } else if (kind == MEDITATION) {
+            String type = readString(in);
+            String focus = readString(in);
+            int distractions = (int) readVarLong(in);
+            a = Meditation_sec33_gr3.tryCreate(date, duration, readString(notesIn), type, focus, distractions, in.readBoolean());
+        } else if (kind == JOURNAL) {
+            int before = (int) readVarLong(in);
+            int after = (int) readVarLong(in);
+            int words = (int) readVarLong(in);
+            String theme = readString(in);
+            a = Journaling_sec33_gr3.tryCreate(date, duration, readString(notesIn), before, after, words, theme, in.readBoolean());
+        } else if (kind == SCREEN) {
+            String device = readString(in);
+            String purpose = readString(in);
+            int breaks = (int) readVarLong(in);
+            ScreenTime_sec33_gr3 s = ScreenTime_sec33_gr3.tryCreate(date, duration, readString(notesIn), device, purpose,
+                    breaks, in.readBoolean());
+            if (s != null) s.setUsedBlueLightFilter(in.readBoolean());
+            a = s;
+        } else {
+            throw new IOException("Unknown record kind " + kind + " in " + file);
+        }
+        check(a).restoreId(id);
+        return a;
+    }
+
+    private <T> T check(T record) throws IOException {
+        if (record == null) {
+            throw new IOException("Archive record failed validation in " + file);
+        }
+        return record;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length < 0) return null;
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static LocalTime readTime(DataInputStream in) throws IOException {
+        int seconds = (int) readVarLong(in);
+        return seconds < 0 ? null : LocalTime.ofSecondOfDay(seconds);
+    }
+
+    private static byte[] readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length);
+        while (b.hasRemaining()) {
+            if (channel.read(b, position + b.position()) < 0) throw new EOFException("Archive segment is cut short");
+        }
+        return b.array();
+    }
+
+    private static int typeBit(String type) {
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if (TYPE_NAMES[i].equals(type)) return 1 << i;
+        }
+        return 0;
+    }
+
+    // ------------------------------------------------------------------ info
+
+    /**
+     * Gets the segment file
+     */
+    public Path getFile() { return file; }
+
+    /**
+     * Gets the date of the oldest activity, or null if there are none
+     */
+    public LocalDate getFirstActivityDate() {
+        return activityBlocks.isEmpty() ? null : LocalDate.ofEpochDay(activityBlocks.get(0).firstDay);
+    }
+
+    /**
+     * Gets the date of the newest activity, or null if there are none
+     */
+    public LocalDate getLastActivityDate() {
+        return activityBlocks.isEmpty() ? null : LocalDate.ofEpochDay(activityBlocks.get(activityBlocks.size() - 1).lastDay);
+    }
+
+    /**
+     * Gets the date of the newest mood entry, or null if there are none
+     */
+    public LocalDate getLastMoodDate() {
+        return moodBlocks.isEmpty() ? null : LocalDate.ofEpochDay(moodBlocks.get(moodBlocks.size() - 1).lastDay);
+    }
+
+    /**
+     * Checks if any activity block covers some of the dates, either can be null for no limit
+     */
+    public boolean hasActivitiesBetween(LocalDate from, LocalDate to) {
+        return overlaps(activityBlocks, from, to);
+    }
+
+    /**
+     * Checks if any mood block covers some of the dates, either can be null for no limit
+     */
+    public boolean hasMoodsBetween(LocalDate from, LocalDate to) {
+        return overlaps(moodBlocks, from, to);
+    }
+
+    private static boolean overlaps(List<Block> blocks, LocalDate from, LocalDate to) {
+        if (blocks.isEmpty()) return false;
+        long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        return blocks.get(0).firstDay <= toDay && blocks.get(blocks.size() - 1).lastDay >= fromDay;
+    }
+
+    /**
+     * Gets how many activities are in the segment
+     */
+    public int getActivityCount() { return count(activityBlocks); }
+
+    /**
+     * Gets how many mood entries are in the segment
+     */
+    public int getMoodCount() { return count(moodBlocks); }
+
+    /**
+     * Gets how many blocks the segment has
+     */
+    public int getBlockCount() { return activityBlocks.size() + moodBlocks.size(); }
+
+    /**
+     * Gets the size of the file in bytes
+     */
+    public long getFileSize() { return fileSize; }
+
+    /**
+     * Gets the size the blocks would be without compression, for working out the compression ratio
+     */
+    public long getRawSize() {
+        long raw = 0;
+        for (Block b : activityBlocks) raw += b.rawLength;
+        for (Block b : moodBlocks) raw += b.rawLength;
+        return raw;
+    }
+
+    private static int count(List<Block> blocks) {
+        int count = 0;
+        for (Block b : blocks) count += b.count;
+        return count;
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * DataExporter class - writes everything a user has to a CSV or JSON Lines file
+ * Records are written one at a time straight from the user's lists, nothing is built up in memory
+ * Files ending in .gz are gzip compressed on a second thread while the records are being written
+ * DataImporter_sec33_gr3 reads the files back in
+ */
+public class DataExporter_sec33_gr3 {
+
+    // Static helper class, no instances needed
+    private DataExporter_sec33_gr3() { }
+
+    /**
+     * Exports a user to a file, the format comes from the file name (.csv, .jsonl, optionally + .gz)
+     * Returns how many records were written
+     */
+    public static long export(User_sec33_gr_3 user, Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int format = RecordCodec_sec33_gr3.formatFor(name);
+        if (format == 0) {
+            throw new IllegalArgumentException("File name must end in .csv or .jsonl (optionally with .gz)");
+        }
+        return export(user, file, format, name.toLowerCase().endsWith(".gz"));
+    }
+
+    /**
+     * Exports a user to a file in the given format
+     * Order is user record, activities (by date), recurring activities, mood entries then goals - the same order
+     * the user keeps them in
+     * Archived activities and mood entries are read back and included, so an export always has the full history
+     * A recurring activity is one record for the whole routine, not a record for every day it happened
+     */
+    public static long export(User_sec33_gr_3 user, Path file, int format, boolean gzip) throws IOException {
+        RecordCodec_sec33_gr3 codec = new RecordCodec_sec33_gr3(format);
+        long records = 0;
+        try (ExportChannel_sec33_gr3 out = new ExportChannel_sec33_gr3(file, gzip)) {
+            codec.writeTo(out);
+            codec.writeUser(user);
+            records++;
+            for (WellnessActivity_sec33_gr3 activity : user.query().withoutRecurring()) {
+                codec.writeActivity(activity);
+                records++;
+            }
+            for (RecurringTemplate_sec33_gr3 template : user.getTemplates()) {
+                codec.writeTemplate(template);
+                records++;
+            }
+            for (MoodStressEntry_sec33_gr3 entry : user.getMoodStressEntries(null, null)) {
+                codec.writeMood(entry);
+                records++;
+            }
+            for (WellnessGoal_sec33_gr3 goal : user.getWellnessGoals()) {
+                codec.writeGoal(goal);
+                records++;
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,417 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * DataGenerator class - makes up realistic looking users for scale testing
+ * Each user gets a history of sleep, meditation, journaling and screen time going back a number of years
+ * from an end date, plus mood entries and goals
+ * Bedtimes wander around a usual time, some days are missed and now and then there is a break of a few days
+ * where nothing is logged at all, so streaks end like they would for a real person
+ * The same seed and settings always give exactly the same users, however many threads are used,
+ * because every user and every block of CHUNK_DAYS days has its own random numbers
+ * Users can be generated straight into the model or written to export files that --import can load
+ */
+public class DataGenerator_sec33_gr3 {
+
+    public static final String[] ACTIVITY_TYPES = {"Sleep", "Meditation", "Journaling", "ScreenTime"};
+    public static final int CHUNK_DAYS = 365; // days generated by one task, counted back from the end date
+
+    private static final String[] DEFAULT_MOOD_TAGS = {"calm", "happy", "tired", "anxious", "focused",
+            "grateful", "restless", "content", "irritable", "motivated"};
+    private static final String[] DEFAULT_STRESS_TRIGGERS = {"work", "deadlines", "traffic", "family",
+            "money", "health", "sleep", "school", "news"};
+    private static final String[] DEFAULT_NOTES = {"", "", "", "Felt rested", "Long day at work",
+            "Hard to focus today", "Quick session before bed", "Good day overall", "Too much phone before bed",
+            "Stressed about deadlines", "Went for a walk after", "Woke up a few times"};
+    private static final String[] MEDITATION_TYPES = {"Mindfulness", "Breathing", "Body Scan", "Loving Kindness"};
+    private static final String[] FOCUS_AREAS = {"stress", "sleep", "focus", "anxiety", "gratitude"};
+    private static final String[] JOURNAL_THEMES = {"Gratitude", "Reflection", "Goals", "Free Writing"};
+    private static final String[] DEVICES = {"Phone", "Phone", "Laptop", "Tablet", "TV"};
+    private static final String[] PURPOSES = {"Social Media", "Work", "Entertainment", "Study", "News"};
+
+    private final long seed;
+    private final LocalDate endDate;
+    private int days = 365;
+    private LocalTime bedtime = LocalTime.of(23, 0);
+    private double bedtimeVariance = 45; // standard deviation in minutes
+    private double sleepChance = 0.95;
+    private double meditationChance = 0.5;
+    private double journalingChance = 0.35;
+    private double screenTimeChance = 0.9;
+    private double moodChance = 0.8;
+    private double gapChance = 0.01; // chance a break starts on any day
+    private int maxGapDays = 7;
+    private String[] moodTags = DEFAULT_MOOD_TAGS;
+    private String[] stressTriggers = DEFAULT_STRESS_TRIGGERS;
+    private String[] notes = DEFAULT_NOTES;
+
+    /**
+     * Creates a generator, histories end on endDate and go back one year until setDays() or setYears() says otherwise
+     */
+    public DataGenerator_sec33_gr3(long seed, LocalDate endDate) {
+        this.seed = seed;
+        this.endDate = endDate;
+    }
+
+    /**
+     * Gets the seed everything is made from
+     */
+    public long getSeed() { return seed; }
+
+    /**
+     * Gets the last day of every history
+     */
+    public LocalDate getEndDate() { return endDate; }
+
+    /**
+     * Gets how many days each history covers
+     */
+    public int getDays() { return days; }
+
+    /**
+     * Sets how many days each history covers, ending on the end date
+     */
+    public DataGenerator_sec33_gr3 setDays(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Need at least one day of history");
+        }
+        this.days = days;
+        return this;
+    }
+
+    /**
+     * Sets the history to cover whole years back from the end date, leap days included
+     */
+    public DataGenerator_sec33_gr3 setYears(int years) {
+        if (years < 1) {
+            throw new IllegalArgumentException("Need at least one year of history");
+        }
+        return setDays((int) ChronoUnit.DAYS.between(endDate.minusYears(years), endDate));
+    }
+
+    /**
+     * Sets the usual bedtime and how many minutes (standard deviation) it wanders each night
+     */
+    public DataGenerator_sec33_gr3 setBedtime(LocalTime bedtime, double varianceMinutes) {
+        if (varianceMinutes < 0) {
+            throw new IllegalArgumentException("Bedtime variance cant be negative");
+        }
+        this.bedtime = bedtime;
+        this.bedtimeVariance = varianceMinutes;
+        return this;
+    }
+
+    /**
+     * Sets the chance of each kind of record on a day that isnt part of a break
+     */
+    public DataGenerator_sec33_gr3 setChances(double sleep, double meditation, double journaling,
+                                              double screenTime, double mood) {
+        this.sleepChance = chance(sleep);
+        this.meditationChance = chance(meditation);
+        this.journalingChance = chance(journaling);
+        this.screenTimeChance = chance(screenTime);
+        this.moodChance = chance(mood);
+        return this;
+    }
+
+    /**
+     * Sets how streaks end - the chance a break starts on any day and how long a break can be
+     * Nothing at all is logged during a break, set the chance to 0 for unbroken streaks
+     */
+    public DataGenerator_sec33_gr3 setGaps(double chance, int maxDays) {
+        if (maxDays < 1) {
+            throw new IllegalArgumentException("A break is at least one day");
+        }
+        this.gapChance = chance(chance);
+        this.maxGapDays = maxDays;
+        return this;
+    }
+
+    /**
+     * Sets the words mood tags, stress triggers and notes are picked from
+     * Notes can have "" in them for records without a note
+     */
+    public DataGenerator_sec33_gr3 setVocabulary(String[] moodTags, String[] stressTriggers, String[] notes) {
+        if (moodTags.length == 0 || stressTriggers.length == 0 || notes.length == 0) {
+            throw new IllegalArgumentException("Every vocabulary needs at least one word");
+        }
+        this.moodTags = moodTags.clone();
+        this.stressTriggers = stressTriggers.clone();
+        this.notes = notes.clone();
+        return this;
+    }
+
+    /**
+     * Gets about how many activities a day the settings give, breaks included
+     * Handy to pick a number of days for a wanted history size
+     */
+    public double getExpectedActivitiesPerDay() {
+        double gapDays = gapChance * (maxGapDays + 1) / 2.0; // days lost to breaks starting on an average day
+        double loggedShare = 1 / (1 + gapDays);
+        return loggedShare * (sleepChance + meditationChance + journalingChance + screenTimeChance);
+    }
+
+    /**
+     * Generates one user, the index picks which one so user 3 is always the same user 3
+     * A long history is split into blocks of CHUNK_DAYS generated in parallel on the pool, null pool runs on this thread
+     */
+    public User_sec33_gr_3 generateUser(int index, ForkJoinPool pool) {
+        int chunks = (days + CHUNK_DAYS - 1) / CHUNK_DAYS;
+        List<ChunkTask> tasks = new ArrayList<>(chunks);
+        for (int chunk = chunks - 1; chunk >= 0; chunk--) { // oldest first
+            tasks.add(new ChunkTask(this, index, chunk));
+        }
+        if (pool != null && chunks > 1) {
+            pool.invoke(new AllChunks(tasks));
+        } else {
+            for (ChunkTask task : tasks) task.invoke();
+        }
+
+        User_sec33_gr_3 user = new User_sec33_gr_3("User " + (index + 1));
+        for (ChunkTask task : tasks) {
+            Chunk chunk = task.join();
+            for (WellnessActivity_sec33_gr3 activity : chunk.activities) user.addActivity(activity);
+            for (MoodStressEntry_sec33_gr3 entry : chunk.moods) user.addMoodStressEntry(entry);
+        }
+        SplittableRandom random = random(index, -1);
+        for (String goalType : GoalType_sec33_gr3.ALL_GOAL_TYPES) {
+            user.addGoal(newGoal(goalType, random));
+        }
+        return user;
+    }
+
+    /**
+     * Generates users 0 to count - 1, one task per user on the pool (or one after another with a null pool)
+     */
+    public List<User_sec33_gr_3> generateUsers(int count, ForkJoinPool pool) {
+        List<ForkJoinTask<User_sec33_gr_3>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> generateUser(index, null)));
+        }
+        runAll(tasks, pool);
+        List<User_sec33_gr_3> users = new ArrayList<>(count);
+        for (ForkJoinTask<User_sec33_gr_3> task : tasks) users.add(task.join());
+        return users;
+    }
+
+    /**
+     * Generates users 0 to count - 1 and exports each one to its own file in a directory,
+     * named user-00000 and so on plus the extension, which picks the format like DataExporter_sec33_gr3 does
+     * Only the users being written are in memory at once, returns how many records were written
+     */
+    public long writeUsers(int count, Path directory, String extension, ForkJoinPool pool) throws IOException {
+        if (RecordCodec_sec33_gr3.formatFor(extension) == 0) {
+            throw new IllegalArgumentException("Extension must be .csv or .jsonl (optionally with .gz)");
+        }
+        Files.createDirectories(directory);
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            Path file = directory.resolve(String.format("user-%05d%s", index, extension));
+            tasks.add(ForkJoinTask.adapt(() -> {
+                try {
+                    return DataExporter_sec33_gr3.export(generateUser(index, null), file);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }));
+        }
+        try {
+            runAll(tasks, pool);
+            long records = 0;
+            for (ForkJoinTask<Long> task : tasks) records += task.join();
+            return records;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Makes one activity for a day, type is one of ACTIVITY_TYPES
+     */
+    public WellnessActivity_sec33_gr3 newActivity(String type, LocalDate date, SplittableRandom random) {
+        switch (type) {
+            case "Sleep":
+                return newSleep(date, random);
+            case "Meditation":
+                return new Meditation_sec33_gr3(date, between(12 + 8 * random.nextGaussian(), 1, 90),
+                        pick(random, notes), pick(random, MEDITATION_TYPES), pick(random, FOCUS_AREAS),
+                        random.nextInt(6), random.nextInt(10) != 0);
+            case "Journaling":
+                int before = 1 + random.nextInt(10);
+                return new Journaling_sec33_gr3(date, between(15 + 8 * random.nextGaussian(), 5, 90),
+                        pick(random, notes), before, Math.min(10, before + random.nextInt(4)),
+                        50 + random.nextInt(800), pick(random, JOURNAL_THEMES), random.nextInt(4) != 0);
+            case "ScreenTime":
+                return new ScreenTime_sec33_gr3(date, between(180 + 90 * random.nextGaussian(), 5, 900),
+                        pick(random, notes), pick(random, DEVICES), pick(random, PURPOSES),
+                        random.nextInt(5), random.nextInt(8) == 0);
+            default:
+                throw new IllegalArgumentException("Unknown activity type: " + type);
+        }
+    }
+
+    /**
+     * Makes one mood entry for a day, mood follows how well they slept a little (sleepQuality 0 for no sleep logged)
+     */
+    public MoodStressEntry_sec33_gr3 newMood(LocalDate date, int sleepQuality, SplittableRandom random) {
+        double lift = sleepQuality == 0 ? -0.5 : (sleepQuality - 6) / 3.0;
+        int mood = (int) Math.round(between(6 + lift + 1.8 * random.nextGaussian(), 1, 10));
+        int stress = (int) Math.round(between(5 - lift / 2 + 2 * random.nextGaussian(), 1, 10));
+        return new MoodStressEntry_sec33_gr3(date, mood, stress, tags(random, moodTags),
+                tags(random, stressTriggers), pick(random, notes));
+    }
+
+    /**
+     * Makes the days of one block, walking forward from its first day
+     */
+    private Chunk generateChunk(int index, int chunk) {
+        SplittableRandom random = random(index, chunk);
+        int newest = chunk * CHUNK_DAYS; // days before the end date
+        int oldest = Math.min(days, newest + CHUNK_DAYS) - 1;
+        Chunk result = new Chunk();
+        int gapLeft = 0;
+        for (int back = oldest; back >= newest; back--) {
+            if (gapLeft == 0 && random.nextDouble() < gapChance) {
+                gapLeft = 1 + random.nextInt(maxGapDays);
+            }
+            if (gapLeft > 0) {
+                gapLeft--;
+                continue;
+            }
+            LocalDate date = endDate.minusDays(back);
+            int quality = 0;
+            if (random.nextDouble() < sleepChance) {
+                Sleep_sec33_gr_3 sleep = newSleep(date, random);
+                quality = sleep.getQuality();
+                result.activities.add(sleep);
+            }
+            if (random.nextDouble() < meditationChance) result.activities.add(newActivity("Meditation", date, random));
+            if (random.nextDouble() < journalingChance) result.activities.add(newActivity("Journaling", date, random));
+            if (random.nextDouble() < screenTimeChance) result.activities.add(newActivity("ScreenTime", date, random));
+            if (random.nextDouble() < moodChance) result.moods.add(newMood(date, quality, random));
+        }
+        return result;
+    }
+
+    private Sleep_sec33_gr_3 newSleep(LocalDate date, SplittableRandom random) {
+        int lateBy = (int) Math.round(between(bedtimeVariance * random.nextGaussian(), -180, 180));
+        LocalTime wentToBed = bedtime.plusMinutes(lateBy);
+        double duration = Math.round(between(450 - lateBy / 3.0 + 50 * random.nextGaussian(), 180, 660));
+        int quality = (int) Math.round(3 + (duration - 300) / 40 + random.nextGaussian());
+        return new Sleep_sec33_gr_3(date, duration, pick(random, notes), quality, wentToBed,
+                wentToBed.plusMinutes((long) duration), random.nextInt(20) == 0);
+    }
+
+    private WellnessGoal_sec33_gr3 newGoal(String goalType, SplittableRandom random) {
+        double target;
+        switch (goalType) {
+            case GoalType_sec33_gr3.SLEEP_HOURS: target = 7 + random.nextInt(3); break;
+            case GoalType_sec33_gr3.MEDITATION_MINUTES: target = 10 + 5 * random.nextInt(5); break;
+            case GoalType_sec33_gr3.JOURNAL_ENTRIES: target = 3 + random.nextInt(5); break;
+            case GoalType_sec33_gr3.SCREEN_TIME_LIMIT: target = 60 + 30 * random.nextInt(5); break;
+            case GoalType_sec33_gr3.MOOD_IMPROVEMENT: target = 6 + random.nextInt(3); break;
+            default: target = 7 + 7 * random.nextInt(4); break;
+        }
+        LocalDate start = endDate.minusDays(random.nextInt(60));
+        return new WellnessGoal_sec33_gr3(goalType, target, start, start.plusDays(30 + random.nextInt(60)), "Generated goal");
+    }
+
+    /**
+     * Gets the random numbers for one block of one user, chunk -1 is used for the goals
+     */
+    private SplittableRandom random(int index, int chunk) {
+        return new SplittableRandom(seed ^ (index + 1) * 0x9E3779B97F4A7C15L ^ (chunk + 2) * 0xC2B2AE3D27D4EB4FL);
+    }
+
+    private static double chance(double value) {
+        if (!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException("A chance has to be between 0 and 1");
+        }
+        return value;
+    }
+
+    private static double between(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static String pick(SplittableRandom random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    /**
+     * Picks one to three words joined with commas, like "calm,tired"
+     */
+    private static String tags(SplittableRandom random, String[] words) {
+        int count = Math.min(words.length, 1 + random.nextInt(3));
+        StringBuilder sb = new StringBuilder();
+        int first = random.nextInt(words.length);
+        int step = 1 + random.nextInt(Math.max(1, words.length - 1));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(words[(first + i * step) % words.length]);
+        }
+        return sb.toString();
+    }
+
+    private static <T> void runAll(List<? extends ForkJoinTask<T>> tasks, ForkJoinPool pool) {
+        if (pool == null) {
+            for (ForkJoinTask<T> task : tasks) task.invoke();
+        } else {
+            for (ForkJoinTask<T> task : tasks) pool.execute(task);
+        }
+    }
+
+    /**
+     * What one block of days turned into, oldest first
+     */
+    private static final class Chunk {
+        final List<WellnessActivity_sec33_gr3> activities = new ArrayList<>();
+        final List<MoodStressEntry_sec33_gr3> moods = new ArrayList<>();
+    }
+
+    private static final class AllChunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient List<ChunkTask> tasks;
+
+        AllChunks(List<ChunkTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+        private final transient DataGenerator_sec33_gr3 generator;
+        private final int index;
+        private final int chunk;
+
+        ChunkTask(DataGenerator_sec33_gr3 generator, int index, int chunk) {
+            this.generator = generator;
+            this.index = index;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Chunk compute() {
+            return generator.generateChunk(index, chunk);
+        }
+    }
+}
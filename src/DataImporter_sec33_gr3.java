@@ -0,0 +1,167 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * DataImporter class - reads a file written by DataExporter_sec33_gr3 back into a new user
+ * Reads one line at a time, gzip files are spotted by there first bytes so the name doesnt matter
+ * Bad records are skipped and reported, the rest of the file still gets loaded
+ */
+public class DataImporter_sec33_gr3 {
+
+    private final PrintStream errors; // where rejected lines get reported, can be null
+    private int records; // records loaded
+    private int rejected; // lines that were not valid records
+
+    /**
+     * Creates an importer that reports bad lines to the given stream
+     */
+    public DataImporter_sec33_gr3(PrintStream errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Gets how many records were loaded by the last import
+     */
+    public int getRecords() { return records; }
+
+    /**
+     * Gets how many lines were skipped by the last import
+     */
+    public int getRejected() { return rejected; }
+
+    /**
+     * Imports a file into a new user
+     * The user's name and join date come from the user record, or "Imported" if the file has none
+     * Activity IDs from the file are kept, any that repeat get a new ID so they stay unique
+     */
+    public User_sec33_gr_3 importFile(Path file) throws IOException {
+        try (InputStream in = open(file)) {
+            return importStream(in);
+        }
+    }
+
+    /**
+     * Imports from a stream of UTF-8 text in either format
+     */
+    public User_sec33_gr_3 importStream(InputStream in) throws IOException {
+        records = 0;
+        rejected = 0;
+        CharLineReader_sec33_gr3 reader = new CharLineReader_sec33_gr3(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RecordCodec_sec33_gr3 codec = new RecordCodec_sec33_gr3(RecordCodec_sec33_gr3.CSV);
+        User_sec33_gr_3 user = null;
+        IdSet_sec33_gr3 seenIds = new IdSet_sec33_gr3(1024);
+        List<WellnessActivity_sec33_gr3> needIds = new ArrayList<>();
+        StringBuilder joined = null; // only used for CSV fields with line breaks in them
+        int lineNumber = 0;
+
+        while (reader.nextLine()) {
+            lineNumber++;
+            char[] buf = reader.buffer();
+            int from = reader.start();
+            int to = reader.end();
+            if (joined != null) {
+                joined.append('\n').append(buf, from, to - from);
+                // an odd number of quotes on this line closes the field that was left open
+                if (RecordCodec_sec33_gr3.hasOpenQuote(buf, from, to)) {
+                    buf = toChars(joined);
+                    from = 0;
+                    to = joined.length();
+                    joined = null;
+                } else {
+                    continue;
+                }
+            } else {
+                if (from == to || buf[from] == '#') continue;
+                if (buf[from] != '{' && RecordCodec_sec33_gr3.hasOpenQuote(buf, from, to)) {
+                    joined = new StringBuilder().append(buf, from, to - from);
+                    continue;
+                }
+            }
+
+            Object record = codec.decode(buf, from, to);
+            if (record == null) {
+                reject(lineNumber, codec.getError());
+                continue;
+            }
+            if (record instanceof User_sec33_gr_3) {
+                if (user != null) {
+                    reject(lineNumber, "More than one user record");
+                    continue;
+                }
+                user = (User_sec33_gr_3) record;
+                records++;
+                continue;
+            }
+            if (user == null) user = new User_sec33_gr_3("Imported");
+            if (record instanceof WellnessActivity_sec33_gr3) {
+                WellnessActivity_sec33_gr3 activity = (WellnessActivity_sec33_gr3) record;
+                int id = codec.getRecordId();
+                if (id <= 0 || !seenIds.add(id)) {
+                    needIds.add(activity);
+                } else {
+                    activity.restoreId(id);
+                }
+                user.addActivity(activity);
+            } else if (record instanceof RecurringTemplate_sec33_gr3) {
+                RecurringTemplate_sec33_gr3 template = (RecurringTemplate_sec33_gr3) record;
+                int id = codec.getRecordId();
+                if (id <= 0 || !seenIds.add(id)) {
+                    needIds.add(template.getPrototype());
+                } else {
+                    template.getPrototype().restoreId(id);
+                }
+                user.addTemplate(template);
+            } else if (record instanceof MoodStressEntry_sec33_gr3) {
+                user.addMoodStressEntry((MoodStressEntry_sec33_gr3) record);
+            } else {
+                user.addGoal((WellnessGoal_sec33_gr3) record);
+            }
+            records++;
+        }
+        if (joined != null) reject(lineNumber, "Unclosed quote at end of file");
+        if (user == null) user = new User_sec33_gr_3("Imported");
+
+        // repeated IDs get fresh ones at the end so they cant clash with IDs later in the file
+        for (WellnessActivity_sec33_gr3 activity : needIds) {
+            activity.assignNewId();
+        }
+        return user;
+    }
+
+    /**
+     * Opens a file, unwrapping gzip if it starts with the gzip magic bytes
+     */
+    static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new GZIPInputStream(in, 1 << 16);
+        }
+        return in;
+    }
+
+    private void reject(int lineNumber, String message) {
+        rejected++;
+        if (errors != null) {
+            errors.println("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    private static char[] toChars(StringBuilder sb) {
+        char[] chars = new char[sb.length()];
+        sb.getChars(0, sb.length(), chars, 0);
+        return chars;
+    }
+}
@@ -0,0 +1,369 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * ExportChannel class - writes export records as UTF-8 bytes into direct buffers and out to a FileChannel
+ * Memory stays the same no matter how big the export is, only a few fixed buffers are ever used
+ * With gzip on, full buffers are handed to a compressor thread so formatting and compression run at the same time
+ */
+public class ExportChannel_sec33_gr3 implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 18; // 256K per buffer, big sequential writes
+    private static final int BUFFER_COUNT = 4; // buffers shared between us and the gzip thread
+    private static final ByteBuffer END = ByteBuffer.allocate(0); // tells the gzip thread to finish up
+    private static final byte[] NO_INPUT = new byte[0];
+
+    private final FileChannel channel;
+    private final String fileName; // for the flush events
+    private final GzipStage gzip; // null when writing plain text
+    private ByteBuffer buf;
+    private long bytesOut; // uncompressed bytes written so far
+    private boolean closed;
+
+    /**
+     * Opens the file for writing, replacing anything that was there
+     * If gzip is true the file is written in .gz format on a separate thread
+     */
+    public ExportChannel_sec33_gr3(Path file, boolean gzip) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.fileName = file.toString();
+        this.buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        if (gzip) {
+            this.gzip = new GzipStage();
+            this.gzip.thread.start();
+        } else {
+            this.gzip = null;
+        }
+    }
+
+    /**
+     * Gets how many bytes of text were written, before any compression
+     */
+    public long getBytesOut() { return bytesOut + buf.position(); }
+
+    /**
+     * Writes one ASCII character
+     */
+    public void writeByte(int b) throws IOException {
+        if (!buf.hasRemaining()) swap();
+        buf.put((byte) b);
+    }
+
+    /**
+     * Writes text that is known to be plain ASCII like field names and kinds
+     */
+    public void writeAscii(String s) throws IOException {
+        int length = s.length();
+        if (buf.remaining() < length) {
+            for (int i = 0; i < length; i++) writeByte(s.charAt(i));
+            return;
+        }
+        for (int i = 0; i < length; i++) buf.put((byte) s.charAt(i));
+    }
+
+    /**
+     * Writes one character as UTF-8
+     * Surrogate pairs are joined into a single 4 byte sequence, a lone surrogate becomes '?'
+     * Returns how many chars were used, 2 for a surrogate pair and 1 otherwise
+     */
+    public int writeChar(String s, int index) throws IOException {
+        char c = s.charAt(index);
+        if (buf.remaining() < 4) swap();
+        if (c < 0x80) {
+            buf.put((byte) c);
+        } else if (c < 0x800) {
+            buf.put((byte) (0xC0 | (c >> 6)));
+            buf.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(index + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(index + 1));
+            buf.put((byte) (0xF0 | (cp >> 18)));
+            buf.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+            buf.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+            buf.put((byte) (0x80 | (cp & 0x3F)));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            buf.put((byte) '?');
+        } else {
+            buf.put((byte) (0xE0 | (c >> 12)));
+            buf.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buf.put((byte) (0x80 | (c & 0x3F)));
+        }
+        return 1;
+    }
+
+    /**
+     * Writes a whole number in decimal
+     */
+    public void writeLong(long value) throws IOException {
+        if (buf.remaining() < 20) swap();
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buf.put((byte) '-');
+            value = -value;
+        }
+        if (value < 10) {
+            buf.put((byte) ('0' + value));
+            return;
+        }
+        long divisor = 10;
+        while (divisor <= value / 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            buf.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * Writes a double so it reads back as exactly the same value
+     * Whole numbers skip Double.toString, they are most durations and targets
+     */
+    public void writeDouble(double value) throws IOException {
+        if (value == (long) value && Math.abs(value) < 1e15 && !(value == 0 && 1 / value < 0)) {
+            writeLong((long) value);
+            writeAscii(".0");
+            return;
+        }
+        writeAscii(Double.toString(value));
+    }
+
+    /**
+     * Writes a date as YYYY-MM-DD
+     */
+    public void writeDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            writeAscii(date.toString());
+            return;
+        }
+        if (buf.remaining() < 10) swap();
+        putDigits(year, 4);
+        buf.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buf.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Writes a time as HH:MM, or HH:MM:SS when it has seconds
+     */
+    public void writeTime(LocalTime time) throws IOException {
+        if (time.getNano() != 0) {
+            writeAscii(time.toString());
+            return;
+        }
+        if (buf.remaining() < 8) swap();
+        putDigits(time.getHour(), 2);
+        buf.put((byte) ':');
+        putDigits(time.getMinute(), 2);
+        if (time.getSecond() != 0) {
+            buf.put((byte) ':');
+            putDigits(time.getSecond(), 2);
+        }
+    }
+
+    /**
+     * Writes out what is left, waits for the gzip thread and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            buf.flip();
+            bytesOut += buf.remaining();
+            if (gzip != null) {
+                if (buf.hasRemaining()) gzip.handOff(buf);
+                gzip.handOff(END);
+                gzip.finish();
+            } else {
+                writeFully(buf);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Puts a fixed number of digits with leading zeros
+     */
+    private void putDigits(int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            buf.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * Sends the full buffer on its way and gets an empty one to keep writing into
+     */
+    private void swap() throws IOException {
+        buf.flip();
+        bytesOut += buf.remaining();
+        if (gzip != null) {
+            gzip.handOff(buf);
+            buf = gzip.takeFree();
+        } else {
+            writeFully(buf);
+            buf.clear();
+        }
+    }
+
+    /**
+     * Writes every remaining byte of the buffer to the file
+     */
+    private void writeFully(ByteBuffer b) throws IOException {
+        writeFully(b, "export");
+    }
+
+    /**
+     * Writes every remaining byte, as a flush event of the given kind when a recording wants one
+     */
+    private void writeFully(ByteBuffer b, String kind) throws IOException {
+        JfrEvents_sec33_gr3.FlushEvent event = new JfrEvents_sec33_gr3.FlushEvent();
+        event.begin();
+        int bytes = b.remaining();
+        while (b.hasRemaining()) {
+            channel.write(b);
+        }
+        if (event.shouldCommit()) {
+            event.file = fileName;
+            event.kind = kind;
+            event.bytesWritten = bytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * The gzip pipeline - a thread that compresses full buffers and writes them to the file
+     * Buffers go round in a loop: we fill one, it compresses it and gives it back empty
+     */
+    private final class GzipStage implements Runnable {
+
+        private final ArrayBlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+        private final ArrayBlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        private final Thread thread = new Thread(this, "mindtrack-export-gzip");
+        private volatile Throwable failure;
+
+        GzipStage() {
+            for (int i = 1; i < BUFFER_COUNT; i++) {
+                free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+            }
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Gives a filled buffer to the gzip thread, waits if its behind
+         */
+        void handOff(ByteBuffer b) throws IOException {
+            try {
+                while (!full.offer(b, 100, TimeUnit.MILLISECONDS)) {
+                    checkFailure();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted", ex);
+            }
+        }
+
+        /**
+         * Gets an empty buffer back from the gzip thread
+         */
+        ByteBuffer takeFree() throws IOException {
+            try {
+                ByteBuffer b;
+                while ((b = free.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                    checkFailure();
+                }
+                return b;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted", ex);
+            }
+        }
+
+        /**
+         * Waits for the gzip thread to write the gzip trailer and stop
+         */
+        void finish() throws IOException {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted", ex);
+            }
+            checkFailure();
+        }
+
+        private void checkFailure() throws IOException {
+            Throwable t = failure;
+            if (t != null) {
+                throw t instanceof IOException ? (IOException) t : new IOException("Compression failed", t);
+            }
+        }
+
+        /**
+         * Compress loop - raw deflate plus the gzip header and trailer written by hand
+         * so it can work straight on the direct buffers
+         */
+        @Override
+        public void run() {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED, true); // exports are very repetitive, fastest level still shrinks them ~10x
+            CRC32 crc = new CRC32();
+            ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long size = 0;
+            try {
+                out.put(new byte[] {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff});
+                while (true) {
+                    ByteBuffer b = full.take();
+                    if (b == END) break;
+                    size += b.remaining();
+                    crc.update(b.duplicate());
+                    deflater.setInput(b);
+                    while (!deflater.needsInput()) {
+                        deflater.deflate(out);
+                        if (!out.hasRemaining()) drain(out);
+                    }
+                    deflater.setInput(NO_INPUT); // let go of the buffer before it gets reused
+                    b.clear();
+                    free.put(b);
+                }
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflater.deflate(out);
+                    if (!out.hasRemaining()) drain(out);
+                }
+                if (out.remaining() < 8) drain(out);
+                putIntLE(out, (int) crc.getValue());
+                putIntLE(out, (int) size);
+                drain(out);
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void drain(ByteBuffer out) throws IOException {
+            out.flip();
+            writeFully(out, "export-gzip");
+            out.clear();
+        }
+
+        private void putIntLE(ByteBuffer out, int value) {
+            out.put((byte) value).put((byte) (value >> 8)).put((byte) (value >> 16)).put((byte) (value >> 24));
+        }
+    }
+}
@@ -0,0 +1,450 @@
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FieldHistory class - keeps every value the fields of goals and activities ever had, so they can be read
+ * as they were on an earlier date, like a goal's target last month or a sleep's duration before it was corrected
+ *
+ * Every version has two times (bitemporal):
+ *  - the valid date, the day the values count from. A goal change counts from the day its made, an activity
+ *    change counts from the activity's own date since it fixes what happened that day
+ *  - the recorded time, when the change was made in the app
+ * asOf reads with only a date give what we know now, with a knownAt time they give what we knew back then,
+ * so a corrected duration still reads as the old one before the correction was recorded
+ *
+ * Each record's versions are a delta chain, one changed field per version, and every FULL_EVERY'th version
+ * has all the fields. A read binary searches the chain on both times, O(log versions), then copies the
+ * closest full version before it and replays less than FULL_EVERY changes onto it
+ * Valid dates never go down along a chain (goal changes are made today and activity changes all have the
+ * activity's date) which is what lets one binary search on each time find the version
+ * Going back to a checkpoint is only noted when it happens, so it stays O(1) for the user, the versions
+ * it makes are written the next time the history is read or recorded into
+ * Enable it with User_sec33_gr_3.enableFieldHistory(), like the user it belongs to its not thread safe
+ */
+public class FieldHistory_sec33_gr3 {
+
+    public static final int FULL_EVERY = 8; // how far apart versions with every field are
+
+    private static final int ALL_FIELDS = -1; // a version with every field instead of one change
+    private static final int REMOVED = -2; // the record was removed, a version with no fields
+
+    private final Clock clock;
+    private final Map<Integer, Chain> activities = new HashMap<>(); // by activity ID
+    private final Map<Integer, Chain> goals = new HashMap<>(); // by goal ID
+    private long lastRecorded; // recorded times never go backwards, even if the clock does
+    private final Deque<Restore> pending = new ArrayDeque<>(); // restores not written yet, oldest first
+
+    /**
+     * One version of a record, what its fields were from the valid date on as it was recorded
+     */
+    public static final class Version {
+        private final String[] fields;
+        private final Object[] values; // null when removed
+        private final LocalDate validFrom;
+        private final Instant recordedAt;
+        private final String changedField; // null when every field was written
+
+        Version(String[] fields, Object[] values, LocalDate validFrom, Instant recordedAt, String changedField) {
+            this.fields = fields;
+            this.values = values;
+            this.validFrom = validFrom;
+            this.recordedAt = recordedAt;
+            this.changedField = changedField;
+        }
+
+        /**
+         * Gets the day these values count from
+         */
+        public LocalDate getValidFrom() { return validFrom; }
+
+        /**
+         * Gets when this version was recorded
+         */
+        public Instant getRecordedAt() { return recordedAt; }
+
+        /**
+         * Gets the field this version changed, or null if it wrote all of them (added, undone or removed)
+         */
+        public String getChangedField() { return changedField; }
+
+        /**
+         * Checks if this version is the record being removed
+         */
+        public boolean isRemoved() { return values == null; }
+
+        /**
+         * Gets the field names, the same as getFieldNames() on the goal or activity
+         */
+        public String[] getFieldNames() { return fields.clone(); }
+
+        /**
+         * Gets one field's value, boxed like getFieldValue() on the goal or activity
+         */
+        public Object getValue(String field) {
+            if (values == null) {
+                throw new IllegalStateException("Record was removed, it has no values");
+            }
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].equals(field)) return values[i];
+            }
+            throw new IllegalArgumentException("Unknown field: " + field);
+        }
+
+        /**
+         * Writes the times and then every field as name=value
+         */
+        public StringBuilder appendTo(StringBuilder sb) {
+            TextFormat_sec33_gr3.appendDate(sb.append("From "), validFrom).append(" (recorded ").append(recordedAt).append(")");
+            if (values == null) return sb.append(" removed");
+            sb.append(changedField != null ? " changed " + changedField : " all fields").append(':');
+            for (int i = 0; i < fields.length; i++) {
+                sb.append(i == 0 ? " " : ", ").append(fields[i]).append('=').append(values[i]);
+            }
+            return sb;
+        }
+
+        @Override
+        public String toString() {
+            return appendTo(new StringBuilder(128)).toString();
+        }
+    }
+
+    /**
+     * The user going back to a saved version, with the times it happened at
+     */
+    private static final class Restore {
+        final User_sec33_gr_3.Saved replaced;
+        final User_sec33_gr_3.Saved restored;
+        final long now;
+        final long today;
+
+        Restore(User_sec33_gr_3.Saved replaced, User_sec33_gr_3.Saved restored, long now, long today) {
+            this.replaced = replaced;
+            this.restored = restored;
+            this.now = now;
+            this.today = today;
+        }
+    }
+
+    /**
+     * Every version of one record in the order they were recorded, as parallel arrays
+     */
+    private static final class Chain {
+        final String[] fields; // the record's own array, shared by every record of the type
+        long[] validDays = new long[4]; // epoch day, never goes down
+        long[] recorded = new long[4]; // epoch millis, never goes down
+        int[] changed = new int[4]; // field index, ALL_FIELDS or REMOVED
+        Object[] values = new Object[4]; // the new value, or an Object[] of every field for ALL_FIELDS
+        int size;
+
+        Chain(String[] fields) {
+            this.fields = fields;
+        }
+
+        void append(long validDay, long recordedAt, int field, Object value) {
+            if (size == changed.length) {
+                int capacity = size * 2;
+                validDays = Arrays.copyOf(validDays, capacity);
+                recorded = Arrays.copyOf(recorded, capacity);
+                changed = Arrays.copyOf(changed, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            validDays[size] = validDay;
+            recorded[size] = recordedAt;
+            changed[size] = field;
+            values[size] = value;
+            size++;
+        }
+
+        int fieldIndex(String name) {
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].equals(name)) return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Gets every field as of version i, or null if the record was removed by then
+         * Goes back to the closest version with every field (at most FULL_EVERY - 1 back) and replays forward
+         */
+        Object[] stateAt(int i) {
+            int start = i;
+            while (changed[start] >= 0) start--;
+            if (changed[start] == REMOVED) return null; // nothing is ever changed on top of a removal
+            Object[] state = ((Object[]) values[start]).clone();
+            for (int k = start + 1; k <= i; k++) state[changed[k]] = values[k];
+            return state;
+        }
+
+        boolean isRemoved() {
+            return size > 0 && changed[size - 1] == REMOVED;
+        }
+
+        /**
+         * Finds the last version with a valid date on or before day, recorded at or before knownAt, -1 if none
+         */
+        int find(long day, long knownAt) {
+            int known = upperBound(recorded, size, knownAt);
+            return upperBound(validDays, known, day) - 1;
+        }
+
+        Version version(int i) {
+            String changedField = changed[i] >= 0 ? fields[changed[i]] : null;
+            return new Version(fields, stateAt(i), LocalDate.ofEpochDay(validDays[i]), Instant.ofEpochMilli(recorded[i]), changedField);
+        }
+    }
+
+    /**
+     * Creates the history with every goal and activity the user has now as its first version
+     */
+    FieldHistory_sec33_gr3(User_sec33_gr_3 user, Clock clock) {
+        this.clock = clock;
+        long now = now();
+        long today = LocalDate.now(clock).toEpochDay();
+        for (WellnessActivity_sec33_gr3 activity : user.getActivities()) {
+            write(activities, activity.getActivityId(), activity, null, activity.getDate().toEpochDay(), now);
+        }
+        for (WellnessGoal_sec33_gr3 goal : user.getWellnessGoals()) {
+            write(goals, goal.getGoalId(), goal, null, today, now);
+        }
+    }
+
+    // ------------------------------------------------------------------ reading
+
+    /**
+     * Gets an activity as we know it now, or null if it was removed or never known
+     * An activity's versions all count from its own date, so any date on or after it gives the latest
+     */
+    public Version activityAsOf(int activityId, LocalDate date) {
+        catchUp();
+        return asOf(activities.get(activityId), date, Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets an activity as we knew it at knownAt, like before a correction, or null if it wasnt there then
+     */
+    public Version activityAsOf(int activityId, LocalDate date, Instant knownAt) {
+        catchUp();
+        return asOf(activities.get(activityId), date, knownAt.toEpochMilli());
+    }
+
+    /**
+     * Gets a goal the way it was on a date, or null if it wasnt added yet or was removed by then
+     */
+    public Version goalAsOf(int goalId, LocalDate date) {
+        catchUp();
+        return asOf(goals.get(goalId), date, Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets a goal the way it was on a date as we knew it at knownAt
+     */
+    public Version goalAsOf(int goalId, LocalDate date, Instant knownAt) {
+        catchUp();
+        return asOf(goals.get(goalId), date, knownAt.toEpochMilli());
+    }
+
+    /**
+     * Gets every version of an activity oldest first, empty if it was never known
+     */
+    public List<Version> activityVersions(int activityId) {
+        catchUp();
+        return versions(activities.get(activityId));
+    }
+
+    /**
+     * Gets every version of a goal oldest first, empty if it was never known
+     */
+    public List<Version> goalVersions(int goalId) {
+        catchUp();
+        return versions(goals.get(goalId));
+    }
+
+    /**
+     * Gets how many versions are kept for every record together
+     */
+    public long getVersionCount() {
+        catchUp();
+        long count = 0;
+        for (Chain chain : activities.values()) count += chain.size;
+        for (Chain chain : goals.values()) count += chain.size;
+        return count;
+    }
+
+    private static Version asOf(Chain chain, LocalDate date, long knownAt) {
+        if (chain == null) return null;
+        int i = chain.find(date.toEpochDay(), knownAt);
+        if (i < 0 || chain.changed[i] == REMOVED) return null;
+        return chain.version(i);
+    }
+
+    private static List<Version> versions(Chain chain) {
+        if (chain == null) return Collections.emptyList();
+        List<Version> result = new ArrayList<>(chain.size);
+        for (int i = 0; i < chain.size; i++) result.add(chain.version(i));
+        return result;
+    }
+
+    // ------------------------------------------------------------------ recording
+
+    /**
+     * Records one change to the user, called by the user for every change it publishes
+     * Moods and recurring activities arent kept, going back to a saved version comes through restored()
+     */
+    void record(int type, Object subject, String field) {
+        if (type == UserChangeEvent_sec33_gr3.USER_RESTORED) return; // restored() already noted it
+        catchUp();
+        switch (type) {
+            case UserChangeEvent_sec33_gr3.ACTIVITY_ADDED:
+            case UserChangeEvent_sec33_gr3.ACTIVITY_UPDATED:
+                WellnessActivity_sec33_gr3 activity = (WellnessActivity_sec33_gr3) subject;
+                write(activities, activity.getActivityId(), activity, field, activity.getDate().toEpochDay(), now());
+                break;
+            case UserChangeEvent_sec33_gr3.ACTIVITY_REMOVED:
+                WellnessActivity_sec33_gr3 removed = (WellnessActivity_sec33_gr3) subject;
+                remove(activities.get(removed.getActivityId()), removed.getDate().toEpochDay(), now()); // it never happened
+                break;
+            case UserChangeEvent_sec33_gr3.GOAL_ADDED:
+            case UserChangeEvent_sec33_gr3.GOAL_UPDATED:
+                WellnessGoal_sec33_gr3 goal = (WellnessGoal_sec33_gr3) subject;
+                write(goals, goal.getGoalId(), goal, field, today(), now());
+                break;
+            case UserChangeEvent_sec33_gr3.GOAL_REMOVED:
+                remove(goals.get(((WellnessGoal_sec33_gr3) subject).getGoalId()), today(), now());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Records the user going back to a saved version (a checkpoint), replaced is what it had just before
+     * Only keeps both for now, catchUp() writes the versions before anything reads or records
+     */
+    void restored(User_sec33_gr_3.Saved replaced, User_sec33_gr_3.Saved restored) {
+        pending.add(new Restore(replaced, restored, now(), today()));
+    }
+
+    /**
+     * Writes the versions for every restore that was only noted so far
+     */
+    private void catchUp() {
+        for (Restore restore; (restore = pending.poll()) != null; ) {
+            write(restore);
+        }
+    }
+
+    /**
+     * Records that didnt come back are removed, records that did get a full version if any field is different
+     * Both sides share everything but what changed between them, so only activities in chunks they dont
+     * share are looked at (ActivityTimeline_sec33_gr3.notSharedWith()) and goals only if the list changed
+     * Activities moved to the archive were never in replaced so they stay as they are
+     */
+    private void write(Restore restore) {
+        Set<Integer> activityIds = new HashSet<>();
+        for (WellnessActivity_sec33_gr3 activity : restore.restored.activities.notSharedWith(restore.replaced.activities)) {
+            activityIds.add(activity.getActivityId());
+            sync(activities, activity.getActivityId(), activity, activity.getDate().toEpochDay(), restore.now);
+        }
+        for (WellnessActivity_sec33_gr3 activity : restore.replaced.activities.notSharedWith(restore.restored.activities)) {
+            if (activityIds.add(activity.getActivityId())) {
+                remove(activities.get(activity.getActivityId()), activity.getDate().toEpochDay(), restore.now);
+            }
+        }
+        if (restore.restored.goals.sameAs(restore.replaced.goals)) return;
+        Set<Integer> goalIds = new HashSet<>();
+        for (WellnessGoal_sec33_gr3 goal : restore.restored.goals) {
+            goalIds.add(goal.getGoalId());
+            sync(goals, goal.getGoalId(), goal, restore.today, restore.now);
+        }
+        for (WellnessGoal_sec33_gr3 goal : restore.replaced.goals) {
+            if (goalIds.add(goal.getGoalId())) remove(goals.get(goal.getGoalId()), restore.today, restore.now);
+        }
+    }
+
+    /**
+     * Adds a version for a changed field, or for every field when field is null or isnt one of the record's
+     * (an undo swaps the whole record). Every FULL_EVERY'th version and the first one after a removal
+     * get every field so a read never replays more than FULL_EVERY - 1 changes
+     */
+    private void write(Map<Integer, Chain> chains, int id, Object record, String field, long validDay, long now) {
+        Chain chain = chains.get(id);
+        if (chain == null) {
+            chain = new Chain(fieldNames(record));
+            chains.put(id, chain);
+        }
+        if (chain.size > 0) validDay = Math.max(validDay, chain.validDays[chain.size - 1]);
+        int index = field != null ? chain.fieldIndex(field) : -1;
+        if (index < 0 || chain.size % FULL_EVERY == 0 || chain.isRemoved()) {
+            chain.append(validDay, now, ALL_FIELDS, values(record, chain.fields));
+        } else {
+            chain.append(validDay, now, index, fieldValue(record, field));
+        }
+    }
+
+    /**
+     * Adds a full version only if the record is new, was removed or has any field that changed
+     */
+    private void sync(Map<Integer, Chain> chains, int id, Object record, long validDay, long now) {
+        Chain chain = chains.get(id);
+        if (chain != null && chain.size > 0) {
+            Object[] latest = chain.stateAt(chain.size - 1);
+            if (latest != null && Arrays.equals(latest, values(record, chain.fields))) return;
+        }
+        write(chains, id, record, null, validDay, now);
+    }
+
+    private static void remove(Chain chain, long validDay, long now) {
+        if (chain == null || chain.isRemoved()) return;
+        chain.append(Math.max(validDay, chain.validDays[chain.size - 1]), now, REMOVED, null);
+    }
+
+    private long now() {
+        lastRecorded = Math.max(lastRecorded, clock.millis());
+        return lastRecorded;
+    }
+
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    private static String[] fieldNames(Object record) {
+        if (record instanceof WellnessGoal_sec33_gr3) return ((WellnessGoal_sec33_gr3) record).getFieldNames();
+        return ((WellnessActivity_sec33_gr3) record).getFieldNames();
+    }
+
+    private static Object fieldValue(Object record, String field) {
+        if (record instanceof WellnessGoal_sec33_gr3) return ((WellnessGoal_sec33_gr3) record).getFieldValue(field);
+        return ((WellnessActivity_sec33_gr3) record).getFieldValue(field);
+    }
+
+    private static Object[] values(Object record, String[] fields) {
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) values[i] = fieldValue(record, fields[i]);
+        return values;
+    }
+
+    /**
+     * Counts the first n entries that are less than or equal to key, the array is sorted up to n
+     */
+    private static int upperBound(long[] sorted, int n, long key) {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+}
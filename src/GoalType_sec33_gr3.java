@@ -1,10 +1,44 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * GoalType class - defines all the diferent types of wellness goals users can set
  * Uses string constants instead of enum to keep things simple
  * Helps validate goal types and makes sure users dont enter invalid goals
+ *
+ * Every goal type also has an int id (0, 1, 2... in the order they were registered) and a table of how each
+ * activity type counts towards it, so checking a goal is two array lookups and a compare instead of comparing
+ * strings. More goal types can be added while the app runs with register() and setMetric(),
+ * none of the activity classes need to change for that
  */
 public class GoalType_sec33_gr3 {
 
+    /**
+     * How an activity counts towards a goal, like hours slept for a sleep goal
+     */
+    public interface Metric {
+        double valueFor(WellnessActivity_sec33_gr3 activity);
+    }
+
+    /**
+     * One registered goal type, replaced as a whole when a metric is set so readers never need a lock
+     */
+    private static final class Kind {
+        final String name;
+        final boolean lowerIsBetter;
+        final Metric[] metrics; // by activity type index, null where the activity doesnt count
+
+        Kind(String name, boolean lowerIsBetter, Metric[] metrics) {
+            this.name = name;
+            this.lowerIsBetter = lowerIsBetter;
+            this.metrics = metrics;
+        }
+    }
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile Kind[] kinds = new Kind[0];
+
     // Goal type constants - these are all the valid goal types users can choose from
 
     /**
@@ -52,18 +86,124 @@ public class GoalType_sec33_gr3 {
             SCREEN_TIME_LIMIT, MOOD_IMPROVEMENT, ACTIVITY_STREAK
     };
 
+    // Ids of the built in goal types, same order as ALL_GOAL_TYPES
+    public static final int SLEEP_HOURS_ID = register(SLEEP_HOURS, false);
+    public static final int MEDITATION_MINUTES_ID = register(MEDITATION_MINUTES, false);
+    public static final int JOURNAL_ENTRIES_ID = register(JOURNAL_ENTRIES, false);
+    public static final int SCREEN_TIME_LIMIT_ID = register(SCREEN_TIME_LIMIT, true);
+    public static final int MOOD_IMPROVEMENT_ID = register(MOOD_IMPROVEMENT, false);
+    public static final int ACTIVITY_STREAK_ID = register(ACTIVITY_STREAK, false);
+
+    public static final int UNKNOWN = -1; // what idOf gives for a name that isnt registered
+
+    static {
+        // journal entries and streaks are counted over many activities, no single one meets them
+        setMetric(SLEEP_HOURS_ID, WellnessActivity_sec33_gr3.TYPE_SLEEP, a -> a.getDuration() / 60.0);
+        setMetric(MEDITATION_MINUTES_ID, WellnessActivity_sec33_gr3.TYPE_MEDITATION, WellnessActivity_sec33_gr3::getDuration);
+        setMetric(SCREEN_TIME_LIMIT_ID, WellnessActivity_sec33_gr3.TYPE_SCREEN_TIME, WellnessActivity_sec33_gr3::getDuration);
+        setMetric(MOOD_IMPROVEMENT_ID, WellnessActivity_sec33_gr3.TYPE_JOURNALING, a -> {
+            Journaling_sec33_gr3 journaling = (Journaling_sec33_gr3) a;
+            return journaling.getMoodAfter() - journaling.getMoodBefore();
+        });
+    }
+
+    /**
+     * Adds a goal type and gives back its id, or the existing id if the name is already registered
+     * lowerIsBetter is for limits like screen time, where staying under the target is the goal
+     */
+    public static synchronized int register(String name, boolean lowerIsBetter) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Goal type name cant be empty");
+        }
+        Integer existing = ids.get(name);
+        if (existing != null) return existing;
+        Kind[] updated = Arrays.copyOf(kinds, kinds.length + 1);
+        updated[kinds.length] = new Kind(name, lowerIsBetter, new Metric[WellnessActivity_sec33_gr3.TYPE_COUNT]);
+        kinds = updated; // published before the name so a name that is found always has its kind
+        ids.put(name, kinds.length - 1);
+        return kinds.length - 1;
+    }
+
+    /**
+     * Sets how one activity type counts towards a goal type, null means it doesnt count
+     */
+    public static synchronized void setMetric(int goalType, int activityType, Metric metric) {
+        if (goalType < 0 || goalType >= kinds.length) {
+            throw new IllegalArgumentException("Unknown goal type id: " + goalType);
+        }
+        if (activityType < 0 || activityType >= WellnessActivity_sec33_gr3.TYPE_COUNT) {
+            throw new IllegalArgumentException("Unknown activity type index: " + activityType);
+        }
+        Kind old = kinds[goalType];
+        Metric[] metrics = old.metrics.clone();
+        metrics[activityType] = metric;
+        Kind[] updated = kinds.clone();
+        updated[goalType] = new Kind(old.name, old.lowerIsBetter, metrics);
+        kinds = updated;
+    }
+
     /**
-     * Checks if a goal type string is valid by comparing against known types
+     * Gets the id of a goal type, or UNKNOWN
+     */
+    public static int idOf(String goalType) {
+        if (goalType == null) return UNKNOWN;
+        Integer id = ids.get(goalType);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Gets the name of a goal type from its id
+     */
+    public static String nameOf(int goalType) {
+        return kind(goalType).name;
+    }
+
+    /**
+     * Gets whether staying at or under the target is what counts, like screen time limits
+     */
+    public static boolean isLowerBetter(int goalType) {
+        return kind(goalType).lowerIsBetter;
+    }
+
+    /**
+     * Gets the kind for an id, throws the same as setMetric if the id was never registered
+     */
+    private static Kind kind(int goalType) {
+        Kind[] current = kinds;
+        if (goalType < 0 || goalType >= current.length) {
+            throw new IllegalArgumentException("Unknown goal type id: " + goalType);
+        }
+        return current[goalType];
+    }
+
+    /**
+     * Gets every registered goal type in id order, the built in ones first
+     */
+    public static String[] getAllGoalTypes() {
+        Kind[] current = kinds;
+        String[] names = new String[current.length];
+        for (int i = 0; i < current.length; i++) names[i] = current[i].name;
+        return names;
+    }
+
+    /**
+     * Checks if an activity meets a goal, false when that activity type doesnt count towards the goal
+     */
+    public static boolean meetsGoal(WellnessActivity_sec33_gr3 activity, WellnessGoal_sec33_gr3 goal) {
+        Kind kind = kinds[goal.getGoalTypeId()];
+        Metric metric = kind.metrics[activity.getActivityTypeIndex()];
+        if (metric == null) return false;
+        double value = metric.valueFor(activity);
+        return kind.lowerIsBetter ? value <= goal.getTargetValue() : value >= goal.getTargetValue();
+    }
+
+    /**
+     * Checks if a goal type string is valid by looking it up in the registered types
      * Returns true if the goal type exists, false if its unknown
      * Usefull for validation before creating new goals
      */
     public static boolean isValidGoalType(String goalType) {
-        for (String type : ALL_GOAL_TYPES) {
-            if (type.equals(goalType)) {
-                return true;
-            }
-        }
-        return false; // goal type not found in our list
+        return idOf(goalType) != UNKNOWN;
     }
 
     /**
@@ -0,0 +1,376 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * HistoryArchive class - the cold tiers of a user's history
+ * Activities and mood entries older than the hot window (90 days by default) are moved out of memory
+ * into compressed ColdSegment_sec33_gr3 files on disk, and what stays in memory about the activities
+ * is just per day, per week and per month rollups plus each segment's small block index
+ * Day rollups are only kept for a year past the hot window and week rollups for three years,
+ * after that only months are kept, so memory stays small however many years someone has been tracking
+ * ActivityQuery_sec33_gr3 reads the segments back when a query reaches into archived dates
+ * Notes in every segment share one dictionary, made from the notes of the first compaction
+ * Making an archive on a directory that already has segments opens them again, see load()
+ */
+public class HistoryArchive_sec33_gr3 {
+
+    public static final int DEFAULT_HOT_DAYS = 90;
+    public static final int DAY_ROLLUP_DAYS = 365; // days past the hot window that keep day rollups
+    public static final int WEEK_ROLLUP_DAYS = 3 * 365; // days past the hot window that keep week rollups
+
+    private static final String[] TYPES = {"Sleep", "Meditation", "Journaling", "ScreenTime"};
+
+    private final Path directory;
+    private final int hotDays;
+    private final List<ColdSegment_sec33_gr3> segments = new ArrayList<>(); // in the order they were written
+    private byte[] dictionary; // shared notes dictionary, null until the first segment is written
+    // rollups keyed by epoch day * 8 + type index so they sort by date then type
+    private final TreeMap<Long, ActivityRollup_sec33_gr3> dayRollups = new TreeMap<>();
+    private final TreeMap<Long, ActivityRollup_sec33_gr3> weekRollups = new TreeMap<>();
+    private final TreeMap<Long, ActivityRollup_sec33_gr3> monthRollups = new TreeMap<>();
+    private LocalDate cutoff; // everything before this was archived by the last compaction, null before the first
+                              // after load() its the day after the newest archived record
+    private long archivedCount;
+    private long archivedMoodCount;
+
+    /**
+     * Creates an archive that writes its segments into a directory, making it if needed
+     * Segments already in the directory are opened again so the archive carries on where it was left
+     */
+    public HistoryArchive_sec33_gr3(Path directory, int hotDays) throws IOException {
+        if (hotDays < 1) {
+            throw new IllegalArgumentException("Hot window must be at least one day");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.hotDays = hotDays;
+        load();
+    }
+
+    /**
+     * Opens the segment files already in the directory, oldest first, with the .dict file each was written with
+     * The counts and the rollups are built again by reading every segment once, the records arent kept
+     */
+    private void load() throws IOException {
+        Map<Long, byte[]> dictionaries = new HashMap<>();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith("notes-") && name.endsWith(".dict")) {
+                    byte[] bytes = Files.readAllBytes(entry);
+                    dictionaries.put(ColdSegment_sec33_gr3.checksum(bytes), bytes);
+                } else if (name.startsWith("segment-") && name.endsWith(".seg")) {
+                    files.add(entry);
+                }
+            }
+        }
+        files.sort(null); // numbers are zero padded so name order is the order they were written
+        LocalDate newest = null;
+        for (Path file : files) {
+            long checksum = ColdSegment_sec33_gr3.dictionaryChecksum(file);
+            byte[] notes = checksum == 0 ? new byte[0] : dictionaries.get(checksum);
+            if (notes == null) {
+                throw new IOException("Notes dictionary for " + file + " is missing");
+            }
+            ColdSegment_sec33_gr3 segment = ColdSegment_sec33_gr3.open(file, notes);
+            segments.add(segment);
+            if (dictionary == null) dictionary = notes; // new segments keep using the first one
+            for (WellnessActivity_sec33_gr3 activity : segment.readActivities(null, null, null)) {
+                rollup(activity);
+            }
+            archivedCount += segment.getActivityCount();
+            archivedMoodCount += segment.getMoodCount();
+            newest = later(newest, later(segment.getLastActivityDate(), segment.getLastMoodDate()));
+        }
+        if (newest != null) {
+            cutoff = newest.plusDays(1);
+            dropOldRollups();
+        }
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+
+    /**
+     * Gets the directory the segment files are in
+     */
+    public Path getDirectory() { return directory; }
+
+    /**
+     * Gets how many days of activities stay in memory as full objects
+     */
+    public int getHotDays() { return hotDays; }
+
+    /**
+     * Gets the date everything before was archived, or null if nothing has been yet
+     */
+    public LocalDate getCutoff() { return cutoff; }
+
+    /**
+     * Gets how many activities are archived
+     */
+    public long getArchivedCount() { return archivedCount; }
+
+    /**
+     * Gets how many mood entries are archived
+     */
+    public long getArchivedMoodCount() { return archivedMoodCount; }
+
+    /**
+     * Gets how many segment files have been written
+     */
+    public int getSegmentCount() { return segments.size(); }
+
+    /**
+     * Gets the total size of the segment files in bytes
+     */
+    public long getFileSize() {
+        long size = 0;
+        for (ColdSegment_sec33_gr3 segment : segments) size += segment.getFileSize();
+        return size;
+    }
+
+    /**
+     * Gets how big the segments would be without compression, so getRawSize() / getFileSize() is the ratio
+     */
+    public long getRawSize() {
+        long size = 0;
+        for (ColdSegment_sec33_gr3 segment : segments) size += segment.getRawSize();
+        return size;
+    }
+
+    /**
+     * Moves every activity and mood entry older than the hot window out of memory into a new segment file
+     * The moods list is the user's own, archived entries are taken out of it
+     * Records the archive already has are dropped without writing them again
+     * Returns how many activities were taken out of memory
+     */
+    int compact(ActivityTimeline_sec33_gr3 timeline, List<MoodStressEntry_sec33_gr3> moods, LocalDate today) throws IOException {
+        LocalDate cut = today.minusDays(hotDays);
+        int end = timeline.firstIndexOnOrAfter(cut);
+        List<MoodStressEntry_sec33_gr3> oldMoods = new ArrayList<>();
+        for (MoodStressEntry_sec33_gr3 m : moods) {
+            if (m.getDate().isBefore(cut)) oldMoods.add(m);
+        }
+        if (end > 0 || !oldMoods.isEmpty()) {
+            oldMoods.sort((a, b) -> a.getDate().compareTo(b.getDate())); // stable, same day keeps the order they were logged
+            List<WellnessActivity_sec33_gr3> old = withoutArchived(timeline.subList(0, end));
+            oldMoods = withoutArchivedMoods(oldMoods);
+            if (!old.isEmpty() || !oldMoods.isEmpty()) {
+                if (dictionary == null) {
+                    dictionary = saveDictionary(old, oldMoods);
+                }
+                segments.add(ColdSegment_sec33_gr3.write(nextFile("segment-", ".seg"), old, oldMoods, dictionary));
+                for (WellnessActivity_sec33_gr3 activity : old) {
+                    rollup(activity);
+                }
+                archivedCount += old.size();
+                archivedMoodCount += oldMoods.size();
+            }
+            timeline.removeBefore(cut);
+            moods.removeIf(m -> m.getDate().isBefore(cut));
+        }
+        if (cutoff == null || cut.isAfter(cutoff)) cutoff = cut;
+        dropOldRollups();
+        return end;
+    }
+
+    /**
+     * Leaves out activities with the same ID as one already archived on that day
+     * Only activities from before the cutoff can be archived already, like when a user's export
+     * was loaded back in next to the archive it was exported from
+     */
+    private List<WellnessActivity_sec33_gr3> withoutArchived(List<WellnessActivity_sec33_gr3> old) {
+        if (cutoff == null || old.isEmpty() || !old.get(0).getDate().isBefore(cutoff)) {
+            return old; // the usual case, nothing to read back
+        }
+        List<WellnessActivity_sec33_gr3> archived = read(old.get(0).getDate(), cutoff.minusDays(1), null);
+        if (archived.isEmpty()) return old;
+        IdSet_sec33_gr3 ids = new IdSet_sec33_gr3(archived.size());
+        for (WellnessActivity_sec33_gr3 a : archived) ids.add(a.getActivityId());
+        List<WellnessActivity_sec33_gr3> kept = new ArrayList<>(old.size());
+        for (WellnessActivity_sec33_gr3 a : old) {
+            if (!a.getDate().isBefore(cutoff) || !ids.contains(a.getActivityId())) kept.add(a);
+        }
+        return kept;
+    }
+
+    /**
+     * Same as withoutArchived() for mood entries, they have no IDs so an entry matches when all its text does
+     * Two matching entries on one day only drop as many as the archive has
+     */
+    private List<MoodStressEntry_sec33_gr3> withoutArchivedMoods(List<MoodStressEntry_sec33_gr3> old) {
+        if (cutoff == null || old.isEmpty() || !old.get(0).getDate().isBefore(cutoff)) {
+            return old;
+        }
+        Map<String, Integer> archived = new HashMap<>();
+        for (MoodStressEntry_sec33_gr3 m : readMoods(old.get(0).getDate(), cutoff.minusDays(1))) {
+            archived.merge(m.toString(), 1, Integer::sum);
+        }
+        if (archived.isEmpty()) return old;
+        List<MoodStressEntry_sec33_gr3> kept = new ArrayList<>(old.size());
+        for (MoodStressEntry_sec33_gr3 m : old) {
+            String key = m.getDate().isBefore(cutoff) ? m.toString() : null;
+            Integer left = key == null ? null : archived.get(key);
+            if (left == null) {
+                kept.add(m);
+            } else if (left == 1) {
+                archived.remove(key);
+            } else {
+                archived.put(key, left - 1);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Drops rollups that are past the window they are kept for, old days only keep there week
+     * and month rollups and old weeks only there month rollups
+     */
+    private void dropOldRollups() {
+        dayRollups.headMap(cutoff.minusDays(DAY_ROLLUP_DAYS).toEpochDay() * 8).clear();
+        weekRollups.headMap(cutoff.minusDays(WEEK_ROLLUP_DAYS).toEpochDay() * 8).clear();
+    }
+
+    /**
+     * Checks if any segment has activities between the dates, either can be null for no limit
+     */
+    boolean overlaps(LocalDate from, LocalDate to) {
+        for (ColdSegment_sec33_gr3 segment : segments) {
+            if (segment.hasActivitiesBetween(from, to)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if an activity of a type was archived on a date, always false on or after the cutoff
+     * Days in the DAY rollup window are a map lookup, older ones read the blocks for that day from disk
+     */
+    boolean hasActivityOn(LocalDate date, String activityType) {
+        if (cutoff == null || !date.isBefore(cutoff)) return false;
+        if (!date.isBefore(cutoff.minusDays(DAY_ROLLUP_DAYS))) {
+            return dayRollups.containsKey(rollupKey(date, ActivityRollup_sec33_gr3.DAY, activityType));
+        }
+        return !read(date, date, activityType).isEmpty();
+    }
+
+    /**
+     * Reads the archived activities between two dates back from disk, oldest first
+     * Only the blocks that overlap the dates are decompressed, type can be null for every type
+     * The activities are copies, changing them doesnt change the archive
+     */
+    List<WellnessActivity_sec33_gr3> read(LocalDate from, LocalDate to, String type) {
+        List<WellnessActivity_sec33_gr3> results = new ArrayList<>();
+        boolean sorted = true;
+        try {
+            for (ColdSegment_sec33_gr3 segment : segments) {
+                if (!segment.hasActivitiesBetween(from, to)) continue;
+                List<WellnessActivity_sec33_gr3> found = segment.readActivities(from, to, type);
+                if (!results.isEmpty() && !found.isEmpty()
+                        && found.get(0).getDate().isBefore(results.get(results.size() - 1).getDate())) {
+                    sorted = false; // a back-dated activity was archived after newer ones
+                }
+                results.addAll(found);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cant read archive in " + directory, ex);
+        }
+        if (!sorted) {
+            results.sort((a, b) -> a.getDate().compareTo(b.getDate())); // stable, same day keeps segment order
+        }
+        return results;
+    }
+
+    /**
+     * Reads the archived mood entries between two dates back from disk, oldest first
+     */
+    List<MoodStressEntry_sec33_gr3> readMoods(LocalDate from, LocalDate to) {
+        List<MoodStressEntry_sec33_gr3> results = new ArrayList<>();
+        try {
+            for (ColdSegment_sec33_gr3 segment : segments) {
+                if (segment.hasMoodsBetween(from, to)) results.addAll(segment.readMoods(from, to));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cant read archive in " + directory, ex);
+        }
+        results.sort((a, b) -> a.getDate().compareTo(b.getDate()));
+        return results;
+    }
+
+    /**
+     * Adds copies of the archived rollups between two dates into a map keyed like the stored ones
+     * DAY rollups only go back DAY_ROLLUP_DAYS past the hot window and WEEK rollups WEEK_ROLLUP_DAYS
+     */
+    void addRollups(Map<Long, ActivityRollup_sec33_gr3> into, LocalDate from, LocalDate to, int bucket) {
+        TreeMap<Long, ActivityRollup_sec33_gr3> source = bucket == ActivityRollup_sec33_gr3.MONTH ? monthRollups
+                : bucket == ActivityRollup_sec33_gr3.WEEK ? weekRollups : dayRollups;
+        long low = from == null ? Long.MIN_VALUE : ActivityRollup_sec33_gr3.bucketStart(from, bucket).toEpochDay() * 8;
+        long high = to == null ? Long.MAX_VALUE : to.toEpochDay() * 8 + 7;
+        if (low > high) return; // from is after to
+        for (Map.Entry<Long, ActivityRollup_sec33_gr3> e : source.subMap(low, true, high, true).entrySet()) {
+            ActivityRollup_sec33_gr3 existing = into.get(e.getKey());
+            if (existing == null) {
+                into.put(e.getKey(), e.getValue().copy());
+            } else {
+                existing.merge(e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gets the key a rollup is stored under
+     */
+    static long rollupKey(LocalDate date, int bucket, String activityType) {
+        return ActivityRollup_sec33_gr3.bucketStart(date, bucket).toEpochDay() * 8 + typeIndex(activityType);
+    }
+
+    private static int typeIndex(String activityType) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(activityType)) return i;
+        }
+        return TYPES.length; // anything else sorts last
+    }
+
+    private void rollup(WellnessActivity_sec33_gr3 activity) {
+        rollup(dayRollups, activity, ActivityRollup_sec33_gr3.DAY);
+        rollup(weekRollups, activity, ActivityRollup_sec33_gr3.WEEK);
+        rollup(monthRollups, activity, ActivityRollup_sec33_gr3.MONTH);
+    }
+
+    private static void rollup(TreeMap<Long, ActivityRollup_sec33_gr3> rollups, WellnessActivity_sec33_gr3 activity, int bucket) {
+        rollups.computeIfAbsent(rollupKey(activity.getDate(), bucket, activity.getActivityType()),
+                k -> new ActivityRollup_sec33_gr3(activity.getDate(), bucket, activity.getActivityType())).add(activity);
+    }
+
+    /**
+     * Builds the notes dictionary from the first records archived and keeps a copy next to the segments
+     */
+    private byte[] saveDictionary(List<WellnessActivity_sec33_gr3> activities, List<MoodStressEntry_sec33_gr3> moods) throws IOException {
+        List<String> notes = new ArrayList<>(activities.size() + moods.size());
+        for (WellnessActivity_sec33_gr3 a : activities) notes.add(a.getNotes());
+        for (MoodStressEntry_sec33_gr3 m : moods) notes.add(m.getNotes());
+        byte[] built = ColdSegment_sec33_gr3.buildDictionary(notes);
+        Files.write(nextFile("notes-", ".dict"), built);
+        return built;
+    }
+
+    /**
+     * Picks a file name that isnt taken yet, so an old directory is never overwritten
+     */
+    private Path nextFile(String prefix, String suffix) {
+        for (int n = segments.size(); ; n++) {
+            Path file = directory.resolve(String.format("%s%05d%s", prefix, n, suffix));
+            if (!Files.exists(file)) return file;
+        }
+    }
+}
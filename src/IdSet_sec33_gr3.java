@@ -0,0 +1,82 @@
+/**
+ * IdSet class - a set of positive int IDs, like the activity IDs an import has already seen
+ * Open addressing with linear probing in one int array, so memory follows how many IDs there are
+ * and not how big they are, one huge ID in a file costs the same as a small one
+ * 0 marks an empty slot, thats why only IDs above 0 can go in
+ */
+public class IdSet_sec33_gr3 {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] slots;
+    private int size;
+
+    /**
+     * Creates an empty set with room for about expected IDs before it has to grow
+     */
+    public IdSet_sec33_gr3(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2L && capacity < (1 << 30)) {
+            capacity <<= 1; // at most half full, probes stay short
+        }
+        this.slots = new int[capacity];
+    }
+
+    /**
+     * Gets how many IDs are in the set
+     */
+    public int size() { return size; }
+
+    /**
+     * Checks if an ID is in the set
+     */
+    public boolean contains(int id) {
+        int mask = slots.length - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            int current = slots[i];
+            if (current == id) return true;
+            if (current == 0) return false;
+        }
+    }
+
+    /**
+     * Adds an ID, returns false if it was already in the set
+     * Throws IllegalArgumentException for 0 and negative IDs
+     */
+    public boolean add(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("IDs must be positive: " + id);
+        }
+        int mask = slots.length - 1;
+        int i = slot(id, mask);
+        for (int current; (current = slots[i]) != 0; i = (i + 1) & mask) {
+            if (current == id) return false;
+        }
+        slots[i] = id;
+        if (++size * 2 > slots.length) grow();
+        return true;
+    }
+
+    /**
+     * Doubles the table and puts every ID back in
+     */
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        int mask = slots.length - 1;
+        for (int id : old) {
+            if (id == 0) continue;
+            int i = slot(id, mask);
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = id;
+        }
+    }
+
+    /**
+     * Spreads the ID so IDs that count up dont all land next to each other
+     */
+    private static int slot(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
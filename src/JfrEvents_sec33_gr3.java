@@ -0,0 +1,145 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JfrEvents class - the Flight Recorder events MindTrack writes on its slow paths
+ * Every event is used the same way, and costs nothing but an unused object the JIT throws away when
+ * no recording is running:
+ *     ReportEvent event = new ReportEvent();
+ *     event.begin();
+ *     ...
+ *     if (event.shouldCommit()) { fill in the fields; event.commit(); }
+ * Fields that need work to fill in are only worked out inside shouldCommit()
+ * Record with jfr/mindtrack.jfc and read the recording back with --jfr-summary, see JfrSummary_sec33_gr3
+ * Users have no id, so the user field is the user's name
+ */
+public final class JfrEvents_sec33_gr3 {
+
+    public static final String PREFIX = "mindtrack."; // every event name starts with this
+
+    // Just holds the event classes
+    private JfrEvents_sec33_gr3() { }
+
+    @Name("mindtrack.Report")
+    @Label("Report")
+    @Category("MindTrack")
+    @Description("Full wellness report rendered by ReportRenderer")
+    @StackTrace(false)
+    public static final class ReportEvent extends Event {
+        @Label("User")
+        public String user;
+
+        @Label("Activities")
+        public int activityCount;
+
+        @Label("Sections Rendered")
+        public int sectionsRendered;
+
+        @Label("Sections Reused")
+        @Description("Sections that came from the report cache")
+        public int sectionsReused;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytesWritten;
+
+        @Label("Parallel")
+        public boolean parallel;
+    }
+
+    @Name("mindtrack.Streak")
+    @Label("Streak")
+    @Category("MindTrack")
+    @Description("Current streak worked out for one activity type")
+    @StackTrace(false)
+    public static final class StreakEvent extends Event {
+        @Label("User")
+        public String user;
+
+        @Label("Activity Type")
+        public String activityType;
+
+        @Label("Streak")
+        public int streak;
+
+        @Label("Days Scanned")
+        public int daysScanned;
+
+        @Label("Rows Scanned")
+        @Description("Activities on the days that were looked at")
+        public int rowsScanned;
+    }
+
+    @Name("mindtrack.GoalEvaluation")
+    @Label("Goal Evaluation")
+    @Category("MindTrack")
+    @Description("Goals checked for progress and completion for the report or the dashboard")
+    @StackTrace(false)
+    public static final class GoalEvaluationEvent extends Event {
+        @Label("User")
+        public String user;
+
+        @Label("View")
+        @Description("report or dashboard")
+        public String view;
+
+        @Label("Goals")
+        public int goalCount;
+
+        @Label("Completed")
+        public int completedCount;
+    }
+
+    @Name("mindtrack.Import")
+    @Label("Import")
+    @Category("MindTrack")
+    @Description("Bulk load of an export file or a batch script")
+    @StackTrace(false)
+    public static final class ImportEvent extends Event {
+        @Label("User")
+        public String user;
+
+        @Label("Source")
+        public String source;
+
+        @Label("Records")
+        public long records;
+
+        @Label("Rejected")
+        public long rejected;
+
+        @Label("Bytes Read")
+        @DataAmount
+        public long bytesRead;
+
+        @Label("Threads")
+        public int threads;
+    }
+
+    @Name("mindtrack.Flush")
+    @Label("Persistence Flush")
+    @Category("MindTrack")
+    @Description("Bytes written out to an export file or an archive segment")
+    @StackTrace(false)
+    public static final class FlushEvent extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Kind")
+        @Description("export, export-gzip or segment")
+        public String kind;
+
+        @Label("Records")
+        @Description("Records in the flush when known, 0 for export buffers")
+        public long records;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytesWritten;
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.ValueDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * JfrSummary class - turns a Flight Recorder recording into a latency breakdown per operation
+ * Reads every MindTrack event (see JfrEvents_sec33_gr3) plus the JDK's garbage collections, groups them by
+ * operation, and lists the groups with the most total time first, so the first line is where the time went
+ * Each group shows count, total, mean, p50, p90, p99 and max, the totals of the event's number fields
+ * (rows scanned, bytes written and so on) and when the slowest one happened and for which user
+ * Usage: --jfr-summary <recording.jfr>
+ */
+public class JfrSummary_sec33_gr3 {
+
+    private static final String GC = "jdk.GarbageCollection";
+
+    // Static helper class, no instances needed
+    private JfrSummary_sec33_gr3() { }
+
+    /**
+     * One operation's events - durations in a histogram, sums of the number fields and the slowest event
+     */
+    private static final class Group {
+        final LatencyHistogram_sec33_gr3 times;
+        final Map<String, Long> totals = new LinkedHashMap<>();
+        long totalNanos;
+        long slowestNanos = -1;
+        Instant slowestAt;
+        String slowestUser;
+
+        Group(String name) {
+            times = new LatencyHistogram_sec33_gr3(name);
+        }
+    }
+
+    /**
+     * Reads a recording and appends the breakdown
+     */
+    public static StringBuilder summarize(Path recording, StringBuilder sb) throws IOException {
+        Map<String, Group> groups = new LinkedHashMap<>();
+        long events = 0;
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String type = event.getEventType().getName();
+                if (!type.startsWith(JfrEvents_sec33_gr3.PREFIX) && !type.equals(GC)) continue;
+                add(groups.computeIfAbsent(groupName(event, type), Group::new), event);
+                events++;
+            }
+        }
+        List<Group> sorted = new ArrayList<>(groups.values());
+        sorted.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+
+        String nl = System.lineSeparator();
+        sb.append("Recording: ").append(recording).append(" (").append(events).append(" events)").append(nl);
+        if (sorted.isEmpty()) {
+            return sb.append("No MindTrack events found, was it recorded with jfr/mindtrack.jfc?").append(nl);
+        }
+        sb.append(String.format("%-36s %9s %11s %10s %10s %10s %10s %10s%n", "Operation (times in ms)", "Count",
+                "Total", "Mean", "p50", "p90", "p99", "Max"));
+        for (Group g : sorted) {
+            long count = g.times.getCount();
+            sb.append(String.format("%-36s %9d %11.2f %10.3f %10.3f %10.3f %10.3f %10.3f%n", g.times.getName(), count,
+                    g.totalNanos / 1e6, g.totalNanos / 1e6 / count, g.times.getPercentileNanos(50) / 1e6,
+                    g.times.getPercentileNanos(90) / 1e6, g.times.getPercentileNanos(99) / 1e6, g.times.getMaxNanos() / 1e6));
+            if (!g.totals.isEmpty()) {
+                sb.append("    totals:");
+                for (Map.Entry<String, Long> e : g.totals.entrySet()) {
+                    sb.append(' ').append(e.getKey()).append('=').append(e.getValue());
+                }
+                sb.append(nl);
+            }
+            sb.append("    slowest: ").append(String.format("%.3f", g.slowestNanos / 1e6)).append(" ms at ").append(g.slowestAt);
+            if (g.slowestUser != null) sb.append(" for ").append(g.slowestUser);
+            sb.append(nl);
+        }
+        return sb;
+    }
+
+    /**
+     * Splits events that do different work under one name, like flushes by kind or goals by view
+     */
+    private static String groupName(RecordedEvent event, String type) {
+        String name = type.startsWith(JfrEvents_sec33_gr3.PREFIX) ? type.substring(JfrEvents_sec33_gr3.PREFIX.length()) : type;
+        for (String field : new String[] {"kind", "view", "activityType"}) {
+            if (event.hasField(field)) return name + " (" + event.getString(field) + ")";
+        }
+        if (event.hasField("source") && "batch".equals(event.getString("source"))) return name + " (batch)";
+        return name;
+    }
+
+    private static void add(Group g, RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        g.times.record(nanos);
+        g.totalNanos += nanos;
+        for (ValueDescriptor field : event.getFields()) {
+            String typeName = field.getTypeName();
+            if (!typeName.equals("int") && !typeName.equals("long")) continue;
+            String content = field.getContentType(); // times and timestamps have one, plain counts and bytes dont
+            if (content != null && !content.equals("jdk.jfr.DataAmount")) continue;
+            if (field.getName().equals("gcId")) continue; // an id, adding them up means nothing
+            g.totals.merge(field.getName(), event.getLong(field.getName()), Long::sum);
+        }
+        if (nanos > g.slowestNanos) {
+            g.slowestNanos = nanos;
+            g.slowestAt = event.getStartTime();
+            g.slowestUser = event.hasField("user") ? event.getString("user") : null;
+        }
+    }
+}
@@ -13,6 +13,11 @@ public class Journaling_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
     private int wordCount; // aproximate number of words written
     private String journalTheme; // "gratitude", "reflection", "goals", "free-writing" - what they wrote about
     private boolean feltBeneficial; // did the journaling session help them feel better
+    private static final String[] FIELDS = {"duration", "notes", "moodBefore", "moodAfter", "wordCount", "journalTheme", "feltBeneficial"}; // what getFieldNames() gives back
+
+    // Valid duration range in minutes - 5 minutes to 2 hours
+    public static final double MIN_DURATION = 5;
+    public static final double MAX_DURATION = 120;
 
     /**
      * Constructor for creating a new journaling activity
@@ -29,6 +34,33 @@ public class Journaling_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
         this.feltBeneficial = feltBeneficial;
     }
 
+    /**
+     * Checks journaling details without creating anything or throwing exceptions
+     * Duration has to be in range and both moods have to be 1-10 like the setters require
+     * Returns a code from ValidationResult_sec33_gr3
+     */
+    public static int validate(double duration, int moodBefore, int moodAfter) {
+        if (duration < MIN_DURATION || duration > MAX_DURATION) {
+            return ValidationResult_sec33_gr3.INVALID_DURATION;
+        }
+        if (moodBefore < 1 || moodBefore > 10 || moodAfter < 1 || moodAfter > 10) {
+            return ValidationResult_sec33_gr3.INVALID_MOOD;
+        }
+        return ValidationResult_sec33_gr3.OK;
+    }
+
+    /**
+     * Creates a journaling activity only if the details are valid
+     * Returns null instead of throwing when validate() fails
+     */
+    public static Journaling_sec33_gr3 tryCreate(LocalDate date, double duration, String notes, int moodBefore,
+                                                 int moodAfter, int wordCount, String journalTheme, boolean feltBeneficial) {
+        if (validate(duration, moodBefore, moodAfter) != ValidationResult_sec33_gr3.OK) {
+            return null;
+        }
+        return new Journaling_sec33_gr3(date, duration, notes, moodBefore, moodAfter, wordCount, journalTheme, feltBeneficial);
+    }
+
     // Getters and Setters section - for accessing and modifying journaling data
 
     /**
@@ -124,6 +156,42 @@ public class Journaling_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
     @Override
     public String getActivityType() { return "Journaling"; }
 
+    /**
+     * Returns TYPE_JOURNALING, the index for Journaling in per type tables
+     */
+    @Override
+    public int getActivityTypeIndex() { return TYPE_JOURNALING; }
+
+    /**
+     * Makes the same journaling session on another date, with a new ID
+     */
+    @Override
+    public Journaling_sec33_gr3 copyOn(LocalDate date) {
+        return new Journaling_sec33_gr3(date, getDuration(), getNotes(), moodBefore, moodAfter, wordCount,
+                journalTheme, feltBeneficial);
+    }
+
+    /**
+     * Gets duration, notes and the journaling fields, see WellnessActivity_sec33_gr3.getFieldNames()
+     */
+    @Override
+    public String[] getFieldNames() { return FIELDS; }
+
+    /**
+     * Gets one field by name, the base class has duration and notes
+     */
+    @Override
+    public Object getFieldValue(String field) {
+        switch (field) {
+            case "moodBefore": return moodBefore;
+            case "moodAfter": return moodAfter;
+            case "wordCount": return wordCount;
+            case "journalTheme": return journalTheme;
+            case "feltBeneficial": return feltBeneficial;
+            default: return super.getFieldValue(field);
+        }
+    }
+
     /**
      * Calculates overall journaling progress score
      * Mood improvement is the most importent factor - bigger improvement = higher score
@@ -147,7 +215,7 @@ public class Journaling_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
      */
     @Override
     public boolean isValidDuration(double duration) {
-        return duration >= 5 && duration <= 120; // 5 minutes to 2 hours
+        return duration >= MIN_DURATION && duration <= MAX_DURATION; // 5 minutes to 2 hours
     }
 
     // Trackable interface implementations - required for the tracking system
@@ -165,26 +233,15 @@ public class Journaling_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
     }
 
     /**
-     * Checks if this journaling session meets a wellness goal
-     * Currently only supports mood improvement goals
-     * Returns true if mood increased enough to meet the goal target
-     */
-    @Override
-    public boolean meetsGoal(WellnessGoal_sec33_gr3 goal) {
-        if (goal.getGoalType() == GoalType_sec33_gr3.MOOD_IMPROVEMENT) {
-            return (moodAfter - moodBefore) >= goal.getTargetValue();
-        }
-        return false; // wrong goal type or doesnt meet target
-    }
-
-    /**
-     * Creates a nice string representation of the journaling session
+     * Writes a nice string representation of the journaling session
      * Includes all the importent details like theme, mood change, word count, and benefit
-     * Used when displaying journaling activities to users in lists and reports
+     * Used by toString() and reports when displaying journaling activities to users
      */
     @Override
-    public String toString() {
-        return super.toString() + String.format(" | Theme: %s | Mood: %d→%d | Words: %d | Beneficial: %s",
-                journalTheme, moodBefore, moodAfter, wordCount, feltBeneficial ? "Yes" : "No");
+    public StringBuilder appendTo(StringBuilder sb) {
+        return super.appendTo(sb).append(" | Theme: ").append(journalTheme)
+                .append(" | Mood: ").append(moodBefore).append('→').append(moodAfter)
+                .append(" | Words: ").append(wordCount)
+                .append(" | Beneficial: ").append(feltBeneficial ? "Yes" : "No");
     }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram class - counts how long an operation takes, in nanoseconds, cheap enough to leave on all the time
+ * Works like an HDR histogram - every power of two is split into 32 buckets, so a time is off by at most 1/32 (about 3%)
+ * whether its 200ns or 20 seconds, and the whole thing is 1216 counters however many times are recorded
+ * Recording is a couple of atomic increments and no locks, so any number of threads can record at once
+ * Times over MAX_NANOS (about 73 minutes) are counted as MAX_NANOS
+ *
+ * Reading the clock twice costs more than the rest put together (30-40ns a read on some machines),
+ * so start() and stop() only time one call in sampleEvery, picked at random so a pattern in the calls
+ * cant line up with it. Every call is still counted, the percentiles come from the timed ones
+ */
+public class LatencyHistogram_sec33_gr3 implements LatencyStats_sec33_gr3 {
+
+    public static final long MAX_NANOS = (1L << 42) - 1;
+
+    private static final int SUB_BITS = 5; // 32 buckets per power of two
+    private static final int BUCKETS = bucketFor(MAX_NANOS) + 1;
+
+    private static final long NOT_TIMED = Long.MIN_VALUE; // what start() gives for a call that isnt sampled
+
+    private final String name;
+    private final int sampleMask; // sampleEvery - 1, sampleEvery is a power of two
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    private final LongAdder calls = new LongAdder(); // timed or not
+
+    /**
+     * Creates an empty histogram that times every call, Metrics_sec33_gr3.timer() makes the shared ones
+     */
+    public LatencyHistogram_sec33_gr3(String name) {
+        this(name, 1);
+    }
+
+    /**
+     * Creates an empty histogram where start() and stop() time one call in sampleEvery, rounded up to a power of two
+     */
+    public LatencyHistogram_sec33_gr3(String name, int sampleEvery) {
+        if (sampleEvery < 1 || sampleEvery > 1 << 30) {
+            throw new IllegalArgumentException("Sample rate must be between 1 and 2^30");
+        }
+        this.name = name;
+        this.sampleMask = sampleEvery == 1 ? 0 : Integer.highestOneBit(sampleEvery - 1) * 2 - 1;
+    }
+
+    /**
+     * Gets how many calls there are for every one that gets timed
+     */
+    public int getSampleEvery() { return sampleMask + 1; }
+
+    /**
+     * Starts timing a call, pass what it gives to stop() when the call is done
+     */
+    public long start() {
+        if ((ThreadLocalRandom.current().nextInt() & sampleMask) != 0) return NOT_TIMED;
+        return System.nanoTime();
+    }
+
+    /**
+     * Counts a call and records its time if start() picked it
+     */
+    public void stop(long start) {
+        if (start == NOT_TIMED) {
+            calls.increment();
+        } else {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records how long one run took
+     */
+    public void record(long nanos) {
+        calls.increment();
+        if (nanos < 0) nanos = 0; // nanoTime can step back a little on some machines
+        if (nanos > MAX_NANOS) nanos = MAX_NANOS;
+        counts.incrementAndGet(bucketFor(nanos));
+        if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max); // only a new max pays for the compare and set
+    }
+
+    /**
+     * Records the time from start (a System.nanoTime() reading) until now
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public long getCount() { return calls.sum(); }
+
+    @Override
+    public long getTimedCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Gets the time that a share of runs were faster than, percentile is 0-100
+     * Returns the top of the bucket it lands in, so its never lower than the real value, or 0 with no runs
+     */
+    public long getPercentileNanos(double percentile) {
+        return percentile(snapshot(), percentile);
+    }
+
+    /**
+     * Gets the slowest time recorded
+     */
+    public long getMaxNanos() { return max.get(); }
+
+    @Override
+    public double getMeanMicros() { return mean(snapshot()) / 1000.0; }
+
+    @Override
+    public double getP50Micros() { return getPercentileNanos(50) / 1000.0; }
+
+    @Override
+    public double getP90Micros() { return getPercentileNanos(90) / 1000.0; }
+
+    @Override
+    public double getP99Micros() { return getPercentileNanos(99) / 1000.0; }
+
+    @Override
+    public double getP999Micros() { return getPercentileNanos(99.9) / 1000.0; }
+
+    @Override
+    public double getMaxMicros() { return max.get() / 1000.0; }
+
+    /**
+     * Clears every count, runs recorded while this is going on may or may not be kept
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        max.set(0);
+        calls.reset();
+    }
+
+    /**
+     * Appends one line for the metrics table - name, count, then mean, p50, p90, p99, p99.9 and max in microseconds
+     * All percentiles come from the same snapshot so they agree with each other
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        long[] snapshot = snapshot();
+        sb.append(String.format("%-28s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f", name, calls.sum(),
+                mean(snapshot) / 1000.0, percentile(snapshot, 50) / 1000.0, percentile(snapshot, 90) / 1000.0,
+                percentile(snapshot, 99) / 1000.0, percentile(snapshot, 99.9) / 1000.0, max.get() / 1000.0));
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) snapshot[i] = counts.get(i);
+        return snapshot;
+    }
+
+    private long percentile(long[] snapshot, double percentile) {
+        long count = 0;
+        for (long c : snapshot) count += c;
+        if (count == 0) return 0;
+        long wanted = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= wanted) return Math.min(highestIn(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Gets the average from the bucket middles, close enough and it saves keeping a running total
+     */
+    private static double mean(long[] snapshot) {
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (snapshot[i] == 0) continue;
+            count += snapshot[i];
+            total += snapshot[i] * ((lowestIn(i) + highestIn(i)) / 2.0);
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Gets the bucket for a time, the first 64 buckets are one nanosecond wide and each power of two after
+     * that is split into 32 buckets twice as wide as the power before
+     */
+    static int bucketFor(long nanos) {
+        int shift = Math.max(0, 58 - Long.numberOfLeadingZeros(nanos)); // bits below the 6 we keep
+        return (shift << SUB_BITS) + (int) (nanos >>> shift);
+    }
+
+    static long lowestIn(int bucket) {
+        int shift = Math.max(0, (bucket >> SUB_BITS) - 1);
+        return (long) (bucket - (shift << SUB_BITS)) << shift;
+    }
+
+    static long highestIn(int bucket) {
+        int shift = Math.max(0, (bucket >> SUB_BITS) - 1);
+        return lowestIn(bucket) + (1L << shift) - 1;
+    }
+}
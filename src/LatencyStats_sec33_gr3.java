@@ -0,0 +1,60 @@
+import javax.management.MXBean;
+
+/**
+ * LatencyStats interface - what one timed operation shows over JMX
+ * Every time is in microseconds, LatencyHistogram_sec33_gr3 is the only implementation
+ * Shows up in jconsole or VisualVM under mindtrack/Latency with the operation's name
+ */
+@MXBean
+public interface LatencyStats_sec33_gr3 {
+
+    /**
+     * Gets the operation's name, like "User.addActivity" or "Menu.report"
+     */
+    String getName();
+
+    /**
+     * Gets how many times the operation has run
+     */
+    long getCount();
+
+    /**
+     * Gets how many of the runs were timed, the percentiles come from these
+     */
+    long getTimedCount();
+
+    /**
+     * Gets the average time
+     */
+    double getMeanMicros();
+
+    /**
+     * Gets the median time
+     */
+    double getP50Micros();
+
+    /**
+     * Gets the time 90% of runs were faster than
+     */
+    double getP90Micros();
+
+    /**
+     * Gets the time 99% of runs were faster than
+     */
+    double getP99Micros();
+
+    /**
+     * Gets the time 99.9% of runs were faster than
+     */
+    double getP999Micros();
+
+    /**
+     * Gets the slowest time
+     */
+    double getMaxMicros();
+
+    /**
+     * Starts counting again from nothing
+     */
+    void reset();
+}
@@ -0,0 +1,278 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * LoadDriver class - the capacity test, replays recorded session scripts as thousands of sessions at once
+ * A script is exactly what someone types into the menu, one answer per line, like test_big_input.txt
+ * Every session is its own Main_sec33_gr3 with the script as its input and an in-memory output,
+ * sessions take turns going through the scripts given
+ * Afterwards it prints sessions per second, the latency of every menu command and user operation
+ * (from the shared timers in Metrics_sec33_gr3) and how much of the run went to GC pauses
+ *
+ * Sessions run on a fixed pool of platform threads, one per core by default, since a session never
+ * waits on anything more threads only take turns on the same cores
+ * Every session's user lives on one shared UserShardEngine_sec33_gr3 like a server would have it, the session
+ * threads read the script and send commands, the shards (one per core by default) do the user work
+ * Usage: --load <script> [<script> ...] [--sessions <n>] [--threads <n>] [--shards <n>] [--warmup <n>]
+ */
+public class LoadDriver_sec33_gr3 {
+
+    public static final int DEFAULT_SESSIONS = 2000;
+
+    private final List<byte[]> scripts = new ArrayList<>();
+    private final int threads;
+    private final int shards;
+
+    private final LatencyHistogram_sec33_gr3 sessionTimes = new LatencyHistogram_sec33_gr3("Load.session");
+    private final LatencyHistogram_sec33_gr3 gcPauses = new LatencyHistogram_sec33_gr3("GC.pause");
+    private final AtomicLong cutShort = new AtomicLong(); // script ran out before Exit
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong outputBytes = new AtomicLong();
+    private volatile String firstFailure;
+
+    /**
+     * Creates a driver that runs sessions on the given number of threads, with one shard per core
+     */
+    public LoadDriver_sec33_gr3(int threads) {
+        this(threads, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a driver that runs sessions on the given number of threads and there users on the given number of shards
+     */
+    public LoadDriver_sec33_gr3(int threads, int shards) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1");
+        }
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shards must be at least 1");
+        }
+        this.threads = threads;
+        this.shards = shards;
+    }
+
+    /**
+     * Entry point for --load, see the class comment for the options
+     */
+    public static void main(String[] args) {
+        List<String> files = new ArrayList<>();
+        int sessions = DEFAULT_SESSIONS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int shards = Runtime.getRuntime().availableProcessors();
+        int warmup = -1;
+        for (int i = 1; i < args.length; i++) {
+            try {
+                if (args[i].equals("--sessions") && i + 1 < args.length) {
+                    sessions = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--shards") && i + 1 < args.length) {
+                    shards = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--warmup") && i + 1 < args.length) {
+                    warmup = Integer.parseInt(args[++i]);
+                } else if (args[i].startsWith("--")) {
+                    System.out.println("Unknown load option: " + args[i]);
+                    return;
+                } else {
+                    files.add(args[i]);
+                }
+            } catch (NumberFormatException ex) {
+                System.out.println("Error: " + args[i - 1] + " must be a whole number");
+                return;
+            }
+        }
+        if (files.isEmpty() || sessions < 1) {
+            System.out.println("Usage: --load <script> [<script> ...] [--sessions <n>] [--threads <n>] [--shards <n>] [--warmup <n>]");
+            return;
+        }
+        try {
+            LoadDriver_sec33_gr3 driver = new LoadDriver_sec33_gr3(threads, shards);
+            for (String file : files) driver.addScript(Files.readAllBytes(Paths.get(file)));
+            if (warmup < 0) warmup = Math.min(sessions, 500);
+            System.out.print(driver.run(sessions, warmup, new StringBuilder()));
+        } catch (IOException ex) {
+            System.out.println("Error reading script: " + ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Error: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Adds a script, the UTF-8 bytes of what a user would type
+     */
+    public void addScript(byte[] script) {
+        scripts.add(script);
+    }
+
+    /**
+     * Runs warmup sessions so the JIT has compiled the hot paths, clears every timer, then runs
+     * the measured sessions and appends the results
+     */
+    public StringBuilder run(int sessions, int warmup, StringBuilder sb) {
+        if (scripts.isEmpty()) {
+            throw new IllegalArgumentException("No scripts to replay");
+        }
+        if (warmup > 0) runSessions(warmup);
+        Metrics_sec33_gr3.resetAll();
+        sessionTimes.reset();
+        gcPauses.reset();
+        cutShort.set(0);
+        failed.set(0);
+        outputBytes.set(0);
+        firstFailure = null;
+
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        List<NotificationEmitter> emitters = listenForGc();
+        long start = System.nanoTime();
+        runSessions(sessions);
+        long wallNanos = System.nanoTime() - start;
+        stopListening(emitters);
+        long gcCount = gcCount() - gcCountBefore;
+        long gcMillis = gcMillis() - gcMillisBefore;
+
+        String nl = System.lineSeparator();
+        double seconds = wallNanos / 1e9;
+        sb.append("Replayed ").append(sessions).append(" sessions of ").append(scripts.size())
+                .append(scripts.size() == 1 ? " script" : " scripts").append(" on ").append(threads)
+                .append(threads == 1 ? " thread" : " threads").append(" and ").append(shards)
+                .append(shards == 1 ? " shard" : " shards").append(" after ").append(warmup).append(" warmup").append(nl);
+        sb.append(String.format("Wall time %.2f s, %.1f sessions/s, %.1f KB output per session%n", seconds,
+                sessions / seconds, outputBytes.get() / 1024.0 / sessions));
+        if (cutShort.get() > 0) {
+            sb.append(cutShort.get()).append(" sessions ran out of script before choosing Exit").append(nl);
+        }
+        if (failed.get() > 0) {
+            sb.append("Error: ").append(failed.get()).append(" sessions failed, first: ").append(firstFailure).append(nl);
+        }
+        sb.append(nl);
+        Metrics_sec33_gr3.appendTo(sb);
+        sessionTimes.appendTo(sb).append(nl);
+        sb.append(nl);
+        sb.append(String.format("GC: %d collections, %d ms paused, %.1f%% of wall time%n", gcCount,
+                gcMillis, gcMillis / 1000.0 / seconds * 100));
+        if (gcPauses.getCount() > 0) {
+            sb.append(String.format("GC pause p50 %.1f ms, p99 %.1f ms, max %.1f ms%n", gcPauses.getPercentileNanos(50) / 1e6,
+                    gcPauses.getPercentileNanos(99) / 1e6, gcPauses.getMaxNanos() / 1e6));
+        }
+        return sb;
+    }
+
+    /**
+     * Runs sessions on the pool and waits for all of them, session i replays script i % scripts
+     * The users go on a new engine so warmup and measured runs start from the same empty shards
+     */
+    private void runSessions(int count) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "mindtrack-load");
+            t.setDaemon(true);
+            return t;
+        });
+        UserShardEngine_sec33_gr3 engine = new UserShardEngine_sec33_gr3(shards);
+        try {
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] script = scripts.get(i % scripts.size());
+                futures.add(pool.submit(() -> runSession(script, engine)));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Load run interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdownNow();
+            engine.close();
+        }
+    }
+
+    /**
+     * Replays one script as one session
+     */
+    private void runSession(byte[] script, UserShardEngine_sec33_gr3 engine) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 << 10);
+        PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+        Main_sec33_gr3 session = new Main_sec33_gr3(new ByteArrayInputStream(script), out, StandardCharsets.UTF_8, engine);
+        long start = System.nanoTime();
+        try {
+            session.runSession();
+        } catch (NoSuchElementException ex) {
+            cutShort.incrementAndGet();
+        } catch (RuntimeException ex) {
+            if (failed.getAndIncrement() == 0) firstFailure = ex.toString();
+        }
+        sessionTimes.recordSince(start);
+        out.flush();
+        outputBytes.addAndGet(buffer.size());
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) millis += Math.max(0, gc.getCollectionTime());
+        return millis;
+    }
+
+    /**
+     * Records every GC the JVM reports into gcPauses while the measured sessions run
+     * The JVM only gives pause times to the millisecond
+     */
+    private List<NotificationEmitter> listenForGc() {
+        List<NotificationEmitter> emitters = new ArrayList<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(gcListener, null, null);
+                emitters.add((NotificationEmitter) gc);
+            }
+        }
+        return emitters;
+    }
+
+    private void stopListening(List<NotificationEmitter> emitters) {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException ex) {
+                // already gone, nothing to do
+            }
+        }
+    }
+
+    private final NotificationListener gcListener = (Notification notification, Object handback) -> {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        gcPauses.record(info.getGcInfo().getDuration() * 1_000_000L);
+    };
+}
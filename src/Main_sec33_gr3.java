@@ -1,37 +1,193 @@
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.NoSuchElementException;
 import java.util.Random;
-import java.util.Scanner;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Main class - the menu driven app, one instance is one user's session
+ * main() runs a session on System.in and System.out, LoadDriver_sec33_gr3 runs thousands of them at once
+ * over in-memory streams, so nothing about a session is static except the shared timers
+ * The session's user lives on a UserShardEngine_sec33_gr3 shard, the session thread only reads answers and
+ * sends commands, every read and change of the user happens inside one (see onUser)
+ */
 public class Main_sec33_gr3 {
-    //just one sessions
-    private static User_sec33_gr_3 currentUser;
-    private static final Scanner scanner = new Scanner(System.in);
+    private static final AtomicLong NEXT_SESSION = new AtomicLong(1); // for user ids, unique across every session
+    private final UserShardEngine_sec33_gr3 engine; // the shard the user lives on runs every command for it
+    private final boolean ownsEngine; // console sessions have there own engine, load test sessions share one
+    private String userId; // the user's id on the engine, null until there is a user
+    private String userLine; // the "User: ... | Joined: ..." menu header, neither ever changes
+    private final CharLineReader_sec33_gr3 input; // reusable line buffer, no Scanner
+    private final PrintStream out;
+    private final ReportWriter_sec33_gr3 reportOut; // reports go out one section per write
+    private final ReportCache_sec33_gr3 reportCache = new ReportCache_sec33_gr3(16 << 20); // rendered report sections, up to ~16MB
+    private static final int PICKER_PAGE = 20; // with more activities than this the pickers ask for a filter first
+    private static final int CHANGE_FEED_SLOTS = 1024; // ring size for --change-log, the writer thread can fall this far behind
+    // one timer per menu option, by option number, exit isnt timed
+    private static final LatencyHistogram_sec33_gr3[] MENU_TIMERS = {null,
+            Metrics_sec33_gr3.timer("Menu.log", 1), Metrics_sec33_gr3.timer("Menu.update", 1),
+            Metrics_sec33_gr3.timer("Menu.mood", 1), Metrics_sec33_gr3.timer("Menu.goals", 1),
+            Metrics_sec33_gr3.timer("Menu.progress", 1), Metrics_sec33_gr3.timer("Menu.report", 1),
+            Metrics_sec33_gr3.timer("Menu.remove", 1), Metrics_sec33_gr3.timer("Menu.duplicate", 1),
+            Metrics_sec33_gr3.timer("Menu.challenge", 1),
+            Metrics_sec33_gr3.timer("Menu.export", 1), Metrics_sec33_gr3.timer("Menu.metrics", 1),
+            Metrics_sec33_gr3.timer("Menu.recurring", 1), Metrics_sec33_gr3.timer("Menu.undo", 1),
+            Metrics_sec33_gr3.timer("Menu.history", 1), null};
+
+    /**
+     * Creates a session that reads answers from in and writes everything, reports too, to out
+     * charset is what out encodes text with, reports are encoded with it as well
+     */
+    public Main_sec33_gr3(InputStream in, PrintStream out, Charset charset) {
+        this(in, out, ReportWriter_sec33_gr3.forStream(out, charset), new UserShardEngine_sec33_gr3(1), true);
+    }
+
+    /**
+     * Creates a session whose user goes on a shared engine, like the load test does for thousands of sessions
+     * The engine stays open when the session ends, only the session's user is taken off it
+     */
+    public Main_sec33_gr3(InputStream in, PrintStream out, Charset charset, UserShardEngine_sec33_gr3 engine) {
+        this(in, out, ReportWriter_sec33_gr3.forStream(out, charset), engine, false);
+    }
+
+    private Main_sec33_gr3(InputStream in, PrintStream out, ReportWriter_sec33_gr3 reportOut,
+                           UserShardEngine_sec33_gr3 engine, boolean ownsEngine) {
+        this.input = new CharLineReader_sec33_gr3(in);
+        this.out = out;
+        this.reportOut = reportOut;
+        this.engine = engine;
+        this.ownsEngine = ownsEngine;
+    }
+
+    /**
+     * Gets the id the session's user has on the engine, null until runSession() has asked for a name
+     */
+    public String getUserId() { return userId; }
 
     /**
      * Main entry point - this is where the program starts running
-     * Sets up the user, shows the menu, and handles all the menu choices
+     * Runs batch and tool modes or a session on the console
      */
     public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--batch") || args[0].equals("--import"))) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--generate")) {
+            runGenerate(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--jfr-summary")) {
+            runJfrSummary(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--load")) {
+            LoadDriver_sec33_gr3.main(args);
+            return;
+        }
+        Metrics_sec33_gr3.publish(); // so jconsole can watch the session, batch runs are too short to bother
+        console().runSession();
+    }
+
+    /**
+     * Creates the session on System.in and System.out
+     */
+    private static Main_sec33_gr3 console() {
+        return new Main_sec33_gr3(System.in, System.out, ReportWriter_sec33_gr3.forStdout(), new UserShardEngine_sec33_gr3(1), true);
+    }
+
+    /**
+     * Puts a user on the engine as this session's user
+     * The user must not be touched directly after this, only through onUser()
+     */
+    private void adopt(User_sec33_gr_3 user) {
+        userId = "session-" + NEXT_SESSION.getAndIncrement();
+        engine.addUser(userId, user).join();
+        userLine = "User: " + user.getName() + " | Joined: " + user.getJoinDate();
+    }
+
+    /**
+     * Runs a command against the session's user on its shard and waits for the answer
+     * The session waits for every command and nothing else sends commands for its user, so commands
+     * can print to out and records they hand back can be passed into the next command
+     */
+    private <T> T onUser(UserCommand_sec33_gr3<T> command) {
+        return engine.execute(userId, command);
+    }
+
+    /**
+     * Takes the user off the engine, or closes the engine when the session has its own
+     */
+    private void finish() {
+        if (ownsEngine) {
+            engine.close();
+        } else if (userId != null) {
+            engine.removeUser(userId).join();
+        }
+    }
+
+    /**
+     * Runs one session - sets up the user, shows the menu, and handles all the menu choices until Exit
+     * Throws NoSuchElementException if the input runs out before Exit is picked
+     */
+    public void runSession() {
         // Initialize user once for the session.
-        System.out.println("Welcome to MindTrack!\n");
-        System.out.print("Please enter your name to begin: ");
-        String name = scanner.nextLine().trim();
+        out.println("Welcome to MindTrack!\n");
+        String name = readLine("Please enter your name to begin: ");
         if (name.isEmpty()) name = "Guest";
-        currentUser = new User_sec33_gr_3(name);
-        System.out.println("Hello, " + currentUser.getName() + "! Let's take care of your wellness.\n");
+        User_sec33_gr_3 newUser = new User_sec33_gr_3(name);
+        newUser.enableUndo(UndoJournal_sec33_gr3.DEFAULT_MAX_STEPS);
+        newUser.enableFieldHistory(Clock.systemDefaultZone());
+        adopt(newUser);
+        out.println("Hello, " + name + "! Let's take care of your wellness.\n");
+        try {
+            runMenu();
+        } finally {
+            finish();
+        }
+    }
 
+    /**
+     * Shows the menu and handles the choices until Exit
+     */
+    private void runMenu() {
         boolean running = true;
         while (running) {
             displayMainMenu();
-            int choice = readInt("Choose an option (1-10): ", 1,10);
+            int choice = readInt("Choose an option (1-15): ", 1,15);
+            long start = System.nanoTime(); // includes the time spent answering prompts, its the whole action
             switch (choice) {
                 case 1:
                     logNewActivity();
                     break; // Option 1 —
                 case 2:
-                    updateActivity();
+                    onUser(user -> {
+                        user.getUndoJournal().beginEdit("Update activity"); // every field changed is one undo
+                        return null;
+                    });
+                    try {
+                        updateActivity();
+                    } finally {
+                        onUser(user -> {
+                            user.getUndoJournal().endEdit();
+                            return null;
+                        });
+                    }
                     break;
                 case 3:
                     logMoodStress();
@@ -55,38 +211,284 @@ public class Main_sec33_gr3 {
                     weeklyChallenges();
                     break;
                 case 10:
-                    System.out.println("Thank you for using MindTrack. Stay healthy and mindful!");
+                    exportData();
+                    break;
+                case 11:
+                    viewMetrics();
+                    break;
+                case 12:
+                    recurringActivities();
+                    break;
+                case 13:
+                    undoAndCheckpoints();
+                    break;
+                case 14:
+                    changeHistory();
+                    break;
+                case 15:
+                    out.println("Thank you for using MindTrack. Stay healthy and mindful!");
                     running = false;
                     break;
                 default:
                     // wont happed
-                    System.out.println("Invalid choice. Try again.");
+                    out.println("Invalid choice. Try again.");
             }
-            System.out.println();
+            if (MENU_TIMERS[choice] != null) MENU_TIMERS[choice].recordSince(start);
+            out.println();
         }
     }
 
     /**
-     * Shows the main menu with all 8 options
+     * Batch mode - loads a command script straight into a new user without any prompts
+     * Usage: --batch <file or - for stdin> [--name <name>] [--report] [--report-file <path>] [--export <path>]
+     *    or: --import <exported file> [--report] [--report-file <path>] [--export <path>]
+     * Both also take [--archive <dir>] [--hot-days <n>] to move activities and moods older than n days (default 90)
+     * into an archive directory after loading, see HistoryArchive_sec33_gr3
+     * A directory that already has an archive is opened again and keeps what it had
+     * --batch also takes [--change-log <path>] to write a line for every change the commands make, see ChangeLog_sec33_gr3
+     * See BatchRunner_sec33_gr3 for the command format, bad lines are reported on stderr
+     */
+    private static void runBatch(String[] args) {
+        boolean importMode = args[0].equals("--import");
+        String source = null;
+        String name = "Guest";
+        boolean report = false;
+        String reportFile = null;
+        String exportFile = null;
+        String archiveDir = null;
+        String changeLogFile = null;
+        int hotDays = HistoryArchive_sec33_gr3.DEFAULT_HOT_DAYS;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--name") && i + 1 < args.length) {
+                name = args[++i];
+            } else if (args[i].equals("--report")) {
+                report = true;
+            } else if (args[i].equals("--report-file") && i + 1 < args.length) {
+                reportFile = args[++i];
+            } else if (args[i].equals("--export") && i + 1 < args.length) {
+                exportFile = args[++i];
+            } else if (args[i].equals("--archive") && i + 1 < args.length) {
+                archiveDir = args[++i];
+            } else if (args[i].equals("--change-log") && i + 1 < args.length) {
+                changeLogFile = args[++i];
+            } else if (args[i].equals("--hot-days") && i + 1 < args.length) {
+                try {
+                    hotDays = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException ex) {
+                    hotDays = 0;
+                }
+                if (hotDays < 1) {
+                    System.out.println("Error: --hot-days must be a whole number of at least 1");
+                    return;
+                }
+            } else if (source == null) {
+                source = args[i];
+            } else {
+                System.out.println("Unknown batch option: " + args[i]);
+                return;
+            }
+        }
+        if (source == null) {
+            System.out.println("Usage: --batch <file or -> [--name <name>] [--report] [--report-file <path>] [--export <path>]");
+            System.out.println("   or: --import <exported file> [--report] [--report-file <path>] [--export <path>]");
+            System.out.println("  add: [--archive <dir>] [--hot-days <n>] to archive activities and moods older than n days");
+            System.out.println("  add: [--change-log <path>] to --batch to log every change the commands make");
+            return;
+        }
+        if (importMode && changeLogFile != null) {
+            System.out.println("Error: --change-log only works with --batch, an import isnt made of changes");
+            return;
+        }
+        User_sec33_gr_3 user; // only this thread knows about it until the session takes it over
+        long start = System.nanoTime();
+        if (importMode) {
+            ParallelImporter_sec33_gr3 importer = new ParallelImporter_sec33_gr3(
+                    Runtime.getRuntime().availableProcessors(), System.err);
+            try {
+                user = importer.importFile(Paths.get(source));
+            } catch (IOException ex) {
+                System.out.println("Error reading import file: " + ex.getMessage());
+                return;
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Imported " + importer.getRecords() + " records (" + importer.getRejected()
+                    + " rejected) in " + millis + " ms");
+        } else {
+            user = new User_sec33_gr_3(name);
+            BatchRunner_sec33_gr3 runner = new BatchRunner_sec33_gr3(user, System.err);
+            Writer changeLogOut = null;
+            ChangeLog_sec33_gr3 changeLog = null;
+            if (changeLogFile != null) {
+                try {
+                    changeLogOut = Files.newBufferedWriter(Paths.get(changeLogFile), StandardCharsets.UTF_8);
+                } catch (IOException ex) {
+                    System.out.println("Error writing change log: " + ex.getMessage());
+                    return;
+                }
+                changeLog = new ChangeLog_sec33_gr3(changeLogOut);
+                UserChangeFeed_sec33_gr3 feed = new UserChangeFeed_sec33_gr3(CHANGE_FEED_SLOTS);
+                feed.subscribe("change-log", changeLog);
+                user.setChangeFeed(feed);
+            }
+            try (Reader in = source.equals("-")
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                    : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+                runner.run(in);
+            } catch (IOException ex) {
+                System.out.println("Error reading batch input: " + ex.getMessage());
+                return;
+            } finally {
+                if (changeLog != null) {
+                    user.getChangeFeed().close(); // waits until the log has seen every change
+                    user.setChangeFeed(null);
+                    try {
+                        changeLogOut.close();
+                    } catch (IOException ex) {
+                        System.out.println("Error writing change log: " + ex.getMessage());
+                    }
+                    if (changeLog.getFailure() != null) {
+                        System.out.println("Error writing change log: " + changeLog.getFailure().getMessage());
+                    } else {
+                        System.out.println("Logged " + changeLog.getWritten() + " changes to " + changeLogFile);
+                    }
+                }
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Imported " + runner.getApplied() + " commands (" + runner.getRejected()
+                    + " rejected) in " + millis + " ms");
+        }
+        if (archiveDir != null) {
+            try {
+                user.enableArchive(Paths.get(archiveDir), hotDays);
+                user.archiveOldHistory(LocalDate.now());
+                HistoryArchive_sec33_gr3 archive = user.getArchive();
+                System.out.println("Archived " + archive.getArchivedCount() + " activities and " + archive.getArchivedMoodCount()
+                        + " mood entries older than " + hotDays + " days to " + archiveDir);
+            } catch (IOException ex) {
+                System.out.println("Error writing archive: " + ex.getMessage());
+                return;
+            }
+        }
+        Main_sec33_gr3 session = console(); // batch mode has no prompts, this is just for the report and export
+        session.adopt(user);
+        try {
+            session.onUser(u -> {
+                System.out.println(u);
+                return null;
+            });
+            if (report) {
+                session.generateWellnessReports();
+            }
+            if (reportFile != null) {
+                try (ReportWriter_sec33_gr3 out = ReportWriter_sec33_gr3.forFile(Paths.get(reportFile))) {
+                    session.onUser(u -> {
+                        ReportRenderer_sec33_gr3.renderReport(u, out, session.reportCache, reportPool());
+                        return null;
+                    });
+                    System.out.println("Report written to " + reportFile + " (" + out.getBytesWritten() + " bytes)");
+                } catch (IOException ex) {
+                    System.out.println("Error writing report: " + ex.getMessage());
+                }
+            }
+            if (exportFile != null) {
+                session.exportTo(exportFile);
+            }
+        } finally {
+            session.finish();
+        }
+    }
+
+    /**
+     * Generate mode - writes made up users to export files for scale testing, see DataGenerator_sec33_gr3
+     * Usage: --generate <dir> [--users <n>] [--years <n>] [--seed <n>] [--format <.csv, .jsonl, .csv.gz or .jsonl.gz>]
+     * The files are named user-00000.csv and so on and can be loaded with --import
+     */
+    private static void runGenerate(String[] args) {
+        String directory = null;
+        int users = 1;
+        int years = 1;
+        long seed = 42;
+        String format = ".csv";
+        for (int i = 1; i < args.length; i++) {
+            try {
+                if (args[i].equals("--users") && i + 1 < args.length) {
+                    users = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--years") && i + 1 < args.length) {
+                    years = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("--format") && i + 1 < args.length) {
+                    format = args[++i];
+                } else if (directory == null) {
+                    directory = args[i];
+                } else {
+                    System.out.println("Unknown generate option: " + args[i]);
+                    return;
+                }
+            } catch (NumberFormatException ex) {
+                System.out.println("Error: " + args[i - 1] + " must be a whole number");
+                return;
+            }
+        }
+        if (directory == null || users < 1 || years < 1) {
+            System.out.println("Usage: --generate <dir> [--users <n>] [--years <n>] [--seed <n>] [--format <.csv or .jsonl, + .gz>]");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            DataGenerator_sec33_gr3 generator = new DataGenerator_sec33_gr3(seed, LocalDate.now()).setYears(years);
+            long records = generator.writeUsers(users, Paths.get(directory), format, ForkJoinPool.commonPool());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Generated " + users + " users (" + records + " records) in " + millis + " ms to " + directory);
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Error: " + ex.getMessage());
+        } catch (IOException ex) {
+            System.out.println("Error writing generated data: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * JFR summary mode - prints the per operation latency breakdown of a Flight Recorder recording
+     * Usage: --jfr-summary <recording.jfr>, record with jfr/mindtrack.jfc, see JfrSummary_sec33_gr3
+     */
+    private static void runJfrSummary(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: --jfr-summary <recording.jfr>");
+            return;
+        }
+        try {
+            System.out.print(JfrSummary_sec33_gr3.summarize(Paths.get(args[1]), new StringBuilder()));
+        } catch (IOException ex) {
+            System.out.println("Error reading recording: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Shows the main menu with all 15 options, Exit is always the last one
      * Displays user info at the top so they know who's logged in
      */
 
-    private static void displayMainMenu() {
-        System.out.println("------------------------------------------------------------");
-        System.out.println("Personal Mental Wellness Tracker System (MindTrack)");
-        System.out.println("User: " + currentUser.getName() + " | Joined: " + currentUser.getJoinDate());
-        System.out.println("------------------------------------------------------------");
-        System.out.println("1. Log New Activity");
-        System.out.println("2. Update Activity");
-        System.out.println("3. Log Mood/Stress");
-        System.out.println("4. Set/Update Wellness Goals");
-        System.out.println("5. View Wellness Progress");
-        System.out.println("6. Generate Wellness Reports");
-        System.out.println("7. Remove Activity");
-        System.out.println("8. Duplicate Recent Activity (Bonus)");
-        System.out.println("9. Weekly challenge (Bonus)");
-        System.out.println("10. Exit");
-        System.out.println("------------------------------------------------------------");
+    private void displayMainMenu() {
+        out.println("------------------------------------------------------------");
+        out.println("Personal Mental Wellness Tracker System (MindTrack)");
+        out.println(userLine);
+        out.println("------------------------------------------------------------");
+        out.println("1. Log New Activity");
+        out.println("2. Update Activity");
+        out.println("3. Log Mood/Stress");
+        out.println("4. Set/Update Wellness Goals");
+        out.println("5. View Wellness Progress");
+        out.println("6. Generate Wellness Reports");
+        out.println("7. Remove Activity");
+        out.println("8. Duplicate Recent Activity (Bonus)");
+        out.println("9. Weekly challenge (Bonus)");
+        out.println("10. Export Data");
+        out.println("11. View Metrics");
+        out.println("12. Recurring Activities");
+        out.println("13. Undo / Checkpoints");
+        out.println("14. Change History");
+        out.println("15. Exit");
+        out.println("------------------------------------------------------------");
     }
 
     /**
@@ -95,13 +497,13 @@ public class Main_sec33_gr3 {
      * Gets all the details and saves it to the user's activity list -check User_sec33_gr_3.java for how the data structure works.
      */
     // Option 1: Log New Activity — includes submenu for activity types.
-    private static void logNewActivity() {
-        System.out.println("-- Log New Activity --");
-        System.out.println("Select activity type:");
-        System.out.println("  1. Sleep");
-        System.out.println("  2. Meditation");
-        System.out.println("  3. Journaling");
-        System.out.println("  4. ScreenTime");
+    private void logNewActivity() {
+        out.println("-- Log New Activity --");
+        out.println("Select activity type:");
+        out.println("  1. Sleep");
+        out.println("  2. Meditation");
+        out.println("  3. Journaling");
+        out.println("  4. ScreenTime");
         int type = readInt("Your choice (1-4): ", 1, 4);
 
         LocalDate date = readDate("Enter date (YYYY-MM-DD), blank for today: ");
@@ -117,14 +519,13 @@ public class Main_sec33_gr3 {
                     LocalTime wake = readTime("Wake time (HH:MM), blank to skip: ", true);
                     boolean nightmares = readYesNo("Had nightmares? (y/n): ");
 
-                    Sleep_sec33_gr_3 sleep = new Sleep_sec33_gr_3(date, sleepMinutes, notes, quality, bedtime, wake, nightmares); //object
+                    Sleep_sec33_gr_3 sleep = Sleep_sec33_gr_3.tryCreate(date, sleepMinutes, notes, quality, bedtime, wake, nightmares); //object, null if invalid
 
-                    if (!sleep.isValidDuration(sleepMinutes)) {
-                        throw new InvalidActivityDurationException_sec33_gr_3("Invalid duration for Sleep: " + sleepMinutes);
+                    if (sleep == null) {
+                        out.println("Error: Invalid duration for Sleep: " + sleepMinutes);
+                        break;
                     }
-                    currentUser.addActivity(sleep); //adds to the user's list of activities
-                    System.out.println("Added: " + sleep);
-                    System.out.println(sleep.getProgress()); //shows progress of activity
+                    addActivity(sleep); //adds to the user's list of activities and shows progress of activity
                     break;
                 case 2:
                     // Meditation
@@ -134,13 +535,12 @@ public class Main_sec33_gr3 {
                     int distractions = readInt("Distraction count (0+): ", 0, Integer.MAX_VALUE);
                     boolean completed = readYesNo("Completed session? (y/n): ");
 
-                    Meditation_sec33_gr3 meditation = new Meditation_sec33_gr3(date, medMinutes, notes, medType, focus, distractions, completed);
-                    if (!meditation.isValidDuration(medMinutes)) {
-                        throw new InvalidActivityDurationException_sec33_gr_3("Invalid duration for Meditation: " + medMinutes);
+                    Meditation_sec33_gr3 meditation = Meditation_sec33_gr3.tryCreate(date, medMinutes, notes, medType, focus, distractions, completed);
+                    if (meditation == null) {
+                        out.println("Error: Invalid duration for Meditation: " + medMinutes);
+                        break;
                     }
-                    currentUser.addActivity(meditation);
-                    System.out.println("Added: " + meditation);
-                    System.out.println(meditation.getProgress());
+                    addActivity(meditation);
                     break;
                 case 3:
                     // Journaling
@@ -152,13 +552,12 @@ public class Main_sec33_gr3 {
                     String theme = readLine("Journal theme (gratitude/reflection/goals/free-writing/etc.): ");
                     boolean beneficial = readYesNo("Felt beneficial? (y/n): ");
 
-                    Journaling_sec33_gr3 journaling = new Journaling_sec33_gr3(date, jrnlMinutes, notes, moodBefore, moodAfter, words, theme, beneficial);
-                    if (!journaling.isValidDuration(jrnlMinutes)) {
-                        throw new InvalidActivityDurationException_sec33_gr_3("Invalid duration for Journaling: " + jrnlMinutes);
+                    Journaling_sec33_gr3 journaling = Journaling_sec33_gr3.tryCreate(date, jrnlMinutes, notes, moodBefore, moodAfter, words, theme, beneficial);
+                    if (journaling == null) {
+                        out.println("Error: Invalid duration for Journaling: " + jrnlMinutes);
+                        break;
                     }
-                    currentUser.addActivity(journaling);
-                    System.out.println("Added: " + journaling);
-                    System.out.println(journaling.getProgress());
+                    addActivity(journaling);
                     break;
                 case 4:
                     // ScreenTime
@@ -168,257 +567,277 @@ public class Main_sec33_gr3 {
                     int breaks = readInt("Breaks taken (0+): ", 0, Integer.MAX_VALUE);
                     boolean eyeStrain = readYesNo("Caused eye strain? (y/n): ");
 
-                    ScreenTime_sec33_gr3 screenTime = new ScreenTime_sec33_gr3(date, stMinutes, notes, device, purpose, breaks, eyeStrain);
-                    if (!screenTime.isValidDuration(stMinutes)) {
-                        throw new InvalidActivityDurationException_sec33_gr_3("Invalid duration for ScreenTime: " + stMinutes);
+                    ScreenTime_sec33_gr3 screenTime = ScreenTime_sec33_gr3.tryCreate(date, stMinutes, notes, device, purpose, breaks, eyeStrain);
+                    if (screenTime == null) {
+                        out.println("Error: Invalid duration for ScreenTime: " + stMinutes);
+                        break;
                     }
-                    currentUser.addActivity(screenTime);
-                    System.out.println("Added: " + screenTime);
-                    System.out.println(screenTime.getProgress());
+                    addActivity(screenTime);
                     break;
             }
-        } catch (InvalidActivityDurationException_sec33_gr_3 ex) {
-            System.out.println("Error: " + ex.getMessage());
         } catch (Exception ex) {
-            System.out.println("An error occurred while logging activity: " + ex.getMessage());
+            out.println("An error occurred while logging activity: " + ex.getMessage());
         }
     }
 
+    /**
+     * Adds a new activity to the user and shows it with its progress
+     */
+    private <T extends WellnessActivity_sec33_gr3 & Trackable_sec33_gr3> void addActivity(T activity) {
+        onUser(user -> {
+            user.addActivity(activity);
+            out.println("Added: " + activity);
+            out.println(activity.getProgress());
+            return null;
+        });
+    }
+
     /**
      * Option 2 - Update an existing activity
      * User picks which activity to edit, then can change specific fields
      * Uses a loop so they can update multiple fields before exiting
      * it might be a big method , but it is easy to understand
      */
-    private static void updateActivity() {
+    private void updateActivity() {
 
         try {
-            System.out.println("-- Update Activity --");
-            if (currentUser.getActivities().isEmpty()) {
-                System.out.println("No activities to update.");
+            out.println("-- Update Activity --");
+            if (onUser(user -> user.getActivities().isEmpty())) {
+                out.println("No activities to update.");
                 return;
             }
-            for (int i = 0; i < currentUser.getActivities().size(); i++) {
-                System.out.println((i + 1) + ". " + currentUser.getActivities().get(i));
-            }
-            int idx = readInt("Select activity to update: ", 1, currentUser.getActivities().size()) - 1;
-            WellnessActivity_sec33_gr3 activity = currentUser.getActivities().get(idx);
+            WellnessActivity_sec33_gr3 picked = pickActivity("Select activity to update: ", "");
+            if (picked == null) return;
+            // a day of a recurring activity is only a copy, it has to become a real activity before it can change
+            WellnessActivity_sec33_gr3 activity = onUser(user -> {
+                if (user.templateFor(picked) == null) return user.activityToEdit(picked);
+                WellnessActivity_sec33_gr3 detached = user.detachOccurrence(picked);
+                out.println("That day is part of a recurring activity, it is now a normal activity of its own.");
+                return user.activityToEdit(detached);
+            });
 
             if (activity instanceof Sleep_sec33_gr_3 sleep) {
                 boolean updating = true;
                 while (updating) {
-                    System.out.println("Which field do you want to update?");
-                    System.out.println("1. Notes");
-                    System.out.println("2. Duration");
-                    System.out.println("3. Quality");
-                    System.out.println("4. Bedtime");
-                    System.out.println("5. Wake Time");
-                    System.out.println("6. Nightmares");
-                    System.out.println("7. Exit");
+                    out.println("Which field do you want to update?");
+                    out.println("1. Notes");
+                    out.println("2. Duration");
+                    out.println("3. Quality");
+                    out.println("4. Bedtime");
+                    out.println("5. Wake Time");
+                    out.println("6. Nightmares");
+                    out.println("7. Exit");
                     int choice = readInt("Choose (1-7): ", 1, 7);
                     switch (choice) {
                         case 1:
                             String notes = readLine("New notes: ");
-                            if (!notes.isEmpty()) sleep.setNotes(notes); //sets note using setter method , and the same goes for all the cases.
+                            if (!notes.isEmpty()) { updateField(sleep, "notes", a -> a.setNotes(notes)); } //sets note using setter method , and the same goes for all the cases.
                             break;
                         case 2:
                             double dur = readHourAsMinutes("New duration in hours: ", 0, 24 * 60);
                             if (dur > 0 && sleep.isValidDuration(dur)) {
-                                try {
-                                    sleep.setDuration(dur);
-                                } catch (InvalidActivityDurationException_sec33_gr_3 e) {
-                                    System.out.println("Error updating duration: " + e.getMessage());
-                                }
+                                updateField(sleep, "duration", a -> a.trySetDuration(dur)); // valid, checked just above
                             }
                             break;
                         case 3:
                             int qual = readInt("New quality (1-10): ", 1, 10);
-                            sleep.setQuality(qual);
+                            updateField(sleep, "quality", a -> a.setQuality(qual));
                             break;
                         case 4:
                             LocalTime bt = readTime("New bedtime (HH:MM): ", true);
-                            if (bt != null) sleep.setBedtime(bt);
+                            if (bt != null) { updateField(sleep, "bedtime", a -> a.setBedtime(bt)); }
                             break;
                         case 5:
                             LocalTime wt = readTime("New wake time (HH:MM): ", true);
-                            if (wt != null) sleep.setWakeTime(wt);
+                            if (wt != null) { updateField(sleep, "wakeTime", a -> a.setWakeTime(wt)); }
                             break;
                         case 6:
                             boolean nm = readYesNo("Had nightmares? (y/n): ");
-                            sleep.setHadNightmares(nm);
+                            updateField(sleep, "hadNightmares", a -> a.setHadNightmares(nm));
                             break;
                         case 7:
                             updating = false;
                             break;
                     }
                 }
-                System.out.println("Activity updated: " + sleep);
+                onUser(user -> {
+                    out.println("Activity updated: " + sleep);
+                    return null;
+                });
             } else if (activity instanceof Meditation_sec33_gr3 meditation) {  //using interface functions makes it easier for us
                 boolean updating = true;
                 while (updating) {
-                    System.out.println("Which field do you want to update?");
-                    System.out.println("1. Notes");
-                    System.out.println("2. Duration");
-                    System.out.println("3. Type");
-                    System.out.println("4. Focus");
-                    System.out.println("5. Distractions");
-                    System.out.println("6. Completed");
-                    System.out.println("7. Exit");
+                    out.println("Which field do you want to update?");
+                    out.println("1. Notes");
+                    out.println("2. Duration");
+                    out.println("3. Type");
+                    out.println("4. Focus");
+                    out.println("5. Distractions");
+                    out.println("6. Completed");
+                    out.println("7. Exit");
                     int choice = readInt("Choose (1-7): ", 1, 7);
                     switch (choice) {
                         case 1:
                             String notes = readLine("New notes: ");
-                            if (!notes.isEmpty()) meditation.setNotes(notes);
+                            if (!notes.isEmpty()) { updateField(meditation, "notes", a -> a.setNotes(notes)); }
                             break;
                         case 2:
                             double dur = readHourAsMinutes("New duration in hours: ", 0, 3 * 60);
                             if (dur > 0 && meditation.isValidDuration(dur)) {
-                                try {
-                                    meditation.setDuration(dur);
-                                } catch (InvalidActivityDurationException_sec33_gr_3 e) {
-                                    System.out.println("Error updating duration: " + e.getMessage());
-                                }
+                                updateField(meditation, "duration", a -> a.trySetDuration(dur)); // valid, checked just above
                             }
                             break;
                         case 3:
                             String type = readLine("New meditation type: ");
-                            if (!type.isEmpty()) meditation.setMeditationType(type);
+                            if (!type.isEmpty()) { updateField(meditation, "meditationType", a -> a.setMeditationType(type)); }
                             break;
                         case 4:
                             String focus = readLine("New focus area: ");
-                            if (!focus.isEmpty()) meditation.setFocusArea(focus);
+                            if (!focus.isEmpty()) { updateField(meditation, "focusArea", a -> a.setFocusArea(focus)); }
                             break;
                         case 5:
                             int dist = readInt("New distraction count: ", 0, Integer.MAX_VALUE);
-                            meditation.setDistractionCount(dist);
+                            updateField(meditation, "distractionCount", a -> a.setDistractionCount(dist));
                             break;
                         case 6:
                             boolean comp = readYesNo("Completed session? (y/n): ");
-                            meditation.setCompletedSession(comp);
+                            updateField(meditation, "completedSession", a -> a.setCompletedSession(comp));
                             break;
                         case 7:
                             updating = false;
                             break;
                     }
                 }
-                System.out.println("Activity updated: " + meditation);
+                onUser(user -> {
+                    out.println("Activity updated: " + meditation);
+                    return null;
+                });
             } else if (activity instanceof Journaling_sec33_gr3 journaling) {
                 boolean updating = true;
                 while (updating) {
-                    System.out.println("Which field do you want to update?");
-                    System.out.println("1. Notes");
-                    System.out.println("2. Duration");
-                    System.out.println("3. Mood Before");
-                    System.out.println("4. Mood After");
-                    System.out.println("5. Word Count");
-                    System.out.println("6. Theme");
-                    System.out.println("7. Beneficial");
-                    System.out.println("8. Exit");
+                    out.println("Which field do you want to update?");
+                    out.println("1. Notes");
+                    out.println("2. Duration");
+                    out.println("3. Mood Before");
+                    out.println("4. Mood After");
+                    out.println("5. Word Count");
+                    out.println("6. Theme");
+                    out.println("7. Beneficial");
+                    out.println("8. Exit");
                     int choice = readInt("Choose (1-8): ", 1, 8);
                     switch (choice) {
                         case 1:
                             String notes = readLine("New notes: ");
-                            if (!notes.isEmpty()) journaling.setNotes(notes);
+                            if (!notes.isEmpty()) { updateField(journaling, "notes", a -> a.setNotes(notes)); }
                             break;
                         case 2:
                             double dur = readHourAsMinutes("New duration in hours: ", 0, 2 * 60);
                             if (dur > 0 && journaling.isValidDuration(dur)) {
-                                try {
-                                    journaling.setDuration(dur);
-                                } catch (InvalidActivityDurationException_sec33_gr_3 e) {
-                                    System.out.println("Error updating duration: " + e.getMessage());
-                                }
+                                updateField(journaling, "duration", a -> a.trySetDuration(dur)); // valid, checked just above
                             }
                             break;
                         case 3:
                             int mb = readInt("New mood before (1-10): ", 1, 10);
-                            journaling.setMoodBefore(mb);
+                            updateField(journaling, "moodBefore", a -> a.setMoodBefore(mb));
                             break;
                         case 4:
                             int ma = readInt("New mood after (1-10): ", 1, 10);
-                            journaling.setMoodAfter(ma);
+                            updateField(journaling, "moodAfter", a -> a.setMoodAfter(ma));
                             break;
                         case 5:
                             int wc = readInt("New word count: ", 0, Integer.MAX_VALUE);
-                            journaling.setWordCount(wc);
+                            updateField(journaling, "wordCount", a -> a.setWordCount(wc));
                             break;
                         case 6:
                             String theme = readLine("New theme: ");
-                            if (!theme.isEmpty()) journaling.setJournalTheme(theme);
+                            if (!theme.isEmpty()) { updateField(journaling, "journalTheme", a -> a.setJournalTheme(theme)); }
                             break;
                         case 7:
                             boolean ben = readYesNo("Felt beneficial? (y/n): ");
-                            journaling.setFeltBeneficial(ben);
+                            updateField(journaling, "feltBeneficial", a -> a.setFeltBeneficial(ben));
                             break;
                         case 8:
                             updating = false;
                             break;
                     }
                 }
-                System.out.println("Activity updated: " + journaling);
+                onUser(user -> {
+                    out.println("Activity updated: " + journaling);
+                    return null;
+                });
             } else if (activity instanceof ScreenTime_sec33_gr3 screenTime) {
                 boolean updating = true;
                 while (updating) {
-                    System.out.println("Which field do you want to update?");
-                    System.out.println("1. Notes");
-                    System.out.println("2. Duration");
-                    System.out.println("3. Device");
-                    System.out.println("4. Purpose");
-                    System.out.println("5. Breaks");
-                    System.out.println("6. Eye Strain");
-                    System.out.println("7. Exit");
+                    out.println("Which field do you want to update?");
+                    out.println("1. Notes");
+                    out.println("2. Duration");
+                    out.println("3. Device");
+                    out.println("4. Purpose");
+                    out.println("5. Breaks");
+                    out.println("6. Eye Strain");
+                    out.println("7. Exit");
                     int choice = readInt("Choose (1-7): ", 1, 7);
                     switch (choice) {
                         case 1:
                             String notes = readLine("New notes: ");
-                            if (!notes.isEmpty()) screenTime.setNotes(notes);
+                            if (!notes.isEmpty()) { updateField(screenTime, "notes", a -> a.setNotes(notes)); }
                             break;
                         case 2:
                             double dur = readHourAsMinutes("New duration in hours: ", 0, 24 * 60);
                             if (dur > 0 && screenTime.isValidDuration(dur)) {
-                                try {
-                                    screenTime.setDuration(dur);
-                                } catch (InvalidActivityDurationException_sec33_gr_3 e) {
-                                    System.out.println("Error updating duration: " + e.getMessage());
-                                }
+                                updateField(screenTime, "duration", a -> a.trySetDuration(dur)); // valid, checked just above
                             }
                             break;
                         case 3:
                             String device = readLine("New device type: ");
-                            if (!device.isEmpty()) screenTime.setDeviceType(device);
+                            if (!device.isEmpty()) { updateField(screenTime, "deviceType", a -> a.setDeviceType(device)); }
                             break;
                         case 4:
                             String purpose = readLine("New purpose: ");
-                            if (!purpose.isEmpty()) screenTime.setPurpose(purpose);
+                            if (!purpose.isEmpty()) { updateField(screenTime, "purpose", a -> a.setPurpose(purpose)); }
                             break;
                         case 5:
                             int breaks = readInt("New breaks taken: ", 0, Integer.MAX_VALUE);
-                            screenTime.setBreaksTaken(breaks);
+                            updateField(screenTime, "breaksTaken", a -> a.setBreaksTaken(breaks));
                             break;
                         case 6:
                             boolean es = readYesNo("Caused eye strain? (y/n): ");
-                            screenTime.setCausedEyeStrain(es);
+                            updateField(screenTime, "causedEyeStrain", a -> a.setCausedEyeStrain(es));
                             break;
                         case 7:
                             updating = false;
                             break;
                     }
                 }
-                System.out.println("Activity updated: " + screenTime);
+                onUser(user -> {
+                    out.println("Activity updated: " + screenTime);
+                    return null;
+                });
             }
         }catch (Exception ex) {
-            System.out.println("An error occurred while updating activity: " + ex.getMessage());
+            out.println("An error occurred while updating activity: " + ex.getMessage());
         }
     }
 
+    /**
+     * Changes one field of an activity, change does it and field names it for the undo and change history
+     */
+    private <T extends WellnessActivity_sec33_gr3> void updateField(T activity, String field, Consumer<T> change) {
+        onUser(user -> {
+            change.accept(activity);
+            user.activityUpdated(activity, field);
+            return null;
+        });
+    }
+
     /**
      * Option 3 - Log daily mood and stress levels
      * Simple form to capture how the user is feeling today
      * Also lets them add tags and notes about their mood
      */
 
-    private static void logMoodStress() {
-        System.out.println("-- Log Mood/Stress --");
+    private void logMoodStress() {
+        out.println("-- Log Mood/Stress --");
         LocalDate date = readDate("Enter date (YYYY-MM-DD), blank for today: ");
         int mood = readInt("Mood level (1-10): ", 1, 10);
         int stress = readInt("Stress level (1-10): ", 1, 10);
@@ -427,10 +846,13 @@ public class Main_sec33_gr3 {
         String notes = readLine("Notes (optional): ");
         try {
             MoodStressEntry_sec33_gr3 entry = new MoodStressEntry_sec33_gr3(date, mood, stress, tags, triggers, notes);
-            currentUser.addMoodStressEntry(entry);
-            System.out.println("Saved: " + entry);
+            onUser(user -> {
+                user.addMoodStressEntry(entry);
+                out.println("Saved: " + entry);
+                return null;
+            });
         } catch (IllegalArgumentException ex) {
-            System.out.println("Error: " + ex.getMessage());
+            out.println("Error: " + ex.getMessage());
         }
     }
 
@@ -441,10 +863,10 @@ public class Main_sec33_gr3 {
 
      */
 
-    private static void setUpdateWellnessGoals() {
-        System.out.println("-- Set/Update Wellness Goals --");
-        System.out.println("1. Add new goal");
-        System.out.println("2. Update existing goal (target value/description)");
+    private void setUpdateWellnessGoals() {
+        out.println("-- Set/Update Wellness Goals --");
+        out.println("1. Add new goal");
+        out.println("2. Update existing goal (target value/description)");
         int choice = readInt("Your choice (1-2): ", 1, 2);
         if (choice == 1) {
             addGoalFlow();
@@ -458,12 +880,12 @@ public class Main_sec33_gr3 {
      * Shows list of available goal types and gets all the details
      * Validates input and saves the new goal to user's goal list
      */
-    private static void addGoalFlow() {
+    private void addGoalFlow() {
 
-        System.out.println("Available goal types:");
-        String[] types = GoalType_sec33_gr3.ALL_GOAL_TYPES;  // using goaltype array from GoalType_sec33_gr3.java
+        out.println("Available goal types:");
+        String[] types = GoalType_sec33_gr3.getAllGoalTypes();  // every registered goal type from GoalType_sec33_gr3.java
         for (int i = 0; i < types.length; i++) {
-            System.out.println("  " + (i + 1) + ". " + types[i]); //shows goaltypes in order
+            out.println("  " + (i + 1) + ". " + types[i]); //shows goaltypes in order
         }
         int idx = readInt("Select goal type: ", 1, types.length) - 1;
         String goalType = types[idx];
@@ -473,10 +895,13 @@ public class Main_sec33_gr3 {
         String desc = readLine("Short description: ");
         try {
             WellnessGoal_sec33_gr3 goal = new WellnessGoal_sec33_gr3(goalType, target, start, end, desc);
-            currentUser.addGoal(goal);
-            System.out.println("Added: " + goal);
+            onUser(user -> {
+                user.addGoal(goal);
+                out.println("Added: " + goal);
+                return null;
+            });
         } catch (IllegalArgumentException ex) {
-            System.out.println("Error: " + ex.getMessage());
+            out.println("Error: " + ex.getMessage());
         }
     }
 
@@ -485,61 +910,70 @@ public class Main_sec33_gr3 {
      * User picks a goal and can change the target value or description
      * Usefull when circumstances change or they want to adjust targets
      */
-    private static void updateGoalFlow() {
-        if (currentUser.getWellnessGoals().isEmpty()) {
-            System.out.println("No goals yet. Add one first.");
+    private void updateGoalFlow() {
+        int count = listGoals("Your goals:");
+        if (count == 0) {
+            out.println("No goals yet. Add one first.");
             return;
         }
-        System.out.println("Your goals:");
-        for (int i = 0; i < currentUser.getWellnessGoals().size(); i++) {
-            WellnessGoal_sec33_gr3 g = currentUser.getWellnessGoals().get(i);
-            System.out.println("  " + (i + 1) + ". " + g);
-        }
-        int idx = readInt("Select a goal to update: ", 1, currentUser.getWellnessGoals().size()) - 1;
-        WellnessGoal_sec33_gr3 goal = currentUser.getWellnessGoals().get(idx);
-        System.out.println("1. Update target value");
-        System.out.println("2. Update description");
+        int idx = readInt("Select a goal to update: ", 1, count) - 1;
+        WellnessGoal_sec33_gr3 goal = onUser(user -> user.goalToEdit(user.getWellnessGoals().get(idx)));
+        out.println("1. Update target value");
+        out.println("2. Update description");
         int what = readInt("Choose (1-2): ", 1, 2);
         try {
             if (what == 1) {
                 double newTarget = readDouble("New target (>0): ", 0.000001, Double.MAX_VALUE);
-                goal.setTargetValue(newTarget);
+                updateGoal(goal, "targetValue", g -> g.setTargetValue(newTarget));
             } else {
                 String newDesc = readLine("New description: ");
-                goal.setDescription(newDesc);
+                updateGoal(goal, "description", g -> g.setDescription(newDesc));
             }
-            System.out.println("Updated: " + goal);
+            onUser(user -> {
+                out.println("Updated: " + goal);
+                return null;
+            });
         } catch (IllegalArgumentException ex) {
-            System.out.println("Error: " + ex.getMessage());
+            out.println("Error: " + ex.getMessage());
         }
     }
 
+    /**
+     * Lists the user's goals numbered from 1 under a heading and returns how many there are
+     * Shows nothing at all when there arent any
+     */
+    private int listGoals(String heading) {
+        return onUser(user -> {
+            java.util.List<WellnessGoal_sec33_gr3> goals = user.getWellnessGoals();
+            if (!goals.isEmpty() && heading != null) out.println(heading);
+            for (int i = 0; i < goals.size(); i++) {
+                out.println("  " + (i + 1) + ". " + goals.get(i));
+            }
+            return goals.size();
+        });
+    }
+
+    /**
+     * Changes one field of a goal, change does it and field names it for the undo and change history
+     */
+    private void updateGoal(WellnessGoal_sec33_gr3 goal, String field, Consumer<WellnessGoal_sec33_gr3> change) {
+        onUser(user -> {
+            change.accept(goal);
+            user.goalUpdated(goal, field);
+            return null;
+        });
+    }
+
     /**
      * Option 5 - View current wellness progress
      * Shows recent activities, mood entries, and goal progress
      * Like a dashboard summarry of the user's wellness journey
      */
-    private static void viewWellnessProgress() {
-        System.out.println("-- Wellness Progress --");
-        System.out.println(currentUser);
-        System.out.println("Recent activities:");
-        for (WellnessActivity_sec33_gr3 a : currentUser.getRecentActivities(5)) {
-            System.out.println("  - " + a);
-        }
-        System.out.println("Mood/Stress entries (latest 5):");
-        int shown = 0;
-        for (int i = currentUser.getMoodStressEntries().size() - 1; i >= 0 && shown < 5; i--) {
-            System.out.println("  - " + currentUser.getMoodStressEntries().get(i));
-            shown++;
-        }
-        if (currentUser.getWellnessGoals().isEmpty()) {
-            System.out.println("No goals set yet.");
-        } else {
-            System.out.println("Goals:");
-            for (WellnessGoal_sec33_gr3 g : currentUser.getWellnessGoals()) {
-                System.out.println("  - " + g);
-            }
-        }
+    private void viewWellnessProgress() {
+        onUser(user -> {
+            ReportRenderer_sec33_gr3.renderDashboard(user, reportOut);
+            return null;
+        });
     }
 
     /**
@@ -547,107 +981,273 @@ public class Main_sec33_gr3 {
      * Groups activities by type (sleep, meditation, etc) and shows everything
      * Great for seeing patterns and tracking long-term progress
      * good use of toString in each classes
+     * Written by ReportRenderer one section at a time instead of a println per line
+     * Sections that didnt change since the last report come from the report cache,
+     * big ones that did are rendered in parallel when there is more than one core
      */
 
-    private static void generateWellnessReports() {
+    private void generateWellnessReports() {
+        onUser(user -> {
+            ReportRenderer_sec33_gr3.renderReport(user, reportOut, reportCache, reportPool());
+            return null;
+        });
+    }
 
+    /**
+     * Gets the pool big reports are rendered on, or null on a single core machine
+     * where running the sections one after another is faster
+     */
+    private static ForkJoinPool reportPool() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : null;
+    }
 
-        System.out.println("-- Generate Wellness Reports --");
+    /**
+     * Option 11 - Shows how long every user operation and menu action has taken so far
+     * The same numbers are on JMX under mindtrack/Latency while the app is running
+     */
+    private void viewMetrics() {
+        out.println("-- Metrics --");
+        out.print(Metrics_sec33_gr3.appendTo(new StringBuilder()));
+    }
 
-        if (currentUser.getActivities().isEmpty()) {
-            System.out.println("No activities logged yet.");
+    /**
+     * Option 12 - Routines that repeat on there own, like a guided meditation every morning
+     * A recurring activity is stored once, see RecurringTemplate_sec33_gr3, a day of it that went
+     * differently can be turned into a normal activity and changed with Update Activity
+     */
+    private void recurringActivities() {
+        out.println("-- Recurring Activities --");
+        int count = onUser(user -> {
+            java.util.List<RecurringTemplate_sec33_gr3> templates = user.getTemplates();
+            if (templates.isEmpty()) {
+                out.println("No recurring activities yet.");
+            }
+            for (int i = 0; i < templates.size(); i++) {
+                out.println("  " + (i + 1) + ". " + templates.get(i));
+            }
+            return templates.size();
+        });
+        out.println("1. Repeat an activity");
+        out.println("2. Skip a day");
+        out.println("3. Turn a day into a normal activity");
+        out.println("4. Stop repeating");
+        out.println("5. Back");
+        int choice = readInt("Choose (1-5): ", 1, 5);
+        if (choice == 5) return;
+        if (choice == 1) {
+            if (onUser(user -> user.getActivities().isEmpty())) {
+                out.println("No activities logged yet, log the first one then repeat it.");
+                return;
+            }
+            WellnessActivity_sec33_gr3 selected = pickActivity("Select an activity to repeat: ", "  ");
+            if (selected == null) return;
+            int every = readInt("Repeat every how many days (1 = daily): ", 1, 365);
+            LocalDate first = readDate("First day (YYYY-MM-DD), blank for today: ");
+            LocalDate last = readOptionalDate("Last day (YYYY-MM-DD), blank for no end: ");
+            try {
+                onUser(user -> {
+                    RecurringTemplate_sec33_gr3 template = new RecurringTemplate_sec33_gr3(selected.copyOn(first), every, last);
+                    user.addTemplate(template);
+                    out.println("Added: " + template);
+                    return null;
+                });
+            } catch (IllegalArgumentException ex) {
+                out.println("Error: " + ex.getMessage());
+            }
             return;
         }
-
-        System.out.println("=== ACTIVITY SUMMARIES ===\n");
-
-        // Sleep Summary
-        System.out.println("--- SLEEP ACTIVITIES ---");
-        boolean hasSleep = false;
-        for (WellnessActivity_sec33_gr3 activity : currentUser.getActivities()) {
-            if (activity instanceof Sleep_sec33_gr_3) {
-                System.out.println("• " + activity.toString());
-                hasSleep = true;
+        if (count == 0) return;
+        int which = readInt("Which recurring activity (1-" + count + "): ", 1, count) - 1;
+        LocalDate day = readDate(choice == 4 ? "Last day (YYYY-MM-DD), blank for today: " : "Day (YYYY-MM-DD), blank for today: ");
+        if (choice == 4) {
+            try {
+                onUser(user -> {
+                    user.stopTemplate(user.getTemplates().get(which), day);
+                    out.println("Stopped: " + user.getTemplates().get(which));
+                    return null;
+                });
+            } catch (IllegalArgumentException ex) {
+                out.println("Error: " + ex.getMessage());
             }
+            return;
         }
-        if (!hasSleep) System.out.println("No sleep activities logged.");
-        System.out.println();
-
-        // Meditation Summary
-        System.out.println("--- MEDITATION ACTIVITIES ---");
-        boolean hasMeditation = false;
-        for (WellnessActivity_sec33_gr3 activity : currentUser.getActivities()) {
-            if (activity instanceof Meditation_sec33_gr3) {
-                System.out.println("• " + activity.toString());
-                hasMeditation = true;
+        onUser(user -> {
+            RecurringTemplate_sec33_gr3 template = user.getTemplates().get(which);
+            if (!template.occursOn(day, LocalDate.now())) {
+                out.println("Error: It doesnt happen on " + day);
+                return null;
             }
-        }
-        if (!hasMeditation) System.out.println("No meditation activities logged.");
-        System.out.println();
-
-        // Journaling Summary
-        System.out.println("--- JOURNALING ACTIVITIES ---");
-        boolean hasJournaling = false;
-        for (WellnessActivity_sec33_gr3 activity : currentUser.getActivities()) {
-            if (activity instanceof Journaling_sec33_gr3) {
-                System.out.println("• " + activity.toString());
-                hasJournaling = true;
+            WellnessActivity_sec33_gr3 occurrence = template.materialize(day);
+            if (choice == 2) {
+                user.skipOccurrence(occurrence);
+                out.println("Skipped " + day + ".");
+            } else {
+                out.println("Now a normal activity: " + user.detachOccurrence(occurrence));
             }
+            return null;
+        });
+    }
+
+    /**
+     * Option 13 - Take back the last changes, or save how everything is now and come back to it later
+     * Every change made from the menu can be undone, see UndoJournal_sec33_gr3
+     */
+    private void undoAndCheckpoints() {
+        out.println("-- Undo / Checkpoints --");
+        onUser(user -> {
+            String undoLabel = user.getUndoJournal().getUndoLabel();
+            String redoLabel = user.getUndoJournal().getRedoLabel();
+            out.println("1. Undo" + (undoLabel != null ? " (" + undoLabel + ")" : " - nothing to undo"));
+            out.println("2. Redo" + (redoLabel != null ? " (" + redoLabel + ")" : " - nothing to redo"));
+            return null;
+        });
+        out.println("3. Save a checkpoint");
+        out.println("4. Go back to a checkpoint");
+        out.println("5. Back");
+        int choice = readInt("Choose (1-5): ", 1, 5);
+        switch (choice) {
+            case 1:
+                String undone = onUser(user -> user.getUndoJournal().undo());
+                out.println(undone != null ? "Undone: " + undone : "Nothing to undo.");
+                break;
+            case 2:
+                String redone = onUser(user -> user.getUndoJournal().redo());
+                out.println(redone != null ? "Redone: " + redone : "Nothing to redo.");
+                break;
+            case 3:
+                String name = readLine("Checkpoint name: ");
+                try {
+                    onUser(user -> {
+                        user.getUndoJournal().checkpoint(name);
+                        return null;
+                    });
+                    out.println("Saved checkpoint: " + name.trim());
+                } catch (IllegalArgumentException ex) {
+                    out.println("Error: " + ex.getMessage());
+                }
+                break;
+            case 4:
+                java.util.List<String> names = onUser(user -> {
+                    UndoJournal_sec33_gr3 journal = user.getUndoJournal();
+                    java.util.List<String> saved = journal.getCheckpointNames();
+                    for (int i = 0; i < saved.size(); i++) {
+                        UndoJournal_sec33_gr3.State state = journal.getCheckpoint(saved.get(i));
+                        out.println("  " + (i + 1) + ". " + saved.get(i) + " (" + state.getActivities().size() + " activities, "
+                                + state.getMoodStressEntries().size() + " mood entries, " + state.getWellnessGoals().size() + " goals)");
+                    }
+                    return saved;
+                });
+                if (names.isEmpty()) {
+                    out.println("No checkpoints yet.");
+                    break;
+                }
+                String picked = names.get(readInt("Which checkpoint (1-" + names.size() + "): ", 1, names.size()) - 1);
+                onUser(user -> {
+                    user.getUndoJournal().restore(picked);
+                    return null;
+                });
+                out.println("Back to checkpoint " + picked + ", undo goes back to before.");
+                break;
+            default:
+                break;
         }
-        if (!hasJournaling) System.out.println("No journaling activities logged.");
-        System.out.println();
+    }
 
-        // Screen Time Summary
-        System.out.println("--- SCREEN TIME ACTIVITIES ---");
-        boolean hasScreenTime = false;
-        for (WellnessActivity_sec33_gr3 activity : currentUser.getActivities()) {
-            if (activity instanceof ScreenTime_sec33_gr3) {
-                System.out.println("• " + activity.toString());
-                hasScreenTime = true;
+    /**
+     * Option 14 - See a goal the way it was on an earlier date, or every change made to an activity
+     * Old values are kept by FieldHistory_sec33_gr3, so a corrected duration still shows what it was before
+     */
+    private void changeHistory() {
+        out.println("-- Change History --");
+        out.println("1. A goal on an earlier date");
+        out.println("2. Every change to an activity");
+        out.println("3. Back");
+        int choice = readInt("Choose (1-3): ", 1, 3);
+        if (choice == 1) {
+            int count = listGoals(null);
+            if (count == 0) {
+                out.println("No goals yet. Add one first.");
+                return;
             }
+            int idx = readInt("Select a goal: ", 1, count) - 1;
+            LocalDate date = readDate("Date (YYYY-MM-DD), blank for today: ");
+            FieldHistory_sec33_gr3.Version version = onUser( // versions never change, so its fine to read it here
+                    user -> user.getFieldHistory().goalAsOf(user.getWellnessGoals().get(idx).getGoalId(), date));
+            if (version == null) {
+                out.println("That goal wasn't added yet on " + date + ".");
+                return;
+            }
+            StringBuilder sb = new StringBuilder("On ").append(date).append(": target ");
+            TextFormat_sec33_gr3.appendFixed1(sb, (Double) version.getValue("targetValue")).append(", progress ");
+            TextFormat_sec33_gr3.appendFixed1(sb, (Double) version.getValue("currentProgress")).append(" | ");
+            String description = (String) version.getValue("description");
+            out.println(sb.append(description.isEmpty() ? "No description" : description));
+        } else if (choice == 2) {
+            if (onUser(user -> user.getActivities().isEmpty())) {
+                out.println("No activities logged yet.");
+                return;
+            }
+            WellnessActivity_sec33_gr3 activity = pickActivity("Select an activity: ", "  ");
+            if (activity == null) return;
+            onUser(user -> {
+                for (FieldHistory_sec33_gr3.Version version : user.getFieldHistory().activityVersions(activity.getActivityId())) {
+                    out.println("  " + version);
+                }
+                return null;
+            });
         }
-        if (!hasScreenTime) System.out.println("No screen time activities logged.");
-        System.out.println();
+    }
 
-        // Mood/Stress entries
-        if (!currentUser.getMoodStressEntries().isEmpty()) {
-            System.out.println("--- MOOD/STRESS ENTRIES ---");
-            for (MoodStressEntry_sec33_gr3 entry : currentUser.getMoodStressEntries()) {
-                System.out.println("• " + entry.toString());
-            }
-            System.out.println();
+    /**
+     * Option 10 - Export all the user's data to a file
+     * CSV or JSON Lines depending on the file name, add .gz to compress it
+     * The file can be loaded again with --import
+     */
+    private void exportData() {
+        out.println("-- Export Data --");
+        String file = readLine("Enter file name (.csv or .jsonl, add .gz to compress): ");
+        if (RecordCodec_sec33_gr3.formatFor(file) == 0) {
+            out.println("Error: File name must end in .csv or .jsonl (optionally with .gz)");
+            return;
         }
+        exportTo(file);
+    }
 
-        // Wellness goals
-        if (!currentUser.getWellnessGoals().isEmpty()) {
-            System.out.println("--- WELLNESS GOALS ---");
-            for (WellnessGoal_sec33_gr3 goal : currentUser.getWellnessGoals()) {
-                System.out.println("• " + goal.toString());
+    /**
+     * Writes the current user to a file and says how it went
+     * Shared by the menu option and batch mode
+     */
+    private void exportTo(String file) {
+        onUser(user -> {
+            long start = System.nanoTime();
+            try {
+                long records = DataExporter_sec33_gr3.export(user, Paths.get(file));
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                out.println("Exported " + records + " records to " + file + " in " + millis + " ms");
+            } catch (IOException | IllegalArgumentException ex) {
+                out.println("Error: " + ex.getMessage());
             }
-        }
+            return null;
+        });
     }
 
     /**
      remove activity option , chack user to understand
      *EXRTA FEATURE
     */
-    private static void removeActivity() {
+    private void removeActivity() {
 
-        System.out.println("-- Remove Activity --");
-        if (currentUser.getActivities().isEmpty()) {
-            System.out.println("No activities logged yet.");
+        out.println("-- Remove Activity --");
+        if (onUser(user -> user.getActivities().isEmpty())) {
+            out.println("No activities logged yet.");
             return;
         }
-        System.out.println("Your activities:");
-        for (int i = 0; i < currentUser.getActivities().size(); i++) {
-            WellnessActivity_sec33_gr3 a = currentUser.getActivities().get(i);
-            System.out.println("  " + (i + 1) + ". " + a);
-        }
-
-        int idx = readInt("Select an activity to remove: ", 1, currentUser.getActivities().size()) - 1;
+        out.println("Your activities:");
+        WellnessActivity_sec33_gr3 activity = pickActivity("Select an activity to remove: ", "  ");
+        if (activity == null) return;
 
-        currentUser.removeActivity(idx);
-        System.out.println("Removed activity.");
+        onUser(user -> user.removeActivity(activity));
+        out.println("Removed activity.");
 
 
 
@@ -663,49 +1263,37 @@ public class Main_sec33_gr3 {
     /*
     *Checks if there is any activities that are done first then gives u option to clone the recent 5 activities
      */
-    private static void duplicateRecentActivity() {
-        if (currentUser.getActivities().isEmpty()) {
-            System.out.println(" No activities to duplicate.");
+    private void duplicateRecentActivity() {
+        int shown = onUser(user -> {
+            java.util.List<WellnessActivity_sec33_gr3> activities = user.getActivities();
+            if (activities.isEmpty()) return 0;
+
+            // Show last 5 activities (or fewer if less than 5)
+            int total = activities.size();
+            int start = Math.max(0, total - 5);
+
+            out.println("-- Recent Activities --");
+            for (int i = start; i < total; i++) {
+                out.println((i - start + 1) + ". " + activities.get(i));
+            }
+            return total - start;
+        });
+        if (shown == 0) {
+            out.println(" No activities to duplicate.");
             return;
         }
 
-        // Show last 5 activities (or fewer if less than 5)
-        int total = currentUser.getActivities().size();
-        int start = Math.max(0, total - 5);
-
-        System.out.println("-- Recent Activities --");
-        for (int i = start; i < total; i++) {
-            System.out.println((i - start + 1) + ". " + currentUser.getActivities().get(i));
-        }
-
-        int choice = readInt("Pick an activity to duplicate (1-" + (total - start) + "): ", 1, total - start);
-        WellnessActivity_sec33_gr3 selected = currentUser.getActivities().get(start + choice - 1);
-
-        // Now clone the selected activity using instanceof
-        WellnessActivity_sec33_gr3 copy = null;
-        if (selected instanceof Sleep_sec33_gr_3 sleep) {
-            copy = new Sleep_sec33_gr_3(sleep.getDate(), sleep.getDuration(), sleep.getNotes(),
-                    sleep.getQuality(), sleep.getBedtime(), sleep.getWakeTime(), sleep.hadNightmares());
-        }
-        else if (selected instanceof Meditation_sec33_gr3 med) {
-            copy = new Meditation_sec33_gr3(med.getDate(), med.getDuration(), med.getNotes(),
-                    med.getMeditationType(), med.getFocusArea(), med.getDistractionCount(), med.isCompletedSession());
-        }
-        else if (selected instanceof Journaling_sec33_gr3 jrnl) {
-            copy = new Journaling_sec33_gr3(jrnl.getDate(), jrnl.getDuration(), jrnl.getNotes(),
-                    jrnl.getMoodBefore(), jrnl.getMoodAfter(), jrnl.getWordCount(), jrnl.getJournalTheme(), jrnl.feltBeneficial());
-        }
-        else if (selected instanceof ScreenTime_sec33_gr3 st) {
-            copy = new ScreenTime_sec33_gr3(st.getDate(), st.getDuration(), st.getNotes(),
-                    st.getDeviceType(), st.getPurpose(), st.getBreaksTaken(), st.causedEyeStrain());
-        }
-
-        if (copy != null) {
-            currentUser.addActivity(copy);
-            System.out.println("Duplicated activity: " + copy);
-        } else {
-            System.out.println(" Error duplicating activity.");
-        }
+        int choice = readInt("Pick an activity to duplicate (1-" + shown + "): ", 1, shown);
+        onUser(user -> {
+            java.util.List<WellnessActivity_sec33_gr3> activities = user.getActivities();
+            WellnessActivity_sec33_gr3 selected = activities.get(activities.size() - shown + choice - 1);
+
+            // every activity type knows how to copy itself
+            WellnessActivity_sec33_gr3 copy = selected.copyOn(selected.getDate());
+            user.addActivity(copy);
+            out.println("Duplicated activity: " + copy);
+            return null;
+        });
     }
 
 
@@ -714,8 +1302,8 @@ public class Main_sec33_gr3 {
     *this method will generate random challenges for the user to do throughout the weekend
     *bonus task
      */
-    private static void weeklyChallenges() {
-        System.out.println(" Weekly Challenges ");
+    private void weeklyChallenges() {
+        out.println(" Weekly Challenges ");
 
 //this array contains the possible challenges that might happen
 
@@ -734,12 +1322,12 @@ public class Main_sec33_gr3 {
 
 // we use this to display the challenge
 
-        System.out.println(" Your challenge for this week is: ");
-        System.out.println(challenges);
+        out.println(" Your challenge for this week is: ");
+        out.println(challenges);
 
         boolean completed = readYesNo("Did you complete this weeks challenge? (y/n):");
 
-        System.out.println(completed ? "Congrats on finishing this week's challenge" :
+        out.println(completed ? "Congrats on finishing this week's challenge" :
                 "No worries theres another challenge this week");
 
 
@@ -750,22 +1338,35 @@ public class Main_sec33_gr3 {
     // Input helper methods
     // =====================
 
+    /**
+     * Reads the next line into the input buffer and trims it
+     * Throws NoSuchElementException when the input runs out, same as Scanner.nextLine() did
+     */
+    private void nextTrimmedLine() {
+        try {
+            if (!input.nextLine()) {
+                throw new NoSuchElementException("No line found");
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        input.trim();
+    }
+
     /**
      * Reads an integer from user with validation
      * Keeps asking until they enter a valid number in the range
      * Used for menu choices, ratings, counts, etc.
      */
-    private static int readInt(String prompt, int min, int max) {
+    private int readInt(String prompt, int min, int max) {
         while (true) {
-            System.out.print(prompt);
-            String line = scanner.nextLine().trim();
-            try {
-                int v = Integer.parseInt(line);
-                if (v < min || v > max) throw new NumberFormatException();
-                return v;
-            } catch (NumberFormatException ex) {
-                System.out.println("Please enter a valid number between " + min + " and " + max + ".");
+            out.print(prompt);
+            nextTrimmedLine();
+            long v = CharParse_sec33_gr3.parseInt(input.buffer(), input.start(), input.end());
+            if (v != CharParse_sec33_gr3.INVALID_INT && v >= min && v <= max) {
+                return (int) v;
             }
+            out.println("Please enter a valid number between " + min + " and " + max + ".");
         }
     }
 
@@ -774,18 +1375,83 @@ public class Main_sec33_gr3 {
      * Similar to readInt but for things like target values that can be decimal
      * Handles special case where max could be infinity
      */
-    private static double readDouble(String prompt, double min, double max) {
+    private double readDouble(String prompt, double min, double max) {
         while (true) {
-            System.out.print(prompt);
-            String line = scanner.nextLine().trim();
-            try {
-                double v = Double.parseDouble(line);
-                if (v < min || v > max) throw new NumberFormatException();
+            out.print(prompt);
+            nextTrimmedLine();
+            double v = CharParse_sec33_gr3.parseDouble(input.buffer(), input.start(), input.end());
+            if (v >= min && v <= max) { // NaN from bad input fails both checks
                 return v;
-            } catch (NumberFormatException ex) {
-                String maxTxt = (max == Double.MAX_VALUE) ? "+∞" : String.valueOf(max);
-                System.out.println("Please enter a valid number in range [" + min + ", " + maxTxt + "].");
             }
+            String maxTxt = (max == Double.MAX_VALUE) ? "+∞" : String.valueOf(max);
+            out.println("Please enter a valid number in range [" + min + ", " + maxTxt + "].");
+        }
+    }
+
+    /**
+     * Lets the user pick one of there activities for the update and remove options
+     * Up to PICKER_PAGE activities are all listed like before, with more than that
+     * they filter by type and dates first and only the newest matches are shown
+     * Returns null if nothing matched
+     */
+    private WellnessActivity_sec33_gr3 pickActivity(String prompt, String indent) {
+        int total = onUser(user -> user.getActivities().size());
+        java.util.List<WellnessActivity_sec33_gr3> choices;
+        if (total > PICKER_PAGE) {
+            out.println("You have " + total + " activities, narrow them down first.");
+            String type = readActivityType("Type (Sleep, Meditation, Journaling, ScreenTime or blank for any): ");
+            LocalDate from = readOptionalDate("From date (YYYY-MM-DD, blank for any): ");
+            LocalDate to = readOptionalDate("To date (YYYY-MM-DD, blank for any): ");
+            choices = onUser(user -> {
+                ActivityQuery_sec33_gr3 query = user.query();
+                if (type != null) query.ofType(type);
+                return query.between(from, to).descending().limit(PICKER_PAGE).toList();
+            });
+            if (choices.isEmpty()) {
+                out.println("No activities match.");
+                return null;
+            }
+            out.println("Newest " + choices.size() + " matching activities:");
+        } else {
+            choices = onUser(user -> new java.util.ArrayList<>(user.getActivities()));
+        }
+        java.util.List<WellnessActivity_sec33_gr3> listed = choices;
+        onUser(user -> {
+            for (int i = 0; i < listed.size(); i++) {
+                out.println(indent + (i + 1) + ". " + listed.get(i));
+            }
+            return null;
+        });
+        int idx = readInt(prompt, 1, choices.size()) - 1;
+        return choices.get(idx);
+    }
+
+    /**
+     * Reads an activity type name in any case, blank means any type
+     * Keeps asking if its not one of the four types
+     */
+    private String readActivityType(String prompt) {
+        while (true) {
+            String answer = readLine(prompt).replace(" ", "");
+            if (answer.isEmpty()) return null;
+            for (String type : new String[] {"Sleep", "Meditation", "Journaling", "ScreenTime"}) {
+                if (type.equalsIgnoreCase(answer)) return type;
+            }
+            out.println("Please enter Sleep, Meditation, Journaling or ScreenTime.");
+        }
+    }
+
+    /**
+     * Reads a date that can be left blank, returns null for blank
+     */
+    private LocalDate readOptionalDate(String prompt) {
+        out.print(prompt);
+        while (true) {
+            nextTrimmedLine();
+            if (input.isEmpty()) return null;
+            LocalDate date = CharParse_sec33_gr3.parseDate(input.buffer(), input.start(), input.end());
+            if (date != null) return date;
+            out.print("Invalid date format. Please use YYYY-MM-DD: ");
         }
     }
 
@@ -794,18 +1460,14 @@ public class Main_sec33_gr3 {
      * If they leave it blank, uses today's date as default
      * Keeps asking if they enter invalid format until they get it right
      */
-    private static LocalDate readDate(String prompt) {
-        System.out.print(prompt);
-        String line = scanner.nextLine().trim();
-        if (line.isEmpty()) return LocalDate.now();
+    private LocalDate readDate(String prompt) {
+        out.print(prompt);
         while (true) {
-            try {
-                return LocalDate.parse(line);
-            } catch (Exception ex) {
-                System.out.print("Invalid date format. Please use YYYY-MM-DD: ");
-                line = scanner.nextLine().trim();
-                if (line.isEmpty()) return LocalDate.now();
-            }
+            nextTrimmedLine();
+            if (input.isEmpty()) return LocalDate.now();
+            LocalDate date = CharParse_sec33_gr3.parseDate(input.buffer(), input.start(), input.end());
+            if (date != null) return date;
+            out.print("Invalid date format. Please use YYYY-MM-DD: ");
         }
     }
 
@@ -814,18 +1476,14 @@ public class Main_sec33_gr3 {
      * Can allow blank input if allowBlank is true
      * Returns null for blank input when allowed
      */
-    private static LocalTime readTime(String prompt, boolean allowBlank) {
-        System.out.print(prompt);
-        String line = scanner.nextLine().trim();
-        if (allowBlank && line.isEmpty()) return null;
+    private LocalTime readTime(String prompt, boolean allowBlank) {
+        out.print(prompt);
         while (true) {
-            try {
-                return LocalTime.parse(line);
-            } catch (Exception ex) {
-                System.out.print("Invalid time format. Please use HH:MM: ");
-                line = scanner.nextLine().trim();
-                if (allowBlank && line.isEmpty()) return null;
-            }
+            nextTrimmedLine();
+            if (allowBlank && input.isEmpty()) return null;
+            LocalTime time = CharParse_sec33_gr3.parseTime(input.buffer(), input.start(), input.end());
+            if (time != null) return time;
+            out.print("Invalid time format. Please use HH:MM: ");
         }
     }
 
@@ -834,19 +1492,17 @@ public class Main_sec33_gr3 {
      * Makes it easier for users to think in hours but we store as minutes
      * Returns -1 for blank input (used in update flows to mean "no change")
      */
-    private static double readHourAsMinutes(String prompt, double min, double max) {
+    private double readHourAsMinutes(String prompt, double min, double max) {
         while (true) {
-            System.out.print(prompt);
-            String line = scanner.nextLine().trim();
-            if (line.isEmpty()) return -1;
-            try {
-                double hour = Double.parseDouble(line);
-                double minutes = hour * 60;
-                if (minutes < min || minutes > max) throw new NumberFormatException();
+            out.print(prompt);
+            nextTrimmedLine();
+            if (input.isEmpty()) return -1;
+            double hour = CharParse_sec33_gr3.parseDouble(input.buffer(), input.start(), input.end());
+            double minutes = hour * 60;
+            if (minutes >= min && minutes <= max) {
                 return minutes;
-            } catch (NumberFormatException ex) {
-                System.out.println("Please enter a valid hour so that minutes are in range [" + min + ", " + max + "].");
             }
+            out.println("Please enter a valid hour so that minutes are in range [" + min + ", " + max + "].");
         }
     }
 
@@ -855,13 +1511,13 @@ public class Main_sec33_gr3 {
      * Accepts y, yes, n, no in any case
      * Keeps asking until they give a valid yes/no answer
      */
-    private static boolean readYesNo(String prompt) {
+    private boolean readYesNo(String prompt) {
         while (true) {
-            System.out.print(prompt);
-            String s = scanner.nextLine().trim().toLowerCase();
-            if (s.equals("y") || s.equals("yes")) return true;
-            if (s.equals("n") || s.equals("no")) return false;
-            System.out.println("Please enter 'y' or 'n'.");
+            out.print(prompt);
+            nextTrimmedLine();
+            int answer = CharParse_sec33_gr3.parseYesNo(input.buffer(), input.start(), input.end());
+            if (answer >= 0) return answer == 1;
+            out.println("Please enter 'y' or 'n'.");
         }
     }
 
@@ -870,8 +1526,9 @@ public class Main_sec33_gr3 {
      * Trims whitespace automatically
      * Can return empty string if user just presses enter
      */
-    private static String readLine(String prompt) {
-        System.out.print(prompt);
-        return scanner.nextLine().trim();
+    private String readLine(String prompt) {
+        out.print(prompt);
+        nextTrimmedLine();
+        return input.isEmpty() ? "" : input.lineString();
     }
 }
\ No newline at end of file
@@ -12,6 +12,11 @@ public class Meditation_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
     private String focusArea; // "stress", "anxiety", "focus", "general" - what they focused on , same
     private int distractionCount; // how many times they got distracted
     private boolean completedSession; // did they finish the whole session
+    private static final String[] FIELDS = {"duration", "notes", "meditationType", "focusArea", "distractionCount", "completedSession"}; // what getFieldNames() gives back
+
+    // Valid duration range in minutes - 1 minute to 3 hours
+    public static final double MIN_DURATION = 1;
+    public static final double MAX_DURATION = 180;
 
     /**
      * Constructor for creating a new meditation activity
@@ -27,6 +32,27 @@ public class Meditation_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
         this.completedSession = completedSession;
     }
 
+    /**
+     * Checks meditation details without creating anything or throwing exceptions
+     * Returns a code from ValidationResult_sec33_gr3
+     */
+    public static int validate(double duration) {
+        return duration >= MIN_DURATION && duration <= MAX_DURATION
+                ? ValidationResult_sec33_gr3.OK : ValidationResult_sec33_gr3.INVALID_DURATION;
+    }
+
+    /**
+     * Creates a meditation activity only if the details are valid
+     * Returns null instead of throwing when validate() fails
+     */
+    public static Meditation_sec33_gr3 tryCreate(LocalDate date, double duration, String notes, String meditationType,
+                                                 String focusArea, int distractionCount, boolean completedSession) {
+        if (validate(duration) != ValidationResult_sec33_gr3.OK) {
+            return null;
+        }
+        return new Meditation_sec33_gr3(date, duration, notes, meditationType, focusArea, distractionCount, completedSession);
+    }
+
     // Getters and Setters section - for accessing and modifying meditation data
 
     /**
@@ -100,6 +126,41 @@ public class Meditation_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
     @Override
     public String getActivityType() { return "Meditation"; }
 
+    /**
+     * Returns TYPE_MEDITATION, the index for Meditation in per type tables
+     */
+    @Override
+    public int getActivityTypeIndex() { return TYPE_MEDITATION; }
+
+    /**
+     * Makes the same meditation session on another date, with a new ID
+     */
+    @Override
+    public Meditation_sec33_gr3 copyOn(LocalDate date) {
+        return new Meditation_sec33_gr3(date, getDuration(), getNotes(), meditationType, focusArea,
+                distractionCount, completedSession);
+    }
+
+    /**
+     * Gets duration, notes and the meditation fields, see WellnessActivity_sec33_gr3.getFieldNames()
+     */
+    @Override
+    public String[] getFieldNames() { return FIELDS; }
+
+    /**
+     * Gets one field by name, the base class has duration and notes
+     */
+    @Override
+    public Object getFieldValue(String field) {
+        switch (field) {
+            case "meditationType": return meditationType;
+            case "focusArea": return focusArea;
+            case "distractionCount": return distractionCount;
+            case "completedSession": return completedSession;
+            default: return super.getFieldValue(field);
+        }
+    }
+
     /**
      * Calculates overall meditation progress score
      * Completed sessions get higher base score than incomplete ones
@@ -121,7 +182,7 @@ public class Meditation_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
      */
     @Override
     public boolean isValidDuration(double duration) {
-        return duration >= 1 && duration <= 180; // 1 minute to 3 hours in minutes
+        return validate(duration) == ValidationResult_sec33_gr3.OK; // 1 minute to 3 hours in minutes
     }
 
     // Trackable interface implementations - required for the tracking system
@@ -138,26 +199,15 @@ public class Meditation_sec33_gr3 extends WellnessActivity_sec33_gr3 implements
     }
 
     /**
-     * Checks if this meditation session meets a wellness goal
-     * Currently only supports meditation minutes goals
-     * Returns true if session duration meets or exceeds the goal target
-     */
-    @Override
-    public boolean meetsGoal(WellnessGoal_sec33_gr3 goal) {
-        if (goal.getGoalType() == GoalType_sec33_gr3.MEDITATION_MINUTES) {
-            return getDuration() >= goal.getTargetValue();
-        }
-        return false; // wrong goal type or doesnt meet target
-    }
-
-    /**
-     * Creates a nice string representation of the meditation session
+     * Writes a nice string representation of the meditation session
      * Includes all the importent details like type, focus, completion, and distractions
-     * Used when displaying meditation activities to users in lists and reports
+     * Used by toString() and reports when displaying meditation activities to users
      */
     @Override
-    public String toString() {
-        return super.toString() + String.format(" | Type: %s | Focus: %s | Completed: %s | Distractions: %d",
-                meditationType, focusArea, completedSession ? "Yes" : "No", distractionCount);
+    public StringBuilder appendTo(StringBuilder sb) {
+        return super.appendTo(sb).append(" | Type: ").append(meditationType)
+                .append(" | Focus: ").append(focusArea)
+                .append(" | Completed: ").append(completedSession ? "Yes" : "No")
+                .append(" | Distractions: ").append(distractionCount);
     }
 }
\ No newline at end of file
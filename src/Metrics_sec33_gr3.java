@@ -0,0 +1,103 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics class - the app wide list of timed operations
+ * Classes ask for their timers once, usually into a static final field, and use them on every call:
+ *     long start = ADD_TIME.start();
+ *     ...
+ *     ADD_TIME.stop(start);
+ * Timers count every call but only time one in SAMPLE_EVERY, which keeps the cost under 50ns a call
+ * (see MetricsBenchmark), set -Dmindtrack.metrics.sampleEvery=1 to time them all
+ * Once publish() is called every timer is also registered as a JMX bean, mindtrack:type=Latency,name=...
+ * so the numbers can be watched live from jconsole or VisualVM
+ * The menu shows the same numbers with appendTo()
+ */
+public class Metrics_sec33_gr3 {
+
+    public static final String JMX_DOMAIN = "mindtrack";
+    public static final int SAMPLE_EVERY = Math.max(1, Integer.getInteger("mindtrack.metrics.sampleEvery", 8));
+
+    private static final Map<String, LatencyHistogram_sec33_gr3> timers = new TreeMap<>(); // sorted for the table
+    private static MBeanServer server; // null until publish()
+
+    // Static helper class, no instances needed
+    private Metrics_sec33_gr3() { }
+
+    /**
+     * Gets the timer for an operation, making it the first time a name is asked for
+     * Names look like "Class.operation" so the table groups them by class
+     */
+    public static LatencyHistogram_sec33_gr3 timer(String name) {
+        return timer(name, SAMPLE_EVERY);
+    }
+
+    /**
+     * Gets the timer for an operation that times one call in sampleEvery, 1 for slow things like menu actions
+     * where reading the clock costs nothing next to the call
+     */
+    public static synchronized LatencyHistogram_sec33_gr3 timer(String name, int sampleEvery) {
+        LatencyHistogram_sec33_gr3 timer = timers.get(name);
+        if (timer == null) {
+            timer = new LatencyHistogram_sec33_gr3(name, sampleEvery);
+            timers.put(name, timer);
+            if (server != null) register(timer);
+        }
+        return timer;
+    }
+
+    /**
+     * Gets every timer so far, sorted by name
+     */
+    public static synchronized List<LatencyHistogram_sec33_gr3> getTimers() {
+        return new ArrayList<>(timers.values());
+    }
+
+    /**
+     * Registers every timer, and any made later, with the platform MBean server
+     * Safe to call more than once
+     */
+    public static synchronized void publish() {
+        if (server != null) return;
+        server = ManagementFactory.getPlatformMBeanServer();
+        for (LatencyHistogram_sec33_gr3 timer : timers.values()) register(timer);
+    }
+
+    /**
+     * Clears every timer
+     */
+    public static synchronized void resetAll() {
+        for (LatencyHistogram_sec33_gr3 timer : timers.values()) timer.reset();
+    }
+
+    /**
+     * Appends the metrics table, only operations that have run are listed
+     */
+    public static synchronized StringBuilder appendTo(StringBuilder sb) {
+        sb.append(String.format("%-28s %10s %10s %10s %10s %10s %10s %10s%n", "Operation (times in us)", "Count",
+                "Mean", "p50", "p90", "p99", "p99.9", "Max"));
+        int shown = 0;
+        for (LatencyHistogram_sec33_gr3 timer : timers.values()) {
+            if (timer.getCount() == 0) continue;
+            timer.appendTo(sb).append(System.lineSeparator());
+            shown++;
+        }
+        if (shown == 0) sb.append("Nothing timed yet.").append(System.lineSeparator());
+        return sb;
+    }
+
+    private static void register(LatencyHistogram_sec33_gr3 timer) {
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Latency,name=" + ObjectName.quote(timer.getName()));
+            if (!server.isRegistered(objectName)) server.registerMBean(timer, objectName);
+        } catch (JMException ex) {
+            System.err.println("Error: could not publish metric " + timer.getName() + " over JMX: " + ex.getMessage());
+        }
+    }
+}
@@ -5,7 +5,7 @@ import java.time.LocalDate;
  * Helps monitor emotional wellbeing and identify patterns over time
  * Important for understanding how activities affect there mental state
  */
-public class MoodStressEntry_sec33_gr3 {
+public class MoodStressEntry_sec33_gr3 implements Cloneable {
 
     // Fields for tracking mood and stress data
     private LocalDate date; // when this mood/stress reading was taken
@@ -22,11 +22,9 @@ public class MoodStressEntry_sec33_gr3 {
      */
     public MoodStressEntry_sec33_gr3(LocalDate date, int moodLevel, int stressLevel,
                           String moodTags, String stressTriggers, String notes) {
-        if (moodLevel < 1 || moodLevel > 10) {
-            throw new InvalidMoodStressValueException("Mood level must be between 1 and 10");
-        }
-        if (stressLevel < 1 || stressLevel > 10) {
-            throw new InvalidMoodStressValueException("Stress level must be between 1 and 10");
+        int code = validate(moodLevel, stressLevel);
+        if (code != ValidationResult_sec33_gr3.OK) {
+            throw new InvalidMoodStressValueException(ValidationResult_sec33_gr3.describe(code));
         }
 
         this.date = date;
@@ -37,6 +35,32 @@ public class MoodStressEntry_sec33_gr3 {
         this.notes = notes != null ? notes : "";
     }
 
+    /**
+     * Checks mood and stress levels without throwing exceptions
+     * Returns a code from ValidationResult_sec33_gr3, the constructor just wraps this
+     */
+    public static int validate(int moodLevel, int stressLevel) {
+        if (moodLevel < 1 || moodLevel > 10) {
+            return ValidationResult_sec33_gr3.INVALID_MOOD;
+        }
+        if (stressLevel < 1 || stressLevel > 10) {
+            return ValidationResult_sec33_gr3.INVALID_STRESS;
+        }
+        return ValidationResult_sec33_gr3.OK;
+    }
+
+    /**
+     * Creates a mood/stress entry only if the levels are valid
+     * Returns null instead of throwing so bulk loads dont pay for stack traces
+     */
+    public static MoodStressEntry_sec33_gr3 tryCreate(LocalDate date, int moodLevel, int stressLevel,
+                                                      String moodTags, String stressTriggers, String notes) {
+        if (validate(moodLevel, stressLevel) != ValidationResult_sec33_gr3.OK) {
+            return null;
+        }
+        return new MoodStressEntry_sec33_gr3(date, moodLevel, stressLevel, moodTags, stressTriggers, notes);
+    }
+
     // Getters for accessing mood and stress data
 
     /**
@@ -75,6 +99,17 @@ public class MoodStressEntry_sec33_gr3 {
      */
     public String getNotes() { return notes; }
 
+    /**
+     * Makes an exact copy, for keeping an old version around like the undo history does
+     */
+    MoodStressEntry_sec33_gr3 snapshot() {
+        try {
+            return (MoodStressEntry_sec33_gr3) clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError(ex); // cant happen, this class is Cloneable
+        }
+    }
+
     // Setters for modifying mood/stress data with validation
 
     /**
@@ -154,16 +189,29 @@ public class MoodStressEntry_sec33_gr3 {
     }
 
     /**
-     * Creates a readable string representation of the mood/stress entry
+     * Writes a readable representation of the mood/stress entry into a StringBuilder
      * Shows all the importent info in a compact format
-     * Usefull for displaying entries in lists and reports
+     * Reports call this directly so they dont need a new String for every entry
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("Date: ");
+        TextFormat_sec33_gr3.appendDate(sb, date).append(" | Mood: ").append(moodLevel)
+                .append("/10 | Stress: ").append(stressLevel).append("/10 | Wellness: ");
+        TextFormat_sec33_gr3.appendFixed1(sb, getWellnessScore()).append("% | Tags: ")
+                .append(moodTags.isEmpty() ? "None" : moodTags)
+                .append(" | Triggers: ").append(stressTriggers.isEmpty() ? "None" : stressTriggers);
+        if (!notes.isEmpty()) {
+            sb.append(" | Notes: ").append(notes);
+        }
+        return sb;
+    }
+
+    /**
+     * Creates a readable string representation of the mood/stress entry
+     * Same text as appendTo(), usefull for displaying entries in lists
      */
     @Override
     public String toString() {
-        return String.format("Date: %s | Mood: %d/10 | Stress: %d/10 | Wellness: %.1f%% | Tags: %s | Triggers: %s%s",
-                date, moodLevel, stressLevel, getWellnessScore(),
-                moodTags.isEmpty() ? "None" : moodTags,
-                stressTriggers.isEmpty() ? "None" : stressTriggers,
-                notes.isEmpty() ? "" : " | Notes: " + notes);
+        return appendTo(new StringBuilder(128)).toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,615 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ParallelImporter class - loads big export files using all the cpu cores
+ * The file is memory mapped and cut into chunks on line boundaries, each chunk is parsed on its own thread
+ * A cut can still land inside a quoted CSV note that has a line break followed by something that looks like a record,
+ * then the chunk before it ends with an open quote and the chunk after it is parsed again starting from that record
+ * Parsed records are merged into the user in date order, ties keep the order they had in the file,
+ * so the result is the same every time no matter how many threads are used
+ * Gzip files cant be split so they are read with DataImporter_sec33_gr3 on one thread and merged the same way
+ */
+public class ParallelImporter_sec33_gr3 {
+
+    private static final int MIN_CHUNK = 1 << 20; // 1MB, smaller chunks arent worth a task
+    private static final int MAX_CHUNK = 1 << 28; // 256MB, one mapping each
+    private static final int MAX_LINE = 1 << 24; // longest line we accept, 16M chars
+
+    private final int threads;
+    private final PrintStream errors; // where rejected lines get reported, can be null
+    private int records; // records loaded by the last import
+    private int rejected; // lines skipped by the last import
+
+    /**
+     * Creates an importer that parses with the given number of threads
+     * Bad lines are reported to errors (can be null) after the import, in file order
+     */
+    public ParallelImporter_sec33_gr3(int threads, PrintStream errors) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.threads = threads;
+        this.errors = errors;
+    }
+
+    /**
+     * Gets how many records were loaded by the last import
+     */
+    public int getRecords() { return records; }
+
+    /**
+     * Gets how many lines were skipped by the last import
+     */
+    public int getRejected() { return rejected; }
+
+    /**
+     * Imports a file into a new user, named from the user record in the file
+     */
+    public User_sec33_gr_3 importFile(Path file) throws IOException {
+        return load(file, null);
+    }
+
+    /**
+     * Imports a file into an existing user, keeping what the user already has
+     * The user record in the file is ignored, activities and mood entries are added in date order
+     */
+    public void importInto(Path file, User_sec33_gr_3 user) throws IOException {
+        load(file, user);
+    }
+
+    /**
+     * Does the import - parse chunks in parallel, then merge on this thread
+     */
+    private User_sec33_gr_3 load(Path file, User_sec33_gr_3 target) throws IOException {
+        JfrEvents_sec33_gr3.ImportEvent event = new JfrEvents_sec33_gr3.ImportEvent();
+        event.begin();
+        records = 0;
+        rejected = 0;
+        long bytes;
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            if (isGzip(channel)) {
+                chunks.add(readCompressed(file));
+            } else {
+                long[] bounds = split(channel);
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    chunks.add(new Chunk(i, bounds[i], channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]),
+                            i + 2 == bounds.length));
+                }
+                parseAll(chunks);
+                joinOpenRecords(chunks, channel);
+            }
+        }
+        User_sec33_gr_3 user = merge(chunks, target);
+        if (event.shouldCommit()) {
+            event.user = user.getName();
+            event.source = file.toString();
+            event.records = records;
+            event.rejected = rejected;
+            event.bytesRead = bytes;
+            event.threads = Math.min(threads, chunks.size());
+            event.commit();
+        }
+        return user;
+    }
+
+    /**
+     * Runs every chunk through its own parse task and waits for them all
+     */
+    private void parseAll(List<Chunk> chunks) throws IOException {
+        if (chunks.size() <= 1 || threads == 1) {
+            for (Chunk chunk : chunks) chunk.parse();
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks.size()), r -> {
+            Thread t = new Thread(r, "mindtrack-import");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                futures.add(pool.submit(chunk::parse));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses a chunk again when the one before it ended inside a quoted field, starting from the record that was cut
+     * The first parse of that chunk started part way through the record so its results are thrown away
+     * Goes in file order, so a joined chunk that ends open too gets the one after it fixed the same way
+     */
+    private static void joinOpenRecords(List<Chunk> chunks, FileChannel channel) throws IOException {
+        for (int i = 0; i + 1 < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            if (chunk.openTail < 0) continue;
+            Chunk next = chunks.get(i + 1);
+            long end = next.start + next.bytes.limit();
+            Chunk joined = new Chunk(next.index, chunk.openTail,
+                    channel.map(FileChannel.MapMode.READ_ONLY, chunk.openTail, end - chunk.openTail), next.last);
+            joined.parse();
+            chunks.set(i + 1, joined);
+        }
+        for (Chunk chunk : chunks) {
+            if (chunk.failure != null) throw chunk.failure;
+        }
+    }
+
+    /**
+     * Works out where the chunks start and end
+     * Each cut is moved forward to just after a line break that is followed by the start of a record,
+     * so a CSV note with a line break in it doesnt get cut in half, unless the note's next line looks like
+     * a record itself, joinOpenRecords() puts those back together
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (threads * 4L) + 1));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(1 << 12);
+        long next = chunkSize;
+        while (next < size) {
+            long cut = findRecordStart(channel, next, probe);
+            if (cut >= size) break;
+            if (cut - bounds.get(bounds.size() - 1) > MAX_CHUNK * 2L) {
+                throw new IOException("No record boundary found near byte " + next);
+            }
+            bounds.add(cut);
+            next = cut + chunkSize;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    /**
+     * Finds the first line start at or after from that looks like a record
+     * Returns the file size if there isnt one
+     */
+    private static long findRecordStart(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long size = channel.size();
+        long pos = from;
+        while (pos < size) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) != '\n') continue;
+                long lineStart = pos + i + 1;
+                if (lineStart >= size || startsRecord(channel, lineStart)) return lineStart;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * Checks if a line starts with '{' or with a record kind and a comma
+     */
+    private static boolean startsRecord(FileChannel channel, long at) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(12);
+        channel.read(head, at);
+        int n = head.position();
+        if (n > 0 && head.get(0) == '{') return true;
+        for (String kind : KINDS) {
+            if (n > kind.length() && head.get(kind.length()) == ',') {
+                boolean match = true;
+                for (int i = 0; i < kind.length() && match; i++) {
+                    match = head.get(i) == kind.charAt(i);
+                }
+                if (match) return true;
+            }
+        }
+        return false;
+    }
+
+    private static final String[] KINDS = {
+            RecordCodec_sec33_gr3.SLEEP, RecordCodec_sec33_gr3.MEDITATION, RecordCodec_sec33_gr3.JOURNAL,
+            RecordCodec_sec33_gr3.SCREEN, RecordCodec_sec33_gr3.MOOD, RecordCodec_sec33_gr3.GOAL,
+            RecordCodec_sec33_gr3.USER, RecordCodec_sec33_gr3.RECURRING
+    };
+
+    private static boolean isGzip(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(2);
+        channel.read(magic, 0);
+        return magic.position() == 2 && magic.get(0) == 0x1f && (magic.get(1) & 0xFF) == 0x8b;
+    }
+
+    /**
+     * Reads a gzip file on this thread into a single chunk
+     */
+    private Chunk readCompressed(Path file) throws IOException {
+        DataImporter_sec33_gr3 importer = new DataImporter_sec33_gr3(errors);
+        User_sec33_gr_3 loaded = importer.importFile(file);
+        Chunk chunk = new Chunk(0, 0, null, true);
+        chunk.user = new User_sec33_gr_3(loaded.getName()); // empty copy, the records get merged in below
+        chunk.user.restoreJoinDate(loaded.getJoinDate());
+        for (WellnessActivity_sec33_gr3 a : loaded.getActivities()) {
+            chunk.addActivity(a, a.getActivityId());
+        }
+        for (MoodStressEntry_sec33_gr3 m : loaded.getMoodStressEntries()) chunk.addMood(m);
+        for (RecurringTemplate_sec33_gr3 t : loaded.getTemplates()) chunk.addTemplate(t, t.getPrototype().getActivityId());
+        chunk.goals.addAll(loaded.getWellnessGoals());
+        chunk.sort();
+        rejected += importer.getRejected(); // already reported by the DataImporter
+        return chunk;
+    }
+
+    /**
+     * Puts all the chunks together into the user
+     * Activities and moods go in by date then file order, recurring activities and goals in file order
+     * File ids are kept unless the user already has that id or it was seen earlier, those get new ids at the end
+     */
+    private User_sec33_gr_3 merge(List<Chunk> chunks, User_sec33_gr_3 target) {
+        User_sec33_gr_3 user = target;
+        int lineOffset = 0;
+        boolean sawUser = false;
+        for (Chunk chunk : chunks) {
+            if (chunk.user != null && sawUser) {
+                chunk.rejectUser(); // a later chunk's user record is one too many, like a second one in the same chunk
+            }
+            sawUser |= chunk.user != null;
+            for (int i = 0; i < chunk.errorLines.size(); i++) {
+                rejected++;
+                if (errors != null) {
+                    errors.println("Line " + (lineOffset + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+                }
+            }
+            lineOffset += chunk.lines;
+            if (user == null && chunk.user != null) {
+                user = chunk.user;
+                records++;
+            }
+        }
+        if (user == null) user = new User_sec33_gr_3("Imported");
+
+        int total = user.getActivities().size();
+        for (Chunk chunk : chunks) total += chunk.activityCount;
+        IdSet_sec33_gr3 seenIds = new IdSet_sec33_gr3(total);
+        for (WellnessActivity_sec33_gr3 a : user.getActivities()) {
+            if (a.getActivityId() > 0) seenIds.add(a.getActivityId());
+        }
+        List<WellnessActivity_sec33_gr3> needIds = new ArrayList<>();
+
+        // k-way merge of the sorted chunks, chunk index breaks date ties so file order wins
+        // each turn takes the whole run of records that come before the next chunk's head
+        PriorityQueue<Chunk> queue = new PriorityQueue<>((a, b) -> {
+            int c = Long.compare(a.activityKeys[a.cursor] >> 32, b.activityKeys[b.cursor] >> 32);
+            return c != 0 ? c : Integer.compare(a.index, b.index);
+        });
+        for (Chunk chunk : chunks) {
+            if (chunk.activityCount > 0) queue.add(chunk);
+        }
+        while (!queue.isEmpty()) {
+            Chunk chunk = queue.poll();
+            int runEnd = runEnd(chunk, chunk.activityKeys, chunk.activityCount, queue.peek(), false);
+            for (; chunk.cursor < runEnd; chunk.cursor++) {
+                int slot = (int) chunk.activityKeys[chunk.cursor];
+                WellnessActivity_sec33_gr3 activity = chunk.activities[slot];
+                int id = chunk.fileIds[slot];
+                if (id <= 0 || !seenIds.add(id)) {
+                    needIds.add(activity);
+                } else {
+                    activity.restoreId(id);
+                }
+                user.addActivity(activity);
+                records++;
+            }
+            if (chunk.cursor < chunk.activityCount) queue.add(chunk);
+        }
+        for (Chunk chunk : chunks) {
+            for (int i = 0; i < chunk.templates.size(); i++) {
+                RecurringTemplate_sec33_gr3 template = chunk.templates.get(i);
+                int id = chunk.templateIds.get(i);
+                if (id <= 0 || !seenIds.add(id)) {
+                    needIds.add(template.getPrototype());
+                } else {
+                    template.getPrototype().restoreId(id);
+                }
+                user.addTemplate(template);
+                records++;
+            }
+        }
+        for (WellnessActivity_sec33_gr3 activity : needIds) {
+            activity.assignNewId();
+        }
+
+        PriorityQueue<Chunk> moodQueue = new PriorityQueue<>((a, b) -> {
+            int c = Long.compare(a.moodKeys[a.cursor] >> 32, b.moodKeys[b.cursor] >> 32);
+            return c != 0 ? c : Integer.compare(a.index, b.index);
+        });
+        for (Chunk chunk : chunks) {
+            chunk.cursor = 0;
+            if (chunk.moodCount > 0) moodQueue.add(chunk);
+        }
+        while (!moodQueue.isEmpty()) {
+            Chunk chunk = moodQueue.poll();
+            int runEnd = runEnd(chunk, chunk.moodKeys, chunk.moodCount, moodQueue.peek(), true);
+            for (; chunk.cursor < runEnd; chunk.cursor++) {
+                user.addMoodStressEntry(chunk.moods[(int) chunk.moodKeys[chunk.cursor]]);
+                records++;
+            }
+            if (chunk.cursor < chunk.moodCount) moodQueue.add(chunk);
+        }
+
+        for (Chunk chunk : chunks) {
+            for (WellnessGoal_sec33_gr3 goal : chunk.goals) {
+                user.addGoal(goal);
+                records++;
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Finds where the run of records starting at the chunk's cursor ends
+     * The run stops at the first record that should come after the head of the next chunk
+     */
+    private static int runEnd(Chunk chunk, long[] keys, int count, Chunk next, boolean moods) {
+        if (next == null) return count;
+        long nextDay = (moods ? next.moodKeys : next.activityKeys)[next.cursor] >> 32;
+        int end = chunk.cursor + 1; // the head always goes, the queue picked it
+        while (end < count) {
+            long day = keys[end] >> 32;
+            if (day > nextDay || (day == nextDay && chunk.index > next.index)) break;
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * One piece of the file and everything parsed out of it
+     * Only touched by one parse thread, then read by the merge after that thread is done
+     */
+    private static final class Chunk {
+
+        final int index;
+        final long start; // where the chunk starts in the file
+        final MappedByteBuffer bytes;
+        final boolean last; // the chunk that ends at the end of the file
+        long openTail = -1; // where the record this chunk ends in starts in the file, if it still had an open quote
+        IllegalStateException failure; // a line that was too long, only thrown if this chunk is kept
+        User_sec33_gr_3 user; // from the user record, if this chunk had it
+        int userLine; // the line it was on
+        WellnessActivity_sec33_gr3[] activities = new WellnessActivity_sec33_gr3[1024];
+        int[] fileIds = new int[1024];
+        long[] activityKeys = new long[1024]; // epoch day << 32 | slot, sorted after parsing
+        int activityCount;
+        MoodStressEntry_sec33_gr3[] moods = new MoodStressEntry_sec33_gr3[256];
+        long[] moodKeys = new long[256];
+        int moodCount;
+        final List<WellnessGoal_sec33_gr3> goals = new ArrayList<>();
+        final List<RecurringTemplate_sec33_gr3> templates = new ArrayList<>();
+        final List<Integer> templateIds = new ArrayList<>(); // file id of each template's activity
+        final List<Integer> errorLines = new ArrayList<>();
+        final List<String> errorMessages = new ArrayList<>();
+        int lines; // lines in this chunk, for turning chunk line numbers into file line numbers
+        int cursor; // merge position
+        private char[] line = new char[1024]; // current line while parsing
+        private int length; // chars in line
+
+        Chunk(int index, long start, MappedByteBuffer bytes, boolean last) {
+            this.index = index;
+            this.start = start;
+            this.bytes = bytes;
+            this.last = last;
+        }
+
+        void addActivity(WellnessActivity_sec33_gr3 activity, int fileId) {
+            if (activityCount == activities.length) {
+                activities = Arrays.copyOf(activities, activityCount * 2);
+                fileIds = Arrays.copyOf(fileIds, activityCount * 2);
+                activityKeys = Arrays.copyOf(activityKeys, activityCount * 2);
+            }
+            activities[activityCount] = activity;
+            fileIds[activityCount] = fileId;
+            activityKeys[activityCount] = (activity.getDate().toEpochDay() << 32) | activityCount;
+            activityCount++;
+        }
+
+        void addTemplate(RecurringTemplate_sec33_gr3 template, int fileId) {
+            templates.add(template);
+            templateIds.add(fileId);
+        }
+
+        void addMood(MoodStressEntry_sec33_gr3 mood) {
+            if (moodCount == moods.length) {
+                moods = Arrays.copyOf(moods, moodCount * 2);
+                moodKeys = Arrays.copyOf(moodKeys, moodCount * 2);
+            }
+            moods[moodCount] = mood;
+            moodKeys[moodCount] = (mood.getDate().toEpochDay() << 32) | moodCount;
+            moodCount++;
+        }
+
+        /**
+         * Drops the user record as a rejected line, in line order with the other errors
+         */
+        void rejectUser() {
+            int at = 0;
+            while (at < errorLines.size() && errorLines.get(at) < userLine) at++;
+            errorLines.add(at, userLine);
+            errorMessages.add(at, "More than one user record");
+            user = null;
+        }
+
+        /**
+         * Sorts by date, the slot in the low bits keeps file order for the same day
+         */
+        void sort() {
+            Arrays.sort(activityKeys, 0, activityCount);
+            Arrays.sort(moodKeys, 0, moodCount);
+        }
+
+        /**
+         * Parses every line of the chunk, a line too long to be real is kept in failure instead of thrown
+         * since this chunk can be one that started part way through a record and gets parsed again
+         */
+        void parse() {
+            try {
+                parseLines();
+            } catch (IllegalStateException ex) {
+                failure = ex;
+            }
+            line = null; // dont keep the line buffer around until the merge
+            sort();
+        }
+
+        /**
+         * Bytes are turned into chars right here (UTF-8 by hand, ASCII is just a cast) so there is no decoder per line
+         * A record still open at the end of a chunk that isnt the last one is left for joinOpenRecords()
+         */
+        private void parseLines() {
+            RecordCodec_sec33_gr3 codec = new RecordCodec_sec33_gr3(RecordCodec_sec33_gr3.CSV);
+            int limit = bytes.limit();
+            int pos = 0;
+            while (pos < limit) {
+                length = 0;
+                int firstLine = lines + 1;
+                int recordStart = pos;
+                while (true) {
+                    // copy one physical line
+                    while (pos < limit) {
+                        byte b = bytes.get(pos);
+                        if (b == '\n') break;
+                        if (length + 2 > line.length) line = grow(line);
+                        if (b >= 0) {
+                            line[length++] = (char) b;
+                            pos++;
+                        } else {
+                            pos = decodeMultiByte(pos, limit);
+                        }
+                    }
+                    lines++;
+                    if (pos < limit) pos++; // past the '\n'
+                    // a quoted CSV field can carry on over the line break
+                    if (length > 0 && line[0] != '{' && line[0] != '#'
+                            && RecordCodec_sec33_gr3.hasOpenQuote(line, 0, length)) {
+                        if (pos < limit) {
+                            if (length == line.length) line = grow(line);
+                            line[length++] = '\n';
+                            continue;
+                        }
+                        if (!last) {
+                            openTail = start + recordStart; // the cut was inside this record
+                            lines = firstLine - 1;
+                        }
+                    }
+                    break;
+                }
+                if (openTail >= 0) break;
+                // trailing \r, like CharLineReader
+                int end = length;
+                if (end > 0 && line[end - 1] == '\r') end--;
+                if (end == 0 || line[0] == '#') continue;
+
+                Object record = codec.decode(line, 0, end);
+                if (record == null) {
+                    errorLines.add(firstLine);
+                    errorMessages.add(codec.getError());
+                } else if (record instanceof WellnessActivity_sec33_gr3) {
+                    addActivity((WellnessActivity_sec33_gr3) record, codec.getRecordId());
+                } else if (record instanceof MoodStressEntry_sec33_gr3) {
+                    addMood((MoodStressEntry_sec33_gr3) record);
+                } else if (record instanceof RecurringTemplate_sec33_gr3) {
+                    addTemplate((RecurringTemplate_sec33_gr3) record, codec.getRecordId());
+                } else if (record instanceof WellnessGoal_sec33_gr3) {
+                    goals.add((WellnessGoal_sec33_gr3) record);
+                } else if (user == null) {
+                    user = (User_sec33_gr_3) record;
+                    userLine = firstLine;
+                } else {
+                    errorLines.add(firstLine);
+                    errorMessages.add("More than one user record");
+                }
+            }
+        }
+
+        /**
+         * Decodes one UTF-8 sequence starting at pos into the line (there is always room for 2 chars)
+         * Broken sequences become U+FFFD one byte at a time
+         * Returns the position after the sequence
+         */
+        private int decodeMultiByte(int pos, int limit) {
+            int lead = bytes.get(pos) & 0xFF;
+            int needed;
+            int cp;
+            int min;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                needed = 1;
+                cp = lead & 0x1F;
+                min = 0x80;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                needed = 2;
+                cp = lead & 0x0F;
+                min = 0x800;
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                needed = 3;
+                cp = lead & 0x07;
+                min = 0x10000;
+            } else {
+                line[length++] = '\uFFFD';
+                return pos + 1;
+            }
+            if (pos + needed >= limit) {
+                line[length++] = '\uFFFD';
+                return pos + 1;
+            }
+            for (int i = 1; i <= needed; i++) {
+                int next = bytes.get(pos + i);
+                if ((next & 0xC0) != 0x80) {
+                    line[length++] = '\uFFFD';
+                    return pos + 1;
+                }
+                cp = (cp << 6) | (next & 0x3F);
+            }
+            if (cp < min || cp > 0x10FFFF || (cp >= 0xD800 && cp <= 0xDFFF)) {
+                line[length++] = '\uFFFD';
+                return pos + 1;
+            }
+            if (cp >= 0x10000) {
+                line[length++] = Character.highSurrogate(cp);
+                line[length++] = Character.lowSurrogate(cp);
+            } else {
+                line[length++] = (char) cp;
+            }
+            return pos + needed + 1;
+        }
+
+        private static char[] grow(char[] line) {
+            if (line.length >= MAX_LINE) {
+                throw new IllegalStateException("Line longer than " + MAX_LINE + " characters");
+            }
+            return Arrays.copyOf(line, line.length * 2);
+        }
+    }
+}
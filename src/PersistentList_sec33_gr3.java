@@ -0,0 +1,217 @@
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * PersistentList class - a list that never changes, every change gives back a new list instead
+ * Stored as a balanced tree (AVL) ordered by position, a change copies only the nodes on the path down
+ * to that position, O(log n) of them, and the new list shares every other node with the old one
+ * So a thousand versions of a 100k list cost a thousand short paths, not a thousand copies of the list
+ * get() is O(log n) instead of O(1), iterating is O(1) per element
+ * Used by the undo history, see UndoJournal_sec33_gr3
+ */
+public final class PersistentList_sec33_gr3<T> extends AbstractList<T> {
+
+    private static final PersistentList_sec33_gr3<Object> EMPTY = new PersistentList_sec33_gr3<>(null);
+
+    private final Node<T> root;
+
+    /**
+     * One tree node, never changed after its made
+     */
+    private static final class Node<T> {
+        final T value;
+        final Node<T> left;
+        final Node<T> right;
+        final int size; // nodes in this subtree, so a position can be found on the way down
+        final int height;
+
+        Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private PersistentList_sec33_gr3(Node<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Gets the empty list, every list starts from this
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList_sec33_gr3<T> empty() {
+        return (PersistentList_sec33_gr3<T>) EMPTY;
+    }
+
+    /**
+     * Makes a list with the same items in the same order, in O(n)
+     */
+    public static <T> PersistentList_sec33_gr3<T> of(List<? extends T> items) {
+        Object[] array = items.toArray();
+        return array.length == 0 ? empty() : new PersistentList_sec33_gr3<>(build(array, 0, array.length));
+    }
+
+    @Override
+    public int size() { return size(root); }
+
+    @Override
+    public T get(int index) {
+        checkIndex(index, size());
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * Gives back a list with value put in at index, everything from index on moves up one
+     * This list stays the same
+     */
+    public PersistentList_sec33_gr3<T> insert(int index, T value) {
+        checkIndex(index, size() + 1);
+        return new PersistentList_sec33_gr3<>(insert(root, index, value));
+    }
+
+    /**
+     * Gives back a list with value added on the end
+     */
+    public PersistentList_sec33_gr3<T> append(T value) {
+        return insert(size(), value);
+    }
+
+    /**
+     * Gives back a list with the item at index swapped for value
+     */
+    public PersistentList_sec33_gr3<T> replace(int index, T value) {
+        checkIndex(index, size());
+        return new PersistentList_sec33_gr3<>(replace(root, index, value));
+    }
+
+    /**
+     * Gives back a list without the item at index, everything after it moves down one
+     */
+    public PersistentList_sec33_gr3<T> removeAt(int index) {
+        checkIndex(index, size());
+        Node<T> updated = remove(root, index);
+        return updated == null ? empty() : new PersistentList_sec33_gr3<>(updated);
+    }
+
+    /**
+     * Walks the tree in order with a stack, so the whole list is O(n) instead of n lookups
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            @SuppressWarnings("unchecked")
+            private final Node<T>[] stack = (Node<T>[]) new Node<?>[height(root)];
+            private int depth;
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node<T> node) {
+                for (; node != null; node = node.left) stack[depth++] = node;
+            }
+
+            @Override
+            public boolean hasNext() { return depth > 0; }
+
+            @Override
+            public T next() {
+                if (depth == 0) throw new NoSuchElementException();
+                Node<T> node = stack[--depth];
+                pushLeft(node.right);
+                return node.value;
+            }
+        };
+    }
+
+    // ------------------------------------------------------------------ internals
+
+    private static int size(Node<?> node) { return node == null ? 0 : node.size; }
+
+    private static int height(Node<?> node) { return node == null ? 0 : node.height; }
+
+    /**
+     * Checks 0 <= index < limit, the limit is size() + 1 where the end itself is allowed
+     */
+    private void checkIndex(int index, int limit) {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T> build(Object[] items, int from, int to) {
+        if (from >= to) return null;
+        int mid = (from + to) >>> 1;
+        return new Node<>((T) items[mid], build(items, from, mid), build(items, mid + 1, to));
+    }
+
+    private static <T> Node<T> insert(Node<T> node, int index, T value) {
+        if (node == null) return new Node<>(value, null, null);
+        int leftSize = size(node.left);
+        if (index <= leftSize) return balance(node.value, insert(node.left, index, value), node.right);
+        return balance(node.value, node.left, insert(node.right, index - leftSize - 1, value));
+    }
+
+    private static <T> Node<T> replace(Node<T> node, int index, T value) {
+        int leftSize = size(node.left);
+        if (index < leftSize) return new Node<>(node.value, replace(node.left, index, value), node.right);
+        if (index > leftSize) return new Node<>(node.value, node.left, replace(node.right, index - leftSize - 1, value));
+        return new Node<>(value, node.left, node.right);
+    }
+
+    private static <T> Node<T> remove(Node<T> node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) return balance(node.value, remove(node.left, index), node.right);
+        if (index > leftSize) return balance(node.value, node.left, remove(node.right, index - leftSize - 1));
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+        Node<T> first = node.right;
+        while (first.left != null) first = first.left;
+        return balance(first.value, node.left, removeFirst(node.right));
+    }
+
+    private static <T> Node<T> removeFirst(Node<T> node) {
+        if (node.left == null) return node.right;
+        return balance(node.value, removeFirst(node.left), node.right);
+    }
+
+    /**
+     * Makes a node from value and two subtrees whose heights differ by at most 2, rotating if they differ by 2
+     */
+    private static <T> Node<T> balance(T value, Node<T> left, Node<T> right) {
+        int lh = height(left);
+        int rh = height(right);
+        if (lh > rh + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            Node<T> mid = left.right;
+            return new Node<>(mid.value, new Node<>(left.value, left.left, mid.left), new Node<>(value, mid.right, right));
+        }
+        if (rh > lh + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            Node<T> mid = right.left;
+            return new Node<>(mid.value, new Node<>(value, left, mid.left), new Node<>(right.value, mid.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * RecentRing class - a fixed size ring buffer that only remembers the last few things added
+ * Adding when its full overwrites the oldest one, so it never grows and every add is O(1)
+ * Reads like a List from oldest to newest, the dashboard uses it for the latest activities and moods
+ */
+public class RecentRing_sec33_gr3<T> extends AbstractList<T> implements RandomAccess {
+
+    private final Object[] items;
+    private int head; // where the oldest item is
+    private int size;
+
+    /**
+     * Creates an empty ring that keeps up to capacity items
+     */
+    public RecentRing_sec33_gr3(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.items = new Object[capacity];
+    }
+
+    /**
+     * Gets how many items the ring can keep
+     */
+    public int capacity() { return items.length; }
+
+    @Override
+    public int size() { return size; }
+
+    /**
+     * Gets an item by position, 0 is the oldest one still kept
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (T) items[(head + index) % items.length];
+    }
+
+    /**
+     * Gets the newest item, or null if the ring is empty
+     */
+    public T newest() {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    /**
+     * Adds an item as the newest one, dropping the oldest if the ring is full
+     * Always returns true
+     */
+    @Override
+    public boolean add(T item) {
+        if (size < items.length) {
+            items[(head + size) % items.length] = item;
+            size++;
+        } else {
+            items[head] = item; // overwrite the oldest
+            head = (head + 1) % items.length;
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < items.length; i++) {
+            items[i] = null;
+        }
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+}
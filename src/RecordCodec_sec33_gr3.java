@@ -0,0 +1,851 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * RecordCodec class - the export file format, shared by the exporter and the importers
+ * One record per line, as CSV or as JSON Lines, the first field is always the record kind
+ * CSV columns are in the order of the field lists below, JSON uses the same names as keys
+ * Decoding works on a char[] line and gives back model objects, bad records return an error message
+ */
+public class RecordCodec_sec33_gr3 {
+
+    // File formats
+    public static final int CSV = 1;
+    public static final int JSONL = 2;
+
+    // Record kinds - first column in CSV, "kind" key in JSON
+    public static final String USER = "user";
+    public static final String SLEEP = "sleep";
+    public static final String MEDITATION = "meditation";
+    public static final String JOURNAL = "journal";
+    public static final String SCREEN = "screen";
+    public static final String MOOD = "mood";
+    public static final String GOAL = "goal";
+    public static final String RECURRING = "recurring";
+
+    // Fields of each kind in CSV column order (after the kind)
+    static final String[] USER_FIELDS = {"name", "joined"};
+    static final String[] SLEEP_FIELDS = {"id", "date", "duration", "notes", "quality", "bedtime", "wake", "nightmares"};
+    static final String[] MEDITATION_FIELDS = {"id", "date", "duration", "notes", "type", "focus", "distractions", "completed"};
+    static final String[] JOURNAL_FIELDS = {"id", "date", "duration", "notes", "before", "after", "words", "theme", "beneficial"};
+    static final String[] SCREEN_FIELDS = {"id", "date", "duration", "notes", "device", "purpose", "breaks", "eyestrain", "bluelight"};
+    static final String[] MOOD_FIELDS = {"date", "mood", "stress", "tags", "triggers", "notes"};
+    static final String[] GOAL_FIELDS = {"type", "target", "progress", "start", "end", "description"};
+    // a recurring record is its schedule, the kind of activity it repeats and then that kind's fields
+    static final String[] RECURRING_FIELDS = {"every", "until", "skipped", "activity"};
+
+    private static final int MAX_FIELDS = 16;
+
+    private final int format;
+
+    // Writing state
+    private ExportChannel_sec33_gr3 out;
+
+    // Reading state - every value is copied (and unescaped) into scratch, value i is scratch[valueStart[i]..valueEnd[i])
+    private char[] scratch = new char[256];
+    private int scratchLength;
+    private final int[] keyStart = new int[MAX_FIELDS];
+    private final int[] keyEnd = new int[MAX_FIELDS];
+    private final int[] valueStart = new int[MAX_FIELDS];
+    private final int[] valueEnd = new int[MAX_FIELDS]; // -1 start means JSON null
+    private int count;
+    private final int[] slotStart = new int[MAX_FIELDS]; // values in field list order, after matching JSON keys
+    private final int[] slotEnd = new int[MAX_FIELDS];
+    private String error;
+    private int recordId; // id from the file of the last activity decoded
+
+    // Caches so repeated values dont make a new object on every line, one set per codec so no locking
+    private static final int MAX_CACHED_STRING = 24;
+    private final String[] stringCache = new String[1024];
+    private final int[] dateKeys = new int[1024]; // yyyymmdd, 0 means empty
+    private final LocalDate[] dateCache = new LocalDate[1024];
+    private final LocalTime[] timeCache = new LocalTime[24 * 60];
+
+    /**
+     * Creates a codec that writes one format, CSV or JSONL
+     * A codec keeps buffers between records so make one per thread
+     */
+    public RecordCodec_sec33_gr3(int format) {
+        this.format = format;
+    }
+
+    /**
+     * Picks the format from a file name - .csv or .jsonl, with or without .gz on the end
+     * Returns 0 if the name has neither
+     */
+    public static int formatFor(String fileName) {
+        String name = fileName.toLowerCase();
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        if (name.endsWith(".csv")) return CSV;
+        if (name.endsWith(".jsonl") || name.endsWith(".json")) return JSONL;
+        return 0;
+    }
+
+    /**
+     * Gets the format this codec writes, reading works out the format from each line
+     */
+    public int getFormat() { return format; }
+
+    // ------------------------------------------------------------------ writing
+
+    /**
+     * Sets the channel that the write methods go to
+     */
+    public void writeTo(ExportChannel_sec33_gr3 out) { this.out = out; }
+
+    /**
+     * Writes the user record, always the first line of an export
+     */
+    public void writeUser(User_sec33_gr_3 user) throws IOException {
+        begin(USER);
+        text(USER_FIELDS[0], user.getName());
+        date(USER_FIELDS[1], user.getJoinDate());
+        end();
+    }
+
+    /**
+     * Writes one activity of any type with all of its fields
+     */
+    public void writeActivity(WellnessActivity_sec33_gr3 a) throws IOException {
+        String kind = activityKind(a);
+        begin(kind);
+        activityFields(a, fieldsOf(kind));
+        end();
+    }
+
+    /**
+     * Writes a recurring activity as one record, the schedule and then every field of the activity it repeats
+     * Skipped days all go in one field separated by ';'
+     */
+    public void writeTemplate(RecurringTemplate_sec33_gr3 t) throws IOException {
+        WellnessActivity_sec33_gr3 a = t.getPrototype();
+        String kind = activityKind(a);
+        begin(RECURRING);
+        number(RECURRING_FIELDS[0], t.getEveryDays());
+        date(RECURRING_FIELDS[1], t.getUntil());
+        StringBuilder skipped = new StringBuilder();
+        for (LocalDate day : t.getSkippedDays()) {
+            if (skipped.length() > 0) skipped.append(';');
+            skipped.append(day);
+        }
+        text(RECURRING_FIELDS[2], skipped.toString());
+        text(RECURRING_FIELDS[3], kind);
+        activityFields(a, fieldsOf(kind));
+        end();
+    }
+
+    private static String activityKind(WellnessActivity_sec33_gr3 a) {
+        if (a instanceof Sleep_sec33_gr_3) return SLEEP;
+        if (a instanceof Meditation_sec33_gr3) return MEDITATION;
+        if (a instanceof Journaling_sec33_gr3) return JOURNAL;
+        if (a instanceof ScreenTime_sec33_gr3) return SCREEN;
+        throw new IllegalArgumentException("Unknown activity type: " + a.getActivityType());
+    }
+
+    private void activityFields(WellnessActivity_sec33_gr3 a, String[] fields) throws IOException {
+        number(fields[0], a.getActivityId());
+        date(fields[1], a.getDate());
+        decimal(fields[2], a.getDuration());
+        text(fields[3], a.getNotes());
+        if (a instanceof Sleep_sec33_gr_3) {
+            Sleep_sec33_gr_3 s = (Sleep_sec33_gr_3) a;
+            number(fields[4], s.getQuality());
+            time(fields[5], s.getBedtime());
+            time(fields[6], s.getWakeTime());
+            bool(fields[7], s.hadNightmares());
+        } else if (a instanceof Meditation_sec33_gr3) {
+            Meditation_sec33_gr3 m = (Meditation_sec33_gr3) a;
+            text(fields[4], m.getMeditationType());
+            text(fields[5], m.getFocusArea());
+            number(fields[6], m.getDistractionCount());
+            bool(fields[7], m.isCompletedSession());
+        } else if (a instanceof Journaling_sec33_gr3) {
+            Journaling_sec33_gr3 j = (Journaling_sec33_gr3) a;
+            number(fields[4], j.getMoodBefore());
+            number(fields[5], j.getMoodAfter());
+            number(fields[6], j.getWordCount());
+            text(fields[7], j.getJournalTheme());
+            bool(fields[8], j.feltBeneficial());
+        } else {
+            ScreenTime_sec33_gr3 s = (ScreenTime_sec33_gr3) a;
+            text(fields[4], s.getDeviceType());
+            text(fields[5], s.getPurpose());
+            number(fields[6], s.getBreaksTaken());
+            bool(fields[7], s.causedEyeStrain());
+            bool(fields[8], s.usedBlueLightFilter());
+        }
+    }
+
+    /**
+     * Writes one mood/stress entry
+     */
+    public void writeMood(MoodStressEntry_sec33_gr3 m) throws IOException {
+        begin(MOOD);
+        date(MOOD_FIELDS[0], m.getDate());
+        number(MOOD_FIELDS[1], m.getMoodLevel());
+        number(MOOD_FIELDS[2], m.getStressLevel());
+        text(MOOD_FIELDS[3], m.getMoodTags());
+        text(MOOD_FIELDS[4], m.getStressTriggers());
+        text(MOOD_FIELDS[5], m.getNotes());
+        end();
+    }
+
+    /**
+     * Writes one wellness goal including its current progress
+     */
+    public void writeGoal(WellnessGoal_sec33_gr3 g) throws IOException {
+        begin(GOAL);
+        text(GOAL_FIELDS[0], g.getGoalType());
+        decimal(GOAL_FIELDS[1], g.getTargetValue());
+        decimal(GOAL_FIELDS[2], g.getCurrentProgress());
+        date(GOAL_FIELDS[3], g.getStartDate());
+        date(GOAL_FIELDS[4], g.getEndDate());
+        text(GOAL_FIELDS[5], g.getDescription());
+        end();
+    }
+
+    private void begin(String kind) throws IOException {
+        if (format == CSV) {
+            out.writeAscii(kind);
+        } else {
+            out.writeAscii("{\"kind\":\"");
+            out.writeAscii(kind);
+            out.writeByte('"');
+        }
+    }
+
+    private void end() throws IOException {
+        if (format == JSONL) out.writeByte('}');
+        out.writeByte('\n');
+    }
+
+    private void key(String name) throws IOException {
+        out.writeByte(',');
+        if (format == JSONL) {
+            out.writeByte('"');
+            out.writeAscii(name);
+            out.writeAscii("\":");
+        }
+    }
+
+    private void number(String name, long value) throws IOException {
+        key(name);
+        out.writeLong(value);
+    }
+
+    private void decimal(String name, double value) throws IOException {
+        key(name);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // JSON has no NaN, these never pass validation anyway
+            if (format == JSONL) out.writeAscii("null");
+            return;
+        }
+        out.writeDouble(value);
+    }
+
+    private void bool(String name, boolean value) throws IOException {
+        key(name);
+        out.writeAscii(value ? "true" : "false");
+    }
+
+    private void date(String name, LocalDate value) throws IOException {
+        key(name);
+        if (value == null) {
+            if (format == JSONL) out.writeAscii("null");
+            return;
+        }
+        if (format == JSONL) out.writeByte('"');
+        out.writeDate(value);
+        if (format == JSONL) out.writeByte('"');
+    }
+
+    private void time(String name, LocalTime value) throws IOException {
+        key(name);
+        if (value == null) {
+            if (format == JSONL) out.writeAscii("null");
+            return;
+        }
+        if (format == JSONL) out.writeByte('"');
+        out.writeTime(value);
+        if (format == JSONL) out.writeByte('"');
+    }
+
+    /**
+     * Writes free text, quoted only when needed in CSV and always quoted and escaped in JSON
+     * null is written as an empty CSV field or JSON null
+     */
+    private void text(String name, String value) throws IOException {
+        key(name);
+        if (value == null) {
+            if (format == JSONL) out.writeAscii("null");
+            return;
+        }
+        int length = value.length();
+        if (format == CSV) {
+            boolean quote = false;
+            for (int i = 0; i < length && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (length > 0 && (value.charAt(0) <= ' ' || value.charAt(length - 1) <= ' ')) quote = true;
+            if (quote) out.writeByte('"');
+            for (int i = 0; i < length; ) {
+                if (value.charAt(i) == '"') out.writeByte('"');
+                i += out.writeChar(value, i);
+            }
+            if (quote) out.writeByte('"');
+            return;
+        }
+        out.writeByte('"');
+        for (int i = 0; i < length; ) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.writeByte('\\');
+                out.writeByte(c);
+                i++;
+            } else if (c == '\n') {
+                out.writeAscii("\\n");
+                i++;
+            } else if (c == '\r') {
+                out.writeAscii("\\r");
+                i++;
+            } else if (c == '\t') {
+                out.writeAscii("\\t");
+                i++;
+            } else if (c < 0x20) {
+                out.writeAscii("\\u00");
+                out.writeByte(Character.forDigit(c >> 4, 16));
+                out.writeByte(Character.forDigit(c & 0xF, 16));
+                i++;
+            } else {
+                i += out.writeChar(value, i);
+            }
+        }
+        out.writeByte('"');
+    }
+
+    // ------------------------------------------------------------------ reading
+
+    /**
+     * Checks if a CSV line is not finished because a quoted field goes on to the next line
+     * The importer joins the next line on with a '\n' and tries again
+     */
+    public static boolean hasOpenQuote(char[] buf, int from, int to) {
+        boolean inQuotes = false;
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '"') inQuotes = !inQuotes; // "" inside quotes flips twice, so it works out
+        }
+        return inQuotes;
+    }
+
+    /**
+     * Gets the message for the last record that failed to decode
+     */
+    public String getError() { return error; }
+
+    /**
+     * Gets the id the file gave the last decoded activity
+     * The activity itself gets a new id when its created, the importer decides which one to keep
+     */
+    public int getRecordId() { return recordId; }
+
+    /**
+     * Decodes one line into a model object without adding it anywhere
+     * Lines starting with '{' are read as JSON and anything else as CSV, so either format can be read
+     * Activities get a new id, the one from the file is in getRecordId(), a user record comes back as a User with no data
+     * A recurring record comes back as a RecurringTemplate_sec33_gr3, getRecordId() is the id of the activity it repeats
+     * Returns null with getError() set if the line is not a valid record
+     */
+    public Object decode(char[] buf, int from, int to) {
+        error = null;
+        scratchLength = 0;
+        count = 0;
+        boolean json = to > from && buf[from] == '{';
+        if (!(json ? splitJson(buf, from, to) : splitCsv(buf, from, to))) return null;
+        String[] fields;
+        String kind;
+        int schedule = -1; // slot of the first RECURRING_FIELDS value, only for recurring records
+        if (json) {
+            int k = findKey("kind");
+            if (k < 0 || valueStart[k] < 0) return fail("Missing record kind");
+            kind = kindOf(valueStart[k], valueEnd[k]);
+            if (kind == null) return fail("Unknown record kind: " + new String(scratch, valueStart[k], valueEnd[k] - valueStart[k]));
+            if (kind == RECURRING) {
+                k = findKey(RECURRING_FIELDS[3]);
+                kind = k < 0 || valueStart[k] < 0 ? null : activityKindOf(valueStart[k], valueEnd[k]);
+                if (kind == null) return fail("Recurring record has no activity kind");
+                schedule = fieldsOf(kind).length;
+                jsonSlots(RECURRING_FIELDS, schedule);
+            }
+            fields = fieldsOf(kind);
+            jsonSlots(fields, 0);
+        } else {
+            kind = kindOf(valueStart[0], valueEnd[0]);
+            if (kind == null) return fail("Unknown record kind: " + new String(scratch, valueStart[0], valueEnd[0] - valueStart[0]));
+            int first = 1; // value of the first field
+            if (kind == RECURRING) {
+                if (count <= RECURRING_FIELDS.length) {
+                    return fail("Expected at least " + RECURRING_FIELDS.length + " fields for " + kind + " but found " + (count - 1));
+                }
+                kind = activityKindOf(valueStart[RECURRING_FIELDS.length], valueEnd[RECURRING_FIELDS.length]);
+                if (kind == null) return fail("Recurring record has no activity kind");
+                schedule = fieldsOf(kind).length;
+                csvSlots(first, RECURRING_FIELDS.length, schedule);
+                first += RECURRING_FIELDS.length;
+            }
+            fields = fieldsOf(kind);
+            if (count - first != fields.length) {
+                return fail("Expected " + (first - 1 + fields.length) + " fields for " + (schedule < 0 ? "" : "recurring ")
+                        + kind + " but found " + (count - 1));
+            }
+            csvSlots(first, fields.length, 0);
+        }
+        Object record = build(kind, fields);
+        return schedule < 0 || record == null ? record : buildTemplate((WellnessActivity_sec33_gr3) record, schedule);
+    }
+
+    /**
+     * Puts the JSON values of the fields into the slots from first on, a missing key is an empty slot
+     */
+    private void jsonSlots(String[] fields, int first) {
+        for (int i = 0; i < fields.length; i++) {
+            int k = findKey(fields[i]);
+            slotStart[first + i] = k < 0 ? -1 : valueStart[k];
+            slotEnd[first + i] = k < 0 ? -1 : valueEnd[k];
+        }
+    }
+
+    /**
+     * Puts length CSV values starting at value into the slots from first on
+     */
+    private void csvSlots(int value, int length, int first) {
+        for (int i = 0; i < length; i++) {
+            slotStart[first + i] = valueStart[value + i];
+            slotEnd[first + i] = valueEnd[value + i];
+        }
+    }
+
+    /**
+     * Makes the recurring activity around the activity that was just built, its schedule is in the slots from first on
+     */
+    private Object buildTemplate(WellnessActivity_sec33_gr3 activity, int first) {
+        long every = intSlot(first);
+        if (every == CharParse_sec33_gr3.INVALID_INT || every < 1 || every > Integer.MAX_VALUE) {
+            return fail("Bad every in recurring record");
+        }
+        LocalDate until = dateSlot(first + 1);
+        if (until == null && slotStart[first + 1] >= 0 && slotEnd[first + 1] > slotStart[first + 1]) {
+            return fail("Bad until in recurring record");
+        }
+        if (until != null && until.isBefore(activity.getDate())) {
+            return fail("Recurring record ends before it starts");
+        }
+        RecurringTemplate_sec33_gr3 template = new RecurringTemplate_sec33_gr3(activity, (int) every, until);
+        String skipped = string(first + 2);
+        for (int start = 0; start < skipped.length(); ) {
+            int end = skipped.indexOf(';', start);
+            if (end < 0) end = skipped.length();
+            LocalDate day;
+            try {
+                day = LocalDate.parse(skipped.substring(start, end));
+            } catch (DateTimeParseException ex) {
+                return fail("Bad skipped day in recurring record: " + skipped.substring(start, end));
+            }
+            if (!template.occursOn(day, LocalDate.MAX)) {
+                return fail("Skipped day " + day + " isnt on the recurring schedule");
+            }
+            template.skip(day, LocalDate.MAX);
+            start = end + 1;
+        }
+        return template;
+    }
+
+    /**
+     * Makes the model object from the slots, validating everything without exceptions
+     */
+    private Object build(String kind, String[] fields) {
+        if (kind == USER) {
+            User_sec33_gr_3 user = new User_sec33_gr_3(string(0));
+            LocalDate joined = dateSlot(1);
+            if (joined != null) user.restoreJoinDate(joined);
+            return user;
+        }
+        if (kind == MOOD) {
+            LocalDate date = dateSlot(0);
+            long mood = intSlot(1);
+            long stress = intSlot(2);
+            if (date == null || mood == CharParse_sec33_gr3.INVALID_INT || stress == CharParse_sec33_gr3.INVALID_INT) {
+                return fail("Bad date or level in mood record");
+            }
+            int code = MoodStressEntry_sec33_gr3.validate((int) mood, (int) stress);
+            if (code != ValidationResult_sec33_gr3.OK) return fail(ValidationResult_sec33_gr3.describe(code));
+            return new MoodStressEntry_sec33_gr3(date, (int) mood, (int) stress, string(3), string(4), string(5));
+        }
+        if (kind == GOAL) {
+            String type = string(0);
+            double target = doubleSlot(1);
+            double progress = doubleSlot(2);
+            if (Double.isNaN(progress)) progress = 0;
+            int code = WellnessGoal_sec33_gr3.validate(type, target);
+            if (code != ValidationResult_sec33_gr3.OK) return fail(ValidationResult_sec33_gr3.describe(code));
+            WellnessGoal_sec33_gr3 goal = new WellnessGoal_sec33_gr3(type, target, dateSlot(3), dateSlot(4), string(5));
+            goal.setCurrentProgress(progress);
+            return goal;
+        }
+
+        // activities - shared fields first
+        long id = intSlot(0);
+        LocalDate date = dateSlot(1);
+        double duration = doubleSlot(2);
+        if (id == CharParse_sec33_gr3.INVALID_INT || date == null || Double.isNaN(duration)) {
+            return fail("Bad id, date or duration in " + kind + " record");
+        }
+        String notes = string(3);
+        WellnessActivity_sec33_gr3 activity;
+        if (kind == SLEEP) {
+            long quality = intSlot(4);
+            if (quality == CharParse_sec33_gr3.INVALID_INT) return fail("Bad quality in sleep record");
+            activity = Sleep_sec33_gr_3.tryCreate(date, duration, notes, (int) quality,
+                    timeSlot(5), timeSlot(6), boolSlot(7));
+        } else if (kind == MEDITATION) {
+            long distractions = intSlot(6);
+            if (distractions == CharParse_sec33_gr3.INVALID_INT) return fail("Bad distractions in meditation record");
+            activity = Meditation_sec33_gr3.tryCreate(date, duration, notes, string(4), string(5),
+                    (int) distractions, boolSlot(7));
+        } else if (kind == JOURNAL) {
+            long before = intSlot(4);
+            long after = intSlot(5);
+            long words = intSlot(6);
+            if (before == CharParse_sec33_gr3.INVALID_INT || after == CharParse_sec33_gr3.INVALID_INT
+                    || words == CharParse_sec33_gr3.INVALID_INT) {
+                return fail("Bad mood or word count in journal record");
+            }
+            int code = Journaling_sec33_gr3.validate(duration, (int) before, (int) after);
+            if (code != ValidationResult_sec33_gr3.OK) return fail(ValidationResult_sec33_gr3.describe(code));
+            activity = Journaling_sec33_gr3.tryCreate(date, duration, notes, (int) before, (int) after,
+                    (int) words, string(7), boolSlot(8));
+        } else {
+            long breaks = intSlot(6);
+            if (breaks == CharParse_sec33_gr3.INVALID_INT) return fail("Bad breaks in screen record");
+            ScreenTime_sec33_gr3 screen = ScreenTime_sec33_gr3.tryCreate(date, duration, notes, string(4), string(5),
+                    (int) breaks, boolSlot(7));
+            if (screen != null) screen.setUsedBlueLightFilter(boolSlot(8));
+            activity = screen;
+        }
+        if (activity == null) {
+            return fail("Invalid duration for " + kind + ": " + duration);
+        }
+        recordId = (int) id;
+        return activity;
+    }
+
+    private Object fail(String message) {
+        error = message;
+        return null;
+    }
+
+    private static String kindOf(char[] buf, int from, int to) {
+        if (CharParse_sec33_gr3.equals(buf, from, to, SLEEP)) return SLEEP;
+        if (CharParse_sec33_gr3.equals(buf, from, to, MEDITATION)) return MEDITATION;
+        if (CharParse_sec33_gr3.equals(buf, from, to, JOURNAL)) return JOURNAL;
+        if (CharParse_sec33_gr3.equals(buf, from, to, SCREEN)) return SCREEN;
+        if (CharParse_sec33_gr3.equals(buf, from, to, MOOD)) return MOOD;
+        if (CharParse_sec33_gr3.equals(buf, from, to, GOAL)) return GOAL;
+        if (CharParse_sec33_gr3.equals(buf, from, to, USER)) return USER;
+        if (CharParse_sec33_gr3.equals(buf, from, to, RECURRING)) return RECURRING;
+        return null;
+    }
+
+    /**
+     * Same as kindOf() but only for the four activity kinds, null for anything else
+     */
+    private String activityKindOf(int from, int to) {
+        String kind = kindOf(from, to);
+        return kind == SLEEP || kind == MEDITATION || kind == JOURNAL || kind == SCREEN ? kind : null;
+    }
+
+    private String kindOf(int from, int to) {
+        return kindOf(scratch, from, to);
+    }
+
+    private static String[] fieldsOf(String kind) {
+        switch (kind) {
+            case SLEEP: return SLEEP_FIELDS;
+            case MEDITATION: return MEDITATION_FIELDS;
+            case JOURNAL: return JOURNAL_FIELDS;
+            case SCREEN: return SCREEN_FIELDS;
+            case MOOD: return MOOD_FIELDS;
+            case GOAL: return GOAL_FIELDS;
+            default: return USER_FIELDS;
+        }
+    }
+
+    private int findKey(String name) {
+        for (int i = 0; i < count; i++) {
+            if (CharParse_sec33_gr3.equals(scratch, keyStart[i], keyEnd[i], name)) return i;
+        }
+        return -1;
+    }
+
+    // Slot readers - a missing slot or JSON null reads as null / invalid
+
+    private String string(int slot) {
+        int from = slotStart[slot];
+        if (from < 0) return "";
+        int length = slotEnd[slot] - from;
+        if (length > MAX_CACHED_STRING) return new String(scratch, from, length);
+        // short values like "guided" or "phone" repeat on almost every line, share one String for them
+        int hash = 0;
+        for (int i = from; i < from + length; i++) hash = 31 * hash + scratch[i];
+        int index = (hash ^ (hash >>> 16)) & (stringCache.length - 1);
+        String cached = stringCache[index];
+        if (cached != null && CharParse_sec33_gr3.equals(scratch, from, from + length, cached)) return cached;
+        cached = new String(scratch, from, length);
+        stringCache[index] = cached;
+        return cached;
+    }
+
+    private long intSlot(int slot) {
+        if (slotStart[slot] < 0) return CharParse_sec33_gr3.INVALID_INT;
+        return CharParse_sec33_gr3.parseInt(scratch, slotStart[slot], slotEnd[slot]);
+    }
+
+    private double doubleSlot(int slot) {
+        int from = slotStart[slot];
+        if (from < 0) return Double.NaN;
+        double value = CharParse_sec33_gr3.parseDouble(scratch, from, slotEnd[slot]);
+        if (Double.isNaN(value) && slotEnd[slot] > from) {
+            // exponent form like 1.0E-4 from Double.toString, rare enough to take the slow way
+            try {
+                value = Double.parseDouble(new String(scratch, from, slotEnd[slot] - from));
+            } catch (NumberFormatException ex) {
+                value = Double.NaN;
+            }
+        }
+        return value;
+    }
+
+    private LocalDate dateSlot(int slot) {
+        int from = slotStart[slot];
+        if (from < 0 || from == slotEnd[slot]) return null;
+        // most records share a few hundred dates, so look the text up before making a new LocalDate
+        int key = 0;
+        if (slotEnd[slot] - from == 10) {
+            for (int i = from; i < from + 10 && key >= 0; i++) {
+                char c = scratch[i];
+                if (c >= '0' && c <= '9') {
+                    key = key * 10 + (c - '0');
+                } else if (c != '-' || (i - from != 4 && i - from != 7)) {
+                    key = -1;
+                }
+            }
+        }
+        int index = key > 0 ? (key ^ (key >>> 9)) & (dateCache.length - 1) : -1;
+        if (index >= 0 && dateKeys[index] == key) return dateCache[index];
+        LocalDate date = CharParse_sec33_gr3.parseDate(scratch, from, slotEnd[slot]);
+        if (date != null && index >= 0) {
+            dateKeys[index] = key;
+            dateCache[index] = date;
+        }
+        return date;
+    }
+
+    private LocalTime timeSlot(int slot) {
+        int from = slotStart[slot];
+        if (from < 0 || from == slotEnd[slot]) return null;
+        LocalTime time = CharParse_sec33_gr3.parseTime(scratch, from, slotEnd[slot]);
+        if (time != null && time.getSecond() == 0) {
+            // same idea as dateSlot, there are only 1440 HH:MM times
+            int minute = time.getHour() * 60 + time.getMinute();
+            LocalTime cached = timeCache[minute];
+            if (cached != null) return cached;
+            timeCache[minute] = time;
+        }
+        if (time == null) {
+            try {
+                time = LocalTime.parse(new String(scratch, from, slotEnd[slot] - from)); // has fractions of a second
+            } catch (DateTimeParseException ex) {
+                time = null;
+            }
+        }
+        return time;
+    }
+
+    private boolean boolSlot(int slot) {
+        return slotStart[slot] >= 0 && CharParse_sec33_gr3.equals(scratch, slotStart[slot], slotEnd[slot], "true");
+    }
+
+    // Splitting lines into values
+
+    private void ensureScratch(int extra) {
+        if (scratchLength + extra > scratch.length) {
+            char[] bigger = new char[Math.max(scratch.length * 2, scratchLength + extra)];
+            System.arraycopy(scratch, 0, bigger, 0, scratchLength);
+            scratch = bigger;
+        }
+    }
+
+    /**
+     * Splits a CSV line into values, handling quoted fields and doubled quotes
+     */
+    private boolean splitCsv(char[] buf, int from, int to) {
+        ensureScratch(to - from);
+        int i = from;
+        while (true) {
+            if (count == MAX_FIELDS) {
+                fail("Too many fields");
+                return false;
+            }
+            valueStart[count] = scratchLength;
+            if (i < to && buf[i] == '"') {
+                i++;
+                while (true) {
+                    if (i >= to) {
+                        fail("Unclosed quote");
+                        return false;
+                    }
+                    char c = buf[i++];
+                    if (c == '"') {
+                        if (i < to && buf[i] == '"') {
+                            scratch[scratchLength++] = '"';
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        scratch[scratchLength++] = c;
+                    }
+                }
+                if (i < to && buf[i] != ',') {
+                    fail("Text after closing quote");
+                    return false;
+                }
+            } else {
+                while (i < to && buf[i] != ',') {
+                    scratch[scratchLength++] = buf[i++];
+                }
+            }
+            valueEnd[count++] = scratchLength;
+            if (i >= to) return true;
+            i++; // skip the comma
+        }
+    }
+
+    /**
+     * Splits a flat JSON object into key/value pairs
+     * Only strings, numbers, true/false and null are allowed as values - thats all the exporter writes
+     */
+    private boolean splitJson(char[] buf, int from, int to) {
+        ensureScratch(to - from);
+        int i = skipSpace(buf, from, to);
+        if (i >= to || buf[i] != '{') {
+            fail("Record is not a JSON object");
+            return false;
+        }
+        i = skipSpace(buf, i + 1, to);
+        if (i < to && buf[i] == '}') return true;
+        while (true) {
+            if (count == MAX_FIELDS) {
+                fail("Too many fields");
+                return false;
+            }
+            if (i >= to || buf[i] != '"') {
+                fail("Expected a key");
+                return false;
+            }
+            keyStart[count] = scratchLength;
+            i = jsonString(buf, i + 1, to);
+            if (i < 0) return false;
+            keyEnd[count] = scratchLength;
+            i = skipSpace(buf, i, to);
+            if (i >= to || buf[i] != ':') {
+                fail("Expected ':' after key");
+                return false;
+            }
+            i = skipSpace(buf, i + 1, to);
+            if (i >= to) {
+                fail("Missing value");
+                return false;
+            }
+            if (buf[i] == '"') {
+                valueStart[count] = scratchLength;
+                i = jsonString(buf, i + 1, to);
+                if (i < 0) return false;
+                valueEnd[count] = scratchLength;
+            } else {
+                int start = i;
+                while (i < to && buf[i] != ',' && buf[i] != '}' && buf[i] > ' ') i++;
+                if (CharParse_sec33_gr3.equals(buf, start, i, "null")) {
+                    valueStart[count] = -1;
+                    valueEnd[count] = -1;
+                } else {
+                    valueStart[count] = scratchLength;
+                    System.arraycopy(buf, start, scratch, scratchLength, i - start);
+                    scratchLength += i - start;
+                    valueEnd[count] = scratchLength;
+                }
+            }
+            count++;
+            i = skipSpace(buf, i, to);
+            if (i < to && buf[i] == ',') {
+                i = skipSpace(buf, i + 1, to);
+            } else if (i < to && buf[i] == '}') {
+                return true;
+            } else {
+                fail("Expected ',' or '}'");
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Copies a JSON string body into scratch, unescaping as it goes
+     * Returns the position after the closing quote, or -1 if the string is broken
+     */
+    private int jsonString(char[] buf, int i, int to) {
+        while (i < to) {
+            char c = buf[i++];
+            if (c == '"') return i;
+            if (c != '\\') {
+                scratch[scratchLength++] = c;
+                continue;
+            }
+            if (i >= to) break;
+            char e = buf[i++];
+            switch (e) {
+                case 'n': c = '\n'; break;
+                case 'r': c = '\r'; break;
+                case 't': c = '\t'; break;
+                case 'b': c = '\b'; break;
+                case 'f': c = '\f'; break;
+                case 'u':
+                    if (i + 4 > to) {
+                        fail("Bad \\u escape");
+                        return -1;
+                    }
+                    int code = 0;
+                    for (int k = 0; k < 4; k++) {
+                        int digit = Character.digit(buf[i++], 16);
+                        if (digit < 0) {
+                            fail("Bad \\u escape");
+                            return -1;
+                        }
+                        code = code * 16 + digit;
+                    }
+                    c = (char) code;
+                    break;
+                default: c = e; // \" \\ and \/
+            }
+            scratch[scratchLength++] = c;
+        }
+        fail("Unclosed string");
+        return -1;
+    }
+
+    private static int skipSpace(char[] buf, int i, int to) {
+        while (i < to && buf[i] <= ' ') i++;
+        return i;
+    }
+}
@@ -0,0 +1,217 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * RecurringTemplate class - an activity someone does on a schedule, like a 15 minute guided meditation every day
+ * The activity is stored once and every day it happens is worked out from the dates, so a year of the same
+ * routine costs one template plus the days that were different instead of 365 activities
+ * A day that was skipped, or changed and turned into a normal activity, is kept as an exception
+ *
+ * Only days up to today count, a routine that hasnt reached a day yet didnt happen on it
+ * Concrete activities are only made when something asks for them (queries and editing a day),
+ * they all share the template's ID so they can be found again. Streaks, rollups and reports use the
+ * dates and counts without making any
+ */
+public class RecurringTemplate_sec33_gr3 {
+
+    private final WellnessActivity_sec33_gr3 prototype; // the routine itself, its date is the first day
+    private final int everyDays; // 1 = daily, 7 = weekly
+    private LocalDate until; // last day it happens, null while its still going
+    private final TreeSet<LocalDate> skipped = new TreeSet<>(); // days taken out of the routine
+
+    /**
+     * Creates a routine that repeats the activity every so many days from its date on, until is the
+     * last day or null for no end
+     */
+    public RecurringTemplate_sec33_gr3(WellnessActivity_sec33_gr3 prototype, int everyDays, LocalDate until) {
+        if (prototype == null) {
+            throw new IllegalArgumentException("Recurring activity needs an activity to repeat");
+        }
+        if (everyDays < 1) {
+            throw new IllegalArgumentException("Must repeat every 1 or more days");
+        }
+        if (until != null && until.isBefore(prototype.getDate())) {
+            throw new IllegalArgumentException("Last day cant be before the first day");
+        }
+        this.prototype = prototype;
+        this.everyDays = everyDays;
+        this.until = until;
+    }
+
+    /**
+     * Makes an exact copy, for keeping an old version around like the undo history does
+     * The prototype is shared, nothing ever changes it
+     */
+    RecurringTemplate_sec33_gr3 snapshot() {
+        RecurringTemplate_sec33_gr3 copy = new RecurringTemplate_sec33_gr3(prototype, everyDays, until);
+        copy.skipped.addAll(skipped);
+        return copy;
+    }
+
+    /**
+     * Gets the activity that gets repeated
+     */
+    public WellnessActivity_sec33_gr3 getPrototype() { return prototype; }
+
+    /**
+     * Gets the type of activity, same as getActivityType() on the activity
+     */
+    public String getActivityType() { return prototype.getActivityType(); }
+
+    /**
+     * Gets the first day of the routine
+     */
+    public LocalDate getStartDate() { return prototype.getDate(); }
+
+    /**
+     * Gets how many days apart the activity happens, 1 for every day
+     */
+    public int getEveryDays() { return everyDays; }
+
+    /**
+     * Gets the last day of the routine, null if it has no end
+     */
+    public LocalDate getUntil() { return until; }
+
+    /**
+     * Gets how many days were taken out of the routine
+     */
+    public int getSkippedCount() { return skipped.size(); }
+
+    /**
+     * Gets the days taken out of the routine, oldest first, the set cant be changed
+     */
+    public SortedSet<LocalDate> getSkippedDays() { return Collections.unmodifiableSortedSet(skipped); }
+
+    /**
+     * Ends the routine after lastDay, use User_sec33_gr_3.stopTemplate() so reports see the change
+     */
+    void stop(LocalDate lastDay) {
+        if (lastDay.isBefore(getStartDate())) {
+            throw new IllegalArgumentException("Last day cant be before the first day");
+        }
+        if (until == null || lastDay.isBefore(until)) until = lastDay;
+    }
+
+    /**
+     * Takes one day out of the routine, use User_sec33_gr_3.skipOccurrence() so reports see the change
+     */
+    void skip(LocalDate date, LocalDate today) {
+        if (!occursOn(date, today)) {
+            throw new IllegalArgumentException("Recurring activity doesnt happen on " + date);
+        }
+        skipped.add(date);
+    }
+
+    /**
+     * Checks if the routine happened on a day
+     */
+    public boolean occursOn(LocalDate date, LocalDate today) {
+        LocalDate last = lastDay(today);
+        if (date.isBefore(getStartDate()) || date.isAfter(last)) return false;
+        return (date.toEpochDay() - getStartDate().toEpochDay()) % everyDays == 0 && !skipped.contains(date);
+    }
+
+    /**
+     * Counts the days the routine happened between two dates, both included
+     * Works it out from the dates, so a long range costs the same as a short one
+     */
+    public int countBetween(LocalDate from, LocalDate to, LocalDate today) {
+        LocalDate first = from == null || from.isBefore(getStartDate()) ? getStartDate() : from;
+        LocalDate last = lastDay(today);
+        if (to != null && to.isBefore(last)) last = to;
+        if (last.isBefore(first)) return 0;
+        long start = getStartDate().toEpochDay();
+        long firstOffset = (first.toEpochDay() - start + everyDays - 1) / everyDays * everyDays; // first day on the schedule
+        long lastOffset = last.toEpochDay() - start;
+        if (firstOffset > lastOffset) return 0;
+        long count = (lastOffset - firstOffset) / everyDays + 1;
+        return (int) (count - skipped.subSet(first, true, last, true).size()); // only days on the schedule get skipped
+    }
+
+    /**
+     * Gets the earliest day from which the routine happened every single day up to date,
+     * or null if it didnt happen on date. Lets a streak jump over a whole run at once
+     */
+    public LocalDate runStart(LocalDate date, LocalDate today) {
+        if (!occursOn(date, today)) return null;
+        if (everyDays > 1) return date; // never two days in a row
+        LocalDate gap = skipped.lower(date);
+        return gap == null || gap.isBefore(getStartDate()) ? getStartDate() : gap.plusDays(1);
+    }
+
+    /**
+     * Makes the concrete activity for one day, it has the template's ID and isnt kept anywhere
+     */
+    public WellnessActivity_sec33_gr3 materialize(LocalDate date) {
+        WellnessActivity_sec33_gr3 activity = prototype.copyOn(date);
+        activity.restoreId(prototype.getActivityId());
+        return activity;
+    }
+
+    /**
+     * Makes the concrete activities for every day the routine happened between two dates, oldest first
+     * Either date can be null for no limit
+     */
+    public List<WellnessActivity_sec33_gr3> materialize(LocalDate from, LocalDate to, LocalDate today) {
+        List<WellnessActivity_sec33_gr3> result = new ArrayList<>();
+        LocalDate first = from == null || from.isBefore(getStartDate()) ? getStartDate() : from;
+        LocalDate last = lastDay(today);
+        if (to != null && to.isBefore(last)) last = to;
+        long start = getStartDate().toEpochDay();
+        long offset = (first.toEpochDay() - start + everyDays - 1) / everyDays * everyDays;
+        for (LocalDate day = getStartDate().plusDays(offset); !day.isAfter(last); day = day.plusDays(everyDays)) {
+            if (!skipped.contains(day)) result.add(materialize(day));
+        }
+        return result;
+    }
+
+    /**
+     * Checks if an activity is one of this routine's days, made by materialize()
+     */
+    public boolean isOccurrence(WellnessActivity_sec33_gr3 activity, LocalDate today) {
+        return activity != prototype && activity.getActivityId() == prototype.getActivityId()
+                && occursOn(activity.getDate(), today);
+    }
+
+    /**
+     * Makes the concrete activities of several routines between two dates, optionally of one type, in date order
+     */
+    public static List<WellnessActivity_sec33_gr3> materialize(List<RecurringTemplate_sec33_gr3> templates, LocalDate from,
+                                                                LocalDate to, String activityType, LocalDate today) {
+        List<WellnessActivity_sec33_gr3> result = new ArrayList<>();
+        for (RecurringTemplate_sec33_gr3 template : templates) {
+            if (activityType == null || activityType.equals(template.getActivityType())) {
+                result.addAll(template.materialize(from, to, today));
+            }
+        }
+        if (templates.size() > 1) result.sort(Comparator.comparing(WellnessActivity_sec33_gr3::getDate)); // stable, keeps template order on a day
+        return result;
+    }
+
+    private LocalDate lastDay(LocalDate today) {
+        return until != null && until.isBefore(today) ? until : today;
+    }
+
+    /**
+     * Writes the routine as one line - how often, from when, until when and the activity details
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("Recurring ");
+        if (everyDays == 1) sb.append("every day"); else sb.append("every ").append(everyDays).append(" days");
+        TextFormat_sec33_gr3.appendDate(sb.append(" from "), getStartDate());
+        if (until != null) TextFormat_sec33_gr3.appendDate(sb.append(" until "), until);
+        if (!skipped.isEmpty()) sb.append(" (").append(skipped.size()).append(" days skipped)");
+        return prototype.appendTo(sb.append(" | "));
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(192)).toString();
+    }
+}
@@ -0,0 +1,172 @@
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ReportCache class - keeps rendered report sections for recently used users
+ * Each user gets an entry with one piece of text per report section and the section version it was made from,
+ * so after a change only that section is rendered again and the rest is reused as is
+ * Sections are kept already encoded, so reusing one is a single write with no formatting or encoding
+ * Entries are kept least recently used first and the oldest ones are dropped when the total text
+ * gets over the size limit, so the cache can serve many users without growing forever
+ * Safe to share between threads as long as each user is only reported on by one thread at a time
+ */
+public class ReportCache_sec33_gr3 {
+
+    private static final int ENTRY_OVERHEAD = 96 + 16 * User_sec33_gr_3.SECTION_COUNT; // rough bytes for the entry itself
+
+    private final long maxBytes;
+    private final LinkedHashMap<User_sec33_gr_3, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // access order = LRU
+    private long bytes; // estimated size of everything cached, mostly the encoded sections
+    private long reportHits; // whole report reused
+    private long sectionHits; // sections reused
+    private long sectionMisses; // sections rendered
+    private long evictions;
+
+    /**
+     * Creates a cache that holds up to about maxBytes of report text
+     */
+    public ReportCache_sec33_gr3(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * One user's cached report - encoded section text with the section version it was rendered at
+     * Only the thread reporting on that user touches it
+     */
+    static final class Entry {
+        final byte[][] sections = new byte[User_sec33_gr_3.SECTION_COUNT][];
+        final long[] versions = new long[User_sec33_gr_3.SECTION_COUNT];
+        Charset charset; // what the sections are encoded in
+        long version = -1; // user version when every section was last checked
+        long bytes; // what this entry counts for in the cache total
+
+        Entry() {
+            Arrays.fill(versions, -1);
+        }
+
+        /**
+         * Forgets every section if they were encoded in a different charset
+         */
+        void useCharset(Charset wanted) {
+            if (!wanted.equals(charset)) {
+                Arrays.fill(sections, null);
+                Arrays.fill(versions, -1);
+                version = -1;
+                charset = wanted;
+            }
+        }
+
+        /**
+         * Gets a section if it was rendered at the given version, null if its out of date
+         */
+        byte[] section(int section, long sectionVersion) {
+            return versions[section] == sectionVersion ? sections[section] : null;
+        }
+
+        void store(int section, long sectionVersion, byte[] encoded) {
+            sections[section] = encoded;
+            versions[section] = sectionVersion;
+        }
+    }
+
+    /**
+     * Gets the cache entry for a user, making an empty one if needed, and marks it as just used
+     */
+    synchronized Entry entryFor(User_sec33_gr_3 user) {
+        Entry entry = entries.get(user);
+        if (entry == null) {
+            entry = new Entry();
+            entry.bytes = ENTRY_OVERHEAD;
+            bytes += entry.bytes;
+            entries.put(user, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Records how a report went and the entry's new size, then drops old entries until under the limit
+     * An entry bigger than the whole limit is not kept at all
+     */
+    synchronized void finished(User_sec33_gr_3 user, Entry entry, boolean reportHit, int reused, int rendered) {
+        if (reportHit) reportHits++;
+        sectionHits += reused;
+        sectionMisses += rendered;
+        long size = ENTRY_OVERHEAD;
+        for (byte[] section : entry.sections) {
+            if (section != null) size += 16 + section.length;
+        }
+        if (entries.get(user) == entry) {
+            bytes += size - entry.bytes;
+        }
+        entry.bytes = size;
+        if (size > maxBytes) {
+            remove(user, entry);
+            return;
+        }
+        Iterator<Map.Entry<User_sec33_gr_3, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<User_sec33_gr_3, Entry> eldest = it.next();
+            if (eldest.getValue() == entry) continue; // keep the one we just made
+            bytes -= eldest.getValue().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(User_sec33_gr_3 user, Entry entry) {
+        if (entries.get(user) == entry) {
+            entries.remove(user);
+            bytes -= entry.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops everything
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Gets how many users have a cached report
+     */
+    public synchronized int size() { return entries.size(); }
+
+    /**
+     * Gets the estimated size of all the cached text in bytes
+     */
+    public synchronized long getBytes() { return bytes; }
+
+    /**
+     * Gets the most bytes the cache will hold
+     */
+    public long getMaxBytes() { return maxBytes; }
+
+    /**
+     * Gets how many reports were served without rendering anything
+     */
+    public synchronized long getReportHits() { return reportHits; }
+
+    /**
+     * Gets how many sections were reused from the cache
+     */
+    public synchronized long getSectionHits() { return sectionHits; }
+
+    /**
+     * Gets how many sections had to be rendered
+     */
+    public synchronized long getSectionMisses() { return sectionMisses; }
+
+    /**
+     * Gets how many users were dropped to stay under the size limit
+     */
+    public synchronized long getEvictions() { return evictions; }
+}
@@ -0,0 +1,431 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ReportRenderer class - builds the wellness report and progress dashboard text
+ * Everything is appended into the ReportWriter's StringBuilder with appendTo() methods,
+ * no String.format and no println per line, and each section is written out in one go
+ * Output is exactly the same text the menu used to print line by line
+ */
+public class ReportRenderer_sec33_gr3 {
+
+    private static final String BULLET = "• ";
+    private static final String NEW_LINE = ReportWriter_sec33_gr3.NEW_LINE;
+    private static final int PARALLEL_THRESHOLD = 4096; // items to render before using the pool is worth it
+    private static final int CHUNK_ITEMS = 2048; // items formatted by one chunk task, or written in one go when not caching
+    private static final int MIN_ITEM_BYTES = 64; // no item line is shorter than this, used to spot sections too big to cache
+
+    // Section layout, indexed by the User_sec33_gr_3.SECTION_ constants
+    private static final String[] ACTIVITY_TYPES = {"Sleep", "Meditation", "Journaling", "ScreenTime"};
+    private static final String[] TITLES = {"--- SLEEP ACTIVITIES ---", "--- MEDITATION ACTIVITIES ---",
+            "--- JOURNALING ACTIVITIES ---", "--- SCREEN TIME ACTIVITIES ---", "--- MOOD/STRESS ENTRIES ---", "--- WELLNESS GOALS ---"};
+    private static final String[] EMPTY_MESSAGES = {"No sleep activities logged.", "No meditation activities logged.",
+            "No journaling activities logged.", "No screen time activities logged.", null, null}; // null = leave the section out
+
+    // Static helper class, no instances needed
+    private ReportRenderer_sec33_gr3() { }
+
+    /**
+     * Writes the full wellness report - every activity grouped by type, then mood entries and goals
+     * Used by menu option 6
+     */
+    public static void renderReport(User_sec33_gr_3 user, ReportWriter_sec33_gr3 out) {
+        renderReport(user, out, null, null);
+    }
+
+    /**
+     * Writes the full wellness report, reusing sections from the cache when they havent changed
+     * Only the sections whose data changed since the last report for this user are rendered again,
+     * and if nothing changed at all the whole report is written straight from the cache's bytes
+     * A null cache renders everything straight into the writer
+     */
+    public static void renderReport(User_sec33_gr_3 user, ReportWriter_sec33_gr3 out, ReportCache_sec33_gr3 cache) {
+        renderReport(user, out, cache, null);
+    }
+
+    /**
+     * Writes the full wellness report, rendering the sections that need it in parallel on the pool
+     * Each section is its own task and big sections are split into chunks of items that are formatted
+     * at the same time and joined back in order, so the output is exactly the same as rendering in order
+     * Small reports and a null pool are rendered on this thread, forking them costs more than it saves
+     */
+    public static void renderReport(User_sec33_gr_3 user, ReportWriter_sec33_gr3 out,
+                                    ReportCache_sec33_gr3 cache, ForkJoinPool pool) {
+        JfrEvents_sec33_gr3.ReportEvent event = new JfrEvents_sec33_gr3.ReportEvent();
+        event.begin();
+        long bytesBefore = out.getBytesWritten();
+        out.line("-- Generate Wellness Reports --");
+
+        if (user.getActivities().isEmpty() && user.getTemplates().isEmpty()) {
+            out.line("No activities logged yet.");
+            out.flushSection();
+            return;
+        }
+
+        out.line("=== ACTIVITY SUMMARIES ===\n");
+        out.flushSection();
+
+        ReportCache_sec33_gr3.Entry entry = null;
+        boolean reportHit = false;
+        if (cache != null) {
+            entry = cache.entryFor(user);
+            entry.useCharset(out.getCharset());
+            reportHit = entry.version == user.getVersion();
+        }
+
+        // work out which sections need rendering and how much is in them
+        byte[][] cached = new byte[User_sec33_gr_3.SECTION_COUNT][];
+        int items = 0;
+        for (int section = 0; section < User_sec33_gr_3.SECTION_COUNT; section++) {
+            if (entry != null) cached[section] = entry.section(section, user.getSectionVersion(section));
+            if (cached[section] == null) items += sectionItems(user, section).size();
+        }
+        SectionTask[] tasks = null;
+        if (pool != null && items >= PARALLEL_THRESHOLD && splitsCleanly(out.getCharset())) {
+            tasks = new SectionTask[User_sec33_gr_3.SECTION_COUNT];
+            for (int section = 0; section < tasks.length; section++) {
+                if (cached[section] == null) tasks[section] = new SectionTask(user, section, out.getCharset());
+            }
+            pool.invoke(new AllSections(tasks));
+        }
+
+        int reused = 0;
+        int rendered = 0;
+        StringBuilder sb = null;
+        JfrEvents_sec33_gr3.GoalEvaluationEvent goalEvent = new JfrEvents_sec33_gr3.GoalEvaluationEvent();
+        for (int section = 0; section < User_sec33_gr_3.SECTION_COUNT; section++) {
+            if (section == User_sec33_gr_3.SECTION_GOALS) goalEvent.begin(); // goals are last, the event ends after the loop
+            if (cached[section] != null) {
+                out.writeEncoded(cached[section]);
+                reused++;
+                continue;
+            }
+            rendered++;
+            boolean keep = entry != null && fitsInCache(cache, user, section);
+            if (tasks != null) {
+                byte[][] parts = tasks[section].join();
+                if (!keep) {
+                    for (byte[] part : parts) out.writeEncoded(part);
+                    continue;
+                }
+                byte[] encoded = join(parts);
+                entry.store(section, user.getSectionVersion(section), encoded);
+                out.writeEncoded(encoded);
+            } else if (!keep) {
+                streamSection(user, section, out);
+            } else {
+                if (sb == null) sb = new StringBuilder(); else sb.setLength(0);
+                appendSection(user, section, sb);
+                byte[] encoded = out.encode(sb);
+                entry.store(section, user.getSectionVersion(section), encoded);
+                out.writeEncoded(encoded);
+            }
+        }
+        goalEvent.end();
+        if (cached[User_sec33_gr_3.SECTION_GOALS] == null) commitGoals(goalEvent, user, "report");
+        if (entry != null) {
+            entry.version = user.getVersion();
+            cache.finished(user, entry, reportHit, reused, rendered);
+        }
+        if (event.shouldCommit()) {
+            event.user = user.getName();
+            event.activityCount = user.getActivities().size();
+            event.sectionsRendered = rendered;
+            event.sectionsReused = reused;
+            event.bytesWritten = out.getBytesWritten() - bytesBefore;
+            event.parallel = tasks != null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Fills in and commits a goal evaluation event if a recording wants it
+     */
+    private static void commitGoals(JfrEvents_sec33_gr3.GoalEvaluationEvent event, User_sec33_gr_3 user, String view) {
+        if (!event.shouldCommit()) return;
+        event.user = user.getName();
+        event.view = view;
+        event.goalCount = user.getWellnessGoals().size();
+        for (WellnessGoal_sec33_gr3 goal : user.getWellnessGoals()) {
+            if (goal.isCompleted()) event.completedCount++;
+        }
+        event.commit();
+    }
+
+    /**
+     * Gets what one section lists - that type's activities (already kept apart by the timeline),
+     * the mood entries or the goals
+     */
+    static List<?> sectionItems(User_sec33_gr_3 user, int section) {
+        if (section < ACTIVITY_TYPES.length) return user.getActivities().ofType(ACTIVITY_TYPES[section]);
+        if (section == User_sec33_gr_3.SECTION_MOOD) return user.getMoodStressEntries();
+        if (section == User_sec33_gr_3.SECTION_GOALS) return user.getWellnessGoals();
+        throw new IllegalArgumentException("Unknown report section: " + section);
+    }
+
+    /**
+     * Appends one section of the report
+     */
+    static void appendSection(User_sec33_gr_3 user, int section, StringBuilder sb) {
+        List<?> items = sectionItems(user, section);
+        if (appendSectionStart(section, items, sb)) {
+            appendItems(items, 0, items.size(), sb);
+            appendSectionEnd(user, section, items, sb);
+        }
+    }
+
+    /**
+     * Writes one section straight out a chunk of items at a time, so a huge history never has
+     * the whole section in memory at once
+     */
+    private static void streamSection(User_sec33_gr_3 user, int section, ReportWriter_sec33_gr3 out) {
+        List<?> items = sectionItems(user, section);
+        if (appendSectionStart(section, items, out.text())) {
+            for (int from = 0; from < items.size(); from += CHUNK_ITEMS) {
+                appendItems(items, from, Math.min(items.size(), from + CHUNK_ITEMS), out.text());
+                out.flushSection();
+            }
+            appendSectionEnd(user, section, items, out.text());
+        }
+        out.flushSection();
+    }
+
+    /**
+     * Checks if a section could fit in the cache at all, if not there is no point keeping a copy of it
+     */
+    private static boolean fitsInCache(ReportCache_sec33_gr3 cache, User_sec33_gr_3 user, int section) {
+        return (long) sectionItems(user, section).size() * MIN_ITEM_BYTES <= cache.getMaxBytes();
+    }
+
+    /**
+     * Appends a section's title, returns false if the section is left out
+     * Activity sections are always shown, mood and goals are left out completely when there are none
+     */
+    private static boolean appendSectionStart(int section, List<?> items, StringBuilder sb) {
+        if (items.isEmpty() && EMPTY_MESSAGES[section] == null) return false;
+        sb.append(TITLES[section]).append(NEW_LINE);
+        return true;
+    }
+
+    /**
+     * Appends what comes after the item lines - the type's recurring activities, the empty message
+     * if there were none of either and a blank line
+     * A recurring activity is one line however many days it has, its days are never made for the report
+     */
+    private static void appendSectionEnd(User_sec33_gr_3 user, int section, List<?> items, StringBuilder sb) {
+        boolean recurring = false;
+        if (section < ACTIVITY_TYPES.length) {
+            for (RecurringTemplate_sec33_gr3 template : user.getTemplates()) {
+                if (!template.getActivityType().equals(ACTIVITY_TYPES[section])) continue;
+                template.appendTo(sb.append(BULLET)).append(NEW_LINE);
+                recurring = true;
+            }
+        }
+        if (items.isEmpty() && !recurring) sb.append(EMPTY_MESSAGES[section]).append(NEW_LINE);
+        if (section != User_sec33_gr_3.SECTION_GOALS) sb.append(NEW_LINE); // goals are last, no gap after them
+    }
+
+    /**
+     * Checks if text can be encoded in pieces and joined, true when the encoder has no state to carry over
+     * UTF-8 and the one byte charsets can, something like UTF-16 would put a byte order mark on every piece
+     */
+    private static boolean splitsCleanly(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) || charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+
+    /**
+     * Encodes text on a pool thread, replacing anything the charset cant show like the writer does
+     */
+    private static byte[] encode(CharsetEncoder encoder, StringBuilder sb) {
+        try {
+            char[] chars = new char[sb.length()]; // encoders are much faster on an array than on a CharSequence
+            sb.getChars(0, chars.length, chars, 0);
+            ByteBuffer encoded = encoder.encode(CharBuffer.wrap(chars));
+            byte[] result = new byte[encoded.remaining()];
+            encoded.get(result);
+            return result;
+        } catch (CharacterCodingException ex) {
+            throw new IllegalStateException("Encoder is set to replace bad characters", ex);
+        }
+    }
+
+    private static CharsetEncoder newEncoder(Charset charset) {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private static byte[] join(byte[][] parts) {
+        int length = 0;
+        for (byte[] part : parts) length += part.length;
+        byte[] joined = new byte[length];
+        int at = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, joined, at, part.length);
+            at += part.length;
+        }
+        return joined;
+    }
+
+    /**
+     * Appends a bullet line for each item in a range
+     */
+    private static void appendItems(List<?> items, int from, int to, StringBuilder sb) {
+        for (Object item : items.subList(from, to)) {
+            sb.append(BULLET);
+            if (item instanceof WellnessActivity_sec33_gr3) {
+                ((WellnessActivity_sec33_gr3) item).appendTo(sb);
+            } else if (item instanceof MoodStressEntry_sec33_gr3) {
+                ((MoodStressEntry_sec33_gr3) item).appendTo(sb);
+            } else {
+                ((WellnessGoal_sec33_gr3) item).appendTo(sb);
+            }
+            sb.append(NEW_LINE);
+        }
+    }
+
+    /**
+     * Runs every section task at once and waits for all of them
+     */
+    private static final class AllSections extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient SectionTask[] tasks;
+
+        AllSections(SectionTask[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            List<SectionTask> running = new ArrayList<>();
+            for (SectionTask task : tasks) {
+                if (task != null) running.add(task);
+            }
+            invokeAll(running);
+        }
+    }
+
+    /**
+     * Renders one section as encoded pieces in order - title, chunks of item lines, then the end
+     * Sections with lots of items get one chunk task per CHUNK_ITEMS items
+     */
+    private static final class SectionTask extends RecursiveTask<byte[][]> {
+        private static final long serialVersionUID = 1L;
+        private final transient User_sec33_gr_3 user;
+        private final int section;
+        private final transient Charset charset;
+
+        SectionTask(User_sec33_gr_3 user, int section, Charset charset) {
+            this.user = user;
+            this.section = section;
+            this.charset = charset;
+        }
+
+        @Override
+        protected byte[][] compute() {
+            List<?> items = sectionItems(user, section);
+            CharsetEncoder encoder = newEncoder(charset);
+            StringBuilder sb = new StringBuilder();
+            if (items.size() <= CHUNK_ITEMS) {
+                appendSection(user, section, sb);
+                return new byte[][] {encode(encoder, sb)};
+            }
+            List<ChunkTask> chunks = new ArrayList<>();
+            for (int from = 0; from < items.size(); from += CHUNK_ITEMS) {
+                chunks.add(new ChunkTask(items, from, Math.min(items.size(), from + CHUNK_ITEMS), charset));
+            }
+            invokeAll(chunks);
+            byte[][] parts = new byte[chunks.size() + 2][];
+            appendSectionStart(section, items, sb);
+            parts[0] = encode(encoder, sb);
+            for (int i = 0; i < chunks.size(); i++) {
+                parts[i + 1] = chunks.get(i).join();
+            }
+            sb.setLength(0);
+            appendSectionEnd(user, section, items, sb);
+            parts[parts.length - 1] = encode(encoder, sb);
+            return parts;
+        }
+    }
+
+    /**
+     * Formats and encodes the item lines for one range of a section
+     */
+    private static final class ChunkTask extends RecursiveTask<byte[]> {
+        private static final long serialVersionUID = 1L;
+        private final transient List<?> items;
+        private final int from;
+        private final int to;
+        private final transient Charset charset;
+
+        ChunkTask(List<?> items, int from, int to, Charset charset) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.charset = charset;
+        }
+
+        @Override
+        protected byte[] compute() {
+            StringBuilder sb = new StringBuilder((to - from) * 128);
+            appendItems(items, from, to, sb);
+            return encode(newEncoder(charset), sb);
+        }
+    }
+
+    /**
+     * Writes the progress dashboard - user summary, latest activities, latest moods and goals
+     * Used by menu option 5
+     * The text is kept on the user until something changes, so showing it again is just one write
+     * and building it only reads the user's small recent rings, never the full history
+     */
+    public static void renderDashboard(User_sec33_gr_3 user, ReportWriter_sec33_gr3 out) {
+        StringBuilder sb = out.text();
+        String cached = user.getCachedDashboard();
+        if (cached != null) {
+            sb.append(cached);
+            out.flushSection();
+            return;
+        }
+        int start = sb.length();
+        out.line("-- Wellness Progress --");
+        user.appendTo(sb);
+        out.newLine();
+        out.line("Recent activities:");
+        for (WellnessActivity_sec33_gr3 a : user.getRecentActivities(User_sec33_gr_3.RECENT_COUNT)) {
+            a.appendTo(sb.append("  - "));
+            out.newLine();
+        }
+        out.line("Mood/Stress entries (latest 5):");
+        List<MoodStressEntry_sec33_gr3> entries = user.getRecentMoodEntries();
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            entries.get(i).appendTo(sb.append("  - "));
+            out.newLine();
+        }
+        if (user.getWellnessGoals().isEmpty()) {
+            out.line("No goals set yet.");
+        } else {
+            JfrEvents_sec33_gr3.GoalEvaluationEvent goalEvent = new JfrEvents_sec33_gr3.GoalEvaluationEvent();
+            goalEvent.begin();
+            out.line("Goals:");
+            for (WellnessGoal_sec33_gr3 g : user.getWellnessGoals()) {
+                g.appendTo(sb.append("  - "));
+                out.newLine();
+            }
+            goalEvent.end();
+            commitGoals(goalEvent, user, "dashboard");
+        }
+        user.cacheDashboard(sb.substring(start));
+        out.flushSection();
+    }
+}
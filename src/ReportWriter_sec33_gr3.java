@@ -0,0 +1,207 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ReportWriter class - collects report text in one reused StringBuilder and writes it out per section
+ * Text is encoded into a reused byte buffer and written to a channel, so a whole section
+ * costs one write instead of one System.out.println per line
+ * Works for stdout and for files
+ */
+public class ReportWriter_sec33_gr3 implements Closeable {
+
+    static final String NEW_LINE = System.lineSeparator(); // same line ending println uses
+
+    private final StringBuilder text = new StringBuilder(1 << 16);
+    private final WritableByteChannel channel;
+    private final Flushable flushable; // stream behind the channel that needs flushing, may be null
+    private final boolean closeChannel; // false for stdout, we dont own it
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+    private char[] chars = new char[1 << 16]; // copy of text handed to the encoder
+    private long bytesWritten;
+
+    /**
+     * Creates a report writer over any channel
+     * Characters the charset cant show are replaced with '?', same as System.out does
+     */
+    public ReportWriter_sec33_gr3(WritableByteChannel channel, Flushable flushable, boolean closeChannel, Charset charset) {
+        this.channel = channel;
+        this.flushable = flushable;
+        this.closeChannel = closeChannel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Creates a writer that goes to System.out using the same charset System.out uses
+     * Writes go through System.out itself so they stay in order with normal println calls
+     */
+    public static ReportWriter_sec33_gr3 forStdout() {
+        String encoding = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding"));
+        Charset charset = Charset.defaultCharset();
+        if (encoding != null && Charset.isSupported(encoding)) {
+            charset = Charset.forName(encoding);
+        }
+        return forStream(System.out, charset);
+    }
+
+    /**
+     * Creates a writer that goes through a PrintStream, like a session's in-memory output
+     * charset has to be the one the stream encodes its own text with
+     */
+    public static ReportWriter_sec33_gr3 forStream(PrintStream out, Charset charset) {
+        return new ReportWriter_sec33_gr3(Channels.newChannel(out), out, false, charset);
+    }
+
+    /**
+     * Creates a writer that replaces the given file with the report, encoded as UTF-8
+     */
+    public static ReportWriter_sec33_gr3 forFile(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new ReportWriter_sec33_gr3(channel, null, true, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the builder to append report text into
+     * Nothing is written until flushSection() is called
+     */
+    public StringBuilder text() { return text; }
+
+    /**
+     * Appends a whole line of text plus a line break, like println
+     */
+    public ReportWriter_sec33_gr3 line(String s) {
+        text.append(s).append(NEW_LINE);
+        return this;
+    }
+
+    /**
+     * Ends the current line, like an empty println
+     */
+    public ReportWriter_sec33_gr3 newLine() {
+        text.append(NEW_LINE);
+        return this;
+    }
+
+    /**
+     * Gets the charset the text is encoded with
+     */
+    public Charset getCharset() { return encoder.charset(); }
+
+    /**
+     * Encodes text the same way flushSection() would but keeps the bytes instead of writing them
+     * Used to cache report sections so they dont need encoding again
+     */
+    public byte[] encode(StringBuilder s) {
+        int length = s.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        s.getChars(0, length, chars, 0);
+        try {
+            ByteBuffer encoded = encoder.encode(CharBuffer.wrap(chars, 0, length)); // array backed, much faster to encode
+            byte[] result = new byte[encoded.remaining()];
+            encoded.get(result);
+            return result;
+        } catch (CharacterCodingException ex) {
+            throw new IllegalStateException("Encoder is set to replace bad characters", ex); // cant happen with REPLACE
+        }
+    }
+
+    /**
+     * Writes bytes that were already encoded with this writer's charset, like a cached section
+     * Any text collected so far goes out first so everything stays in order
+     */
+    public void writeEncoded(byte[] data) {
+        flushSection();
+        if (data.length == 0) return;
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            while (in.hasRemaining()) {
+                bytesWritten += channel.write(in);
+            }
+            if (flushable != null) {
+                flushable.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Gets how many bytes have been written so far
+     */
+    public long getBytesWritten() { return bytesWritten; }
+
+    /**
+     * Encodes everything collected so far and writes it out in one go
+     * Called once at the end of every report section
+     */
+    public void flushSection() {
+        int length = text.length();
+        if (length == 0) return;
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        text.getChars(0, length, chars, 0);
+        text.setLength(0);
+        CharBuffer in = CharBuffer.wrap(chars, 0, length);
+        try {
+            encoder.reset();
+            while (true) {
+                CoderResult result = encoder.encode(in, bytes, true);
+                if (result.isUnderflow()) break;
+                drain(); // overflow - buffer full, write it and keep going
+            }
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            drain();
+            if (flushable != null) {
+                flushable.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes out whatever is left and closes the file if we opened one
+     */
+    @Override
+    public void close() throws IOException {
+        flushSection();
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the encoded bytes to the channel and empties the buffer
+     */
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
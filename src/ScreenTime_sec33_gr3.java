@@ -12,6 +12,11 @@ import java.time.LocalDate;
     private int breaksTaken; // how many breaks they took during screen time
     private boolean causedEyeStrain; // did the screen time hurt there eyes
     private boolean usedBlueLightFilter; // did they use blue light protection
+    private static final String[] FIELDS = {"duration", "notes", "deviceType", "purpose", "breaksTaken", "causedEyeStrain", "usedBlueLightFilter"}; // what getFieldNames() gives back
+
+    // Valid duration range in minutes - 1 minute to 24 hours
+    public static final double MIN_DURATION = 1;
+    public static final double MAX_DURATION = 1440;
 
 
 
@@ -30,6 +35,27 @@ import java.time.LocalDate;
         this.usedBlueLightFilter = false; // most people dont use this inicially
     }
 
+    /**
+     * Checks screen time details without creating anything or throwing exceptions
+     * Returns a code from ValidationResult_sec33_gr3
+     */
+    public static int validate(double duration) {
+        return duration >= MIN_DURATION && duration <= MAX_DURATION
+                ? ValidationResult_sec33_gr3.OK : ValidationResult_sec33_gr3.INVALID_DURATION;
+    }
+
+    /**
+     * Creates a screen time activity only if the details are valid
+     * Returns null instead of throwing when validate() fails
+     */
+    public static ScreenTime_sec33_gr3 tryCreate(LocalDate date, double duration, String notes, String deviceType,
+                                                 String purpose, int breaksTaken, boolean causedEyeStrain) {
+        if (validate(duration) != ValidationResult_sec33_gr3.OK) {
+            return null;
+        }
+        return new ScreenTime_sec33_gr3(date, duration, notes, deviceType, purpose, breaksTaken, causedEyeStrain);
+    }
+
     // Getters and Setters section - for accessing and modifying screen time data
 
     /**
@@ -113,6 +139,44 @@ import java.time.LocalDate;
     @Override
     public String getActivityType() { return "ScreenTime"; }
 
+    /**
+     * Returns TYPE_SCREEN_TIME, the index for ScreenTime in per type tables
+     */
+    @Override
+    public int getActivityTypeIndex() { return TYPE_SCREEN_TIME; }
+
+    /**
+     * Makes the same screen time session on another date, with a new ID
+     */
+    @Override
+    public ScreenTime_sec33_gr3 copyOn(LocalDate date) {
+        ScreenTime_sec33_gr3 copy = new ScreenTime_sec33_gr3(date, getDuration(), getNotes(), deviceType, purpose,
+                breaksTaken, causedEyeStrain);
+        copy.usedBlueLightFilter = usedBlueLightFilter;
+        return copy;
+    }
+
+    /**
+     * Gets duration, notes and the screen time fields, see WellnessActivity_sec33_gr3.getFieldNames()
+     */
+    @Override
+    public String[] getFieldNames() { return FIELDS; }
+
+    /**
+     * Gets one field by name, the base class has duration and notes
+     */
+    @Override
+    public Object getFieldValue(String field) {
+        switch (field) {
+            case "deviceType": return deviceType;
+            case "purpose": return purpose;
+            case "breaksTaken": return breaksTaken;
+            case "causedEyeStrain": return causedEyeStrain;
+            case "usedBlueLightFilter": return usedBlueLightFilter;
+            default: return super.getFieldValue(field);
+        }
+    }
+
     /**
      * Calculates overall screen time wellness score
      * Lower screen time is generaly better, but breaks and purpose matter too
@@ -138,7 +202,7 @@ import java.time.LocalDate;
      */
     @Override
     public boolean isValidDuration(double duration) {
-        return duration >= 1 && duration <= 1440; // 1 minute to 24 hours
+        return validate(duration) == ValidationResult_sec33_gr3.OK; // 1 minute to 24 hours
     }
 
     // Trackable interface implementations - required for the tracking system
@@ -155,26 +219,15 @@ import java.time.LocalDate;
     }
 
     /**
-     * Checks if this screen time session meets a wellness goal
-     * Currently only supports screen time limit goals
-     * Returns true if usage stayed under the target limit - lower is better for screen time
-     */
-    @Override
-    public boolean meetsGoal(WellnessGoal_sec33_gr3 goal) {
-        if (goal.getGoalType() == GoalType_sec33_gr3.SCREEN_TIME_LIMIT) {
-            return getDuration() <= goal.getTargetValue(); // Goal is to stay under limit
-        }
-        return false; // wrong goal type or went over limit
-    }
-
-    /**
-     * Creates a nice string representation of the screen time session
+     * Writes a nice string representation of the screen time session
      * Includes all the importent details like device, purpose, breaks, and eye strain
-     * Used when displaying screen time activities to users in lists and reports
+     * Used by toString() and reports when displaying screen time activities to users
      */
     @Override
-    public String toString() {
-        return super.toString() + String.format(" | Device: %s | Purpose: %s | Breaks: %d | Eye Strain: %s",
-                deviceType, purpose, breaksTaken, causedEyeStrain ? "Yes" : "No");
+    public StringBuilder appendTo(StringBuilder sb) {
+        return super.appendTo(sb).append(" | Device: ").append(deviceType)
+                .append(" | Purpose: ").append(purpose)
+                .append(" | Breaks: ").append(breaksTaken)
+                .append(" | Eye Strain: ").append(causedEyeStrain ? "Yes" : "No");
     }
 }
\ No newline at end of file
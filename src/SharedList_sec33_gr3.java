@@ -0,0 +1,158 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * SharedList class - an array list that can hand out a copy of itself in O(1) with share()
+ * The copy and the list keep using the same array until one of them changes, that one copies
+ * the array first (copy on write), so a copy that never changes never costs anything
+ * The user keeps its moods, goals and recurring activities in these so the undo journal can save
+ * and put back a version of them without copying, like ActivityTimeline_sec33_gr3 does for activities
+ * Not thread safe, like the user it belongs to
+ */
+public class SharedList_sec33_gr3<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final Object[] NONE = new Object[0];
+
+    private Object[] items = NONE;
+    private int size;
+    private boolean shared; // items is also used by another list, copy it before writing
+
+    /**
+     * Creates an empty list
+     */
+    public SharedList_sec33_gr3() {
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) items[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E item) {
+        Objects.checkIndex(index, size);
+        own(size);
+        E old = (E) items[index];
+        items[index] = item;
+        return old;
+    }
+
+    @Override
+    public void add(int index, E item) {
+        Objects.checkIndex(index, size + 1);
+        own(size + 1);
+        System.arraycopy(items, index, items, index + 1, size - index);
+        items[index] = item;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        Objects.checkIndex(index, size);
+        own(size);
+        E old = (E) items[index];
+        System.arraycopy(items, index + 1, items, index, size - index - 1);
+        items[--size] = null;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        items = NONE;
+        size = 0;
+        shared = false;
+        modCount++;
+    }
+
+    /**
+     * Removes a whole range with one shift, so subList(from, to).clear() isnt one remove per item
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) return;
+        own(size);
+        System.arraycopy(items, toIndex, items, fromIndex, size - toIndex);
+        int newSize = size - (toIndex - fromIndex);
+        Arrays.fill(items, newSize, size, null);
+        size = newSize;
+        modCount++;
+    }
+
+    /**
+     * Keeps the items that dont match in one pass, like ArrayList does
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test((E) items[i])) kept++;
+        }
+        if (kept == size) return false;
+        Object[] result = kept == 0 ? NONE : new Object[Math.max(kept, 10)];
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if (!filter.test((E) items[i])) result[j++] = items[i];
+        }
+        items = result;
+        size = kept;
+        shared = false;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Gets a copy of the list in O(1), it shares the array with this list until either one changes
+     */
+    public SharedList_sec33_gr3<E> share() {
+        SharedList_sec33_gr3<E> copy = new SharedList_sec33_gr3<>();
+        copy.items = items;
+        copy.size = size;
+        copy.shared = true;
+        shared = true;
+        return copy;
+    }
+
+    /**
+     * Makes this list the same as saved in O(1), saved itself stays as it is
+     * Anyone iterating over this list at the time gets a ConcurrentModificationException, like any other change
+     */
+    public void restore(SharedList_sec33_gr3<E> saved) {
+        SharedList_sec33_gr3<E> copy = saved.share();
+        items = copy.items;
+        size = copy.size;
+        shared = true;
+        modCount++;
+    }
+
+    /**
+     * Checks if this list and other are still using the same array, so they hold the same items
+     */
+    boolean sameAs(SharedList_sec33_gr3<E> other) {
+        return items == other.items && size == other.size;
+    }
+
+    /**
+     * Makes sure the array is this list's own and has room for capacity items
+     */
+    private void own(int capacity) {
+        if (shared) {
+            items = Arrays.copyOf(items, Math.max(capacity + (capacity >> 1), 10));
+            shared = false;
+        } else if (capacity > items.length) {
+            items = Arrays.copyOf(items, Math.max(capacity + (capacity >> 1), 10));
+        }
+    }
+}
@@ -13,6 +13,11 @@ public class Sleep_sec33_gr_3 extends WellnessActivity_sec33_gr3 implements Trac
     private LocalTime bedtime; // when user went to bed
     private LocalTime wakeTime; // when user woke up
     private boolean hadNightmares; // did they have bad dreams
+    private static final String[] FIELDS = {"duration", "notes", "quality", "bedtime", "wakeTime", "hadNightmares"}; // what getFieldNames() gives back
+
+    // Valid duration range in minutes - 1 to 12 hours
+    public static final double MIN_DURATION = 60;
+    public static final double MAX_DURATION = 720;
 
     /**
      * Constructor for creating a new sleep activity
@@ -28,6 +33,27 @@ public class Sleep_sec33_gr_3 extends WellnessActivity_sec33_gr3 implements Trac
         this.hadNightmares = hadNightmares;
     }
 
+    /**
+     * Checks sleep details without creating anything or throwing exceptions
+     * Returns a code from ValidationResult_sec33_gr3, quality is clamped so only duration can fail
+     */
+    public static int validate(double duration) {
+        return duration >= MIN_DURATION && duration <= MAX_DURATION
+                ? ValidationResult_sec33_gr3.OK : ValidationResult_sec33_gr3.INVALID_DURATION;
+    }
+
+    /**
+     * Creates a sleep activity only if the details are valid
+     * Returns null instead of throwing when validate() fails, so bulk loads stay fast
+     */
+    public static Sleep_sec33_gr_3 tryCreate(LocalDate date, double duration, String notes, int quality,
+                                             LocalTime bedtime, LocalTime wakeTime, boolean hadNightmares) {
+        if (validate(duration) != ValidationResult_sec33_gr3.OK) {
+            return null;
+        }
+        return new Sleep_sec33_gr_3(date, duration, notes, quality, bedtime, wakeTime, hadNightmares);
+    }
+
     /**
      * Gets the sleep quality rating
      * Returns a number between 1-10 showing how good the sleep was
@@ -87,6 +113,40 @@ public class Sleep_sec33_gr_3 extends WellnessActivity_sec33_gr3 implements Trac
     @Override
     public String getActivityType() { return "Sleep"; }
 
+    /**
+     * Returns TYPE_SLEEP, the index for Sleep in per type tables
+     */
+    @Override
+    public int getActivityTypeIndex() { return TYPE_SLEEP; }
+
+    /**
+     * Makes the same sleep activity on another date, with a new ID
+     */
+    @Override
+    public Sleep_sec33_gr_3 copyOn(LocalDate date) {
+        return new Sleep_sec33_gr_3(date, getDuration(), getNotes(), quality, bedtime, wakeTime, hadNightmares);
+    }
+
+    /**
+     * Gets duration, notes and the sleep fields, see WellnessActivity_sec33_gr3.getFieldNames()
+     */
+    @Override
+    public String[] getFieldNames() { return FIELDS; }
+
+    /**
+     * Gets one field by name, the base class has duration and notes
+     */
+    @Override
+    public Object getFieldValue(String field) {
+        switch (field) {
+            case "quality": return quality;
+            case "bedtime": return bedtime;
+            case "wakeTime": return wakeTime;
+            case "hadNightmares": return hadNightmares;
+            default: return super.getFieldValue(field);
+        }
+    }
+
     /**
      * Calculates overall sleep progress score
      * Combines duration score and quality score to give final rating
@@ -108,7 +168,7 @@ public class Sleep_sec33_gr_3 extends WellnessActivity_sec33_gr3 implements Trac
      */
     @Override
     public boolean isValidDuration(double duration) {
-        return duration >= 60 && duration <= 720; // 1-12 hours in minutes
+        return validate(duration) == ValidationResult_sec33_gr3.OK; // 1-12 hours in minutes
     }
 
 
@@ -124,26 +184,15 @@ public class Sleep_sec33_gr_3 extends WellnessActivity_sec33_gr3 implements Trac
     }
 
     /**
-     * Checks if this sleep activity meets a wellness goal
-     * Currently only supports sleep hours goals
-     * Returns true if sleep duration meets or exceeds the goal target
-     */
-    @Override
-    public boolean meetsGoal(WellnessGoal_sec33_gr3 goal) {
-        if (goal.getGoalType() == GoalType_sec33_gr3.SLEEP_HOURS) {
-            return (getDuration() / 60.0) >= goal.getTargetValue();
-        }
-        return false; // doesn't meet goal or wrong goal type
-    }
-
-    /**
-     * Creates a nice string representation of the sleep activity
+     * Writes a nice string representation of the sleep activity
      * Includes all the importent details in a readable format
-     * Used when displaying sleep activities to the user
+     * Used by toString() and reports when displaying sleep activities to the user
      */
     @Override
-    public String toString() {
-        return super.toString() + String.format(" | Quality: %d/10 | %s-%s | Nightmares: %s",
-                quality, bedtime, wakeTime, hadNightmares ? "Yes" : "No");
+    public StringBuilder appendTo(StringBuilder sb) {
+        super.appendTo(sb).append(" | Quality: ").append(quality).append("/10 | ");
+        TextFormat_sec33_gr3.appendTime(sb, bedtime).append('-');
+        TextFormat_sec33_gr3.appendTime(sb, wakeTime).append(" | Nightmares: ");
+        return sb.append(hadNightmares ? "Yes" : "No");
     }
 }
\ No newline at end of file
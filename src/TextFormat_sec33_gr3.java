@@ -0,0 +1,71 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * TextFormat class - appends numbers, dates and times to a StringBuilder without String.format
+ * Produces exactly the same text as the String.format patterns used in the toString() methods
+ * Reports call these for every line, so they avoid creating Formatter objects and temp Strings
+ */
+public class TextFormat_sec33_gr3 {
+
+    // Static helper class, no instances needed
+    private TextFormat_sec33_gr3() { }
+
+    /**
+     * Appends a number with one decimal place, same as String.format("%.1f", value)
+     * Java rounds half-up on the shortest decimal form of the double (0.15 prints as 0.2),
+     * so values that land right on a .x5 tie go through BigDecimal to get the same answer
+     */
+    public static StringBuilder appendFixed1(StringBuilder sb, double value) {
+        if (Double.isNaN(value)) return sb.append("NaN");
+        if (Double.isInfinite(value)) return sb.append(value > 0 ? "Infinity" : "-Infinity");
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-'); // includes -0.0, which String.format also prints with a minus
+            value = -value;
+        }
+        double scaled = value * 10;
+        if (scaled < 1e9) {
+            double whole = Math.floor(scaled);
+            double fraction = scaled - whole;
+            if (Math.abs(fraction - 0.5) > 1e-6) {
+                long tenths = (long) whole + (fraction > 0.5 ? 1 : 0);
+                return sb.append(tenths / 10).append('.').append((char) ('0' + tenths % 10));
+            }
+        }
+        // close to a tie or very large - let BigDecimal do the rounding on the shortest decimal form
+        return sb.append(new BigDecimal(Double.toString(value)).setScale(1, RoundingMode.HALF_UP).toPlainString());
+    }
+
+    /**
+     * Appends a date in ISO format like 2025-01-31, same as LocalDate.toString()
+     * Writes the digits directly for normal years, anything unusual falls back to toString()
+     */
+    public static StringBuilder appendDate(StringBuilder sb, LocalDate date) {
+        if (date == null) return sb.append("null");
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) return sb.append(date);
+        sb.append(year).append('-');
+        appendTwoDigits(sb, date.getMonthValue()).append('-');
+        return appendTwoDigits(sb, date.getDayOfMonth());
+    }
+
+    /**
+     * Appends a time like 23:30, same as LocalTime.toString()
+     * Times with seconds or nanos fall back to toString() which adds them
+     */
+    public static StringBuilder appendTime(StringBuilder sb, LocalTime time) {
+        if (time == null) return sb.append("null");
+        if (time.getSecond() != 0 || time.getNano() != 0) return sb.append(time);
+        appendTwoDigits(sb, time.getHour()).append(':');
+        return appendTwoDigits(sb, time.getMinute());
+    }
+
+    /**
+     * Appends a number from 0-99 with a leading zero if needed
+     */
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,474 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UndoJournal class - undo and redo for every change to a user, plus named checkpoints
+ * Keeps what the user has as persistent lists (PersistentList_sec33_gr3) of frozen copies, one version
+ * per change, and each version shares everything but O(log n) tree nodes with the one before it
+ * So a step costs that path plus a copy of the one record that changed, never a copy of the lists
+ * A checkpoint is a saved version, reading it back (getCheckpoint) is a map lookup and doesnt touch the user
+ *
+ * Undo and redo put the user's own lists back one record at a time. For going back to a checkpoint the
+ * checkpoint also keeps the user's lists themselves (User_sec33_gr_3.share()), they share there storage
+ * copy on write so keeping them is O(1), and swapping them in is O(1) too, as one step that can be undone
+ * Archiving old history moves records to disk and cant be undone, the journal starts over when it happens
+ * Enable it with User_sec33_gr_3.enableUndo(), like the user it belongs to its not thread safe
+ */
+public class UndoJournal_sec33_gr3 {
+
+    public static final int DEFAULT_MAX_STEPS = 1000; // how many changes the menu can undo
+
+    // Which of the user's lists a change was made to
+    static final int ACTIVITIES = 0;
+    static final int MOODS = 1;
+    static final int GOALS = 2;
+    static final int TEMPLATES = 3;
+
+    private final User_sec33_gr_3 user;
+    private final int maxSteps;
+    private State current; // always the same as the user's lists, as frozen copies
+    private final Deque<Step> undo = new ArrayDeque<>(); // newest first
+    private final Deque<Step> redo = new ArrayDeque<>();
+    private final Map<String, Checkpoint> checkpoints = new LinkedHashMap<>();
+    private String groupLabel; // set between beginEdit() and endEdit()
+    private int groupDepth;
+    private Step group; // the step the current group records into, made on its first change
+    private boolean replaying; // true while undo and redo change the user, so that isnt recorded again
+
+    /**
+     * Everything the user had at one point, the activities in timeline order and the rest in the order they were added
+     * Never changes, so it can be kept and read as long as needed. Dont change the records in it, they are the history
+     */
+    public static final class State {
+        private final PersistentList_sec33_gr3<Object> activities;
+        private final PersistentList_sec33_gr3<Object> moods;
+        private final PersistentList_sec33_gr3<Object> goals;
+        private final PersistentList_sec33_gr3<Object> templates;
+
+        State(PersistentList_sec33_gr3<Object> activities, PersistentList_sec33_gr3<Object> moods,
+              PersistentList_sec33_gr3<Object> goals, PersistentList_sec33_gr3<Object> templates) {
+            this.activities = activities;
+            this.moods = moods;
+            this.goals = goals;
+            this.templates = templates;
+        }
+
+        /**
+         * Gets the activities, oldest date first like the user's timeline
+         */
+        @SuppressWarnings("unchecked")
+        public List<WellnessActivity_sec33_gr3> getActivities() { return (List<WellnessActivity_sec33_gr3>) (List<?>) activities; }
+
+        /**
+         * Gets the mood/stress entries
+         */
+        @SuppressWarnings("unchecked")
+        public List<MoodStressEntry_sec33_gr3> getMoodStressEntries() { return (List<MoodStressEntry_sec33_gr3>) (List<?>) moods; }
+
+        /**
+         * Gets the wellness goals
+         */
+        @SuppressWarnings("unchecked")
+        public List<WellnessGoal_sec33_gr3> getWellnessGoals() { return (List<WellnessGoal_sec33_gr3>) (List<?>) goals; }
+
+        /**
+         * Gets the recurring activities
+         */
+        @SuppressWarnings("unchecked")
+        public List<RecurringTemplate_sec33_gr3> getTemplates() { return (List<RecurringTemplate_sec33_gr3>) (List<?>) templates; }
+
+        private PersistentList_sec33_gr3<Object> list(int which) {
+            switch (which) {
+                case ACTIVITIES: return activities;
+                case MOODS: return moods;
+                case GOALS: return goals;
+                default: return templates;
+            }
+        }
+
+        private State with(int which, PersistentList_sec33_gr3<Object> updated) {
+            switch (which) {
+                case ACTIVITIES: return new State(updated, moods, goals, templates);
+                case MOODS: return new State(activities, updated, goals, templates);
+                case GOALS: return new State(activities, moods, updated, templates);
+                default: return new State(activities, moods, goals, updated);
+            }
+        }
+    }
+
+    /**
+     * A saved version, as frozen copies to read and as the user's own lists to put back
+     */
+    private static final class Checkpoint {
+        final State state;
+        final User_sec33_gr_3.Saved saved;
+
+        Checkpoint(State state, User_sec33_gr_3.Saved saved) {
+            this.state = state;
+            this.saved = saved;
+        }
+    }
+
+    /**
+     * One thing that can be undone - a single change, or a group like a whole Update Activity
+     * Keeps the versions from before and after so undo and redo only have to move between them
+     */
+    private static class Step {
+        final String label; // null for a single change, then type and field describe it
+        final int type;
+        final String field;
+        final State before;
+        State after;
+        Change last; // newest change first, null for a step that jumps to a checkpoint (a Jump)
+
+        Step(String label, int type, String field, State before) {
+            this.label = label;
+            this.type = type;
+            this.field = field;
+            this.before = before;
+            this.after = before;
+        }
+
+        String label() { return label != null ? label : describe(type, field); }
+    }
+
+    /**
+     * A step that jumps to a checkpoint, with the user's own lists from both sides to swap in
+     * Its own class so the steps every single change makes dont carry these two fields
+     */
+    private static final class Jump extends Step {
+        final User_sec33_gr_3.Saved savedAfter;
+        User_sec33_gr_3.Saved savedBefore;
+
+        Jump(String label, State before, Checkpoint target) {
+            super(label, 0, null, before);
+            this.after = target.state;
+            this.savedAfter = target.saved;
+        }
+    }
+
+    /**
+     * One record put in, taken out or swapped, with the frozen copies from before and after (null when it wasnt there)
+     */
+    private static final class Change {
+        final int list;
+        final int index;
+        final Object before;
+        final Object after;
+        final Change previous;
+
+        Change(int list, int index, Object before, Object after, Change previous) {
+            this.list = list;
+            this.index = index;
+            this.before = before;
+            this.after = after;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * Creates the journal for a user, starting from what the user has now
+     * Only User_sec33_gr_3.enableUndo() calls this
+     */
+    UndoJournal_sec33_gr3(User_sec33_gr_3 user, int maxSteps) {
+        if (maxSteps < 1) {
+            throw new IllegalArgumentException("Undo history needs room for at least 1 step");
+        }
+        this.user = user;
+        this.maxSteps = maxSteps;
+        this.current = capture();
+    }
+
+    /**
+     * Gets how many changes can be undone at most
+     */
+    public int getMaxSteps() { return maxSteps; }
+
+    /**
+     * Gets how many changes can be undone right now
+     */
+    public int getUndoCount() { return undo.size(); }
+
+    /**
+     * Gets how many undone changes can be redone
+     */
+    public int getRedoCount() { return redo.size(); }
+
+    /**
+     * Gets what undo() would undo, like "Change activity duration", or null if there is nothing
+     */
+    public String getUndoLabel() { return undo.isEmpty() ? null : undo.peek().label(); }
+
+    /**
+     * Gets what redo() would redo, or null if there is nothing
+     */
+    public String getRedoLabel() { return redo.isEmpty() ? null : redo.peek().label(); }
+
+    /**
+     * Gets the user's data as it is now, as a version that wont change
+     */
+    public State getCurrent() { return current; }
+
+    /**
+     * Records one change, User_sec33_gr_3 calls this for every event it publishes
+     * index is where in its list the record is (or was, for a remove), -1 for something the journal doesnt follow
+     */
+    void record(int type, Object subject, String field, int index) {
+        if (replaying || index < 0) return;
+        int list;
+        boolean insert = false;
+        boolean remove = false;
+        switch (type) {
+            case UserChangeEvent_sec33_gr3.ACTIVITY_ADDED: list = ACTIVITIES; insert = true; break;
+            case UserChangeEvent_sec33_gr3.ACTIVITY_REMOVED: list = ACTIVITIES; remove = true; break;
+            case UserChangeEvent_sec33_gr3.ACTIVITY_UPDATED: list = ACTIVITIES; break;
+            case UserChangeEvent_sec33_gr3.MOOD_ADDED: list = MOODS; insert = true; break;
+            case UserChangeEvent_sec33_gr3.GOAL_ADDED: list = GOALS; insert = true; break;
+            case UserChangeEvent_sec33_gr3.GOAL_UPDATED: list = GOALS; break;
+            case UserChangeEvent_sec33_gr3.TEMPLATE_ADDED: list = TEMPLATES; insert = true; break;
+            case UserChangeEvent_sec33_gr3.TEMPLATE_UPDATED: list = TEMPLATES; break;
+            default: return;
+        }
+        PersistentList_sec33_gr3<Object> records = current.list(list);
+        Object before = null;
+        Object after = null;
+        PersistentList_sec33_gr3<Object> updated;
+        if (insert) {
+            if (index > records.size()) {
+                startOver();
+                return;
+            }
+            after = snapshot(subject);
+            updated = records.insert(index, after);
+        } else {
+            if (index >= records.size() || !sameRecord(records.get(index), subject)) {
+                startOver(); // the lists were changed without telling the user, the history cant be trusted anymore
+                return;
+            }
+            before = records.get(index);
+            if (remove) {
+                updated = records.removeAt(index);
+            } else {
+                after = snapshot(subject);
+                updated = records.replace(index, after);
+            }
+        }
+        Step step = group;
+        if (step == null) {
+            step = new Step(groupLabel, type, field, current);
+            push(step);
+            if (groupDepth > 0) group = step;
+        }
+        step.last = new Change(list, index, before, after, step.last);
+        current = current.with(list, updated);
+        step.after = current;
+    }
+
+    /**
+     * Starts a group, every change until the matching endEdit() is undone as one step with this label
+     * Groups can be nested, only the outermost label counts
+     */
+    public void beginEdit(String label) {
+        if (groupDepth++ == 0) {
+            groupLabel = label;
+            group = null;
+        }
+    }
+
+    /**
+     * Ends the group started by beginEdit(), does nothing if undo or redo already closed it
+     */
+    public void endEdit() {
+        if (groupDepth > 0 && --groupDepth == 0) {
+            groupLabel = null;
+            group = null;
+        }
+    }
+
+    /**
+     * Undoes the latest change and returns what it was, or null if there was nothing to undo
+     */
+    public String undo() {
+        if (undo.isEmpty()) return null;
+        endGroup();
+        Step step = undo.pop();
+        replaying = true;
+        try {
+            if (step.last == null) {
+                user.restoreState(((Jump) step).savedBefore);
+            } else {
+                for (Change change = step.last; change != null; change = change.previous) {
+                    apply(change.list, change.index, change.after, change.before);
+                }
+            }
+        } finally {
+            replaying = false;
+        }
+        current = step.before;
+        redo.push(step);
+        return step.label();
+    }
+
+    /**
+     * Does the latest undone change again and returns what it was, or null if there was nothing to redo
+     * Any new change forgets the undone ones
+     */
+    public String redo() {
+        if (redo.isEmpty()) return null;
+        endGroup();
+        Step step = redo.pop();
+        replaying = true;
+        try {
+            if (step.last == null) {
+                user.restoreState(((Jump) step).savedAfter);
+            } else {
+                List<Change> changes = new ArrayList<>();
+                for (Change change = step.last; change != null; change = change.previous) changes.add(change);
+                for (int i = changes.size() - 1; i >= 0; i--) {
+                    Change change = changes.get(i);
+                    apply(change.list, change.index, change.before, change.after);
+                }
+            }
+        } finally {
+            replaying = false;
+        }
+        current = step.after;
+        undo.push(step);
+        return step.label();
+    }
+
+    /**
+     * Saves how everything is right now under a name, a name used before gets the new version
+     * O(1), the version is shared with the history and the user's lists are shared with the user
+     */
+    public void checkpoint(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Checkpoint needs a name");
+        }
+        checkpoints.remove(name.trim()); // so it moves to the end of the list
+        checkpoints.put(name.trim(), new Checkpoint(current, user.share()));
+    }
+
+    /**
+     * Gets the user's data as it was at a checkpoint, or null if there is none by that name
+     * Reading it doesnt change the user, use restore() for that
+     */
+    public State getCheckpoint(String name) {
+        Checkpoint checkpoint = name == null ? null : checkpoints.get(name.trim());
+        return checkpoint == null ? null : checkpoint.state;
+    }
+
+    /**
+     * Gets the checkpoint names, oldest first
+     */
+    public List<String> getCheckpointNames() { return new ArrayList<>(checkpoints.keySet()); }
+
+    /**
+     * Makes the user's data the same as at a checkpoint, as one step that undo() can take back
+     * O(1) whatever the user has, the lists are swapped for the ones the checkpoint kept
+     */
+    public void restore(String name) {
+        Checkpoint target = name == null ? null : checkpoints.get(name.trim());
+        if (target == null) {
+            throw new IllegalArgumentException("No checkpoint called " + name);
+        }
+        endGroup();
+        Jump step = new Jump("Go back to " + name.trim(), current, target);
+        replaying = true;
+        try {
+            step.savedBefore = user.restoreState(target.saved);
+        } finally {
+            replaying = false;
+        }
+        push(step);
+        current = target.state;
+    }
+
+    /**
+     * Forgets the whole history and every checkpoint and starts again from what the user has now
+     * Called when records move to the archive, putting an old version back would bring them back twice
+     */
+    void reset() {
+        checkpoints.clear();
+        startOver();
+    }
+
+    // ------------------------------------------------------------------ internals
+
+    private void startOver() {
+        undo.clear();
+        redo.clear();
+        group = null;
+        current = capture();
+    }
+
+    private void endGroup() {
+        groupDepth = 0;
+        groupLabel = null;
+        group = null;
+    }
+
+    private void push(Step step) {
+        redo.clear();
+        undo.push(step);
+        if (undo.size() > maxSteps) undo.removeLast();
+    }
+
+    /**
+     * Changes the user's list from one version of a record to another, putting in fresh copies so the
+     * frozen ones in the history never end up in the user's hands
+     */
+    private void apply(int list, int index, Object from, Object to) {
+        if (from == null) {
+            user.insertRecord(list, index, snapshot(to));
+        } else if (to == null) {
+            user.removeRecord(list, index);
+        } else {
+            user.replaceRecord(list, index, snapshot(to));
+        }
+    }
+
+    private State capture() {
+        return new State(frozen(user.getActivities()), frozen(user.getMoodStressEntries()),
+                frozen(user.getWellnessGoals()), frozen(user.getTemplates()));
+    }
+
+    private static PersistentList_sec33_gr3<Object> frozen(List<?> records) {
+        List<Object> copies = new ArrayList<>(records.size());
+        for (Object record : records) copies.add(snapshot(record));
+        return PersistentList_sec33_gr3.of(copies);
+    }
+
+    static Object snapshot(Object record) {
+        if (record instanceof WellnessActivity_sec33_gr3) return ((WellnessActivity_sec33_gr3) record).snapshot();
+        if (record instanceof MoodStressEntry_sec33_gr3) return ((MoodStressEntry_sec33_gr3) record).snapshot();
+        if (record instanceof WellnessGoal_sec33_gr3) return ((WellnessGoal_sec33_gr3) record).snapshot();
+        return ((RecurringTemplate_sec33_gr3) record).snapshot();
+    }
+
+    /**
+     * Checks that the frozen copy at an index is a version of the live record, activities have IDs to compare
+     */
+    private static boolean sameRecord(Object frozen, Object live) {
+        if (frozen.getClass() != live.getClass()) return false;
+        return !(live instanceof WellnessActivity_sec33_gr3)
+                || ((WellnessActivity_sec33_gr3) frozen).getActivityId() == ((WellnessActivity_sec33_gr3) live).getActivityId();
+    }
+
+    private static String describe(int type, String field) {
+        switch (type) {
+            case UserChangeEvent_sec33_gr3.ACTIVITY_ADDED: return "Add activity";
+            case UserChangeEvent_sec33_gr3.ACTIVITY_REMOVED: return "Delete activity";
+            case UserChangeEvent_sec33_gr3.ACTIVITY_UPDATED: return "Change activity " + field;
+            case UserChangeEvent_sec33_gr3.MOOD_ADDED: return "Log mood";
+            case UserChangeEvent_sec33_gr3.GOAL_ADDED: return "Add goal";
+            case UserChangeEvent_sec33_gr3.GOAL_UPDATED: return "Change goal " + field;
+            case UserChangeEvent_sec33_gr3.TEMPLATE_ADDED: return "Add recurring activity";
+            default: return "Change recurring activity " + field;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * UserChangeEvent class - one slot in the change feed ring buffer
+ * Describes a single change to a user like an activity being added or a goal being updated
+ * Slots are reused by the ring buffer, so listeners must copy anything they want to keep
+ */
+public class UserChangeEvent_sec33_gr3 {
+
+    // Event type constants - int codes instead of enum to keep things simple
+
+    /** A new activity was added to the user */
+    public static final int ACTIVITY_ADDED = 1;
+
+    /** An activity was removed from the user */
+    public static final int ACTIVITY_REMOVED = 2;
+
+    /** One field of an existing activity was changed, see getField() */
+    public static final int ACTIVITY_UPDATED = 3;
+
+    /** A new mood/stress entry was logged */
+    public static final int MOOD_ADDED = 4;
+
+    /** A new wellness goal was added */
+    public static final int GOAL_ADDED = 5;
+
+    /** One field of an existing goal was changed, see getField() */
+    public static final int GOAL_UPDATED = 6;
+
+    /** A recurring activity was set up */
+    public static final int TEMPLATE_ADDED = 7;
+
+    /** A recurring activity was stopped or had a day taken out, see getField() */
+    public static final int TEMPLATE_UPDATED = 8;
+
+    /** A mood/stress entry was taken out again, only undo does this */
+    public static final int MOOD_REMOVED = 9;
+
+    /** A goal was taken out again, only undo does this */
+    public static final int GOAL_REMOVED = 10;
+
+    /** A recurring activity was taken out again, only undo does this */
+    public static final int TEMPLATE_REMOVED = 11;
+
+    /** The user went back to a checkpoint, anything can have changed so reload everything. Subject is null */
+    public static final int USER_RESTORED = 12;
+
+    // Slot contents - overwritten every time the slot is reused
+    private int type; // one of the constants above
+    private User_sec33_gr_3 user; // which user changed
+    private Object subject; // the activity, mood entry or goal that changed
+    private String field; // which field changed for update events, null otherwise
+
+    /**
+     * Fills this slot with a new event
+     * Only the change feed calls this, right before publishing the slot
+     */
+    void set(int type, User_sec33_gr_3 user, Object subject, String field) {
+        this.type = type;
+        this.user = user;
+        this.subject = subject;
+        this.field = field;
+    }
+
+    /**
+     * Gets the type of change, one of the constants above
+     */
+    public int getType() { return type; }
+
+    /**
+     * Gets the user that changed
+     */
+    public User_sec33_gr_3 getUser() { return user; }
+
+    /**
+     * Gets the object that changed
+     * A WellnessActivity_sec33_gr3, MoodStressEntry_sec33_gr3, WellnessGoal_sec33_gr3 or RecurringTemplate_sec33_gr3
+     * depending on type, null for USER_RESTORED
+     */
+    public Object getSubject() { return subject; }
+
+    /**
+     * Gets the name of the field that changed for update events
+     * Returns null for add and remove events
+     */
+    public String getField() { return field; }
+
+    /**
+     * Gets a readable name for an event type
+     * Usefull for logging and debugging consumers
+     */
+    public static String typeName(int type) {
+        switch (type) {
+            case ACTIVITY_ADDED: return "ActivityAdded";
+            case ACTIVITY_REMOVED: return "ActivityRemoved";
+            case ACTIVITY_UPDATED: return "ActivityUpdated";
+            case MOOD_ADDED: return "MoodAdded";
+            case GOAL_ADDED: return "GoalAdded";
+            case GOAL_UPDATED: return "GoalUpdated";
+            case TEMPLATE_ADDED: return "TemplateAdded";
+            case TEMPLATE_UPDATED: return "TemplateUpdated";
+            case MOOD_REMOVED: return "MoodRemoved";
+            case GOAL_REMOVED: return "GoalRemoved";
+            case TEMPLATE_REMOVED: return "TemplateRemoved";
+            case USER_RESTORED: return "UserRestored";
+            default: return "Unknown";
+        }
+    }
+
+    /**
+     * Creates a short string representation of the event
+     */
+    @Override
+    public String toString() {
+        return typeName(type) + (field != null ? "(" + field + ")" : "") + " for " + (user != null ? user.getName() : "?");
+    }
+}
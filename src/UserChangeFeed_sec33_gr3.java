@@ -0,0 +1,199 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * UserChangeFeed class - ring buffer that publishes every change made to a user
+ * One producer thread (whoever mutates the user) writes events into preallocated slots
+ * Every subscribed listener reads the same slots on its own thread at its own pace
+ * The producer only waits when the slowest consumer is a whole ring behind, that is the backpressure
+ */
+public class UserChangeFeed_sec33_gr3 implements AutoCloseable {
+
+    // Ring buffer storage - slots are created once and reused forever
+    private final UserChangeEvent_sec33_gr3[] slots;
+    private final int mask; // bufferSize - 1, works because size is a power of two
+
+    // Sequence of the last published event, consumers read up to here
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    // Producer-only state, never touched by consumer threads
+    private long nextSequence = -1; // last sequence claimed by the producer
+    private long cachedGate = -1; // slowest consumer position from the last time we checked
+
+    private volatile Consumer[] consumers = new Consumer[0];
+    private volatile boolean started; // set on first publish, subscribing after that isnt allowed
+    private volatile boolean running = true;
+
+    /**
+     * Creates a change feed with the given number of slots
+     * Size must be a power of two so slot lookup is a simple bit mask
+     */
+    public UserChangeFeed_sec33_gr3(int bufferSize) {
+        if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two: " + bufferSize);
+        }
+        this.slots = new UserChangeEvent_sec33_gr3[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            slots[i] = new UserChangeEvent_sec33_gr3();
+        }
+        this.mask = bufferSize - 1;
+    }
+
+    /**
+     * Subscribes a listener and starts its consumer thread
+     * Has to be done before the first event is published, so no consumer can miss a slot
+     */
+    public synchronized void subscribe(String name, UserChangeListener_sec33_gr3 listener) {
+        if (started) {
+            throw new IllegalStateException("Subscribe consumers before publishing events");
+        }
+        if (!running) {
+            throw new IllegalStateException("Change feed is closed");
+        }
+        Consumer consumer = new Consumer(name, listener);
+        Consumer[] current = consumers;
+        Consumer[] updated = new Consumer[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = consumer;
+        consumers = updated;
+        consumer.thread.start();
+    }
+
+    /**
+     * Publishes one change event and returns its sequence number
+     * Must only be called from one thread at a time - this is a single producer ring buffer
+     * The cost does not depend on how many consumers there are unless the ring is full
+     */
+    public long publish(int type, User_sec33_gr_3 user, Object subject, String field) {
+        if (!running) {
+            throw new IllegalStateException("Change feed is closed");
+        }
+        if (!started) {
+            started = true;
+        }
+        long next = nextSequence + 1;
+        long wrapPoint = next - slots.length;
+        if (wrapPoint > cachedGate) {
+            // only look at the consumers when we might lap the slowest one
+            long gate;
+            int idle = 0;
+            while (wrapPoint > (gate = slowestConsumer(nextSequence))) {
+                if (!running) {
+                    throw new IllegalStateException("Change feed is closed");
+                }
+                idle = backoff(idle);
+            }
+            cachedGate = gate;
+        }
+        slots[(int) next & mask].set(type, user, subject, field);
+        nextSequence = next;
+        cursor.lazySet(next); // publish the slot to consumers
+        return next;
+    }
+
+    /**
+     * Gets the sequence of the last published event, -1 if nothing was published yet
+     */
+    public long getCursor() { return cursor.get(); }
+
+    /**
+     * Gets how many slots the ring buffer has
+     */
+    public int getBufferSize() { return slots.length; }
+
+    /**
+     * Gets how many consumers are subscribed
+     */
+    public int getConsumerCount() { return consumers.length; }
+
+    /**
+     * Stops the feed after every consumer has seen every published event
+     * Blocks until all consumer threads are finished
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the position of the slowest consumer
+     * With no consumers the producer is never held back
+     */
+    private long slowestConsumer(long fallback) {
+        long min = fallback;
+        for (Consumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence.get());
+        }
+        return min;
+    }
+
+    /**
+     * Simple wait strategy - spin first, then yield, then park for a short time
+     * Returns the updated idle counter
+     */
+    private static int backoff(int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+        return idle + 1;
+    }
+
+    /**
+     * One subscribed listener with its own thread and read position
+     */
+    private final class Consumer implements Runnable {
+        private final UserChangeListener_sec33_gr3 listener;
+        private final AtomicLong sequence = new AtomicLong(-1); // last event this consumer finished
+        private final Thread thread;
+
+        Consumer(String name, UserChangeListener_sec33_gr3 listener) {
+            this.listener = listener;
+            this.sequence.set(cursor.get());
+            this.thread = new Thread(this, "mindtrack-feed-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Reads everything published since last time as one batch
+         * Keeps going until the feed is closed and nothing is left to read
+         */
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (true) {
+                long available = cursor.get();
+                if (available >= next) {
+                    for (long s = next; s <= available; s++) {
+                        try {
+                            listener.onEvent(slots[(int) s & mask], s, s == available);
+                        } catch (RuntimeException ex) {
+                            System.err.println("Change feed consumer " + thread.getName() + " failed: " + ex.getMessage());
+                        }
+                    }
+                    sequence.lazySet(available); // frees the slots for the producer
+                    next = available + 1;
+                    idle = 0;
+                } else if (!running) {
+                    if (cursor.get() < next) {
+                        return; // closed and fully drained, checked again so the last publish isnt missed
+                    }
+                } else {
+                    idle = backoff(idle);
+                }
+            }
+        }
+    }
+}
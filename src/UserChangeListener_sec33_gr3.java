@@ -0,0 +1,13 @@
+/**
+ * Interface for consumers of the user change feed
+ * Each subscribed listener runs on its own thread and gets events in the order they were published
+ */
+public interface UserChangeListener_sec33_gr3 {
+
+    /**
+     * Called once for every published event
+     * The event slot gets reused after this returns, so copy anything you need to keep
+     * endOfBatch is true for the last event currently available, a good time to flush work
+     */
+    void onEvent(UserChangeEvent_sec33_gr3 event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,13 @@
+/**
+ * Interface for a command that runs against one user inside the shard engine
+ * Commands are the messages the menu logic sends, the engine runs them on the user's shard thread
+ * Returns whatever result the caller needs, or null for commands that only change things
+ */
+public interface UserCommand_sec33_gr3<T> {
+
+    /**
+     * Runs the command against the user
+     * Only ever called from the shard thread that owns this user, so no locking is needed
+     */
+    T apply(User_sec33_gr_3 user) throws Exception;
+}
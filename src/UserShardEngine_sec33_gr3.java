@@ -0,0 +1,227 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BinaryOperator;
+
+/**
+ * UserShardEngine class - runs many users on a fixed number of single threaded shards
+ * Each user belongs to exactly one shard picked by the hash of the user id
+ * Everything for that user runs on the shard thread, so User_sec33_gr_3 never needs locks
+ * Queries over all users are sent to every shard and the answers are merged at the end
+ */
+public class UserShardEngine_sec33_gr3 implements AutoCloseable {
+
+    private final Shard[] shards;
+
+    /**
+     * Creates an engine with the given number of shards
+     * One shard per core is usually the right number
+     */
+    public UserShardEngine_sec33_gr3(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * Creates an engine with one shard per available processor
+     */
+    public UserShardEngine_sec33_gr3() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Gets how many shards this engine has
+     */
+    public int getShardCount() { return shards.length; }
+
+    /**
+     * Works out which shard owns a user id
+     * Spreads the hash first so similar ids dont all end up on the same shard
+     */
+    public int shardOf(String userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h * 0x9E3779B9, shards.length);
+    }
+
+    /**
+     * Creates a new user on its shard
+     * Fails with IllegalArgumentException if the id is already taken
+     */
+    public CompletableFuture<User_sec33_gr_3> createUser(String userId, String name) {
+        return addUser(userId, new User_sec33_gr_3(name));
+    }
+
+    /**
+     * Puts a user that was set up somewhere else, like by an import, on its shard
+     * Dont touch the user directly after this, from now on it belongs to the shard thread
+     * Fails with IllegalArgumentException if the id is already taken
+     */
+    public CompletableFuture<User_sec33_gr_3> addUser(String userId, User_sec33_gr_3 user) {
+        Shard shard = shards[shardOf(userId)];
+        return CompletableFuture.supplyAsync(() -> {
+            if (shard.users.containsKey(userId)) {
+                throw new IllegalArgumentException("User id already exists: " + userId);
+            }
+            shard.users.put(userId, user);
+            return user;
+        }, shard.executor);
+    }
+
+    /**
+     * Removes a user from its shard
+     * Completes with true if the user existed
+     */
+    public CompletableFuture<Boolean> removeUser(String userId) {
+        Shard shard = shards[shardOf(userId)];
+        return CompletableFuture.supplyAsync(() -> shard.users.remove(userId) != null, shard.executor);
+    }
+
+    /**
+     * Sends a command to the shard that owns the user and returns its result later
+     * Commands for the same user run one at a time in the order they were submitted
+     */
+    public <T> CompletableFuture<T> submit(String userId, UserCommand_sec33_gr3<T> command) {
+        Shard shard = shards[shardOf(userId)];
+        return CompletableFuture.supplyAsync(() -> {
+            User_sec33_gr_3 user = shard.users.get(userId);
+            if (user == null) {
+                throw new IllegalArgumentException("Unknown user id: " + userId);
+            }
+            return run(command, user);
+        }, shard.executor);
+    }
+
+    /**
+     * Sends a command and waits for the result
+     * Handy for the console menu which has to wait for each answer anyway
+     * Exceptions thrown by the command are passed straight back to the caller
+     */
+    public <T> T execute(String userId, UserCommand_sec33_gr3<T> command) {
+        try {
+            return submit(userId, command).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Runs a query against every user on every shard
+     * Each shard answers for its own users, the lists are joined in shard order
+     */
+    public <T> CompletableFuture<List<T>> queryAll(UserCommand_sec33_gr3<T> query) {
+        List<CompletableFuture<List<T>>> partials = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            partials.add(CompletableFuture.supplyAsync(() -> {
+                List<T> results = new ArrayList<>(shard.users.size());
+                for (User_sec33_gr_3 user : shard.users.values()) {
+                    results.add(run(query, user));
+                }
+                return results;
+            }, shard.executor));
+        }
+        return CompletableFuture.allOf(partials.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<T> merged = new ArrayList<>();
+            for (CompletableFuture<List<T>> partial : partials) {
+                merged.addAll(partial.join());
+            }
+            return merged;
+        });
+    }
+
+    /**
+     * Runs a query against every user and combines the answers into one value
+     * Each shard reduces its own users first so only one value per shard is merged at the end
+     * Returns identity if there are no users at all
+     */
+    public <T> CompletableFuture<T> reduceAll(UserCommand_sec33_gr3<T> query, T identity, BinaryOperator<T> merge) {
+        List<CompletableFuture<T>> partials = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            partials.add(CompletableFuture.supplyAsync(() -> {
+                T result = identity;
+                for (User_sec33_gr_3 user : shard.users.values()) {
+                    result = merge.apply(result, run(query, user));
+                }
+                return result;
+            }, shard.executor));
+        }
+        return CompletableFuture.allOf(partials.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            T result = identity;
+            for (CompletableFuture<T> partial : partials) {
+                result = merge.apply(result, partial.join());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Counts users across all shards
+     */
+    public CompletableFuture<Integer> userCount() {
+        List<CompletableFuture<Integer>> partials = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            partials.add(CompletableFuture.supplyAsync(shard.users::size, shard.executor));
+        }
+        return CompletableFuture.allOf(partials.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            int total = 0;
+            for (CompletableFuture<Integer> partial : partials) {
+                total += partial.join();
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Stops all shard threads after the commands already queued have run
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs a command and turns checked exceptions into unchecked ones
+     * CompletableFuture wraps them again so callers see the original cause
+     */
+    private static <T> T run(UserCommand_sec33_gr3<T> command, User_sec33_gr_3 user) {
+        try {
+            return command.apply(user);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * One shard - a single thread and the users it owns
+     * The map is only touched from that thread so a plain HashMap is fine
+     */
+    private static final class Shard {
+        private final Map<String, User_sec33_gr_3> users = new HashMap<>();
+        private final ExecutorService executor;
+
+        Shard(int index) {
+            this.executor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "mindtrack-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
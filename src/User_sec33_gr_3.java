@@ -1,6 +1,14 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * User class - represents a single user of the wellness tracking system
@@ -9,12 +17,50 @@ import java.util.List;
  */
 public class User_sec33_gr_3 {
 
+    public static final int RECENT_COUNT = 5; // how many recent activities and moods the dashboard shows
+
+    // Report sections, each one has its own version so a report only redoes the parts that changed
+    public static final int SECTION_SLEEP = 0;
+    public static final int SECTION_MEDITATION = 1;
+    public static final int SECTION_JOURNALING = 2;
+    public static final int SECTION_SCREEN_TIME = 3;
+    public static final int SECTION_MOOD = 4;
+    public static final int SECTION_GOALS = 5;
+    public static final int SECTION_COUNT = 6;
+
+    // Timers for every operation, see Metrics_sec33_gr3 - plain getters arent timed, reading the clock costs more than they do
+    private static final LatencyHistogram_sec33_gr3 ADD_ACTIVITY_TIME = Metrics_sec33_gr3.timer("User.addActivity");
+    private static final LatencyHistogram_sec33_gr3 REMOVE_ACTIVITY_TIME = Metrics_sec33_gr3.timer("User.removeActivity");
+    private static final LatencyHistogram_sec33_gr3 UPDATE_TIME = Metrics_sec33_gr3.timer("User.updated");
+    private static final LatencyHistogram_sec33_gr3 RECENT_TIME = Metrics_sec33_gr3.timer("User.getRecentActivities");
+    private static final LatencyHistogram_sec33_gr3 ARCHIVE_TIME = Metrics_sec33_gr3.timer("User.archiveOldHistory");
+    private static final LatencyHistogram_sec33_gr3 ROLLUPS_TIME = Metrics_sec33_gr3.timer("User.getRollups");
+    private static final LatencyHistogram_sec33_gr3 ADD_MOOD_TIME = Metrics_sec33_gr3.timer("User.addMoodStressEntry");
+    private static final LatencyHistogram_sec33_gr3 MOODS_TIME = Metrics_sec33_gr3.timer("User.getMoodStressEntries");
+    private static final LatencyHistogram_sec33_gr3 ADD_GOAL_TIME = Metrics_sec33_gr3.timer("User.addGoal");
+    private static final LatencyHistogram_sec33_gr3 STREAK_TIME = Metrics_sec33_gr3.timer("User.getCurrentStreak");
+    private static final LatencyHistogram_sec33_gr3 SUMMARY_TIME = Metrics_sec33_gr3.timer("User.appendTo");
+
     // User profile information and data storage
     private String name; // user's display name
     private LocalDate joinDate; // when they started using the system
-    private final java.util.ArrayList<WellnessActivity_sec33_gr3> activities = new java.util.ArrayList<>(); // all there wellness activities
-    private List<MoodStressEntry_sec33_gr3> moodStressEntries; // daily mood and stress logs
-    private List<WellnessGoal_sec33_gr3> wellnessGoals; // goals they want to achieve
+    private final ActivityTimeline_sec33_gr3 activities = new ActivityTimeline_sec33_gr3(); // all there wellness activities, sorted by date
+    private final SharedList_sec33_gr3<MoodStressEntry_sec33_gr3> moodStressEntries = new SharedList_sec33_gr3<>(); // daily mood and stress logs
+    private final SharedList_sec33_gr3<WellnessGoal_sec33_gr3> wellnessGoals = new SharedList_sec33_gr3<>(); // goals they want to achieve
+    private UserChangeFeed_sec33_gr3 changeFeed; // optional, gets an event for every change to this user
+    private HistoryArchive_sec33_gr3 archive; // optional, where activities older than the hot window go
+    private final SharedList_sec33_gr3<RecurringTemplate_sec33_gr3> templates = new SharedList_sec33_gr3<>(); // routines, there days are only made when needed
+    private UndoJournal_sec33_gr3 journal; // optional, keeps the undo history
+    private FieldHistory_sec33_gr3 history; // optional, keeps every old value of goals and activities
+    private Set<Object> copiedSinceShare; // records swapped for a copy since the last share(), null if nothing was ever shared
+
+    // Kept up to date on every change so the dashboard never has to look through the full history
+    private final RecentRing_sec33_gr3<WellnessActivity_sec33_gr3> recentActivities = new RecentRing_sec33_gr3<>(RECENT_COUNT); // latest by date
+    private final RecentRing_sec33_gr3<MoodStressEntry_sec33_gr3> recentMoods = new RecentRing_sec33_gr3<>(RECENT_COUNT);
+    private long version; // goes up by one on every change
+    private final long[] sectionVersions = new long[SECTION_COUNT]; // the version when each section last changed
+    private String cachedDashboard; // last rendered dashboard, only valid while version hasnt moved
+    private long cachedDashboardVersion = -1;
 
     /**
      * Constructor for creating a new user
@@ -24,8 +70,6 @@ public class User_sec33_gr_3 {
     public User_sec33_gr_3(String name) {
         this.name = name;
         this.joinDate = LocalDate.now(); // automatically set to today
-        this.moodStressEntries = new ArrayList<>();
-        this.wellnessGoals = new ArrayList<>();
     }
 
     // Basic getters for user profile info
@@ -42,14 +86,162 @@ public class User_sec33_gr_3 {
      */
     public LocalDate getJoinDate() { return joinDate; }
 
+    /**
+     * Puts back the join date from exported data
+     * Only the importers use this, normal users always join today
+     */
+    void restoreJoinDate(LocalDate joinDate) { this.joinDate = joinDate; }
+
+    // Change feed methods - let indexes, aggregates and persistence follow changes to this user
+
+    /**
+     * Attaches a change feed that gets an event for every mutation of this user
+     * Pass null to stop publishing, the feed can be shared by users on the same thread
+     */
+    public void setChangeFeed(UserChangeFeed_sec33_gr3 changeFeed) { this.changeFeed = changeFeed; }
+
+    /**
+     * Gets the change feed attached to this user, or null if there isnt one
+     */
+    public UserChangeFeed_sec33_gr3 getChangeFeed() { return changeFeed; }
+
+    /**
+     * Gets the activity to change through its setters, change the one this returns and then call activityUpdated()
+     * Once share() has been called the activity can be part of a saved version, then it is swapped for a copy
+     * with the same ID first so the saved version stays the same. An activity the user doesnt have comes back as it is
+     */
+    public WellnessActivity_sec33_gr3 activityToEdit(WellnessActivity_sec33_gr3 activity) {
+        if (!mightBeShared(activity)) return activity;
+        int index = activities.indexOf(activity);
+        if (index < 0) return activity;
+        WellnessActivity_sec33_gr3 copy = activity.snapshot();
+        activities.set(index, copy);
+        if (recentActivities.contains(activity)) refillRecentActivities();
+        copiedSinceShare.add(copy);
+        return copy;
+    }
+
+    /**
+     * Gets the goal to change through its setters, works like activityToEdit()
+     */
+    public WellnessGoal_sec33_gr3 goalToEdit(WellnessGoal_sec33_gr3 goal) {
+        if (!mightBeShared(goal)) return goal;
+        int index = indexOfSame(wellnessGoals, goal);
+        if (index < 0) return goal;
+        WellnessGoal_sec33_gr3 copy = goal.snapshot();
+        wellnessGoals.set(index, copy);
+        copiedSinceShare.add(copy);
+        return copy;
+    }
+
+    /**
+     * Tells the feed that one field of an activity was changed through its setters
+     * Setters live on the activity itself so the caller has to report the change here
+     */
+    public void activityUpdated(WellnessActivity_sec33_gr3 activity, String field) {
+        long start = UPDATE_TIME.start();
+        publish(UserChangeEvent_sec33_gr3.ACTIVITY_UPDATED, activity, field, journal != null ? activities.indexOf(activity) : -1);
+        UPDATE_TIME.stop(start);
+    }
+
+    /**
+     * Tells the feed that one field of a goal was changed through its setters
+     */
+    public void goalUpdated(WellnessGoal_sec33_gr3 goal, String field) {
+        long start = UPDATE_TIME.start();
+        publish(UserChangeEvent_sec33_gr3.GOAL_UPDATED, goal, field, journal != null ? indexOfSame(wellnessGoals, goal) : -1);
+        UPDATE_TIME.stop(start);
+    }
+
+    /**
+     * Gets a number that changes every time this user's data changes
+     * Anything cached from the user is still good as long as this is the same
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Gets the version when one report section last changed, 0 if it never has
+     * Always less than or equal to getVersion()
+     */
+    public long getSectionVersion(int section) { return sectionVersions[section]; }
+
+    /**
+     * Gets which report section an activity type belongs to, -1 if it has none
+     */
+    public static int sectionFor(String activityType) {
+        switch (activityType) {
+            case "Sleep": return SECTION_SLEEP;
+            case "Meditation": return SECTION_MEDITATION;
+            case "Journaling": return SECTION_JOURNALING;
+            case "ScreenTime": return SECTION_SCREEN_TIME;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Gets the dashboard text rendered for the current version, or null if the user changed since
+     */
+    String getCachedDashboard() {
+        return cachedDashboardVersion == version ? cachedDashboard : null;
+    }
+
+    /**
+     * Keeps the rendered dashboard until the next change
+     */
+    void cacheDashboard(String text) {
+        cachedDashboard = text;
+        cachedDashboardVersion = version;
+    }
+
+    /**
+     * Counts the change, records it for undo and publishes an event if a feed is attached
+     * Every mutation goes through here, index is where the record is in its list (or was, for a remove)
+     * and only the undo journal needs it, -1 when there isnt one
+     */
+    private void publish(int type, Object subject, String field, int index) {
+        version++;
+        if (type == UserChangeEvent_sec33_gr3.USER_RESTORED) {
+            Arrays.fill(sectionVersions, version);
+        } else if (subject instanceof WellnessActivity_sec33_gr3) {
+            int section = sectionFor(((WellnessActivity_sec33_gr3) subject).getActivityType());
+            if (section >= 0) sectionVersions[section] = version;
+        } else if (subject instanceof RecurringTemplate_sec33_gr3) {
+            int section = sectionFor(((RecurringTemplate_sec33_gr3) subject).getActivityType());
+            if (section >= 0) sectionVersions[section] = version;
+        } else if (subject instanceof MoodStressEntry_sec33_gr3) {
+            sectionVersions[SECTION_MOOD] = version;
+        } else {
+            sectionVersions[SECTION_GOALS] = version;
+        }
+        if (journal != null) {
+            journal.record(type, subject, field, index);
+        }
+        if (history != null) {
+            history.record(type, subject, field);
+        }
+        if (changeFeed != null) {
+            changeFeed.publish(type, this, subject, field);
+        }
+    }
+
     // Activity management methods - for adding, removing, and accessing activities
 
     /**
      * Adds a new wellness activity to the user's list
-     * Activities are stored in chronological order automaticaly
+     * Activities are kept sorted by date, a back-dated one goes in its right place
+     * and activities on the same date stay in the order they were added
      */
     public void addActivity(WellnessActivity_sec33_gr3 activity) {
+        long start = ADD_ACTIVITY_TIME.start();
         activities.add(activity);
+        WellnessActivity_sec33_gr3 newest = recentActivities.newest();
+        if (newest == null || !activity.getDate().isBefore(newest.getDate())) {
+            recentActivities.add(activity); // the usual case, it went on the end of the timeline
+        } else if (recentActivities.size() < RECENT_COUNT || !activity.getDate().isBefore(recentActivities.get(0).getDate())) {
+            refillRecentActivities(); // back-dated but still one of the latest few
+        }
+        publish(UserChangeEvent_sec33_gr3.ACTIVITY_ADDED, activity, null, journal != null ? activities.indexOf(activity) : -1);
+        ADD_ACTIVITY_TIME.stop(start);
     }
 
     /**
@@ -57,28 +249,432 @@ public class User_sec33_gr_3 {
      * Returns true if removal was sucessful, false if index was invalid
      */
     public boolean removeActivity(int index) {
-        if (index >= 0 && index < activities.size()) {
-            activities.remove(index);
-            return true;
+        long start = REMOVE_ACTIVITY_TIME.start();
+        try {
+            if (index >= 0 && index < activities.size()) {
+                WellnessActivity_sec33_gr3 removed = activities.remove(index);
+                if (recentActivities.contains(removed)) refillRecentActivities();
+                publish(UserChangeEvent_sec33_gr3.ACTIVITY_REMOVED, removed, null, index);
+                return true;
+            }
+            return false; // index out of bounds
+        } finally {
+            REMOVE_ACTIVITY_TIME.stop(start);
+        }
+    }
+
+    /**
+     * Removes this exact activity, for when it was picked from a query instead of by index
+     * A day of a recurring activity is taken out of the routine instead
+     * Returns true if the user had it
+     */
+    public boolean removeActivity(WellnessActivity_sec33_gr3 activity) {
+        long start = REMOVE_ACTIVITY_TIME.start();
+        try {
+            int index = activity != null ? activities.indexOf(activity) : -1;
+            if (index >= 0) {
+                activities.remove(index);
+                if (recentActivities.contains(activity)) refillRecentActivities();
+                publish(UserChangeEvent_sec33_gr3.ACTIVITY_REMOVED, activity, null, index);
+                return true;
+            }
+            return activity != null && skipOccurrence(activity);
+        } finally {
+            REMOVE_ACTIVITY_TIME.stop(start);
         }
-        return false; // index out of bounds
     }
 
     /**
-     * Gets all activities for this user
+     * Gets all activities for this user, oldest date first
      * Returns the actual list so changes will affect the original data
      */
-    public java.util.List<WellnessActivity_sec33_gr3> getActivities() {
+    public ActivityTimeline_sec33_gr3 getActivities() {
         return activities;
     }
 
     /**
-     * Gets the most recent activities up to a specified limit
+     * Gets the most recent activities by date up to a specified limit, oldest of them first
      * Usefull for showing recent activity summaries without overwhelming users
      */
     public java.util.List<WellnessActivity_sec33_gr3> getRecentActivities(int n) {
-        int size = activities.size();
-        return activities.subList(Math.max(0, size - n), size);
+        long start = RECENT_TIME.start();
+        try {
+            if (n > RECENT_COUNT) return activities.latest(n);
+            int size = recentActivities.size();
+            return recentActivities.subList(Math.max(0, size - n), size);
+        } finally {
+            RECENT_TIME.stop(start);
+        }
+    }
+
+    /**
+     * Loads the ring of latest activities again from the end of the timeline
+     * Only needed when a back-dated add or a remove touches the latest few
+     */
+    private void refillRecentActivities() {
+        recentActivities.clear();
+        recentActivities.addAll(activities.latest(RECENT_COUNT));
+    }
+
+    /**
+     * Starts a new query over this user's activities
+     * See ActivityQuery_sec33_gr3 for the filters, nothing runs until the results are used
+     */
+    public ActivityQuery_sec33_gr3 query() {
+        return new ActivityQuery_sec33_gr3(activities, archive, templates);
+    }
+
+    // Recurring activities - routines that are stored once instead of as an activity per day
+
+    /**
+     * Adds a recurring activity, its days show up in queries, streaks, rollups and reports
+     */
+    public void addTemplate(RecurringTemplate_sec33_gr3 template) {
+        templates.add(template);
+        publish(UserChangeEvent_sec33_gr3.TEMPLATE_ADDED, template, null, templates.size() - 1);
+    }
+
+    /**
+     * Gets the user's recurring activities in the order they were added
+     */
+    public List<RecurringTemplate_sec33_gr3> getTemplates() { return templates; }
+
+    /**
+     * Ends a recurring activity after lastDay, the days before stay
+     */
+    public void stopTemplate(RecurringTemplate_sec33_gr3 template, LocalDate lastDay) {
+        template = templateToEdit(template);
+        template.stop(lastDay);
+        publish(UserChangeEvent_sec33_gr3.TEMPLATE_UPDATED, template, "until", indexOfSame(templates, template));
+    }
+
+    /**
+     * Takes one day out of the recurring activity it came from, false if it isnt a day of any of them
+     */
+    public boolean skipOccurrence(WellnessActivity_sec33_gr3 occurrence) {
+        RecurringTemplate_sec33_gr3 template = templateFor(occurrence);
+        if (template == null) return false;
+        template = templateToEdit(template);
+        template.skip(occurrence.getDate(), LocalDate.now());
+        publish(UserChangeEvent_sec33_gr3.TEMPLATE_UPDATED, template, "skipped", indexOfSame(templates, template));
+        return true;
+    }
+
+    /**
+     * Turns one day of a recurring activity into a normal activity of its own so it can be changed
+     * The day is taken out of the routine and the activity gets a new ID, returns it or null if
+     * it wasnt a day of any recurring activity
+     */
+    public WellnessActivity_sec33_gr3 detachOccurrence(WellnessActivity_sec33_gr3 occurrence) {
+        if (journal != null) journal.beginEdit("Turn a recurring day into an activity");
+        try {
+            if (!skipOccurrence(occurrence)) return null;
+            occurrence.assignNewId();
+            addActivity(occurrence);
+            return occurrence;
+        } finally {
+            if (journal != null) journal.endEdit();
+        }
+    }
+
+    /**
+     * Swaps a recurring activity for a copy before it changes if it can be part of a saved version, like activityToEdit()
+     */
+    private RecurringTemplate_sec33_gr3 templateToEdit(RecurringTemplate_sec33_gr3 template) {
+        if (!mightBeShared(template)) return template;
+        int index = indexOfSame(templates, template);
+        if (index < 0) return template;
+        RecurringTemplate_sec33_gr3 copy = template.snapshot();
+        templates.set(index, copy);
+        copiedSinceShare.add(copy);
+        return copy;
+    }
+
+    /**
+     * Gets the recurring activity a concrete day came from, or null
+     */
+    public RecurringTemplate_sec33_gr3 templateFor(WellnessActivity_sec33_gr3 occurrence) {
+        LocalDate today = LocalDate.now();
+        for (RecurringTemplate_sec33_gr3 template : templates) {
+            if (template.isOccurrence(occurrence, today)) return template;
+        }
+        return null;
+    }
+
+    // Undo - every change can be taken back, see UndoJournal_sec33_gr3
+
+    /**
+     * Starts keeping an undo history of every change from now on
+     * maxSteps is how many changes can be undone, older ones are forgotten
+     */
+    public UndoJournal_sec33_gr3 enableUndo(int maxSteps) {
+        if (journal != null) {
+            throw new IllegalStateException("Undo is already enabled");
+        }
+        journal = new UndoJournal_sec33_gr3(this, maxSteps);
+        return journal;
+    }
+
+    /**
+     * Gets the undo history, or null if undo isnt enabled
+     */
+    public UndoJournal_sec33_gr3 getUndoJournal() { return journal; }
+
+    /**
+     * Puts a record into one of the lists at an exact index, the journal uses these three to undo and redo
+     * They publish like any other change, the journal knows not to record them
+     */
+    void insertRecord(int list, int index, Object record) {
+        switch (list) {
+            case UndoJournal_sec33_gr3.ACTIVITIES:
+                activities.add(index, (WellnessActivity_sec33_gr3) record);
+                if (index >= activities.size() - RECENT_COUNT) refillRecentActivities();
+                publish(UserChangeEvent_sec33_gr3.ACTIVITY_ADDED, record, null, index);
+                break;
+            case UndoJournal_sec33_gr3.MOODS:
+                moodStressEntries.add(index, (MoodStressEntry_sec33_gr3) record);
+                refillRecentMoods();
+                publish(UserChangeEvent_sec33_gr3.MOOD_ADDED, record, null, index);
+                break;
+            case UndoJournal_sec33_gr3.GOALS:
+                wellnessGoals.add(index, (WellnessGoal_sec33_gr3) record);
+                publish(UserChangeEvent_sec33_gr3.GOAL_ADDED, record, null, index);
+                break;
+            default:
+                templates.add(index, (RecurringTemplate_sec33_gr3) record);
+                publish(UserChangeEvent_sec33_gr3.TEMPLATE_ADDED, record, null, index);
+        }
+    }
+
+    /**
+     * Takes the record at an index out of one of the lists
+     */
+    void removeRecord(int list, int index) {
+        switch (list) {
+            case UndoJournal_sec33_gr3.ACTIVITIES:
+                WellnessActivity_sec33_gr3 activity = activities.remove(index);
+                if (recentActivities.contains(activity)) refillRecentActivities();
+                publish(UserChangeEvent_sec33_gr3.ACTIVITY_REMOVED, activity, null, index);
+                break;
+            case UndoJournal_sec33_gr3.MOODS:
+                MoodStressEntry_sec33_gr3 entry = moodStressEntries.remove(index);
+                refillRecentMoods();
+                publish(UserChangeEvent_sec33_gr3.MOOD_REMOVED, entry, null, index);
+                break;
+            case UndoJournal_sec33_gr3.GOALS:
+                publish(UserChangeEvent_sec33_gr3.GOAL_REMOVED, wellnessGoals.remove(index), null, index);
+                break;
+            default:
+                publish(UserChangeEvent_sec33_gr3.TEMPLATE_REMOVED, templates.remove(index), null, index);
+        }
+    }
+
+    /**
+     * Swaps the record at an index for another version of it
+     * Mood entries are never changed after they're logged so they never get here
+     */
+    void replaceRecord(int list, int index, Object record) {
+        switch (list) {
+            case UndoJournal_sec33_gr3.ACTIVITIES:
+                WellnessActivity_sec33_gr3 old = activities.set(index, (WellnessActivity_sec33_gr3) record);
+                if (recentActivities.contains(old)) refillRecentActivities();
+                publish(UserChangeEvent_sec33_gr3.ACTIVITY_UPDATED, record, "undo", index);
+                break;
+            case UndoJournal_sec33_gr3.GOALS:
+                wellnessGoals.set(index, (WellnessGoal_sec33_gr3) record);
+                publish(UserChangeEvent_sec33_gr3.GOAL_UPDATED, record, "undo", index);
+                break;
+            case UndoJournal_sec33_gr3.TEMPLATES:
+                templates.set(index, (RecurringTemplate_sec33_gr3) record);
+                publish(UserChangeEvent_sec33_gr3.TEMPLATE_UPDATED, record, "undo", index);
+                break;
+            default:
+                throw new IllegalStateException("Mood entries cant be changed");
+        }
+    }
+
+    /**
+     * What the user's lists held at one moment, made by share() without copying anything
+     * Nothing in it ever changes, the lists copy whatever they share before writing to it and records
+     * are swapped for copies before they change (activityToEdit()), so the undo journal can keep these
+     */
+    static final class Saved {
+        final ActivityTimeline_sec33_gr3 activities;
+        final SharedList_sec33_gr3<MoodStressEntry_sec33_gr3> moods;
+        final SharedList_sec33_gr3<WellnessGoal_sec33_gr3> goals;
+        final SharedList_sec33_gr3<RecurringTemplate_sec33_gr3> templates;
+
+        Saved(ActivityTimeline_sec33_gr3 activities, SharedList_sec33_gr3<MoodStressEntry_sec33_gr3> moods,
+              SharedList_sec33_gr3<WellnessGoal_sec33_gr3> goals, SharedList_sec33_gr3<RecurringTemplate_sec33_gr3> templates) {
+            this.activities = activities;
+            this.moods = moods;
+            this.goals = goals;
+            this.templates = templates;
+        }
+    }
+
+    /**
+     * Gets what the user has right now as a version that wont change, O(1) since it shares the lists storage
+     * Every record the user has can be in it after this, so the next change to one goes to a copy
+     */
+    Saved share() {
+        copiedSinceShare = Collections.newSetFromMap(new IdentityHashMap<>());
+        return new Saved(activities.share(), moodStressEntries.share(), wellnessGoals.share(), templates.share());
+    }
+
+    /**
+     * Makes every list the same as a saved version and returns what they had before as another one
+     * O(1) like share(), the lists take over the saved storage instead of copying it
+     */
+    Saved restoreState(Saved saved) {
+        Saved replaced = share();
+        activities.restore(saved.activities);
+        moodStressEntries.restore(saved.moods);
+        wellnessGoals.restore(saved.goals);
+        templates.restore(saved.templates);
+        refillRecentActivities();
+        refillRecentMoods();
+        if (history != null) history.restored(replaced, saved); // only noted, it works out what changed when its next used
+        publish(UserChangeEvent_sec33_gr3.USER_RESTORED, null, null, -1);
+        return replaced;
+    }
+
+    /**
+     * Checks if a record can be shared with a saved version, records copied since the last share() cant be
+     */
+    private boolean mightBeShared(Object record) {
+        return copiedSinceShare != null && !copiedSinceShare.contains(record);
+    }
+
+    private void refillRecentMoods() {
+        recentMoods.clear();
+        recentMoods.addAll(moodStressEntries.subList(Math.max(0, moodStressEntries.size() - RECENT_COUNT), moodStressEntries.size()));
+    }
+
+    /**
+     * Finds this exact object in a list, -1 if it isnt there
+     */
+    private static int indexOfSame(List<?> list, Object item) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == item) return i;
+        }
+        return -1;
+    }
+
+    // Change history - goals and activities as they were on an earlier date, see FieldHistory_sec33_gr3
+
+    /**
+     * Starts keeping every version of every goal and activity, what they have now is the first version
+     * The clock gives the recorded times and the day goal changes count from, Clock.systemDefaultZone() normally
+     */
+    public FieldHistory_sec33_gr3 enableFieldHistory(Clock clock) {
+        if (history != null) {
+            throw new IllegalStateException("Field history is already enabled");
+        }
+        history = new FieldHistory_sec33_gr3(this, clock);
+        return history;
+    }
+
+    /**
+     * Gets the change history, or null if it isnt enabled
+     */
+    public FieldHistory_sec33_gr3 getFieldHistory() { return history; }
+
+    // History tiers - old activities can be moved to disk so memory doesnt grow forever
+
+    /**
+     * Starts keeping old activities in an archive directory instead of in memory
+     * Nothing moves until archiveOldHistory() is called
+     * A directory that already has an archive in it is opened again, call archiveOldHistory() right after
+     * so activities that were loaded back in and are already archived get dropped instead of counted twice
+     */
+    public void enableArchive(Path directory, int hotDays) throws IOException {
+        if (archive != null) {
+            throw new IllegalStateException("Archive is already enabled");
+        }
+        archive = new HistoryArchive_sec33_gr3(directory, hotDays);
+    }
+
+    /**
+     * Gets the user's archive, or null if there isnt one
+     */
+    public HistoryArchive_sec33_gr3 getArchive() { return archive; }
+
+    /**
+     * Moves every activity and mood entry older than the hot window before today into the archive
+     * Queries and getMoodStressEntries(from, to) still find them, getActivities(), getMoodStressEntries()
+     * and reports only have the recent ones after this
+     * Returns how many activities were moved, the archive counts the mood entries
+     */
+    public int archiveOldHistory(LocalDate today) throws IOException {
+        if (archive == null) {
+            throw new IllegalStateException("Archive is not enabled");
+        }
+        long start = ARCHIVE_TIME.start();
+        long moodsBefore = archive.getArchivedMoodCount();
+        int moved = archive.compact(activities, moodStressEntries, today);
+        boolean movedMoods = archive.getArchivedMoodCount() != moodsBefore;
+        if (moved > 0 || movedMoods) {
+            version++; // no event for this, the user's data is the same it just lives somewhere else
+            if (journal != null) journal.reset(); // but going back to before would load the moved records twice
+        }
+        if (moved > 0) {
+            refillRecentActivities();
+            for (int section = SECTION_SLEEP; section <= SECTION_SCREEN_TIME; section++) {
+                sectionVersions[section] = version;
+            }
+        }
+        if (movedMoods) {
+            sectionVersions[SECTION_MOOD] = version;
+        }
+        ARCHIVE_TIME.stop(start);
+        return moved;
+    }
+
+    /**
+     * Gets DAY, WEEK or MONTH rollups of every activity between two dates, archived or not, oldest first
+     * A week or month that overlaps the dates is included whole, either date can be null for no limit
+     * Archived days only have DAY rollups for HistoryArchive_sec33_gr3.DAY_ROLLUP_DAYS and WEEK rollups
+     * for HistoryArchive_sec33_gr3.WEEK_ROLLUP_DAYS, use MONTH for older ones
+     */
+    public List<ActivityRollup_sec33_gr3> getRollups(LocalDate from, LocalDate to, int bucket) {
+        long start = ROLLUPS_TIME.start();
+        TreeMap<Long, ActivityRollup_sec33_gr3> rollups = new TreeMap<>();
+        if (archive != null) {
+            archive.addRollups(rollups, from, to, bucket);
+        }
+        LocalDate first = from == null ? null : ActivityRollup_sec33_gr3.bucketStart(from, bucket);
+        LocalDate last = to == null ? null : ActivityRollup_sec33_gr3.bucketEnd(to, bucket);
+        for (WellnessActivity_sec33_gr3 activity : activities.between(first, last)) {
+            rollups.computeIfAbsent(HistoryArchive_sec33_gr3.rollupKey(activity.getDate(), bucket, activity.getActivityType()),
+                    k -> new ActivityRollup_sec33_gr3(activity.getDate(), bucket, activity.getActivityType())).add(activity);
+        }
+        LocalDate today = LocalDate.now();
+        for (RecurringTemplate_sec33_gr3 template : templates) {
+            addTemplateRollups(rollups, template, first, last, bucket, today);
+        }
+        List<ActivityRollup_sec33_gr3> result = new ArrayList<>(rollups.values());
+        ROLLUPS_TIME.stop(start);
+        return result;
+    }
+
+    /**
+     * Adds a recurring activity's days into the rollups, one count per bucket instead of one per day
+     */
+    private static void addTemplateRollups(TreeMap<Long, ActivityRollup_sec33_gr3> rollups, RecurringTemplate_sec33_gr3 template,
+                                           LocalDate first, LocalDate last, int bucket, LocalDate today) {
+        LocalDate day = ActivityRollup_sec33_gr3.bucketStart(first == null || first.isBefore(template.getStartDate())
+                ? template.getStartDate() : first, bucket);
+        LocalDate end = template.getUntil() != null && template.getUntil().isBefore(today) ? template.getUntil() : today;
+        if (last != null && last.isBefore(end)) end = last;
+        String type = template.getActivityType();
+        for (; !day.isAfter(end); day = ActivityRollup_sec33_gr3.bucketEnd(day, bucket).plusDays(1)) {
+            int times = template.countBetween(day, ActivityRollup_sec33_gr3.bucketEnd(day, bucket), today);
+            if (times == 0) continue;
+            LocalDate bucketDay = day;
+            rollups.computeIfAbsent(HistoryArchive_sec33_gr3.rollupKey(day, bucket, type),
+                    k -> new ActivityRollup_sec33_gr3(bucketDay, bucket, type)).add(template.getPrototype(), times);
+        }
     }
 
     // Mood and stress tracking methods
@@ -88,9 +684,13 @@ public class User_sec33_gr_3 {
      * These help track emotional wellbeing over time
      */
     public void addMoodStressEntry(MoodStressEntry_sec33_gr3 entry) {
+        long start = ADD_MOOD_TIME.start();
         if (entry != null) {
             moodStressEntries.add(entry);
+            recentMoods.add(entry);
+            publish(UserChangeEvent_sec33_gr3.MOOD_ADDED, entry, null, moodStressEntries.size() - 1);
         }
+        ADD_MOOD_TIME.stop(start);
     }
 
     /**
@@ -99,6 +699,27 @@ public class User_sec33_gr_3 {
      */
     public List<MoodStressEntry_sec33_gr3> getMoodStressEntries() { return moodStressEntries; }
 
+    /**
+     * Gets mood entries between two dates including archived ones, either date can be null for no limit
+     * Archived entries come first by date, then the in memory ones in the order they were logged
+     */
+    public List<MoodStressEntry_sec33_gr3> getMoodStressEntries(LocalDate from, LocalDate to) {
+        long start = MOODS_TIME.start();
+        List<MoodStressEntry_sec33_gr3> entries = archive == null ? new ArrayList<>() : archive.readMoods(from, to);
+        for (MoodStressEntry_sec33_gr3 entry : moodStressEntries) {
+            if ((from == null || !entry.getDate().isBefore(from)) && (to == null || !entry.getDate().isAfter(to))) {
+                entries.add(entry);
+            }
+        }
+        MOODS_TIME.stop(start);
+        return entries;
+    }
+
+    /**
+     * Gets the last RECENT_COUNT mood entries that were logged, oldest of them first
+     */
+    public List<MoodStressEntry_sec33_gr3> getRecentMoodEntries() { return recentMoods; }
+
     // Wellness goals management methods
 
     /**
@@ -106,9 +727,12 @@ public class User_sec33_gr_3 {
      * Goals help users stay motivated and track there progress over time
      */
     public void addGoal(WellnessGoal_sec33_gr3 goal) {
+        long start = ADD_GOAL_TIME.start();
         if (goal != null) {
             wellnessGoals.add(goal);
+            publish(UserChangeEvent_sec33_gr3.GOAL_ADDED, goal, null, wellnessGoals.size() - 1);
         }
+        ADD_GOAL_TIME.stop(start);
     }
 
     /**
@@ -122,45 +746,100 @@ public class User_sec33_gr_3 {
     /**
      * Calculates current streak of consecutive days with activities
      * Streaks are importent for building healthy habits and staying motivated
-     * Returns 0 if no recent activities or if streak was broken
+     * Returns 0 if no recent activities or if streak was broken, days before the archive cutoff are looked up in the archive
      */
     public int getCurrentStreak(String activityType) {
-        if (activities.isEmpty()) return 0;
-
+        long start = STREAK_TIME.start();
+        JfrEvents_sec33_gr3.StreakEvent event = new JfrEvents_sec33_gr3.StreakEvent();
+        event.begin();
         int streak = 0;
-        LocalDate currentDate = LocalDate.now();
+        if (!activities.isEmpty() || !templates.isEmpty() || (archive != null && archive.getArchivedCount() > 0)) {
+            LocalDate today = LocalDate.now();
+            LocalDate currentDate = today;
 
-        // Count backwards through days until we find a gap
-        while (hasActivityOnDate(currentDate, activityType)) {
-            streak++;
-            currentDate = currentDate.minusDays(1);
+            // Count backwards through days until we find a gap, a daily routine covers a whole run in one step
+            while (true) {
+                LocalDate runStart = templateRunStart(currentDate, activityType, today);
+                if (runStart != null) {
+                    streak += (int) (currentDate.toEpochDay() - runStart.toEpochDay()) + 1;
+                    currentDate = runStart.minusDays(1);
+                } else if (hasActivityOnDate(currentDate, activityType)) {
+                    streak++;
+                    currentDate = currentDate.minusDays(1);
+                } else {
+                    break;
+                }
+            }
         }
 
+        STREAK_TIME.stop(start);
+        event.end();
+        if (event.shouldCommit()) {
+            LocalDate today = LocalDate.now();
+            event.user = name;
+            event.activityType = activityType;
+            event.streak = streak;
+            event.daysScanned = activities.isEmpty() ? 0 : streak + 1; // every day of the streak plus the one that broke it
+            event.rowsScanned = activities.isEmpty() ? 0 : activities.between(today.minusDays(streak), today).size();
+            event.commit();
+        }
         return streak;
     }
 
+    /**
+     * Gets the earliest day a recurring activity of the type covers every day from up to date, or null if none happened on date
+     */
+    private LocalDate templateRunStart(LocalDate date, String activityType, LocalDate today) {
+        LocalDate earliest = null;
+        for (RecurringTemplate_sec33_gr3 template : templates) {
+            if (!template.getActivityType().equals(activityType)) continue;
+            LocalDate runStart = template.runStart(date, today);
+            if (runStart != null && (earliest == null || runStart.isBefore(earliest))) earliest = runStart;
+        }
+        return earliest;
+    }
+
     /**
      * Checks if user has any activity of specified type on a given date
      * Helper method for calculating streaks and analyzing patterns
+     * A day before the archive cutoff can have activities in both places, a back-dated one stays in memory until the next archiving
      */
     private boolean hasActivityOnDate(LocalDate date, String activityType) {
-        for (WellnessActivity_sec33_gr3 activity : activities) {
-            if (activity.getDate().equals(date) &&
-                activity.getActivityType().equals(activityType)) {
+        for (WellnessActivity_sec33_gr3 activity : activities.between(date, date)) {
+            if (activity.getActivityType().equals(activityType)) {
                 return true;
             }
         }
-        return false;
+        return archive != null && archive.hasActivityOn(date, activityType);
     }
 
     /**
-     * Creates a summary string representation of the user
+     * Writes a summary of the user into a StringBuilder
      * Shows basic profile info and counts of there data
-     * Usefull for displaying user information in the interface
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        long start = SUMMARY_TIME.start();
+        sb.append("User: ").append(name).append(" | Joined: ");
+        TextFormat_sec33_gr3.appendDate(sb, joinDate).append(" | Activities: ").append(activities.size());
+        if (!templates.isEmpty()) sb.append(" (+").append(templates.size()).append(" recurring)");
+        if (archive != null && archive.getArchivedCount() > 0) {
+            sb.append(" (+").append(archive.getArchivedCount()).append(" archived)");
+        }
+        sb.append(" | Goals: ").append(wellnessGoals.size())
+                .append(" | Mood Entries: ").append(moodStressEntries.size());
+        if (archive != null && archive.getArchivedMoodCount() > 0) {
+            sb.append(" (+").append(archive.getArchivedMoodCount()).append(" archived)");
+        }
+        SUMMARY_TIME.stop(start);
+        return sb;
+    }
+
+    /**
+     * Creates a summary string representation of the user
+     * Same text as appendTo(), usefull for displaying user information in the interface
      */
     @Override
     public String toString() {
-        return String.format("User: %s | Joined: %s | Activities: %d | Goals: %d | Mood Entries: %d",
-                name, joinDate, activities.size(), wellnessGoals.size(), moodStressEntries.size());
+        return appendTo(new StringBuilder(96)).toString();
     }
 }
@@ -0,0 +1,67 @@
+/**
+ * ValidationResult class - result codes returned by the exception-free validation methods
+ * Uses int constants instead of enum to keep things simple, same as GoalType_sec33_gr3
+ * Bulk loaders can check a code without paying for building an exception and its stack trace
+ */
+public class ValidationResult_sec33_gr3 {
+
+    /**
+     * Everything checked out, the object can be created
+     */
+    public static final int OK = 0;
+
+    /**
+     * Duration is outside the valid range for that activity type
+     */
+    public static final int INVALID_DURATION = 1;
+
+    /**
+     * Mood level is not between 1 and 10
+     */
+    public static final int INVALID_MOOD = 2;
+
+    /**
+     * Stress level is not between 1 and 10
+     */
+    public static final int INVALID_STRESS = 3;
+
+    /**
+     * Goal type is not one of the types from GoalType_sec33_gr3
+     */
+    public static final int INVALID_GOAL_TYPE = 4;
+
+    /**
+     * Goal target value is zero or negative
+     */
+    public static final int INVALID_TARGET = 5;
+
+    /**
+     * Checks if a result code means the validation passed
+     */
+    public static boolean isOk(int code) {
+        return code == OK;
+    }
+
+    /**
+     * Gets a message for a result code
+     * Uses the same wording as the exceptions thrown by the constructors and setters
+     */
+    public static String describe(int code) {
+        switch (code) {
+            case OK:
+                return "OK";
+            case INVALID_DURATION:
+                return "Invalid duration";
+            case INVALID_MOOD:
+                return "Mood level must be between 1 and 10";
+            case INVALID_STRESS:
+                return "Stress level must be between 1 and 10";
+            case INVALID_GOAL_TYPE:
+                return "Invalid goal type";
+            case INVALID_TARGET:
+                return "Target value must be positive";
+            default:
+                return "Unknown validation result: " + code;
+        }
+    }
+}
@@ -1,18 +1,26 @@
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract base class for all wellness activities in the system
  * Provides common functionality that all activities share like date and duration
  * Makes it easier to work with diferent types of activities using polymorphism
  */
-public abstract class WellnessActivity_sec33_gr3 {
+public abstract class WellnessActivity_sec33_gr3 implements Cloneable {
+
+    // Activity type indexes, for tables that have a slot per type like the goal metrics in GoalType_sec33_gr3
+    public static final int TYPE_SLEEP = 0;
+    public static final int TYPE_MEDITATION = 1;
+    public static final int TYPE_JOURNALING = 2;
+    public static final int TYPE_SCREEN_TIME = 3;
+    public static final int TYPE_COUNT = 4;
 
     // Common fields that every wellness activity needs to have
     protected int activityId; // unique ID for each activity - helps with tracking
     protected LocalDate date; // when the activity happened
     protected double duration; // how long it lasted in minutes
     protected String notes; // user's personal notes about the activity
-    protected static int nextId = 1; // counter for generating unique IDs automaticaly
+    protected static final AtomicInteger nextId = new AtomicInteger(1); // counter for generating unique IDs automaticaly, atomic so threads can share it
 
     /**
      * Constructor for creating new wellness activities
@@ -20,7 +28,7 @@ public abstract class WellnessActivity_sec33_gr3 {
      * Duration is in minutes to keep everything consistant across all activity types
      */
     public WellnessActivity_sec33_gr3(LocalDate date, double duration, String notes) {
-        this.activityId = nextId++; // gets next available ID and increments counter
+        this.activityId = nextId.getAndIncrement(); // gets next available ID and increments counter
         this.date = date;
         this.duration = duration;
         this.notes = notes != null ? notes : ""; // prevents null notes from causing problems
@@ -52,6 +60,22 @@ public abstract class WellnessActivity_sec33_gr3 {
      */
     public String getNotes() { return notes; }
 
+    /**
+     * Gives this activity a specific ID, used when loading exported data back in
+     * Moves the ID counter past it so new activities never get the same ID
+     */
+    void restoreId(int id) {
+        this.activityId = id;
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /**
+     * Gives this activity a brand new ID, used when the ID it came with is already taken
+     */
+    void assignNewId() {
+        this.activityId = nextId.getAndIncrement();
+    }
+
     // Setters for modifying activity data - includes validation where needed
 
     /**
@@ -68,10 +92,22 @@ public abstract class WellnessActivity_sec33_gr3 {
      * Each activity type has there own rules about valid durations
      */
     public void setDuration(double duration) throws InvalidActivityDurationException_sec33_gr_3 {
-        if (!isValidDuration(duration)) {
+        if (trySetDuration(duration) != ValidationResult_sec33_gr3.OK) {
             throw new InvalidActivityDurationException_sec33_gr_3("Invalid duration: " + duration + " minutes");
         }
+    }
+
+    /**
+     * Sets new duration without throwing anything
+     * Returns a code from ValidationResult_sec33_gr3 and leaves the duration alone if its invalid
+     * Used by bulk loads where lots of rows can be bad and exceptions would be to slow
+     */
+    public int trySetDuration(double duration) {
+        if (!isValidDuration(duration)) {
+            return ValidationResult_sec33_gr3.INVALID_DURATION;
+        }
         this.duration = duration;
+        return ValidationResult_sec33_gr3.OK;
     }
 
     // Abstract methods - each activity type must implement these diferently
@@ -82,6 +118,11 @@ public abstract class WellnessActivity_sec33_gr3 {
      */
     public abstract String getActivityType();
 
+    /**
+     * Gets the type as one of the TYPE_ constants, the same type getActivityType() names
+     */
+    public abstract int getActivityTypeIndex();
+
     /**
      * Calculates progress or quality score for this activity
      * Each activity type has there own way of measuring success
@@ -96,14 +137,69 @@ public abstract class WellnessActivity_sec33_gr3 {
      */
     public abstract boolean isValidDuration(double duration);
 
+    /**
+     * Makes a copy of this activity with all the same details on another date
+     * The copy gets its own new ID, used for duplicating and by recurring activities
+     */
+    public abstract WellnessActivity_sec33_gr3 copyOn(LocalDate date);
+
+    /**
+     * Gets the names of every field that can be changed after the activity is logged, duration and notes first
+     * They are the same names the menu gives to User_sec33_gr_3.activityUpdated(), dont change the array
+     */
+    public abstract String[] getFieldNames();
+
+    /**
+     * Gets the value of one field named in getFieldNames(), numbers and yes/no answers come back boxed
+     * Used by the change history, see FieldHistory_sec33_gr3
+     */
+    public Object getFieldValue(String field) {
+        switch (field) {
+            case "duration": return duration;
+            case "notes": return notes;
+            default: throw new IllegalArgumentException("Unknown " + getActivityType() + " field: " + field);
+        }
+    }
+
+    /**
+     * Makes an exact copy with the same ID, for keeping an old version around like the undo history does
+     * Every field is a number, a string or a date so a shallow copy cant share anything that changes
+     */
+    WellnessActivity_sec33_gr3 snapshot() {
+        try {
+            return (WellnessActivity_sec33_gr3) clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError(ex); // cant happen, this class is Cloneable
+        }
+    }
+
+    /**
+     * Checks if this activity meets a wellness goal
+     * How each activity type counts towards each goal type is set up in GoalType_sec33_gr3,
+     * false when this type doesnt count towards the goal at all
+     */
+    public boolean meetsGoal(WellnessGoal_sec33_gr3 goal) {
+        return GoalType_sec33_gr3.meetsGoal(this, goal);
+    }
+
+    /**
+     * Writes the readable form of the activity into a StringBuilder
+     * Shows the basic info that all activities share, subclasses add there own details after it
+     * Reports call this directly so they dont need a new String for every activity
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("ID: ").append(activityId).append(" | ").append(getActivityType()).append(" | Date: ");
+        TextFormat_sec33_gr3.appendDate(sb, date).append(" | Duration: ");
+        TextFormat_sec33_gr3.appendFixed1(sb, duration).append(" min | Notes: ");
+        return sb.append(notes.isEmpty() ? "None" : notes);
+    }
+
     /**
      * Creates a nice string representation of the activity
-     * Shows the basic info that all activities share in a readable format
-     * Subclasses can add there own specific details to this
+     * Same text as appendTo(), including the details each subclass adds
      */
     @Override
     public String toString() {
-        return String.format("ID: %d | %s | Date: %s | Duration: %.1f min | Notes: %s",
-                activityId, getActivityType(), date, duration, notes.isEmpty() ? "None" : notes);
+        return appendTo(new StringBuilder(160)).toString();
     }
 }
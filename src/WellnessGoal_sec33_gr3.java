@@ -1,19 +1,24 @@
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * WellnessGoal class - represents a wellness goal that users want to achieve
  * Tracks progress towards targets like sleep hours, meditation minutes, etc.
  * Helps users stay motivated and measure there improvement over time
  */
-public class WellnessGoal_sec33_gr3 {
+public class WellnessGoal_sec33_gr3 implements Cloneable {
 
     // Goal data fields for tracking progress and targets
+    private final int goalId; // unique ID for each goal, kept by copies so the change history can find them again
     private String goalType; // what kind of goal this is (from GoalType_sec33_gr3 constants)
+    private int goalTypeId; // the same type as its GoalType_sec33_gr3 id, so checks dont compare strings
     private double targetValue; // the target they want to reach
     private double currentProgress; // how much progress they've made so far
     private LocalDate startDate; // when they started working on this goal
     private LocalDate endDate; // when they want to achieve it by
     private String description; // user's personal description of the goal
+    private static final AtomicInteger nextId = new AtomicInteger(1); // same as the activity IDs, just for goals
+    private static final String[] FIELDS = {"targetValue", "currentProgress", "description"}; // what getFieldNames() gives back
 
     /**
      * Constructor for creating a new wellness goal
@@ -22,14 +27,17 @@ public class WellnessGoal_sec33_gr3 {
      */
     public WellnessGoal_sec33_gr3(String goalType, double targetValue, LocalDate startDate,
                        LocalDate endDate, String description) {
-        if (!GoalType_sec33_gr3.isValidGoalType(goalType)) {
+        int code = validate(goalType, targetValue);
+        if (code == ValidationResult_sec33_gr3.INVALID_GOAL_TYPE) {
             throw new IllegalArgumentException("Invalid goal type: " + goalType);
         }
-        if (targetValue <= 0) {
-            throw new IllegalArgumentException("Target value must be positive");
+        if (code != ValidationResult_sec33_gr3.OK) {
+            throw new IllegalArgumentException(ValidationResult_sec33_gr3.describe(code));
         }
 
+        this.goalId = nextId.getAndIncrement();
         this.goalType = goalType;
+        this.goalTypeId = GoalType_sec33_gr3.idOf(goalType);
         this.targetValue = targetValue;
         this.currentProgress = 0.0; // starts at zero obviously
         this.startDate = startDate;
@@ -37,14 +45,51 @@ public class WellnessGoal_sec33_gr3 {
         this.description = description != null ? description : "";
     }
 
+    /**
+     * Checks goal type and target without throwing exceptions
+     * Returns a code from ValidationResult_sec33_gr3, the constructor just wraps this
+     */
+    public static int validate(String goalType, double targetValue) {
+        if (!GoalType_sec33_gr3.isValidGoalType(goalType)) {
+            return ValidationResult_sec33_gr3.INVALID_GOAL_TYPE;
+        }
+        if (targetValue <= 0) {
+            return ValidationResult_sec33_gr3.INVALID_TARGET;
+        }
+        return ValidationResult_sec33_gr3.OK;
+    }
+
+    /**
+     * Creates a goal only if the type and target are valid
+     * Returns null instead of throwing so bulk loads dont pay for stack traces
+     */
+    public static WellnessGoal_sec33_gr3 tryCreate(String goalType, double targetValue, LocalDate startDate,
+                                                   LocalDate endDate, String description) {
+        if (validate(goalType, targetValue) != ValidationResult_sec33_gr3.OK) {
+            return null;
+        }
+        return new WellnessGoal_sec33_gr3(goalType, targetValue, startDate, endDate, description);
+    }
+
     // Getters for accessing goal information
 
+    /**
+     * Gets the unique ID of this goal
+     * Not exported, a goal loaded from a file gets a new one
+     */
+    public int getGoalId() { return goalId; }
+
     /**
      * Gets the type of goal this is
      * Should match one of the valid goal types from GoalType_sec33_gr3 class
      */
     public String getGoalType() { return goalType; }
 
+    /**
+     * Gets the goal type's id from GoalType_sec33_gr3
+     */
+    public int getGoalTypeId() { return goalTypeId; }
+
     /**
      * Gets the target value user wants to achieve
      * Higher numbers are usually better except for screen time goals
@@ -75,6 +120,36 @@ public class WellnessGoal_sec33_gr3 {
      */
     public String getDescription() { return description; }
 
+    /**
+     * Gets the names of the fields that can change after the goal is added, the same names
+     * the menu gives to User_sec33_gr_3.goalUpdated(), dont change the array
+     */
+    public String[] getFieldNames() { return FIELDS; }
+
+    /**
+     * Gets the value of one field named in getFieldNames(), numbers come back boxed
+     * Used by the change history, see FieldHistory_sec33_gr3
+     */
+    public Object getFieldValue(String field) {
+        switch (field) {
+            case "targetValue": return targetValue;
+            case "currentProgress": return currentProgress;
+            case "description": return description;
+            default: throw new IllegalArgumentException("Unknown goal field: " + field);
+        }
+    }
+
+    /**
+     * Makes an exact copy, for keeping an old version around like the undo history does
+     */
+    WellnessGoal_sec33_gr3 snapshot() {
+        try {
+            return (WellnessGoal_sec33_gr3) clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError(ex); // cant happen, this class is Cloneable
+        }
+    }
+
     // Setters for modifying goal data
 
     /**
@@ -109,10 +184,10 @@ public class WellnessGoal_sec33_gr3 {
     /**
      * Checks if the goal has been completed
      * Returns true if current progress meets or exceeds the target
-     * Screen time goals work backwards - lower is better for those
+     * Limit goals like screen time work backwards - lower is better for those
      */
     public boolean isCompleted() {
-        if (goalType.equals(GoalType_sec33_gr3.SCREEN_TIME_LIMIT)) {
+        if (GoalType_sec33_gr3.isLowerBetter(goalTypeId)) {
             return currentProgress <= targetValue; // opposite for screen time
         }
         return currentProgress >= targetValue; // normal goals
@@ -130,15 +205,25 @@ public class WellnessGoal_sec33_gr3 {
 
 
     /**
-     * Creates a nice string representation of the goal
+     * Writes a nice representation of the goal into a StringBuilder
      * Shows goal type, progress, target, and completion status
-     * Usefull for displaying goals in lists and reports
+     * Reports call this directly so they dont need a new String for every goal
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append(goalType).append(": ");
+        TextFormat_sec33_gr3.appendFixed1(sb, currentProgress).append('/');
+        TextFormat_sec33_gr3.appendFixed1(sb, targetValue).append(" (");
+        TextFormat_sec33_gr3.appendFixed1(sb, getProgressPercentage()).append("%) - ")
+                .append(isCompleted() ? "✓ Completed" : "In Progress").append(" | ");
+        return sb.append(description.isEmpty() ? "No description" : description);
+    }
+
+    /**
+     * Creates a nice string representation of the goal
+     * Same text as appendTo(), usefull for displaying goals in lists
      */
     @Override
     public String toString() {
-        return String.format("%s: %.1f/%.1f (%.1f%%) - %s | %s",
-                goalType, currentProgress, targetValue, getProgressPercentage(),
-                isCompleted() ? "✓ Completed" : "In Progress",
-                description.isEmpty() ? "No description" : description);
+        return appendTo(new StringBuilder(96)).toString();
     }
 }
\ No newline at end of file